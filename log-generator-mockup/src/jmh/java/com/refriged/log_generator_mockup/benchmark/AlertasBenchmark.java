@@ -0,0 +1,69 @@
+package com.refriged.log_generator_mockup.benchmark;
+
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.service.RabbitMQProducerService;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertasBenchmark {
+
+    @Param({"NORMAL", "CRITICO"})
+    private String cenario;
+
+    private ContextoBenchmark contexto;
+    private RabbitMQProducerService producerService;
+    private SistemaRefrigeracao sistema;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = new ContextoBenchmark();
+        producerService = contexto.producerService();
+
+        boolean critico = "CRITICO".equals(cenario);
+        sistema = SistemaRefrigeracao.builder()
+                .sistemaId("SYS-001")
+                .nomeSistema("Motor Chiller de Imersão 1")
+                .localizacao("Casa de Máquinas - Painel 1")
+                .timestamp(LocalDateTime.now())
+                .temperatura(critico ? 2.5 : -18.0)
+                .pressao(critico ? 21.0 : 8.0)
+                .umidade(60.0)
+                .status(critico ? StatusSistema.CRITICO : StatusSistema.OPERACIONAL)
+                .consumoEnergia(critico ? 45.0 : 20.0)
+                .velocidadeCompressor(2200.0)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public long verificarEEnviarAlertas() {
+        producerService.verificarEEnviarAlertas(sistema);
+        return contexto.rabbitTemplate().bytesEnviados();
+    }
+}
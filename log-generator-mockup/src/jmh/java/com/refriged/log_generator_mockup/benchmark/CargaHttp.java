@@ -0,0 +1,118 @@
+package com.refriged.log_generator_mockup.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teste de carga em malha fechada: cada cliente virtual envia um POST, espera a resposta
+ * e envia o próximo, durante o tempo pedido. Latências em buckets de 100 µs até 60 s.
+ * <p>
+ * Uso: {@code CargaHttp <url> <clientes> <segundos> [aquecimentoSegundos]}, com {@code {id}}
+ * na URL substituído por {@code SYS-n} de cada cliente.
+ */
+public final class CargaHttp {
+
+    private static final long RESOLUCAO_NANOS = 100_000;
+    private static final int BUCKETS = 600_000;
+
+    private final AtomicLongArray histograma = new AtomicLongArray(BUCKETS);
+    private final LongAdder respostas = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    private volatile boolean medindo;
+    private volatile long fimNanos;
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Uso: CargaHttp <url> <clientes> <segundos> [aquecimentoSegundos]");
+            System.exit(1);
+        }
+        String url = args[0];
+        int clientes = Integer.parseInt(args[1]);
+        int segundos = Integer.parseInt(args[2]);
+        int aquecimento = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        new CargaHttp().executar(url, clientes, segundos, aquecimento);
+    }
+
+    private void executar(String url, int clientes, int segundos, int aquecimento) throws InterruptedException {
+        long inicio = System.nanoTime();
+        fimNanos = inicio + TimeUnit.SECONDS.toNanos(aquecimento + segundos);
+        CountDownLatch terminados = new CountDownLatch(clientes);
+
+        for (int i = 1; i <= clientes; i++) {
+            HttpRequest requisicao = HttpRequest.newBuilder(URI.create(url.replace("{id}", "SYS-" + i)))
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            enviar(requisicao, terminados);
+        }
+
+        TimeUnit.SECONDS.sleep(aquecimento);
+        medindo = true;
+        terminados.await();
+        imprimir(url, clientes, segundos);
+    }
+
+    private void enviar(HttpRequest requisicao, CountDownLatch terminados) {
+        if (System.nanoTime() >= fimNanos) {
+            terminados.countDown();
+            return;
+        }
+        long inicio = System.nanoTime();
+        cliente.sendAsync(requisicao, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((resposta, erro) -> {
+                    if (medindo) {
+                        registrar(System.nanoTime() - inicio, erro == null && resposta.statusCode() < 400);
+                    }
+                    enviar(requisicao, terminados);
+                });
+    }
+
+    private void registrar(long nanos, boolean sucesso) {
+        histograma.incrementAndGet((int) Math.min(BUCKETS - 1, nanos / RESOLUCAO_NANOS));
+        respostas.increment();
+        if (!sucesso) {
+            erros.increment();
+        }
+    }
+
+    private void imprimir(String url, int clientes, int segundos) {
+        long total = respostas.sum();
+        System.out.printf("url=%s clientes=%d duracao=%ds java=%s%n", url, clientes, segundos,
+                Runtime.version());
+        System.out.printf("respostas=%d erros=%d vazao=%.1f req/s%n", total, erros.sum(), (double) total / segundos);
+        for (double percentil : new double[]{0.50, 0.90, 0.99, 0.999}) {
+            System.out.printf("p%s=%.1f ms%n", formatar(percentil * 100), percentilMillis(percentil, total));
+        }
+        System.out.printf("max=%.1f ms%n", percentilMillis(1.0, total));
+    }
+
+    private double percentilMillis(double percentil, long total) {
+        long alvo = (long) Math.ceil(percentil * total);
+        long acumulado = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            acumulado += histograma.get(b);
+            if (acumulado >= alvo && acumulado > 0) {
+                return (b + 1) * RESOLUCAO_NANOS / 1_000_000.0;
+            }
+        }
+        return 0;
+    }
+
+    private static String formatar(double valor) {
+        return valor == Math.rint(valor) ? String.valueOf((long) valor) : String.valueOf(valor);
+    }
+}
@@ -0,0 +1,111 @@
+package com.refriged.log_generator_mockup.benchmark;
+
+import com.refriged.log_generator_mockup.config.AlertasProperties;
+import com.refriged.log_generator_mockup.config.CenariosProperties;
+import com.refriged.log_generator_mockup.config.PublicacaoProperties;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.ConversorMensagens;
+import com.refriged.log_generator_mockup.converter.SerializadorJson;
+import com.refriged.log_generator_mockup.service.CacheLeituras;
+import com.refriged.log_generator_mockup.service.ControleVazaoPublicacao;
+import com.refriged.log_generator_mockup.service.DeduplicadorAlertas;
+import com.refriged.log_generator_mockup.service.EmpacotadorEnvelope;
+import com.refriged.log_generator_mockup.service.EstadoSensores;
+import com.refriged.log_generator_mockup.service.GravadorPublicacoes;
+import com.refriged.log_generator_mockup.service.InjetorFalhas;
+import com.refriged.log_generator_mockup.service.MetricasRefrigeracao;
+import com.refriged.log_generator_mockup.service.MotorRegrasAlerta;
+import com.refriged.log_generator_mockup.service.ParticionamentoSistemas;
+import com.refriged.log_generator_mockup.service.RabbitMQBatchPublisher;
+import com.refriged.log_generator_mockup.service.RabbitMQProducerService;
+import com.refriged.log_generator_mockup.service.RefrigeracaoDataService;
+import com.refriged.log_generator_mockup.service.RoteamentoParticoes;
+import com.refriged.log_generator_mockup.service.SpoolPublicacao;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Contexto Spring mínimo com os serviços reais e um {@link RabbitTemplate} que
+ * converte as mensagens normalmente mas não fala com o broker.
+ */
+final class ContextoBenchmark implements AutoCloseable {
+
+    private final AnnotationConfigApplicationContext contexto = new AnnotationConfigApplicationContext();
+
+    ContextoBenchmark() {
+        this(new PublicacaoProperties());
+    }
+
+    ContextoBenchmark(PublicacaoProperties publicacaoProperties) {
+        contexto.registerBean(RabbitTemplate.class, RabbitTemplateStub::new);
+        contexto.registerBean(ContentTypeDelegatingMessageConverter.class, () -> new RabbitMQConfig().messageConverter());
+        contexto.registerBean(PublicacaoProperties.class, () -> publicacaoProperties);
+        contexto.registerBean(AlertasProperties.class, AlertasProperties::new);
+        contexto.registerBean(CenariosProperties.class, CenariosProperties::new);
+        contexto.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        // Sem controle de vazão: mede o caminho de publicação sem limite de taxa nem consultas ao broker
+        contexto.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("app.refrigeracao.publicacao.controle-vazao.habilitado", "false")));
+        contexto.register(MetricasRefrigeracao.class, GravadorPublicacoes.class, EstadoSensores.class, ParticionamentoSistemas.class,
+                CacheLeituras.class, InjetorFalhas.class, RefrigeracaoDataService.class, RoteamentoParticoes.class, SerializadorJson.class, ConversorMensagens.class,
+                ControleVazaoPublicacao.class, SpoolPublicacao.class, RabbitMQBatchPublisher.class, EmpacotadorEnvelope.class,
+                MotorRegrasAlerta.class, DeduplicadorAlertas.class,
+                RabbitMQProducerService.class);
+        contexto.refresh();
+    }
+
+    RefrigeracaoDataService dataService() {
+        return contexto.getBean(RefrigeracaoDataService.class);
+    }
+
+    RabbitMQProducerService producerService() {
+        return contexto.getBean(RabbitMQProducerService.class);
+    }
+
+    SerializadorJson serializadorJson() {
+        return contexto.getBean(SerializadorJson.class);
+    }
+
+    ConversorMensagens conversorMensagens() {
+        return contexto.getBean(ConversorMensagens.class);
+    }
+
+    RabbitTemplateStub rabbitTemplate() {
+        return (RabbitTemplateStub) contexto.getBean(RabbitTemplate.class);
+    }
+
+    @Override
+    public void close() {
+        contexto.close();
+    }
+
+    static final class RabbitTemplateStub extends RabbitTemplate {
+
+        private long bytesEnviados;
+
+        RabbitTemplateStub() {
+            // A conexão é preguiçosa e nunca chega a ser aberta
+            super(new CachingConnectionFactory("localhost"));
+            setMessageConverter(new RabbitMQConfig().messageConverter());
+        }
+
+        @Override
+        public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+            bytesEnviados += message.getBody().length;
+        }
+
+        long bytesEnviados() {
+            return bytesEnviados;
+        }
+    }
+}
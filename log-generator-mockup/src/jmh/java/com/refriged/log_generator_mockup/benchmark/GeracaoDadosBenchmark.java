@@ -0,0 +1,79 @@
+package com.refriged.log_generator_mockup.benchmark;
+
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.service.RefrigeracaoDataService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeracaoDadosBenchmark {
+
+    private static final int SISTEMAS_ROTACIONADOS = 10_000;
+
+    private ContextoBenchmark contexto;
+    private RefrigeracaoDataService dataService;
+    private LeituraRefrigeracao leitura;
+    private int proximo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        contexto = new ContextoBenchmark();
+        dataService = contexto.dataService();
+        leitura = new LeituraRefrigeracao();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public SistemaRefrigeracao gerarDadosSistema() {
+        return dataService.gerarDadosSistema(RefrigeracaoDataService.idSistema(proximoSistema()));
+    }
+
+    @Benchmark
+    public LeituraRefrigeracao gerarLeitura() {
+        int numero = proximoSistema();
+        dataService.gerarLeitura(numero - 1, RefrigeracaoDataService.idSistema(numero), leitura);
+        return leitura;
+    }
+
+    @Benchmark
+    public List<SistemaRefrigeracao> gerarDadosMultiplosSistemas(Lote lote) {
+        return dataService.gerarDadosMultiplosSistemas(lote.quantidade);
+    }
+
+    private int proximoSistema() {
+        proximo = proximo == SISTEMAS_ROTACIONADOS ? 1 : proximo + 1;
+        return proximo;
+    }
+
+    @State(Scope.Thread)
+    public static class Lote {
+
+        @Param({"5", "50", "1000"})
+        private int quantidade;
+    }
+}
@@ -0,0 +1,110 @@
+package com.refriged.log_generator_mockup.benchmark;
+
+import com.refriged.log_generator_mockup.config.PublicacaoProperties;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.ConversorMensagens;
+import com.refriged.log_generator_mockup.converter.LeituraSerializada;
+import com.refriged.log_generator_mockup.converter.SerializadorJson;
+import com.refriged.log_generator_mockup.model.DetalhesLog;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.service.RabbitMQProducerService;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+import com.refriged.log_generator_mockup.utils.enums.NivelLog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    private ContextoBenchmark contexto;
+    private MessageConverter converter;
+    private ConversorMensagens conversorMensagens;
+    private SerializadorJson serializadorJson;
+    private RabbitMQProducerService producerService;
+    private SistemaRefrigeracao sistema;
+    private LeituraRefrigeracao leitura;
+    private DetalhesLog detalhes;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        // refrigeracao.dados em binário; demais routing keys em JSON
+        PublicacaoProperties publicacaoProperties = new PublicacaoProperties();
+        publicacaoProperties.getFormatos().put(RabbitMQConfig.ROUTING_KEY_DADOS, FormatoMensagem.BINARIO);
+        contexto = new ContextoBenchmark(publicacaoProperties);
+        converter = contexto.rabbitTemplate().getMessageConverter();
+        conversorMensagens = contexto.conversorMensagens();
+        serializadorJson = contexto.serializadorJson();
+        producerService = contexto.producerService();
+
+        leitura = new LeituraRefrigeracao();
+        contexto.dataService().gerarLeitura(0, "SYS-001", leitura);
+        sistema = leitura.paraSistemaRefrigeracao();
+
+        // Mesmos detalhes montados em RefrigeracaoController.gerarDadosELogs
+        detalhes = DetalhesLog.leitura("gerarDadosELogs", sistema);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Message serializarSistemaRefrigeracao() {
+        return converter.toMessage(sistema, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message serializarLeitura() {
+        return converter.toMessage(leitura, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message serializarLeituraBinario() {
+        return conversorMensagens.converter(RabbitMQConfig.ROUTING_KEY_DADOS, leitura);
+    }
+
+    @Benchmark
+    public long enviarLog() {
+        producerService.enviarLog(sistema.getSistemaId(), NivelLog.INFO, "Dados do sistema gerados com sucesso", detalhes);
+        return contexto.rabbitTemplate().bytesEnviados();
+    }
+
+    @Benchmark
+    public long enviarLogComLeituraSerializada() {
+        // Caminho de gerarDadosELogs: o JSON da leitura vai para a fila de dados, os detalhes para os logs
+        LeituraSerializada serializada = serializadorJson.serializar(sistema);
+        int dados = serializada.json().length;
+        producerService.enviarLog(sistema.getSistemaId(), NivelLog.INFO, "Dados do sistema gerados com sucesso",
+                serializada.detalhes("gerarDadosELogs"));
+        return dados + contexto.rabbitTemplate().bytesEnviados();
+    }
+
+    @Benchmark
+    public long enviarAlerta() {
+        producerService.enviarAlerta(sistema, "TEMPERATURA_CRITICA", "Temperatura fora do range seguro", "HIGH");
+        return contexto.rabbitTemplate().bytesEnviados();
+    }
+}
@@ -0,0 +1,114 @@
+package com.refriged.log_generator_mockup.config;
+
+import com.refriged.log_generator_mockup.utils.enums.CampoLeitura;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.refrigeracao.alertas")
+public class AlertasProperties {
+
+    private double temperaturaCriticaMin = -30.0;
+    private double temperaturaCriticaMax = 0.0;
+    private double pressaoCriticaMin = 0.5;
+    private double pressaoCriticaMax = 20.0;
+    private double consumoElevadoThreshold = 40.0;
+
+    /**
+     * Regras de alerta. Quando vazia, as regras são derivadas dos limites acima.
+     */
+    private List<Regra> regras = new ArrayList<>();
+
+    /**
+     * Ajustes por sistemaId: regras com o mesmo tipo substituem os campos informados,
+     * tipos novos são acrescentados.
+     */
+    private Map<String, List<Regra>> sobrescritas = new HashMap<>();
+
+    /**
+     * Arquivo YAML opcional, com o mesmo prefixo, recarregado quando modificado.
+     */
+    private String arquivoRegras;
+
+    private long intervaloRecargaMs = 5000;
+
+    private Deduplicacao deduplicacao = new Deduplicacao();
+
+    public List<Regra> regrasEfetivas() {
+        if (!regras.isEmpty()) {
+            return regras;
+        }
+        return List.of(
+                Regra.faixa("TEMPERATURA_CRITICA", CampoLeitura.TEMPERATURA, temperaturaCriticaMin, temperaturaCriticaMax,
+                        1.0, "HIGH", "Temperatura fora do range seguro: %.2f°C"),
+                Regra.faixa("PRESSAO_CRITICA", CampoLeitura.PRESSAO, pressaoCriticaMin, pressaoCriticaMax,
+                        0.25, "HIGH", "Pressão fora do range seguro: %.2f Bar"),
+                Regra.status("STATUS_CRITICO", StatusSistema.CRITICO, "CRITICAL", "Sistema em estado crítico: %s"),
+                Regra.status("SISTEMA_PARADO", StatusSistema.PARADO, "HIGH", "Sistema parado: %s"),
+                Regra.status("SISTEMA_ALERTA", StatusSistema.ALERTA, "MEDIUM", "Sistema em alerta: %s"),
+                Regra.faixa("CONSUMO_ELEVADO", CampoLeitura.CONSUMO_ENERGIA, null, consumoElevadoThreshold,
+                        2.0, "MEDIUM", "Consumo de energia elevado: %.2f kWh"));
+    }
+
+    /**
+     * Regra de faixa (dispara fora de [minimo, maximo]) ou de status (dispara nos status listados).
+     * A descrição é um padrão de {@link String#format} que recebe o valor do campo, verificado
+     * ao compilar as regras. Severidades HIGH e CRITICAL abrem o alerta em ERROR, as demais em WARN.
+     * Um alerta de faixa aberto só é resolvido quando o valor volta para
+     * [minimo + histerese, maximo - histerese].
+     */
+    @Data
+    public static class Regra {
+        private String tipo;
+        private CampoLeitura campo;
+        private Double minimo;
+        private Double maximo;
+        private Double histerese;
+        private List<StatusSistema> status;
+        private String severidade;
+        private String descricao;
+        private Boolean habilitada;
+
+        static Regra faixa(String tipo, CampoLeitura campo, Double minimo, Double maximo, Double histerese,
+                           String severidade, String descricao) {
+            Regra regra = new Regra();
+            regra.tipo = tipo;
+            regra.campo = campo;
+            regra.minimo = minimo;
+            regra.maximo = maximo;
+            regra.histerese = histerese;
+            regra.severidade = severidade;
+            regra.descricao = descricao;
+            return regra;
+        }
+
+        static Regra status(String tipo, StatusSistema status, String severidade, String descricao) {
+            Regra regra = new Regra();
+            regra.tipo = tipo;
+            regra.campo = CampoLeitura.STATUS;
+            regra.status = List.of(status);
+            regra.severidade = severidade;
+            regra.descricao = descricao;
+            return regra;
+        }
+    }
+
+    /**
+     * Publicação por transição: um alerta é publicado ao abrir, como lembrete enquanto
+     * continuar aberto e ao ser resolvido, após ficar limpo durante o cooldown.
+     */
+    @Data
+    public static class Deduplicacao {
+        private boolean habilitada = true;
+        private long cooldownSegundos = 60;
+        private long lembreteSegundos = 300;
+        private long ociosidadeSegundos = 900;
+    }
+}
@@ -0,0 +1,39 @@
+package com.refriged.log_generator_mockup.config;
+
+import com.refriged.log_generator_mockup.utils.enums.TipoFalha;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.refrigeracao.cenarios")
+public class CenariosProperties {
+
+    /**
+     * Cenários de falha disponíveis, iniciados pelo nome via API.
+     */
+    private List<Cenario> definicoes = new ArrayList<>();
+
+    /**
+     * Falha aplicada aos sistemas listados ou, sem lista, à fração da frota escolhida
+     * pela semente. A rampa é o tempo até a falha atingir a intensidade total (na
+     * cascata, o intervalo em que os sistemas vão parando).
+     */
+    @Data
+    public static class Cenario {
+        private String nome;
+        private TipoFalha tipo;
+        private List<String> sistemas = new ArrayList<>();
+        private double fracao = 0.01;
+        private double intensidade = 1.0;
+        private long rampaSegundos = 300;
+        // 0 mantém o cenário até ser parado
+        private long duracaoSegundos;
+        private long semente = 1;
+        // Modo determinístico: início no relógio lógico, em segundos após inicio-epoch-ms
+        private long inicioLogicoSegundos;
+    }
+}
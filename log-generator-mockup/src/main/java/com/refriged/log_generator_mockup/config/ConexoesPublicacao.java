@@ -0,0 +1,66 @@
+package com.refriged.log_generator_mockup.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.AbstractRoutingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexões exclusivas de publicação, distribuídas entre as threads produtoras: cada thread
+ * recebe uma conexão na primeira publicação e fica nela, de modo que os canais de faixas
+ * diferentes não disputam o mesmo socket. Não é exposto como {@link ConnectionFactory} para
+ * não substituir a conexão do Spring Boot usada por listeners e pelo RabbitAdmin.
+ */
+@Slf4j
+public class ConexoesPublicacao implements DisposableBean {
+
+    private final List<CachingConnectionFactory> conexoes;
+    private final Faixas faixas;
+
+    public ConexoesPublicacao(List<CachingConnectionFactory> conexoes) {
+        if (conexoes.isEmpty()) {
+            throw new IllegalArgumentException("Ao menos uma conexão de publicação é necessária");
+        }
+        this.conexoes = List.copyOf(conexoes);
+        this.faixas = new Faixas(this.conexoes);
+        log.info("{} conexões de publicação distribuídas entre as threads produtoras", conexoes.size());
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return faixas;
+    }
+
+    @Override
+    public void destroy() {
+        for (CachingConnectionFactory conexao : conexoes) {
+            conexao.destroy();
+        }
+    }
+
+    private static final class Faixas extends AbstractRoutingConnectionFactory {
+
+        private final AtomicInteger proxima = new AtomicInteger();
+        private final ThreadLocal<Integer> faixaDaThread;
+
+        private Faixas(List<CachingConnectionFactory> conexoes) {
+            Map<Object, ConnectionFactory> alvos = new HashMap<>();
+            for (int i = 0; i < conexoes.size(); i++) {
+                alvos.put(i, conexoes.get(i));
+            }
+            setTargetConnectionFactories(alvos);
+            setDefaultTargetConnectionFactory(conexoes.get(0));
+            faixaDaThread = ThreadLocal.withInitial(() -> Math.floorMod(proxima.getAndIncrement(), conexoes.size()));
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return faixaDaThread.get();
+        }
+    }
+}
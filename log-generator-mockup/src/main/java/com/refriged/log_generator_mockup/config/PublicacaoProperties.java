@@ -0,0 +1,76 @@
+package com.refriged.log_generator_mockup.config;
+
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+import com.refriged.log_generator_mockup.utils.enums.ModoParticionamento;
+import com.refriged.log_generator_mockup.utils.enums.TipoFila;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.refrigeracao.publicacao")
+public class PublicacaoProperties {
+
+    private static final Particoes SEM_PARTICOES = new Particoes();
+
+    /**
+     * Formato do corpo por routing key. Routing keys ausentes usam JSON.
+     */
+    private Map<String, FormatoMensagem> formatos = new HashMap<>();
+
+    /**
+     * Filas por routing key. Routing keys ausentes usam uma única fila clássica.
+     */
+    private Map<String, Particoes> particoes = new HashMap<>();
+
+    /**
+     * Conexões usadas pelo RabbitTemplate; o padrão compartilha a conexão do Spring Boot.
+     */
+    private Conexao conexao = new Conexao();
+
+    public FormatoMensagem formatoPara(String routingKey) {
+        return formatos.getOrDefault(routingKey, FormatoMensagem.JSON);
+    }
+
+    public Particoes particoesPara(String routingKey) {
+        return particoes.getOrDefault(routingKey, SEM_PARTICOES);
+    }
+
+    @Data
+    public static class Conexao {
+
+        /**
+         * Publica numa conexão própria, separada da usada por listeners e pelo RabbitAdmin.
+         */
+        private boolean dedicada = false;
+
+        /**
+         * Com mais de uma, cada thread produtora fica presa a uma das conexões de publicação.
+         */
+        private int quantidade = 1;
+    }
+
+    @Data
+    public static class Particoes {
+
+        /**
+         * Número de filas; cada sistema fica sempre na mesma fila.
+         */
+        private int quantidade = 1;
+
+        /**
+         * ROUTING_KEY: a partição entra na routing key ({@code refrigeracao.dados.3}).
+         * HASH_CONSISTENTE: exchange x-consistent-hash (plugin do broker) com hash do sistema.
+         */
+        private ModoParticionamento modo = ModoParticionamento.ROUTING_KEY;
+
+        private TipoFila tipoFila = TipoFila.CLASSICA;
+
+        public boolean isParticionada() {
+            return quantidade > 1;
+        }
+    }
+}
@@ -1,22 +1,44 @@
 package com.refriged.log_generator_mockup.config;
 
+import com.refriged.log_generator_mockup.converter.EnvelopeLeiturasMessageConverter;
+import com.refriged.log_generator_mockup.converter.TelemetriaBinariaMessageConverter;
+import com.refriged.log_generator_mockup.utils.enums.ModoParticionamento;
+import com.refriged.log_generator_mockup.utils.enums.TipoFila;
+
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.RabbitConnectionFactoryBean;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.CachingConnectionFactoryConfigurer;
+import org.springframework.boot.autoconfigure.amqp.RabbitConnectionFactoryBeanConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Configuration
+@EnableConfigurationProperties({PublicacaoProperties.class, AlertasProperties.class, CenariosProperties.class})
 public class RabbitMQConfig {
 
     public static final String FILA_DADOS_REFRIGERACAO = "refrigeracao.dados";
     public static final String FILA_LOGS_SISTEMA = "refrigeracao.logs";
     public static final String FILA_ALERTAS = "refrigeracao.alertas";
+    public static final String FILA_AGREGADOS = "refrigeracao.agregados";
     public static final String FILA_DLQ = "refrigeracao.dlq";
 
     public static final String EXCHANGE_REFRIGERACAO = "refrigeracao.exchange";
@@ -24,6 +46,17 @@ public class RabbitMQConfig {
     public static final String ROUTING_KEY_DADOS = "refrigeracao.dados";
     public static final String ROUTING_KEY_LOGS = "refrigeracao.logs";
     public static final String ROUTING_KEY_ALERTAS = "refrigeracao.alertas";
+    public static final String ROUTING_KEY_AGREGADOS = "refrigeracao.agregados";
+
+    public static final List<String> ROUTING_KEYS =
+            List.of(ROUTING_KEY_DADOS, ROUTING_KEY_LOGS, ROUTING_KEY_ALERTAS, ROUTING_KEY_AGREGADOS);
+
+    // Sistema de origem da mensagem, usado para escolher a partição
+    public static final String HEADER_SISTEMA = "x-sistema-id";
+
+    private static final String SUFIXO_EXCHANGE_HASH = ".hash";
+    private static final String TIPO_EXCHANGE_HASH = "x-consistent-hash";
+    private static final String PESO_FILA_HASH = "1";
 
     @Value("${spring.rabbitmq.host:localhost}")
     private String rabbitmqHost;
@@ -37,53 +70,78 @@ public class RabbitMQConfig {
     @Value("${spring.rabbitmq.password:guest}")
     private String rabbitmqPassword;
 
+    @Value("${spring.rabbitmq.template.mandatory:false}")
+    private boolean mandatory;
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
-        RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(jsonMessageConverter());
-        return template;
+    public TelemetriaBinariaMessageConverter telemetriaBinariaMessageConverter() {
+        return new TelemetriaBinariaMessageConverter();
     }
 
     @Bean
-    public TopicExchange refrigeracaoExchange() {
-        return ExchangeBuilder
-                .topicExchange(EXCHANGE_REFRIGERACAO)
-                .durable(true)
-                .build();
+    @Primary
+    public ContentTypeDelegatingMessageConverter messageConverter() {
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter(jsonMessageConverter());
+        converter.addDelegate(TelemetriaBinariaMessageConverter.CONTENT_TYPE, telemetriaBinariaMessageConverter());
+        converter.addDelegate(EnvelopeLeiturasMessageConverter.CONTENT_TYPE, new EnvelopeLeiturasMessageConverter(converter));
+        return converter;
     }
 
     @Bean
-    public Queue filaDadosRefrigeracao() {
-        return QueueBuilder
-                .durable(FILA_DADOS_REFRIGERACAO)
-                .withArgument("x-dead-letter-exchange", "")
-                .withArgument("x-dead-letter-routing-key", FILA_DLQ)
-                .withArgument("x-message-ttl", 3600000)
-                .build();
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, PublicacaoProperties publicacaoProperties,
+                                         ObjectProvider<ConexoesPublicacao> conexoesPublicacao) {
+        ConexoesPublicacao conexoes = conexoesPublicacao.getIfAvailable();
+        RabbitTemplate template = new RabbitTemplate(conexoes != null ? conexoes.getConnectionFactory() : connectionFactory);
+        if (conexoes == null && publicacaoProperties.getConexao().isDedicada()) {
+            // Conexão de publicação do próprio CachingConnectionFactory, com o mesmo tamanho de cache de canais
+            template.setUsePublisherConnection(true);
+        }
+        template.setMessageConverter(messageConverter());
+        // Mensagens sem fila de destino voltam para o callback do ControleVazaoPublicacao
+        template.setMandatory(mandatory);
+        return template;
     }
 
+    /**
+     * Várias conexões de publicação com as mesmas configurações de {@code spring.rabbitmq},
+     * criadas só quando {@code app.refrigeracao.publicacao.conexao.quantidade} passa de 1.
+     */
     @Bean
-    public Queue filaLogsSistema() {
-        return QueueBuilder
-                .durable(FILA_LOGS_SISTEMA)
-                .withArgument("x-dead-letter-exchange", "")
-                .withArgument("x-dead-letter-routing-key", FILA_DLQ)
-                .withArgument("x-message-ttl", 7200000)
-                .build();
+    @ConditionalOnExpression("${app.refrigeracao.publicacao.conexao.quantidade:1} > 1")
+    public ConexoesPublicacao conexoesPublicacao(PublicacaoProperties publicacaoProperties,
+                                                 RabbitConnectionFactoryBeanConfigurer fabricaConfigurer,
+                                                 CachingConnectionFactoryConfigurer cacheConfigurer,
+                                                 ApplicationEventPublisher eventos,
+                                                 ObjectProvider<RabbitAdmin> rabbitAdmin) throws Exception {
+        List<CachingConnectionFactory> conexoes = new ArrayList<>();
+        for (int i = 0; i < publicacaoProperties.getConexao().getQuantidade(); i++) {
+            RabbitConnectionFactoryBean fabrica = new RabbitConnectionFactoryBean();
+            fabricaConfigurer.configure(fabrica);
+            fabrica.afterPropertiesSet();
+            CachingConnectionFactory conexao = new CachingConnectionFactory(fabrica.getObject());
+            cacheConfigurer.configure(conexao);
+            String nome = "publicacao-" + i;
+            conexao.setConnectionNameStrategy(f -> nome);
+            // Bloqueios do broker chegam ao ControleVazaoPublicacao como nos demais CachingConnectionFactory
+            conexao.setApplicationEventPublisher(eventos);
+            // O RabbitAdmin só declara a topologia ao abrir a conexão principal, que pode nunca ser usada
+            conexao.addConnectionListener(c -> rabbitAdmin.ifAvailable(RabbitAdmin::initialize));
+            conexoes.add(conexao);
+        }
+        return new ConexoesPublicacao(conexoes);
     }
 
     @Bean
-    public Queue filaAlertas() {
-        return QueueBuilder
-                .durable(FILA_ALERTAS)
-                .withArgument("x-dead-letter-exchange", "")
-                .withArgument("x-dead-letter-routing-key", FILA_DLQ)
-                .withArgument("x-message-ttl", 1800000)
+    public TopicExchange refrigeracaoExchange() {
+        return ExchangeBuilder
+                .topicExchange(EXCHANGE_REFRIGERACAO)
+                .durable(true)
                 .build();
     }
 
@@ -94,28 +152,90 @@ public class RabbitMQConfig {
                 .build();
     }
 
+    /**
+     * Filas e bindings de cada routing key, gerados a partir de
+     * {@code app.refrigeracao.publicacao.particoes}. Sem particionamento a topologia é a
+     * original: uma fila com o mesmo nome da routing key.
+     */
     @Bean
-    public Binding bindingDados() {
-        return BindingBuilder
-                .bind(filaDadosRefrigeracao())
-                .to(refrigeracaoExchange())
-                .with(ROUTING_KEY_DADOS);
+    public Declarables topologiaRefrigeracao(PublicacaoProperties publicacaoProperties) {
+        List<Declarable> declaraveis = new ArrayList<>();
+        declararFilas(declaraveis, publicacaoProperties, ROUTING_KEY_DADOS, 3600000);
+        declararFilas(declaraveis, publicacaoProperties, ROUTING_KEY_LOGS, 7200000);
+        declararFilas(declaraveis, publicacaoProperties, ROUTING_KEY_ALERTAS, 1800000);
+        declararFilas(declaraveis, publicacaoProperties, ROUTING_KEY_AGREGADOS, 3600000);
+        return new Declarables(declaraveis);
     }
 
-    @Bean
-    public Binding bindingLogs() {
-        return BindingBuilder
-                .bind(filaLogsSistema())
-                .to(refrigeracaoExchange())
-                .with(ROUTING_KEY_LOGS);
+    public static String nomeParticao(String routingKey, int particao) {
+        return routingKey + "." + particao;
     }
 
-    @Bean
-    public Binding bindingAlertas() {
-        return BindingBuilder
-                .bind(filaAlertas())
-                .to(refrigeracaoExchange())
-                .with(ROUTING_KEY_ALERTAS);
+    /** Nomes das filas declaradas por {@link #topologiaRefrigeracao}, sem a DLQ. */
+    public static List<String> nomesFilas(PublicacaoProperties publicacaoProperties) {
+        List<String> nomes = new ArrayList<>();
+        for (String routingKey : ROUTING_KEYS) {
+            PublicacaoProperties.Particoes particoes = publicacaoProperties.particoesPara(routingKey);
+            if (!particoes.isParticionada()) {
+                nomes.add(routingKey);
+                continue;
+            }
+            for (int particao = 0; particao < particoes.getQuantidade(); particao++) {
+                nomes.add(nomeParticao(routingKey, particao));
+            }
+        }
+        return nomes;
+    }
+
+    private void declararFilas(List<Declarable> declaraveis, PublicacaoProperties publicacaoProperties,
+                               String routingKey, int ttlMs) {
+        PublicacaoProperties.Particoes particoes = publicacaoProperties.particoesPara(routingKey);
+        if (!particoes.isParticionada()) {
+            Queue fila = fila(routingKey, particoes.getTipoFila(), ttlMs);
+            declaraveis.add(fila);
+            declaraveis.add(BindingBuilder.bind(fila).to(refrigeracaoExchange()).with(routingKey));
+            return;
+        }
+
+        CustomExchange exchangeHash = null;
+        if (particoes.getModo() == ModoParticionamento.HASH_CONSISTENTE) {
+            // Requer o plugin rabbitmq_consistent_hash_exchange no broker
+            exchangeHash = new CustomExchange(routingKey + SUFIXO_EXCHANGE_HASH, TIPO_EXCHANGE_HASH, true, false,
+                    Map.of("hash-header", HEADER_SISTEMA));
+            declaraveis.add(exchangeHash);
+            declaraveis.add(BindingBuilder.bind(exchangeHash).to(refrigeracaoExchange()).with(routingKey));
+        }
+
+        for (int particao = 0; particao < particoes.getQuantidade(); particao++) {
+            String nome = nomeParticao(routingKey, particao);
+            Queue fila = fila(nome, particoes.getTipoFila(), ttlMs);
+            declaraveis.add(fila);
+            if (exchangeHash != null) {
+                declaraveis.add(new Binding(nome, Binding.DestinationType.QUEUE, exchangeHash.getName(),
+                        PESO_FILA_HASH, null));
+            } else {
+                declaraveis.add(BindingBuilder.bind(fila).to(refrigeracaoExchange()).with(nome));
+            }
+        }
+    }
+
+    private static Queue fila(String nome, TipoFila tipoFila, int ttlMs) {
+        QueueBuilder builder = QueueBuilder.durable(nome);
+        if (tipoFila == TipoFila.STREAM) {
+            // Streams não aceitam dead letter nem TTL por mensagem; a retenção é por idade
+            return builder
+                    .withArgument("x-queue-type", tipoFila.getArgumento())
+                    .withArgument("x-max-age", ttlMs / 1000 + "s")
+                    .build();
+        }
+        if (tipoFila == TipoFila.QUORUM) {
+            builder.withArgument("x-queue-type", tipoFila.getArgumento());
+        }
+        return builder
+                .withArgument("x-dead-letter-exchange", "")
+                .withArgument("x-dead-letter-routing-key", FILA_DLQ)
+                .withArgument("x-message-ttl", ttlMs)
+                .build();
     }
 
     @Bean
@@ -123,8 +243,8 @@ public class RabbitMQConfig {
         log.info("Configuração RabbitMQ inicializada:");
         log.info("Host: {}, Port: {}, Username: {}", rabbitmqHost, rabbitmqPort, rabbitmqUsername);
         log.info("Exchange: {}", EXCHANGE_REFRIGERACAO);
-        log.info("Filas configuradas: {}, {}, {}, {}", 
-                FILA_DADOS_REFRIGERACAO, FILA_LOGS_SISTEMA, FILA_ALERTAS, FILA_DLQ);
+        log.info("Filas configuradas: {}, {}, {}, {}, {}", 
+                FILA_DADOS_REFRIGERACAO, FILA_LOGS_SISTEMA, FILA_ALERTAS, FILA_AGREGADOS, FILA_DLQ);
         return "RabbitMQ configurado com sucesso";
     }
 }
\ No newline at end of file
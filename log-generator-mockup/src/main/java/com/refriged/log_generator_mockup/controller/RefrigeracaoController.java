@@ -1,22 +1,52 @@
 package com.refriged.log_generator_mockup.controller;
 
+import com.refriged.log_generator_mockup.config.AlertasProperties;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.LeituraSerializada;
+import com.refriged.log_generator_mockup.converter.SerializadorJson;
+import com.refriged.log_generator_mockup.model.DetalhesLog;
 import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.service.AgregacaoService;
+import com.refriged.log_generator_mockup.service.CacheLeituras;
+import com.refriged.log_generator_mockup.service.ControleVazaoPublicacao;
+import com.refriged.log_generator_mockup.service.DeduplicadorAlertas;
+import com.refriged.log_generator_mockup.service.ExportacaoLeiturasService;
+import com.refriged.log_generator_mockup.service.GravadorPublicacoes;
+import com.refriged.log_generator_mockup.service.InjetorFalhas;
+import com.refriged.log_generator_mockup.service.MotorRegrasAlerta;
+import com.refriged.log_generator_mockup.service.ParticionamentoSistemas;
 import com.refriged.log_generator_mockup.service.RabbitMQProducerService;
 import com.refriged.log_generator_mockup.service.RefrigeracaoDataService;
+import com.refriged.log_generator_mockup.service.ReproducaoService;
+import com.refriged.log_generator_mockup.service.SimulacaoService;
+import com.refriged.log_generator_mockup.service.SpoolPublicacao;
+import com.refriged.log_generator_mockup.utils.enums.EstadoAlerta;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+import com.refriged.log_generator_mockup.utils.enums.NivelLog;
 import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -26,24 +56,43 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class RefrigeracaoController {
 
+    private static final String HEADER_DONO_SISTEMA = "X-Dono-Sistema";
+
     private final RefrigeracaoDataService refrigeracaoDataService;
     private final RabbitMQProducerService rabbitMQProducerService;
+    private final SimulacaoService simulacaoService;
+    private final MotorRegrasAlerta motorRegrasAlerta;
+    private final DeduplicadorAlertas deduplicadorAlertas;
+    private final AgregacaoService agregacaoService;
+    private final ExportacaoLeiturasService exportacaoLeiturasService;
+    private final SpoolPublicacao spoolPublicacao;
+    private final ReproducaoService reproducaoService;
+    private final GravadorPublicacoes gravadorPublicacoes;
+    private final ParticionamentoSistemas particionamento;
+    private final CacheLeituras cacheLeituras;
+    private final InjetorFalhas injetorFalhas;
+    private final ControleVazaoPublicacao controleVazao;
+    private final SerializadorJson serializadorJson;
 
     @GetMapping("/sistema/{sistemaId}")
     public ResponseEntity<SistemaRefrigeracao> obterDadosSistema(
             @PathVariable @NotBlank(message = "ID do sistema é obrigatório") String sistemaId) {
         
         log.info("Requisição recebida para obter dados do sistema: {}", sistemaId);
+
+        if (!particionamento.pertence(sistemaId)) {
+            return sistemaDeOutroNo(sistemaId);
+        }
         
         try {
             SistemaRefrigeracao sistema = refrigeracaoDataService.obterDadosSistema(sistemaId);
             
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("endpoint", "obterDadosSistema");
-            detalhes.put("temperatura", sistema.getTemperatura());
-            detalhes.put("status", sistema.getStatus());
-            rabbitMQProducerService.enviarLog(sistemaId, "INFO", 
-                    "Dados do sistema obtidos via API", detalhes);
+            rabbitMQProducerService.publicarLog(sistemaId, NivelLog.INFO, "Dados do sistema obtidos via API",
+                    DetalhesLog.builder()
+                            .endpoint("obterDadosSistema")
+                            .temperatura(sistema.getTemperatura())
+                            .status(sistema.getStatus())
+                            .build());
             
             log.info("Dados do sistema {} obtidos com sucesso. Status: {}, Temperatura: {}°C", 
                     sistemaId, sistema.getStatus(), sistema.getTemperatura());
@@ -53,11 +102,8 @@ public class RefrigeracaoController {
         } catch (Exception e) {
             log.error("Erro ao obter dados do sistema {}: {}", sistemaId, e.getMessage(), e);
             
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("endpoint", "obterDadosSistema");
-            detalhes.put("erro", e.getMessage());
-            rabbitMQProducerService.enviarLog(sistemaId, "ERROR", 
-                    "Erro ao obter dados do sistema", detalhes);
+            rabbitMQProducerService.publicarLog(sistemaId, NivelLog.ERROR, "Erro ao obter dados do sistema",
+                    DetalhesLog.erro("obterDadosSistema", e.getMessage()));
             
             return ResponseEntity.internalServerError().build();
         }
@@ -71,20 +117,28 @@ public class RefrigeracaoController {
             int quantidade) {
         
         log.info("Requisição recebida para obter dados de {} sistemas", quantidade);
+
+        // Uma ficha por leitura gerada, mais os alertas e o log efetivamente publicados
+        if (!controleVazao.tentarAdquirir(quantidade)) {
+            return vazaoEsgotada("MULTIPLOS_SISTEMAS");
+        }
         
         try {
             List<SistemaRefrigeracao> sistemas = refrigeracaoDataService.gerarDadosMultiplosSistemas(quantidade);
             
+            int mensagens = 1;
             for (SistemaRefrigeracao sistema : sistemas) {
-                rabbitMQProducerService.enviarDadosSistema(sistema);
-                rabbitMQProducerService.verificarEEnviarAlertas(sistema);
+                agregacaoService.processar(sistema);
+                mensagens += rabbitMQProducerService.verificarEEnfileirarAlertas(sistema).size();
             }
+            controleVazao.consumir(mensagens);
             
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("endpoint", "obterDadosMultiplosSistemas");
-            detalhes.put("quantidadeSistemas", sistemas.size());
-            rabbitMQProducerService.enviarLog("MULTIPLOS_SISTEMAS", "INFO", 
-                    "Dados de múltiplos sistemas gerados e enviados", detalhes);
+            rabbitMQProducerService.enfileirarLog("MULTIPLOS_SISTEMAS", NivelLog.INFO,
+                    "Dados de múltiplos sistemas gerados e enviados",
+                    DetalhesLog.builder()
+                            .endpoint("obterDadosMultiplosSistemas")
+                            .quantidadeSistemas(sistemas.size())
+                            .build());
             
             log.info("Dados de {} sistemas gerados com sucesso", sistemas.size());
             
@@ -93,120 +147,436 @@ public class RefrigeracaoController {
         } catch (Exception e) {
             log.error("Erro ao gerar dados de múltiplos sistemas: {}", e.getMessage(), e);
             
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("endpoint", "obterDadosMultiplosSistemas");
-            detalhes.put("erro", e.getMessage());
-            rabbitMQProducerService.enviarLog("MULTIPLOS_SISTEMAS", "ERROR", 
-                    "Erro ao gerar dados de múltiplos sistemas", detalhes);
+            rabbitMQProducerService.publicarLog("MULTIPLOS_SISTEMAS", NivelLog.ERROR,
+                    "Erro ao gerar dados de múltiplos sistemas",
+                    DetalhesLog.erro("obterDadosMultiplosSistemas", e.getMessage()));
             
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping("/sistema/{sistemaId}/historico")
+    public ResponseEntity<List<SistemaRefrigeracao>> obterHistoricoSistema(
+            @PathVariable @NotBlank(message = "ID do sistema é obrigatório") String sistemaId,
+            @RequestParam(defaultValue = "8")
+            @Min(value = 1, message = "Limite mínimo é 1")
+            @Max(value = 1024, message = "Limite máximo é 1024")
+            int limite) {
+
+        if (!particionamento.pertence(sistemaId)) {
+            return sistemaDeOutroNo(sistemaId);
+        }
+
+        List<SistemaRefrigeracao> historico = refrigeracaoDataService.obterHistorico(sistemaId, limite);
+        return historico.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(historico);
+    }
+
+    @GetMapping("/sistemas/ultimas")
+    public ResponseEntity<List<SistemaRefrigeracao>> obterUltimasLeituras(
+            @RequestParam(required = false) List<String> ids,
+            @RequestParam(required = false) StatusSistema status,
+            @RequestParam(required = false) String localizacao,
+            @RequestParam(defaultValue = "100")
+            @Min(value = 1, message = "Limite mínimo é 1")
+            @Max(value = 10000, message = "Limite máximo é 10000")
+            int limite) {
+
+        if (ids == null || ids.isEmpty()) {
+            return ResponseEntity.ok(cacheLeituras.filtrar(status, localizacao, limite));
+        }
+        if (ids.size() > limite) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(refrigeracaoDataService.obterUltimasLeituras(ids).stream()
+                .filter(sistema -> status == null || sistema.getStatus() == status)
+                .filter(sistema -> localizacao == null || localizacao.equals(sistema.getLocalizacao()))
+                .toList());
+    }
+
+    @GetMapping("/sistemas/stream")
+    public ResponseEntity<StreamingResponseBody> exportarSistemas(
+            @RequestParam(defaultValue = "0")
+            @Min(value = 0, message = "Início mínimo é 0")
+            int inicio,
+            @RequestParam
+            @Min(value = 1, message = "Quantidade mínima é 1")
+            @Max(value = SimulacaoService.MAX_SISTEMAS, message = "Quantidade máxima é 1000000")
+            int quantidade,
+            @RequestParam(defaultValue = "JSON") FormatoMensagem formato,
+            @RequestParam(defaultValue = "1")
+            @Min(value = 1, message = "Paralelismo mínimo é 1")
+            @Max(value = ExportacaoLeiturasService.MAX_PARALELISMO, message = "Paralelismo máximo é 64")
+            int paralelismo) {
+
+        log.info("Requisição recebida para exportar {} sistemas a partir de {} em {} com {} threads",
+                quantidade, inicio, formato, paralelismo);
+
+        try {
+            ExportacaoLeiturasService.validarFaixa(inicio, quantidade);
+            ExportacaoLeiturasService.validarParalelismo(paralelismo);
+        } catch (IllegalArgumentException e) {
+            log.warn("Faixa de exportação inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody corpo = saida -> exportacaoLeiturasService.exportar(inicio, quantidade, formato, paralelismo, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportacaoLeiturasService.contentType(formato)))
+                .header("X-Faixa-Sistemas", inicio + "-" + (inicio + quantidade - 1))
+                .body(corpo);
+    }
+
     @PostMapping("/sistema/{sistemaId}/gerar-dados")
-    public ResponseEntity<SistemaRefrigeracao> gerarDadosELogs(
+    public CompletableFuture<ResponseEntity<SistemaRefrigeracao>> gerarDadosELogs(
             @PathVariable @NotBlank(message = "ID do sistema é obrigatório") String sistemaId) {
         
         log.info("Iniciando geração de dados e logs para sistema: {}", sistemaId);
+
+        if (!particionamento.pertence(sistemaId)) {
+            return CompletableFuture.completedFuture(sistemaDeOutroNo(sistemaId));
+        }
+        if (!controleVazao.permitir()) {
+            return CompletableFuture.completedFuture(vazaoEsgotada(sistemaId));
+        }
         
         try {
-            SistemaRefrigeracao sistema = refrigeracaoDataService.gerarDadosSistema(sistemaId);
+            // Serializada uma vez para a fila de dados; a resposta segue o formato dos outros endpoints
+            LeituraSerializada leitura = serializadorJson.serializar(refrigeracaoDataService.gerarDadosSistema(sistemaId));
+            SistemaRefrigeracao sistema = leitura.getSistema();
+            
+            CompletableFuture<CorrelationData.Confirm> confirmacaoDados =
+                    rabbitMQProducerService.publicarDadosSistema(leitura);
             
-            rabbitMQProducerService.enviarDadosSistema(sistema);
-            
-            log.info("DADOS_SISTEMA_GERADOS - Sistema: {}, Timestamp: {}, Temperatura: {}°C, " +
-                    "Pressão: {} Bar, Umidade: {}%, Status: {}, Consumo: {} kWh, RPM: {}",
-                    sistema.getSistemaId(),
-                    sistema.getTimestamp(),
-                    String.format("%.2f", sistema.getTemperatura()),
-                    String.format("%.2f", sistema.getPressao()),
-                    String.format("%.2f", sistema.getUmidade()),
-                    sistema.getStatus(),
-                    String.format("%.2f", sistema.getConsumoEnergia()),
-                    String.format("%.0f", sistema.getVelocidadeCompressor()));
-
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("endpoint", "gerarDadosELogs");
-            detalhes.put("temperatura", sistema.getTemperatura());
-            detalhes.put("pressao", sistema.getPressao());
-            detalhes.put("umidade", sistema.getUmidade());
-            detalhes.put("status", sistema.getStatus());
-            detalhes.put("consumoEnergia", sistema.getConsumoEnergia());
-            detalhes.put("velocidadeCompressor", sistema.getVelocidadeCompressor());
-            
-            rabbitMQProducerService.enviarLog(sistemaId, "INFO", 
+            // Detalhes serializados no primeiro evento e reaproveitados nos demais, na fila e no arquivo de eventos
+            DetalhesLog detalhes = leitura.detalhes("gerarDadosELogs");
+            rabbitMQProducerService.publicarLog(sistemaId, NivelLog.INFO,
                     "Dados do sistema gerados com sucesso", detalhes);
 
-            rabbitMQProducerService.verificarEEnviarAlertas(sistema);
+            List<Map<String, Object>> alertas = rabbitMQProducerService.verificarEEnfileirarAlertas(sistema);
 
             if (sistema.getStatus() != StatusSistema.OPERACIONAL) {
                 log.warn("ALERTA_SISTEMA - Sistema {} em status não operacional: {} - {}",
                         sistemaId, sistema.getStatus(), sistema.getStatus().getDescricao());
                 
-                rabbitMQProducerService.enviarLog(sistemaId, "WARN", 
+                rabbitMQProducerService.publicarLog(sistemaId, NivelLog.WARN,
                         "Sistema em status não operacional: " + sistema.getStatus().getDescricao(), detalhes);
             }
 
-            if (sistema.getTemperatura() > 0 || sistema.getTemperatura() < -30) {
-                log.error("TEMPERATURA_CRITICA - Sistema {} com temperatura fora do range: {}°C",
-                        sistemaId, String.format("%.2f", sistema.getTemperatura()));
-                
-                rabbitMQProducerService.enviarLog(sistemaId, "ERROR", 
-                        "Temperatura crítica detectada: " + String.format("%.2f°C", sistema.getTemperatura()), detalhes);
+            for (Map<String, Object> alerta : alertas) {
+                publicarTransicaoAlerta(sistemaId, alerta, detalhes);
             }
 
-            log.info("Dados e logs gerados com sucesso para sistema: {}", sistemaId);
-            
-            return ResponseEntity.ok(sistema);
+            // Dados, log de geração, status não operacional e, por alerta, o alerta e o seu log
+            controleVazao.consumir(2 + (sistema.getStatus() != StatusSistema.OPERACIONAL ? 1 : 0) + 2 * alertas.size());
+
+            // A thread da requisição é liberada; a resposta sai quando o broker confirmar os dados
+            return confirmacaoDados.handle((confirmacao, erro) -> {
+                if (erro != null || !confirmacao.isAck()) {
+                    String motivo = erro != null ? erro.getMessage() : confirmacao.getReason();
+                    log.error("Erro ao gerar dados e logs para sistema {}: {}", sistemaId, motivo);
+                    rabbitMQProducerService.publicarLog(sistemaId, NivelLog.ERROR,
+                            "Erro ao gerar dados e logs do sistema", DetalhesLog.erro("gerarDadosELogs", motivo));
+                    return ResponseEntity.internalServerError().<SistemaRefrigeracao>build();
+                }
+                log.info("Dados e logs gerados com sucesso para sistema: {}", sistemaId);
+                return ResponseEntity.ok(sistema);
+            });
             
         } catch (Exception e) {
             log.error("Erro ao gerar dados e logs para sistema {}: {}", sistemaId, e.getMessage(), e);
             
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("endpoint", "gerarDadosELogs");
-            detalhes.put("erro", e.getMessage());
-            rabbitMQProducerService.enviarLog(sistemaId, "ERROR", 
-                    "Erro ao gerar dados e logs do sistema", detalhes);
+            rabbitMQProducerService.publicarLog(sistemaId, NivelLog.ERROR, "Erro ao gerar dados e logs do sistema",
+                    DetalhesLog.erro("gerarDadosELogs", e.getMessage()));
             
-            return ResponseEntity.internalServerError().build();
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError().build());
+        }
+    }
+
+    // Só a abertura é uma detecção; lembretes e resoluções saem em níveis mais baixos
+    private void publicarTransicaoAlerta(String sistemaId, Map<String, Object> alerta, DetalhesLog detalhes) {
+        Object tipoAlerta = alerta.get("tipoAlerta");
+        Object descricao = alerta.get("descricao");
+        switch ((EstadoAlerta) alerta.get("estadoAlerta")) {
+            case ABERTO -> {
+                NivelLog nivel = nivelAbertura(alerta.get("severidade"));
+                if (nivel == NivelLog.ERROR) {
+                    log.error("{} - Sistema {}: {}", tipoAlerta, sistemaId, descricao);
+                } else {
+                    log.warn("{} - Sistema {}: {}", tipoAlerta, sistemaId, descricao);
+                }
+                rabbitMQProducerService.publicarLog(sistemaId, nivel, "Alerta detectado: " + descricao, detalhes);
+            }
+            case LEMBRETE -> {
+                log.warn("{} - Sistema {} continua em alerta: {}", tipoAlerta, sistemaId, descricao);
+                rabbitMQProducerService.publicarLog(sistemaId, NivelLog.WARN, "Alerta ainda ativo: " + descricao, detalhes);
+            }
+            case RESOLVIDO -> {
+                log.info("{} - Sistema {}: {}", tipoAlerta, sistemaId, descricao);
+                rabbitMQProducerService.publicarLog(sistemaId, NivelLog.INFO, String.valueOf(descricao), detalhes);
+            }
         }
     }
 
+    // Só severidades altas abrem em ERROR; as demais regras abrem como aviso
+    private static NivelLog nivelAbertura(Object severidade) {
+        return severidade instanceof String texto && (texto.equalsIgnoreCase("HIGH") || texto.equalsIgnoreCase("CRITICAL"))
+                ? NivelLog.ERROR : NivelLog.WARN;
+    }
+
     @PostMapping("/sistema/{sistemaId}/enviar-rabbitmq")
-    public ResponseEntity<Map<String, Object>> enviarDadosParaRabbitMQ(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> enviarDadosParaRabbitMQ(
             @PathVariable @NotBlank(message = "ID do sistema é obrigatório") String sistemaId) {
         
         log.info("Enviando dados do sistema {} para RabbitMQ", sistemaId);
+
+        if (!particionamento.pertence(sistemaId)) {
+            return CompletableFuture.completedFuture(sistemaDeOutroNo(sistemaId));
+        }
+        if (!controleVazao.permitir()) {
+            return CompletableFuture.completedFuture(vazaoEsgotada(sistemaId));
+        }
         
         try {
             SistemaRefrigeracao sistema = refrigeracaoDataService.gerarDadosSistema(sistemaId);
             
-            rabbitMQProducerService.enviarDadosSistema(sistema);
+            CompletableFuture<CorrelationData.Confirm> confirmacaoDados =
+                    rabbitMQProducerService.publicarDadosSistema(serializadorJson.serializar(sistema));
             
-            rabbitMQProducerService.verificarEEnviarAlertas(sistema);
-            
-            rabbitMQProducerService.enviarLogSimples(sistemaId, "INFO", 
-                    "Dados enviados para RabbitMQ com sucesso");
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "sucesso");
-            response.put("sistemaId", sistemaId);
-            response.put("timestamp", sistema.getTimestamp());
-            response.put("mensagem", "Dados enviados para RabbitMQ com sucesso");
-            
-            log.info("Dados do sistema {} enviados para RabbitMQ com sucesso", sistemaId);
+            List<Map<String, Object>> alertas = rabbitMQProducerService.verificarEEnfileirarAlertas(sistema);
+
+            // Dados, alertas e o log publicado quando o broker confirmar
+            controleVazao.consumir(2 + alertas.size());
             
-            return ResponseEntity.ok(response);
+            return confirmacaoDados.handle((confirmacao, erro) -> {
+                if (erro != null || !confirmacao.isAck()) {
+                    String motivo = erro != null ? erro.getMessage() : confirmacao.getReason();
+                    log.error("Erro ao enviar dados do sistema {} para RabbitMQ: {}", sistemaId, motivo);
+                    rabbitMQProducerService.publicarLog(sistemaId, NivelLog.ERROR,
+                            "Erro ao enviar dados para RabbitMQ", DetalhesLog.erro("enviarDadosParaRabbitMQ", motivo));
+                    return erroEnvio(sistemaId, motivo);
+                }
+                
+                rabbitMQProducerService.publicarLog(sistemaId, NivelLog.INFO,
+                        "Dados enviados para RabbitMQ com sucesso", null);
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("status", "sucesso");
+                response.put("sistemaId", sistemaId);
+                response.put("timestamp", sistema.getTimestamp());
+                response.put("mensagem", "Dados enviados para RabbitMQ com sucesso");
+                
+                log.info("Dados do sistema {} enviados para RabbitMQ com sucesso", sistemaId);
+                
+                return ResponseEntity.ok(response);
+            });
             
         } catch (Exception e) {
             log.error("Erro ao enviar dados do sistema {} para RabbitMQ: {}", sistemaId, e.getMessage(), e);
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "erro");
-            response.put("sistemaId", sistemaId);
-            response.put("mensagem", "Erro ao enviar dados para RabbitMQ: " + e.getMessage());
+            rabbitMQProducerService.publicarLog(sistemaId, NivelLog.ERROR, "Erro ao enviar dados para RabbitMQ",
+                    DetalhesLog.erro("enviarDadosParaRabbitMQ", e.getMessage()));
             
-            return ResponseEntity.internalServerError().body(response);
+            return CompletableFuture.completedFuture(erroEnvio(sistemaId, e.getMessage()));
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> erroEnvio(String sistemaId, String motivo) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "erro");
+        response.put("sistemaId", sistemaId);
+        response.put("mensagem", "Erro ao enviar dados para RabbitMQ: " + motivo);
+        return ResponseEntity.internalServerError().body(response);
+    }
+
+    @PostMapping("/simulacao/iniciar")
+    public ResponseEntity<Map<String, Object>> iniciarSimulacao(
+            @RequestParam(required = false)
+            @Min(value = 1, message = "Quantidade mínima é 1")
+            @Max(value = SimulacaoService.MAX_SISTEMAS, message = "Quantidade máxima é 1000000")
+            Integer quantidade,
+            @RequestParam(required = false)
+            @Min(value = 1, message = "Intervalo de coleta mínimo é 1 ms")
+            Long intervaloColetaMs) {
+
+        log.info("Requisição recebida para iniciar simulação: quantidade={}, intervaloColetaMs={}",
+                quantidade, intervaloColetaMs);
+
+        try {
+            return ResponseEntity.ok(simulacaoService.iniciar(quantidade, intervaloColetaMs));
+        } catch (IllegalArgumentException e) {
+            log.warn("Parâmetros de simulação inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "erro", "mensagem", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/simulacao/parar")
+    public ResponseEntity<Map<String, Object>> pararSimulacao() {
+        log.info("Requisição recebida para parar simulação");
+        return ResponseEntity.ok(simulacaoService.parar());
+    }
+
+    @PutMapping("/simulacao/sistemas")
+    public ResponseEntity<Map<String, Object>> redimensionarSimulacao(
+            @RequestParam
+            @Min(value = 1, message = "Quantidade mínima é 1")
+            @Max(value = SimulacaoService.MAX_SISTEMAS, message = "Quantidade máxima é 1000000")
+            int quantidade) {
+
+        log.info("Requisição recebida para redimensionar simulação para {} sistemas", quantidade);
+
+        try {
+            return ResponseEntity.ok(simulacaoService.redimensionar(quantidade));
+        } catch (IllegalArgumentException e) {
+            log.warn("Parâmetros de simulação inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "erro", "mensagem", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/simulacao/status")
+    public ResponseEntity<Map<String, Object>> statusSimulacao() {
+        return ResponseEntity.ok(simulacaoService.status());
+    }
+
+    @GetMapping("/cenarios")
+    public ResponseEntity<Map<String, Object>> statusCenarios() {
+        return ResponseEntity.ok(injetorFalhas.status());
+    }
+
+    @PostMapping("/cenarios/{nome}/iniciar")
+    public ResponseEntity<Map<String, Object>> iniciarCenario(
+            @PathVariable String nome,
+            @RequestParam(required = false) Double fracao,
+            @RequestParam(required = false) Long semente,
+            @RequestParam(required = false) List<String> sistemas) {
+
+        log.info("Requisição recebida para iniciar cenário {}: fracao={}, semente={}, sistemas={}",
+                nome, fracao, semente, sistemas);
+
+        try {
+            return ResponseEntity.ok(injetorFalhas.iniciar(nome, fracao, semente, sistemas));
+        } catch (IllegalArgumentException e) {
+            log.warn("Parâmetros de cenário inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "erro", "mensagem", e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Cenário não iniciado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("status", "erro", "mensagem", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/cenarios/{nome}/parar")
+    public ResponseEntity<Map<String, Object>> pararCenario(@PathVariable String nome) {
+        log.info("Requisição recebida para parar cenário {}", nome);
+
+        try {
+            return ResponseEntity.ok(injetorFalhas.parar(nome));
+        } catch (IllegalArgumentException e) {
+            log.warn("Cenário não parado: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "erro", "mensagem", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reproducao/iniciar")
+    public ResponseEntity<Map<String, Object>> iniciarReproducao(
+            @RequestParam String arquivo,
+            @RequestParam(required = false) FormatoMensagem formato,
+            @RequestParam(defaultValue = "1.0")
+            @DecimalMin(value = "0.0", message = "Velocidade mínima é 0 (vazão máxima)")
+            double velocidade,
+            @RequestParam(defaultValue = RabbitMQConfig.ROUTING_KEY_DADOS) String routingKey,
+            @RequestParam(defaultValue = "false") boolean repetir) {
+
+        log.info("Requisição recebida para reproduzir {}: formato={}, velocidade={}, routingKey={}, repetir={}",
+                arquivo, formato, velocidade, routingKey, repetir);
+
+        try {
+            return ResponseEntity.ok(reproducaoService.iniciar(arquivo, formato, velocidade, routingKey, repetir));
+        } catch (IllegalArgumentException e) {
+            log.warn("Parâmetros de reprodução inválidos: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "erro", "mensagem", e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.warn("Reprodução não iniciada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("status", "erro", "mensagem", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/reproducao/parar")
+    public ResponseEntity<Map<String, Object>> pararReproducao() {
+        log.info("Requisição recebida para parar reprodução");
+        return ResponseEntity.ok(reproducaoService.parar());
+    }
+
+    @GetMapping("/reproducao/status")
+    public ResponseEntity<Map<String, Object>> statusReproducao() {
+        return ResponseEntity.ok(reproducaoService.status());
+    }
+
+    @GetMapping("/gravacao/status")
+    public ResponseEntity<Map<String, Object>> statusGravacao() {
+        return ResponseEntity.ok(gravadorPublicacoes.estatisticas());
+    }
+
+    @GetMapping("/gravacao/trecho")
+    public ResponseEntity<StreamingResponseBody> exportarGravacao(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fim,
+            @RequestParam(defaultValue = RabbitMQConfig.ROUTING_KEY_DADOS) String routingKey,
+            @RequestParam(defaultValue = "JSON") FormatoMensagem formato) {
+
+        log.info("Requisição recebida para exportar gravação de {} entre {} e {} em {}", routingKey, inicio, fim, formato);
+
+        if (!gravadorPublicacoes.isHabilitada() || fim.isBefore(inicio)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ZoneId zona = ZoneId.systemDefault();
+        long inicioMillis = inicio.atZone(zona).toInstant().toEpochMilli();
+        long fimMillis = fim.atZone(zona).toInstant().toEpochMilli();
+        StreamingResponseBody corpo = saida -> gravadorPublicacoes.exportar(inicioMillis, fimMillis, routingKey, formato, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportacaoLeiturasService.contentType(formato)))
+                .body(corpo);
+    }
+
+    @GetMapping("/alertas/regras")
+    public ResponseEntity<Map<String, Object>> regrasAlerta() {
+        return ResponseEntity.ok(motorRegrasAlerta.descrever());
+    }
+
+    @GetMapping("/alertas/estado")
+    public ResponseEntity<Map<String, Object>> estadoAlertas() {
+        return ResponseEntity.ok(deduplicadorAlertas.estatisticas());
+    }
+
+    @GetMapping("/agregacao/status")
+    public ResponseEntity<Map<String, Object>> statusAgregacao() {
+        return ResponseEntity.ok(agregacaoService.estatisticas());
+    }
+
+    @GetMapping("/cache/status")
+    public ResponseEntity<Map<String, Object>> statusCache() {
+        return ResponseEntity.ok(cacheLeituras.estatisticas());
+    }
+
+    @GetMapping("/particionamento/status")
+    public ResponseEntity<Map<String, Object>> statusParticionamento() {
+        return ResponseEntity.ok(particionamento.estatisticas());
+    }
+
+    @GetMapping("/publicacao/spool")
+    public ResponseEntity<Map<String, Object>> statusSpool() {
+        return ResponseEntity.ok(spoolPublicacao.estatisticas());
+    }
+
+    @PutMapping("/alertas/regras")
+    public ResponseEntity<Map<String, Object>> atualizarRegrasAlerta(@RequestBody AlertasProperties regras) {
+        log.info("Requisição recebida para atualizar regras de alerta");
+
+        try {
+            motorRegrasAlerta.recarregar(regras);
+            return ResponseEntity.ok(motorRegrasAlerta.descrever());
+        } catch (IllegalArgumentException e) {
+            log.warn("Regras de alerta inválidas: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("status", "erro", "mensagem", e.getMessage()));
         }
     }
 
@@ -215,5 +585,21 @@ public class RefrigeracaoController {
         log.debug("Health check solicitado");
         return ResponseEntity.ok("Microserviço de Refrigeração Industrial - Status: OK");
     }
-}
 
+    // O broker não acompanha a taxa atual: o cliente tenta de novo em seguida
+    private <T> ResponseEntity<T> vazaoEsgotada(String sistemaId) {
+        log.debug("Requisição do sistema {} recusada pelo controle de vazão", sistemaId);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
+
+    // Sistema de outra partição: quem chamou deve repetir a requisição no nó dono
+    private <T> ResponseEntity<T> sistemaDeOutroNo(String sistemaId) {
+        String dono = particionamento.dono(sistemaId);
+        log.debug("Sistema {} pertence ao nó {}", sistemaId, dono);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HEADER_DONO_SISTEMA, dono != null ? dono : "")
+                .build();
+    }
+}
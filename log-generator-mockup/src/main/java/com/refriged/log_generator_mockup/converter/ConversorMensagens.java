@@ -0,0 +1,104 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.refriged.log_generator_mockup.config.PublicacaoProperties;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.model.AgregadoSistema;
+import com.refriged.log_generator_mockup.model.EventoLog;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converte payloads em mensagens AMQP no formato configurado para a routing key.
+ * O formato binário só se aplica a leituras; demais payloads seguem em JSON. Nas routing
+ * keys particionadas, o sistema de origem vai no header {@link RabbitMQConfig#HEADER_SISTEMA}.
+ * Leituras e eventos de log em JSON passam pelos writers pré-resolvidos do
+ * {@link SerializadorJson}, com os mesmos bytes e headers do conversor Jackson; eventos de
+ * log levam os headers de tipo de um {@code java.util.HashMap}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConversorMensagens {
+
+    private final ContentTypeDelegatingMessageConverter messageConverter;
+    private final PublicacaoProperties publicacaoProperties;
+    private final SerializadorJson serializadorJson;
+
+    public Message converter(String routingKey, Object payload) {
+        MessageProperties properties = new MessageProperties();
+        if (publicacaoProperties.particoesPara(routingKey).isParticionada()) {
+            String sistemaId = sistemaDe(payload);
+            if (sistemaId != null) {
+                properties.setHeader(RabbitMQConfig.HEADER_SISTEMA, sistemaId);
+            }
+        }
+        boolean leitura = payload instanceof LeituraRefrigeracao || payload instanceof SistemaRefrigeracao
+                || payload instanceof LeituraSerializada;
+
+        if (leitura && publicacaoProperties.formatoPara(routingKey) == FormatoMensagem.BINARIO) {
+            properties.setContentType(FormatoMensagem.BINARIO.getContentType());
+            return messageConverter.toMessage(
+                    payload instanceof LeituraSerializada serializada ? serializada.getSistema() : payload, properties);
+        }
+
+        // Consumidores JSON veem leituras sempre como SistemaRefrigeracao, o tipo publicado por enviarDadosSistema
+        if (payload instanceof LeituraSerializada serializada) {
+            return mensagemJson(serializada.json(), SistemaRefrigeracao.class, properties);
+        }
+        if (payload instanceof LeituraRefrigeracao leituraRefrigeracao) {
+            return mensagemJson(serializadorJson.leitura(leituraRefrigeracao), SistemaRefrigeracao.class, properties);
+        }
+        if (payload instanceof SistemaRefrigeracao sistema) {
+            return mensagemJson(serializadorJson.sistema(sistema), SistemaRefrigeracao.class, properties);
+        }
+        // Eventos seguem com os headers do mapa publicado antes do EventoLog, que é o que os consumidores mapeiam
+        if (payload instanceof EventoLog evento) {
+            properties.setHeader(AbstractJavaTypeMapper.DEFAULT_CONTENT_CLASSID_FIELD_NAME, Object.class.getName());
+            properties.setHeader(AbstractJavaTypeMapper.DEFAULT_KEY_CLASSID_FIELD_NAME, Object.class.getName());
+            return mensagemJson(serializadorJson.evento(evento), HashMap.class, properties);
+        }
+        return messageConverter.toMessage(payload, properties);
+    }
+
+    // Mesmas propriedades que o Jackson2JsonMessageConverter preenche
+    private static Message mensagemJson(byte[] corpo, Class<?> tipo, MessageProperties properties) {
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setContentLength(corpo.length);
+        properties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, tipo.getName());
+        return new Message(corpo, properties);
+    }
+
+    private static String sistemaDe(Object payload) {
+        if (payload instanceof LeituraRefrigeracao leitura) {
+            return leitura.getSistemaId();
+        }
+        if (payload instanceof SistemaRefrigeracao sistema) {
+            return sistema.getSistemaId();
+        }
+        if (payload instanceof LeituraSerializada serializada) {
+            return serializada.getSistema().getSistemaId();
+        }
+        if (payload instanceof AgregadoSistema agregado) {
+            return agregado.getSistemaId();
+        }
+        if (payload instanceof EventoLog evento) {
+            return evento.getSistemaId();
+        }
+        if (payload instanceof Map<?, ?> mapa && mapa.get("sistemaId") instanceof String sistemaId) {
+            return sistemaId;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.refriged.log_generator_mockup.converter;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoder do appender de eventos: escreve o corpo JSON já serializado de cada
+ * {@link com.refriged.log_generator_mockup.model.EventoLog} como uma linha NDJSON, sem
+ * passar por layout nem por formatação de mensagem. Outros eventos viram uma linha com
+ * a mensagem formatada.
+ */
+public class EncoderEventoLog extends EncoderBase<ILoggingEvent> {
+
+    public static final String LOGGER_EVENTOS = "refrigeracao.eventos";
+    public static final String MENSAGEM_EVENTO = "evento";
+
+    private static final byte FIM_LINHA = '\n';
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent evento) {
+        Object[] argumentos = evento.getArgumentArray();
+        byte[] corpo = argumentos != null && argumentos.length > 0 && argumentos[0] instanceof byte[] bytes
+                ? bytes
+                : evento.getFormattedMessage().getBytes(StandardCharsets.UTF_8);
+        byte[] linha = new byte[corpo.length + 1];
+        System.arraycopy(corpo, 0, linha, 0, corpo.length);
+        linha[corpo.length] = FIM_LINHA;
+        return linha;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+}
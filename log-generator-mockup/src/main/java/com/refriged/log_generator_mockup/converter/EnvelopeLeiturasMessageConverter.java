@@ -0,0 +1,124 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Envelope com várias leituras em uma única mensagem AMQP. O corpo é uma sequência
+ * de itens {@code [u32 tamanho][corpo]}, cada item codificado no formato indicado em
+ * {@value #HEADER_CONTENT_TYPE_ITENS}; quantidade e intervalo de tempo vão nos headers.
+ * Do lado consumidor, {@link #fromMessage(Message)} devolve a lista de
+ * {@link SistemaRefrigeracao} na ordem de empacotamento e {@link #desempacotar(Message)}
+ * devolve os itens como mensagens.
+ */
+public class EnvelopeLeiturasMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-refrigeracao-envelope";
+    public static final String HEADER_CONTENT_TYPE_ITENS = "x-envelope-content-type";
+    public static final String HEADER_QUANTIDADE = "x-envelope-quantidade";
+    public static final String HEADER_TIMESTAMP_INICIO = "x-envelope-timestamp-inicio";
+    public static final String HEADER_TIMESTAMP_FIM = "x-envelope-timestamp-fim";
+
+    private final MessageConverter conversorItens;
+
+    /**
+     * @param conversorItens conversor das leituras individuais, escolhido pelo content type de cada item
+     */
+    public EnvelopeLeiturasMessageConverter(MessageConverter conversorItens) {
+        this.conversorItens = conversorItens;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof Collection<?> leituras) || leituras.isEmpty()) {
+            throw new MessageConversionException("Envelope requer uma coleção não vazia de leituras");
+        }
+
+        ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+        String contentTypeItens = null;
+        for (Object leitura : leituras) {
+            Message item = conversorItens.toMessage(leitura, new MessageProperties());
+            contentTypeItens = item.getMessageProperties().getContentType();
+            escreverItem(corpo, item.getBody());
+        }
+
+        long agora = System.currentTimeMillis();
+        preencherHeaders(messageProperties, contentTypeItens, leituras.size(), agora, agora);
+        return new Message(corpo.toByteArray(), messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        List<Message> itens = desempacotar(message);
+        List<SistemaRefrigeracao> leituras = new ArrayList<>(itens.size());
+        for (Message item : itens) {
+            item.getMessageProperties().setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+                    SistemaRefrigeracao.class.getName());
+            leituras.add((SistemaRefrigeracao) conversorItens.fromMessage(item));
+        }
+        return leituras;
+    }
+
+    /**
+     * Separa o envelope nas mensagens originais, na ordem de empacotamento, cada uma com o
+     * content type dos itens. Para consumidores que tratam os itens com o próprio conversor.
+     */
+    public static List<Message> desempacotar(Message envelope) {
+        MessageProperties properties = envelope.getMessageProperties();
+        Object contentTypeItens = properties.getHeader(HEADER_CONTENT_TYPE_ITENS);
+        if (contentTypeItens == null) {
+            throw new MessageConversionException("Envelope sem header " + HEADER_CONTENT_TYPE_ITENS);
+        }
+
+        ByteBuffer corpo = ByteBuffer.wrap(envelope.getBody());
+        Object quantidade = properties.getHeader(HEADER_QUANTIDADE);
+        List<Message> itens = new ArrayList<>(quantidade instanceof Number n ? n.intValue() : 16);
+        while (corpo.hasRemaining()) {
+            if (corpo.remaining() < Integer.BYTES) {
+                throw new MessageConversionException("Envelope truncado");
+            }
+            int tamanho = corpo.getInt();
+            if (tamanho < 0 || tamanho > corpo.remaining()) {
+                throw new MessageConversionException("Envelope truncado");
+            }
+            byte[] bytes = new byte[tamanho];
+            corpo.get(bytes);
+
+            MessageProperties propertiesItem = new MessageProperties();
+            propertiesItem.setContentType(contentTypeItens.toString());
+            itens.add(new Message(bytes, propertiesItem));
+        }
+        if (quantidade instanceof Number n && n.intValue() != itens.size()) {
+            throw new MessageConversionException("Envelope com " + itens.size() + " itens, header indica " + n);
+        }
+        return itens;
+    }
+
+    public static void escreverItem(ByteArrayOutputStream destino, byte[] item) {
+        destino.write(item.length >>> 24);
+        destino.write(item.length >>> 16);
+        destino.write(item.length >>> 8);
+        destino.write(item.length);
+        destino.write(item, 0, item.length);
+    }
+
+    public static void preencherHeaders(MessageProperties properties, String contentTypeItens, int quantidade,
+                                        long timestampInicio, long timestampFim) {
+        properties.setContentType(CONTENT_TYPE);
+        properties.setHeader(HEADER_CONTENT_TYPE_ITENS, contentTypeItens);
+        properties.setHeader(HEADER_QUANTIDADE, quantidade);
+        properties.setHeader(HEADER_TIMESTAMP_INICIO, timestampInicio);
+        properties.setHeader(HEADER_TIMESTAMP_FIM, timestampFim);
+    }
+}
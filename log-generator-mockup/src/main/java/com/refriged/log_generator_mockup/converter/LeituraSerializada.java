@@ -0,0 +1,90 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.refriged.log_generator_mockup.model.DetalhesLog;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+
+import java.io.IOException;
+
+/**
+ * Leitura serializada no máximo uma vez, sob demanda, no formato das mensagens AMQP. Os
+ * detalhes dos eventos de log da leitura também são serializados uma única vez, qualquer
+ * que seja o número de eventos publicados com eles. As respostas HTTP não usam esses bytes:
+ * saem pelo ObjectMapper do Spring MVC, como nos demais endpoints.
+ * Os bytes são compartilhados e não devem ser alterados.
+ */
+public final class LeituraSerializada {
+
+    private final SistemaRefrigeracao sistema;
+    private final SerializadorJson serializador;
+
+    // Corrida benigna: duas threads podem serializar ao mesmo tempo, com o mesmo resultado
+    private volatile byte[] json;
+
+    LeituraSerializada(SistemaRefrigeracao sistema, SerializadorJson serializador) {
+        this.sistema = sistema;
+        this.serializador = serializador;
+    }
+
+    public SistemaRefrigeracao getSistema() {
+        return sistema;
+    }
+
+    public byte[] json() {
+        byte[] atual = json;
+        if (atual == null) {
+            atual = serializador.sistema(sistema);
+            json = atual;
+        }
+        return atual;
+    }
+
+    /**
+     * Mesmos campos de {@link DetalhesLog#leitura}; o JSON é gerado no primeiro evento e
+     * copiado como está nos seguintes. Não deve ser alterado depois de publicado.
+     */
+    public DetalhesLog detalhes(String endpoint) {
+        return new DetalhesSerializados(DetalhesLog.leitura(endpoint, sistema), serializador);
+    }
+
+    @JsonSerialize(using = SerializadorDetalhes.class)
+    static final class DetalhesSerializados extends DetalhesLog {
+
+        private final transient SerializadorJson serializador;
+        private volatile SerializedString serializado;
+
+        private DetalhesSerializados(DetalhesLog origem, SerializadorJson serializador) {
+            super(origem.getEndpoint(), origem.getTemperatura(), origem.getPressao(), origem.getUmidade(),
+                    origem.getStatus(), origem.getConsumoEnergia(), origem.getVelocidadeCompressor(),
+                    origem.getQuantidadeSistemas(), origem.getErro(), origem.getAdicionais());
+            this.serializador = serializador;
+        }
+
+        private SerializedString serializado() {
+            SerializedString atual = serializado;
+            if (atual == null) {
+                atual = new SerializedString(serializador.detalhes(this));
+                serializado = atual;
+            }
+            return atual;
+        }
+    }
+
+    static final class SerializadorDetalhes extends StdSerializer<DetalhesSerializados> {
+
+        SerializadorDetalhes() {
+            super(DetalhesSerializados.class);
+        }
+
+        @Override
+        public void serialize(DetalhesSerializados detalhes, JsonGenerator gerador, SerializerProvider provider)
+                throws IOException {
+            // SerializedString guarda os bytes UTF-8 depois da primeira escrita
+            gerador.writeRawValue(detalhes.serializado());
+        }
+    }
+}
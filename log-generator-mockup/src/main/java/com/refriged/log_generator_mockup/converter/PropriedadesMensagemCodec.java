@@ -0,0 +1,104 @@
+package com.refriged.log_generator_mockup.converter;
+
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serialização compacta das propriedades de uma mensagem AMQP para os arquivos locais
+ * (spool e gravação): content type, content encoding e headers com valores String, int,
+ * long ou boolean. Headers de outros tipos são apenas locais e não são gravados.
+ * <p>
+ * Textos vão como {@code [i32 tamanho][UTF-8]}, tamanho -1 para nulo: o
+ * {@link DataOutput#writeUTF} recusa valores a partir de 64 KB.
+ */
+public final class PropriedadesMensagemCodec {
+
+    private static final byte TIPO_STRING = 0;
+    private static final byte TIPO_INT = 1;
+    private static final byte TIPO_LONG = 2;
+    private static final byte TIPO_BOOLEAN = 3;
+
+    private static final int TEXTO_NULO = -1;
+
+    private PropriedadesMensagemCodec() {
+    }
+
+    public static void escrever(MessageProperties propriedades, DataOutput saida) throws IOException {
+        List<Map.Entry<String, Object>> headers = new ArrayList<>();
+        for (Map.Entry<String, Object> header : propriedades.getHeaders().entrySet()) {
+            Object valor = header.getValue();
+            if (valor instanceof String || valor instanceof Integer || valor instanceof Long || valor instanceof Boolean) {
+                headers.add(header);
+            }
+        }
+
+        escreverTexto(propriedades.getContentType(), saida);
+        escreverTexto(propriedades.getContentEncoding(), saida);
+        saida.writeShort(headers.size());
+        for (Map.Entry<String, Object> header : headers) {
+            escreverTexto(header.getKey(), saida);
+            Object valor = header.getValue();
+            if (valor instanceof Integer inteiro) {
+                saida.writeByte(TIPO_INT);
+                saida.writeInt(inteiro);
+            } else if (valor instanceof Long longo) {
+                saida.writeByte(TIPO_LONG);
+                saida.writeLong(longo);
+            } else if (valor instanceof Boolean booleano) {
+                saida.writeByte(TIPO_BOOLEAN);
+                saida.writeBoolean(booleano);
+            } else {
+                saida.writeByte(TIPO_STRING);
+                escreverTexto((String) valor, saida);
+            }
+        }
+    }
+
+    public static MessageProperties ler(DataInput entrada) throws IOException {
+        MessageProperties propriedades = new MessageProperties();
+        String contentType = lerTexto(entrada);
+        if (contentType != null) {
+            propriedades.setContentType(contentType);
+        }
+        propriedades.setContentEncoding(lerTexto(entrada));
+        int quantidadeHeaders = entrada.readUnsignedShort();
+        for (int i = 0; i < quantidadeHeaders; i++) {
+            String chave = lerTexto(entrada);
+            byte tipo = entrada.readByte();
+            propriedades.setHeader(chave, switch (tipo) {
+                case TIPO_INT -> entrada.readInt();
+                case TIPO_LONG -> entrada.readLong();
+                case TIPO_BOOLEAN -> entrada.readBoolean();
+                default -> lerTexto(entrada);
+            });
+        }
+        return propriedades;
+    }
+
+    private static void escreverTexto(String texto, DataOutput saida) throws IOException {
+        if (texto == null) {
+            saida.writeInt(TEXTO_NULO);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+
+    private static String lerTexto(DataInput entrada) throws IOException {
+        int tamanho = entrada.readInt();
+        if (tamanho == TEXTO_NULO) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
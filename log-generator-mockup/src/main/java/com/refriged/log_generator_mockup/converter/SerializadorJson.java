@@ -0,0 +1,69 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.refriged.log_generator_mockup.model.DetalhesLog;
+import com.refriged.log_generator_mockup.model.EventoLog;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.JacksonUtils;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link ObjectWriter}s resolvidos uma vez para os payloads JSON mais frequentes. Usa a
+ * mesma configuração do {@link Jackson2JsonMessageConverter}, então os bytes são idênticos
+ * aos que o conversor produziria resolvendo o serializador a cada mensagem.
+ */
+@Component
+public class SerializadorJson {
+
+    private final ObjectWriter writerSistema;
+    private final ObjectWriter writerLeitura;
+    private final ObjectWriter writerEvento;
+    private final ObjectWriter writerDetalhes;
+
+    public SerializadorJson() {
+        ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+        this.writerSistema = objectMapper.writerFor(SistemaRefrigeracao.class);
+        this.writerLeitura = objectMapper.writerFor(LeituraRefrigeracao.class);
+        this.writerEvento = objectMapper.writerFor(EventoLog.class);
+        this.writerDetalhes = objectMapper.writerFor(DetalhesLog.class);
+    }
+
+    public LeituraSerializada serializar(SistemaRefrigeracao sistema) {
+        return new LeituraSerializada(sistema, this);
+    }
+
+    public byte[] sistema(SistemaRefrigeracao sistema) {
+        return escrever(writerSistema, sistema);
+    }
+
+    public byte[] leitura(LeituraRefrigeracao leitura) {
+        return escrever(writerLeitura, leitura);
+    }
+
+    public byte[] evento(EventoLog evento) {
+        return escrever(writerEvento, evento);
+    }
+
+    // Sempre pelo serializador de DetalhesLog, inclusive para subclasses com serializador próprio
+    String detalhes(DetalhesLog detalhes) {
+        try {
+            return writerDetalhes.writeValueAsString(detalhes);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Falha ao serializar DetalhesLog", e);
+        }
+    }
+
+    private static byte[] escrever(ObjectWriter writer, Object valor) {
+        try {
+            return writer.writeValueAsBytes(valor);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Falha ao serializar " + valor.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.refriged.log_generator_mockup.model.CatalogoSistemas;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formato binário compacto para leituras de telemetria (big-endian, versão 1):
+ *
+ * <pre>
+ *  0  'R' 'T'              magic
+ *  2  u8   versão          1
+ *  3  u8   status          ordinal de {@link StatusSistema}
+ *  4  i64  timestamp       epoch millis
+ * 12  f32  temperatura, pressão, umidade, consumoEnergia, velocidadeCompressor
+ * 32  u8   nome, localização, observações: índices em {@link CatalogoSistemas}, 0xFF se nulo
+ * 35  u16  tamanho do sistemaId + bytes UTF-8
+ * </pre>
+ *
+ * Uma leitura de {@code SYS-001} ocupa 44 bytes, contra ~350 do JSON equivalente.
+ */
+public class TelemetriaBinariaMessageConverter implements MessageConverter {
+
+    public static final String CONTENT_TYPE = FormatoMensagem.BINARIO.getContentType();
+    public static final String HEADER_VERSAO = "x-telemetria-versao";
+    public static final byte VERSAO = 1;
+
+    private static final byte MAGIC_0 = 'R';
+    private static final byte MAGIC_1 = 'T';
+    private static final int TAMANHO_FIXO = 37;
+    private static final int CODIGO_AUSENTE = 0xFF;
+    private static final StatusSistema[] STATUS = StatusSistema.values();
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        LeituraRefrigeracao leitura;
+        if (object instanceof LeituraRefrigeracao l) {
+            leitura = l;
+        } else if (object instanceof SistemaRefrigeracao sistema) {
+            leitura = LeituraRefrigeracao.de(sistema);
+        } else {
+            throw new MessageConversionException("Formato binário só suporta leituras de refrigeração, recebido: "
+                    + (object == null ? "null" : object.getClass().getName()));
+        }
+
+        byte[] corpo = new byte[tamanhoCodificado(leitura)];
+        codificar(leitura, ByteBuffer.wrap(corpo));
+
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(corpo.length);
+        messageProperties.setHeader(HEADER_VERSAO, VERSAO);
+        return new Message(corpo, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        return decodificar(ByteBuffer.wrap(message.getBody())).paraSistemaRefrigeracao();
+    }
+
+    public static int tamanhoCodificado(LeituraRefrigeracao leitura) {
+        return TAMANHO_FIXO + utf8(leitura.getSistemaId()).length;
+    }
+
+    public static void codificar(LeituraRefrigeracao leitura, ByteBuffer destino) {
+        destino.put(MAGIC_0).put(MAGIC_1).put(VERSAO);
+        destino.put((byte) leitura.getStatus().ordinal());
+        destino.putLong(leitura.getTimestampMillis());
+        destino.putFloat((float) leitura.getTemperatura());
+        destino.putFloat((float) leitura.getPressao());
+        destino.putFloat((float) leitura.getUmidade());
+        destino.putFloat((float) leitura.getConsumoEnergia());
+        destino.putFloat((float) leitura.getVelocidadeCompressor());
+        destino.put(codigoCatalogo(leitura.getIndiceNome(), leitura.getNomeSistema()));
+        destino.put(codigoCatalogo(leitura.getIndiceLocalizacao(), leitura.getLocalizacao()));
+        destino.put(codigoCatalogo(leitura.getIndiceObservacao(), leitura.getObservacoes()));
+        putTexto(destino, leitura.getSistemaId());
+    }
+
+    public static LeituraRefrigeracao decodificar(ByteBuffer origem) {
+        try {
+            if (origem.get() != MAGIC_0 || origem.get() != MAGIC_1) {
+                throw new MessageConversionException("Mensagem não está no formato binário de telemetria");
+            }
+            byte versao = origem.get();
+            if (versao != VERSAO) {
+                throw new MessageConversionException("Versão de formato binário não suportada: " + versao);
+            }
+
+            LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+            leitura.setStatus(STATUS[origem.get()]);
+            leitura.setTimestampMillis(origem.getLong());
+            leitura.setTemperatura(origem.getFloat());
+            leitura.setPressao(origem.getFloat());
+            leitura.setUmidade(origem.getFloat());
+            leitura.setConsumoEnergia(origem.getFloat());
+            leitura.setVelocidadeCompressor(origem.getFloat());
+            leitura.setIndiceNome(indiceCatalogo(origem.get(), CatalogoSistemas.NOMES_SISTEMAS));
+            leitura.setIndiceLocalizacao(indiceCatalogo(origem.get(), CatalogoSistemas.LOCALIZACOES));
+            leitura.setIndiceObservacao(indiceCatalogo(origem.get(), CatalogoSistemas.OBSERVACOES));
+            leitura.setSistemaId(getTexto(origem));
+            return leitura;
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            throw new MessageConversionException("Mensagem binária de telemetria truncada ou inválida", e);
+        }
+    }
+
+    // Só textos do catálogo cabem no formato; os ausentes vão como CODIGO_AUSENTE
+    private static byte codigoCatalogo(int indice, String texto) {
+        if (indice != LeituraRefrigeracao.FORA_DO_CATALOGO) {
+            return (byte) indice;
+        }
+        if (texto != null) {
+            throw new MessageConversionException("Formato binário só suporta textos do catálogo, recebido: " + texto);
+        }
+        return (byte) CODIGO_AUSENTE;
+    }
+
+    private static int indiceCatalogo(byte codigo, String[] catalogo) {
+        int indice = Byte.toUnsignedInt(codigo);
+        if (indice == CODIGO_AUSENTE) {
+            return LeituraRefrigeracao.FORA_DO_CATALOGO;
+        }
+        if (indice >= catalogo.length) {
+            throw new MessageConversionException("Código de catálogo inválido: " + indice);
+        }
+        return indice;
+    }
+
+    private static void putTexto(ByteBuffer destino, String texto) {
+        byte[] bytes = utf8(texto);
+        destino.putShort((short) bytes.length);
+        destino.put(bytes);
+    }
+
+    private static String getTexto(ByteBuffer origem) {
+        int tamanho = Short.toUnsignedInt(origem.getShort());
+        byte[] bytes = new byte[tamanho];
+        origem.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto == null ? new byte[0] : texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
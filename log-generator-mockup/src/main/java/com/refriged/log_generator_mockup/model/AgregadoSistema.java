@@ -0,0 +1,53 @@
+package com.refriged.log_generator_mockup.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.refriged.log_generator_mockup.utils.enums.TipoJanela;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resumo das leituras de um sistema em uma janela de tempo, publicado em
+ * {@code refrigeracao.agregados}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgregadoSistema {
+
+    private String sistemaId;
+
+    private TipoJanela tipoJanela;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime inicio;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fim;
+
+    private long quantidadeLeituras;
+
+    private double percentil;
+
+    private EstatisticasMetrica temperatura;
+
+    private EstatisticasMetrica pressao;
+
+    private EstatisticasMetrica consumoEnergia;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EstatisticasMetrica {
+        private double minimo;
+        private double maximo;
+        private double media;
+        private double valorPercentil;
+    }
+}
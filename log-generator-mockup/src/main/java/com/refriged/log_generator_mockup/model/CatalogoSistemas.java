@@ -0,0 +1,28 @@
+package com.refriged.log_generator_mockup.model;
+
+public final class CatalogoSistemas {
+
+    public static final String[] NOMES_SISTEMAS = {
+        "Motor Chiller de Imersão 1", "Motor Chiller de Imersão 2",
+        "Motor Pré-Resfriador A", "Motor Túnel de Congelamento Rápido B",
+        "Motor Câmara de Estocagem Congelados C1", "Motor Câmara de Estocagem Resfriados C2"
+    };
+
+    public static final String[] LOCALIZACOES = {
+        "Casa de Máquinas - Painel 1", "Casa de Máquinas - Painel 2",
+        "Casa de Máquinas - Painel 3", "Casa de Máquinas - Painel 4",
+        "Casa de Máquinas - Painel 5", "Casa de Máquinas - Painel 6"
+    };
+
+    public static final String[] OBSERVACOES = {
+        "Sistema funcionando dentro dos parâmetros normais",
+        "Leve variação na temperatura detectada",
+        "Manutenção preventiva agendada para próxima semana",
+        "Compressor operando com eficiência ótima",
+        "Monitoramento contínuo ativo",
+        null
+    };
+
+    private CatalogoSistemas() {
+    }
+}
@@ -0,0 +1,69 @@
+package com.refriged.log_generator_mockup.model;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Campos tipados de um {@link EventoLog}; os ausentes não são serializados. Resumos sem
+ * campo próprio (como o status da simulação) vão em {@code adicionais}, achatados no JSON.
+ * A ordem dos campos é a do mapa de detalhes publicado antes do modelo tipado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"umidade", "endpoint", "velocidadeCompressor", "erro", "pressao", "consumoEnergia",
+        "quantidadeSistemas", "temperatura", "status"})
+public class DetalhesLog {
+
+    private String endpoint;
+
+    private Double temperatura;
+
+    private Double pressao;
+
+    private Double umidade;
+
+    private StatusSistema status;
+
+    private Double consumoEnergia;
+
+    private Double velocidadeCompressor;
+
+    private Integer quantidadeSistemas;
+
+    private String erro;
+
+    private Map<String, Object> adicionais;
+
+    @JsonAnyGetter
+    public Map<String, Object> getAdicionais() {
+        return adicionais;
+    }
+
+    public static DetalhesLog leitura(String endpoint, SistemaRefrigeracao sistema) {
+        return DetalhesLog.builder()
+                .endpoint(endpoint)
+                .temperatura(sistema.getTemperatura())
+                .pressao(sistema.getPressao())
+                .umidade(sistema.getUmidade())
+                .status(sistema.getStatus())
+                .consumoEnergia(sistema.getConsumoEnergia())
+                .velocidadeCompressor(sistema.getVelocidadeCompressor())
+                .build();
+    }
+
+    public static DetalhesLog erro(String endpoint, String erro) {
+        return DetalhesLog.builder().endpoint(endpoint).erro(erro).build();
+    }
+}
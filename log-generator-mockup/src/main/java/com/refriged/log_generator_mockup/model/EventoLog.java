@@ -0,0 +1,43 @@
+package com.refriged.log_generator_mockup.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.refriged.log_generator_mockup.utils.enums.NivelLog;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de log estruturado, publicado em {@code refrigeracao.logs} e gravado no arquivo
+ * de eventos com a mesma codificação. O JSON mantém o formato do mapa publicado antes do
+ * modelo tipado: mesma ordem de campos e timestamp como array.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonPropertyOrder({"sistemaId", "mensagem", "origem", "nivel", "detalhes", "timestamp"})
+public class EventoLog {
+
+    public static final String ORIGEM = "refrigeracao-microservice";
+
+    private String sistemaId;
+
+    private LocalDateTime timestamp;
+
+    private NivelLog nivel;
+
+    private String mensagem;
+
+    private DetalhesLog detalhes;
+
+    private String origem;
+
+    public static EventoLog de(String sistemaId, NivelLog nivel, String mensagem, DetalhesLog detalhes) {
+        return new EventoLog(sistemaId, LocalDateTime.now(), nivel, mensagem,
+                detalhes != null ? detalhes : new DetalhesLog(), ORIGEM);
+    }
+}
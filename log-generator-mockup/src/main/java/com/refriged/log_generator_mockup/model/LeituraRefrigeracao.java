@@ -0,0 +1,173 @@
+package com.refriged.log_generator_mockup.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+
+/**
+ * Representação interna e mutável de uma leitura, com campos primitivos e textos
+ * referenciados por índice no {@link CatalogoSistemas}. Uma instância é reutilizada
+ * a cada leitura no caminho quente; {@link SistemaRefrigeracao} só é montado na
+ * borda REST. Serializa em JSON com o mesmo formato de {@link SistemaRefrigeracao}.
+ * Textos fora do catálogo, ou nulos, ficam com índice {@link #FORA_DO_CATALOGO} e o
+ * valor original guardado à parte.
+ */
+@Getter
+@Setter
+@JsonPropertyOrder({"sistemaId", "nomeSistema", "localizacao", "timestamp", "temperatura", "pressao",
+        "umidade", "status", "consumoEnergia", "velocidadeCompressor", "observacoes"})
+public class LeituraRefrigeracao {
+
+    public static final int FORA_DO_CATALOGO = -1;
+
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    @JsonIgnore
+    private int indice;
+
+    private String sistemaId;
+
+    @JsonIgnore
+    private long timestampMillis;
+
+    private double temperatura;
+    private double pressao;
+    private double umidade;
+    private StatusSistema status;
+    private double consumoEnergia;
+    private double velocidadeCompressor;
+
+    @JsonIgnore
+    private int indiceNome;
+
+    @JsonIgnore
+    private int indiceLocalizacao;
+
+    @JsonIgnore
+    private int indiceObservacao;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String nomeForaDoCatalogo;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String localizacaoForaDoCatalogo;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String observacoesForaDoCatalogo;
+
+    public static LeituraRefrigeracao de(SistemaRefrigeracao sistema) {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        leitura.copiarDe(sistema);
+        return leitura;
+    }
+
+    /** Preenche esta leitura com os valores do sistema; o índice do sistema não é alterado. */
+    public void copiarDe(SistemaRefrigeracao sistema) {
+        sistemaId = sistema.getSistemaId();
+        timestampMillis = sistema.getTimestamp() != null
+                ? sistema.getTimestamp().atZone(ZONA).toInstant().toEpochMilli() : System.currentTimeMillis();
+        temperatura = sistema.getTemperatura();
+        pressao = sistema.getPressao();
+        umidade = sistema.getUmidade();
+        status = sistema.getStatus();
+        consumoEnergia = sistema.getConsumoEnergia();
+        velocidadeCompressor = sistema.getVelocidadeCompressor();
+        indiceNome = indiceDe(CatalogoSistemas.NOMES_SISTEMAS, sistema.getNomeSistema());
+        nomeForaDoCatalogo = indiceNome == FORA_DO_CATALOGO ? sistema.getNomeSistema() : null;
+        indiceLocalizacao = indiceDe(CatalogoSistemas.LOCALIZACOES, sistema.getLocalizacao());
+        localizacaoForaDoCatalogo = indiceLocalizacao == FORA_DO_CATALOGO ? sistema.getLocalizacao() : null;
+        indiceObservacao = indiceDe(CatalogoSistemas.OBSERVACOES, sistema.getObservacoes());
+        observacoesForaDoCatalogo = indiceObservacao == FORA_DO_CATALOGO ? sistema.getObservacoes() : null;
+    }
+
+    public void copiarDe(LeituraRefrigeracao outra) {
+        indice = outra.indice;
+        sistemaId = outra.sistemaId;
+        timestampMillis = outra.timestampMillis;
+        temperatura = outra.temperatura;
+        pressao = outra.pressao;
+        umidade = outra.umidade;
+        status = outra.status;
+        consumoEnergia = outra.consumoEnergia;
+        velocidadeCompressor = outra.velocidadeCompressor;
+        indiceNome = outra.indiceNome;
+        indiceLocalizacao = outra.indiceLocalizacao;
+        indiceObservacao = outra.indiceObservacao;
+        nomeForaDoCatalogo = outra.nomeForaDoCatalogo;
+        localizacaoForaDoCatalogo = outra.localizacaoForaDoCatalogo;
+        observacoesForaDoCatalogo = outra.observacoesForaDoCatalogo;
+    }
+
+    // Os setters de índice descartam o texto fora do catálogo de um uso anterior da instância
+    public void setIndiceNome(int indiceNome) {
+        this.indiceNome = indiceNome;
+        nomeForaDoCatalogo = null;
+    }
+
+    public void setIndiceLocalizacao(int indiceLocalizacao) {
+        this.indiceLocalizacao = indiceLocalizacao;
+        localizacaoForaDoCatalogo = null;
+    }
+
+    public void setIndiceObservacao(int indiceObservacao) {
+        this.indiceObservacao = indiceObservacao;
+        observacoesForaDoCatalogo = null;
+    }
+
+    public String getNomeSistema() {
+        return indiceNome != FORA_DO_CATALOGO ? CatalogoSistemas.NOMES_SISTEMAS[indiceNome] : nomeForaDoCatalogo;
+    }
+
+    public String getLocalizacao() {
+        return indiceLocalizacao != FORA_DO_CATALOGO
+                ? CatalogoSistemas.LOCALIZACOES[indiceLocalizacao] : localizacaoForaDoCatalogo;
+    }
+
+    public String getObservacoes() {
+        return indiceObservacao != FORA_DO_CATALOGO
+                ? CatalogoSistemas.OBSERVACOES[indiceObservacao] : observacoesForaDoCatalogo;
+    }
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    public LocalDateTime getTimestamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMillis), ZONA);
+    }
+
+    public SistemaRefrigeracao paraSistemaRefrigeracao() {
+        return SistemaRefrigeracao.builder()
+                .sistemaId(sistemaId)
+                .nomeSistema(getNomeSistema())
+                .localizacao(getLocalizacao())
+                .timestamp(getTimestamp())
+                .temperatura(temperatura)
+                .pressao(pressao)
+                .umidade(umidade)
+                .status(status)
+                .consumoEnergia(consumoEnergia)
+                .velocidadeCompressor(velocidadeCompressor)
+                .observacoes(getObservacoes())
+                .build();
+    }
+
+    private static int indiceDe(String[] catalogo, String valor) {
+        for (int i = 0; i < catalogo.length; i++) {
+            if (Objects.equals(catalogo[i], valor)) {
+                return i;
+            }
+        }
+        return FORA_DO_CATALOGO;
+    }
+}
@@ -0,0 +1,396 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.model.AgregadoSistema;
+import com.refriged.log_generator_mockup.model.AgregadoSistema.EstatisticasMetrica;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.TipoJanela;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estágio de agregação entre a geração de leituras e a publicação. Cada sistema mantém
+ * um anel de painéis do tamanho da janela fixa; a janela deslizante é a fusão dos últimos
+ * painéis. Percentis vêm de histogramas de faixa fixa, mesclados por soma, então a memória
+ * por sistema é constante: painéis x 3 métricas x (buckets + min/max/soma).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AgregacaoService {
+
+    private static final int CAPACIDADE = EstadoSensores.MAX_SISTEMAS + EstadoSensores.MAX_SISTEMAS_AVULSOS;
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANHO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANHO_PAGINA - 1;
+
+    private static final int LISTRAS = 1024;
+    private static final int METRICAS = 3;
+    private static final int TEMPERATURA = 0;
+    private static final int PRESSAO = 1;
+    private static final int CONSUMO = 2;
+
+    private static final long SEM_JANELA = Long.MIN_VALUE;
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final RabbitMQProducerService rabbitMQProducerService;
+    private final EstadoSensores estadoSensores;
+
+    @Value("${app.refrigeracao.agregacao.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${app.refrigeracao.agregacao.publicar-dados-brutos:true}")
+    private boolean publicarDadosBrutos;
+
+    @Value("${app.refrigeracao.agregacao.janela-segundos:60}")
+    private long janelaSegundos;
+
+    @Value("${app.refrigeracao.agregacao.paineis-deslizante:5}")
+    private int paineisDeslizante;
+
+    @Value("${app.refrigeracao.agregacao.percentil:0.95}")
+    private double percentil;
+
+    @Value("${app.refrigeracao.agregacao.buckets:32}")
+    private int buckets;
+
+    @Value("${app.refrigeracao.agregacao.tolerancia-segundos:5}")
+    private long toleranciaSegundos;
+
+    @Value("${app.refrigeracao.data-generation.temperatura-min:-30.0}")
+    private double temperaturaMin;
+
+    @Value("${app.refrigeracao.data-generation.temperatura-max:5.0}")
+    private double temperaturaMax;
+
+    @Value("${app.refrigeracao.data-generation.pressao-min:1.0}")
+    private double pressaoMin;
+
+    @Value("${app.refrigeracao.data-generation.pressao-max:15.0}")
+    private double pressaoMax;
+
+    @Value("${app.refrigeracao.data-generation.consumo-min:5.0}")
+    private double consumoMin;
+
+    @Value("${app.refrigeracao.data-generation.consumo-max:50.0}")
+    private double consumoMax;
+
+    private final AtomicReferenceArray<Pagina> paginas = new AtomicReferenceArray<>((CAPACIDADE >> BITS_PAGINA) + 1);
+    private final Object[] listras = new Object[LISTRAS];
+
+    private final LongAdder leiturasAgregadas = new LongAdder();
+    private final LongAdder leiturasAtrasadas = new LongAdder();
+    private final LongAdder agregadosPublicados = new LongAdder();
+
+    private int paineis;
+    private long janelaMillis;
+    private double[] faixaMinimo;
+    private double[] larguraBucket;
+    private ScheduledExecutorService varredura;
+
+    @PostConstruct
+    void iniciar() {
+        if (janelaSegundos < 1 || paineisDeslizante < 0 || buckets < 2 || percentil <= 0 || percentil >= 1) {
+            throw new IllegalArgumentException("Configuração de agregação inválida");
+        }
+        for (int i = 0; i < LISTRAS; i++) {
+            listras[i] = new Object();
+        }
+        paineis = Math.max(1, paineisDeslizante);
+        janelaMillis = TimeUnit.SECONDS.toMillis(janelaSegundos);
+        faixaMinimo = new double[]{temperaturaMin, pressaoMin, consumoMin};
+        larguraBucket = new double[]{
+                (temperaturaMax - temperaturaMin) / buckets,
+                (pressaoMax - pressaoMin) / buckets,
+                (consumoMax - consumoMin) / buckets};
+
+        if (!habilitada) {
+            return;
+        }
+        // No modo determinístico as janelas fecham só pelo tempo das leituras, não pelo relógio
+        if (!estadoSensores.isDeterministico()) {
+            varredura = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "agregacao-varredura");
+                thread.setDaemon(true);
+                return thread;
+            });
+            varredura.scheduleWithFixedDelay(this::fecharJanelasVencidas, 1, 1, TimeUnit.SECONDS);
+        }
+
+        log.info("Agregação habilitada: janela {} s, deslizante {} painéis, p{}, {} buckets ({} bytes por sistema)",
+                janelaSegundos, paineisDeslizante, Math.round(percentil * 100), buckets, bytesPorSistema());
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (varredura != null) {
+            varredura.shutdownNow();
+        }
+    }
+
+    public void processar(SistemaRefrigeracao sistema) {
+        LeituraRefrigeracao leitura = LeituraRefrigeracao.de(sistema);
+        leitura.setIndice(estadoSensores.indiceDe(sistema.getSistemaId()));
+        processar(leitura);
+    }
+
+    public void processar(LeituraRefrigeracao leitura) {
+        if (habilitada) {
+            registrar(leitura);
+        }
+        if (publicarDadosBrutos) {
+            rabbitMQProducerService.enfileirarLeitura(leitura);
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("habilitada", habilitada);
+        estatisticas.put("publicarDadosBrutos", publicarDadosBrutos);
+        estatisticas.put("janelaSegundos", janelaSegundos);
+        estatisticas.put("paineisDeslizante", paineisDeslizante);
+        estatisticas.put("bytesPorSistema", bytesPorSistema());
+        estatisticas.put("leiturasAgregadas", leiturasAgregadas.sum());
+        estatisticas.put("leiturasAtrasadas", leiturasAtrasadas.sum());
+        estatisticas.put("agregadosPublicados", agregadosPublicados.sum());
+        return estatisticas;
+    }
+
+    private void registrar(LeituraRefrigeracao leitura) {
+        int indice = leitura.getIndice();
+        Pagina pagina = pagina(indice);
+        int s = indice & MASCARA_PAGINA;
+        long janela = Math.floorDiv(leitura.getTimestampMillis(), janelaMillis);
+
+        synchronized (listras[indice & (LISTRAS - 1)]) {
+            long aberta = pagina.janelaAberta[s];
+            if (janela <= pagina.ultimaFechada[s] || (aberta != SEM_JANELA && janela < aberta)) {
+                leiturasAtrasadas.increment();
+                return;
+            }
+            if (aberta != SEM_JANELA && janela > aberta) {
+                fechar(pagina, s, aberta, leitura.getSistemaId());
+            }
+            if (janela != aberta) {
+                pagina.janelaAberta[s] = janela;
+                pagina.sistemaId[s] = leitura.getSistemaId();
+                limparPainel(pagina, s * paineis + (int) Math.floorMod(janela, (long) paineis), janela);
+            }
+
+            int painel = s * paineis + (int) Math.floorMod(janela, (long) paineis);
+            pagina.quantidade[painel]++;
+            acumular(pagina, painel, TEMPERATURA, leitura.getTemperatura());
+            acumular(pagina, painel, PRESSAO, leitura.getPressao());
+            acumular(pagina, painel, CONSUMO, leitura.getConsumoEnergia());
+        }
+        leiturasAgregadas.increment();
+    }
+
+    private void acumular(Pagina pagina, int painel, int metrica, double valor) {
+        int m = painel * METRICAS + metrica;
+        pagina.minimo[m] = Math.min(pagina.minimo[m], valor);
+        pagina.maximo[m] = Math.max(pagina.maximo[m], valor);
+        pagina.soma[m] += valor;
+
+        int bucket = (int) ((valor - faixaMinimo[metrica]) / larguraBucket[metrica]);
+        bucket = Math.max(0, Math.min(buckets - 1, bucket));
+        int b = m * buckets + bucket;
+        if (pagina.contagem[b] != Character.MAX_VALUE) {
+            pagina.contagem[b]++;
+        }
+    }
+
+    private void limparPainel(Pagina pagina, int painel, long janela) {
+        pagina.janelaPainel[painel] = janela;
+        pagina.quantidade[painel] = 0;
+        for (int m = painel * METRICAS; m < (painel + 1) * METRICAS; m++) {
+            pagina.minimo[m] = Double.POSITIVE_INFINITY;
+            pagina.maximo[m] = Double.NEGATIVE_INFINITY;
+            pagina.soma[m] = 0;
+        }
+        Arrays.fill(pagina.contagem, painel * METRICAS * buckets, (painel + 1) * METRICAS * buckets, (char) 0);
+    }
+
+    private void fechar(Pagina pagina, int s, long janela, String sistemaId) {
+        int painel = s * paineis + (int) Math.floorMod(janela, (long) paineis);
+        pagina.ultimaFechada[s] = janela;
+        publicar(montar(pagina, sistemaId, TipoJanela.FIXA, janela, janela, painel, painel + 1));
+
+        if (paineisDeslizante > 0) {
+            publicar(montar(pagina, sistemaId, TipoJanela.DESLIZANTE, janela - paineis + 1, janela,
+                    s * paineis, (s + 1) * paineis));
+        }
+    }
+
+    /**
+     * Funde os painéis de {@code [painelInicio, painelFim)} cujas janelas caem em
+     * {@code [janelaInicio, janelaFim]}.
+     */
+    private AgregadoSistema montar(Pagina pagina, String sistemaId, TipoJanela tipo, long janelaInicio, long janelaFim,
+                                   int painelInicio, int painelFim) {
+        long quantidade = 0;
+        double[] minimo = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] maximo = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double[] soma = new double[METRICAS];
+        long[] histograma = new long[METRICAS * buckets];
+
+        for (int painel = painelInicio; painel < painelFim; painel++) {
+            long janela = pagina.janelaPainel[painel];
+            if (janela < janelaInicio || janela > janelaFim) {
+                continue;
+            }
+            quantidade += pagina.quantidade[painel];
+            for (int metrica = 0; metrica < METRICAS; metrica++) {
+                int m = painel * METRICAS + metrica;
+                minimo[metrica] = Math.min(minimo[metrica], pagina.minimo[m]);
+                maximo[metrica] = Math.max(maximo[metrica], pagina.maximo[m]);
+                soma[metrica] += pagina.soma[m];
+                for (int b = 0; b < buckets; b++) {
+                    histograma[metrica * buckets + b] += pagina.contagem[m * buckets + b];
+                }
+            }
+        }
+
+        return AgregadoSistema.builder()
+                .sistemaId(sistemaId)
+                .tipoJanela(tipo)
+                .inicio(instante(janelaInicio * janelaMillis))
+                .fim(instante((janelaFim + 1) * janelaMillis))
+                .quantidadeLeituras(quantidade)
+                .percentil(percentil)
+                .temperatura(estatisticas(TEMPERATURA, quantidade, minimo, maximo, soma, histograma))
+                .pressao(estatisticas(PRESSAO, quantidade, minimo, maximo, soma, histograma))
+                .consumoEnergia(estatisticas(CONSUMO, quantidade, minimo, maximo, soma, histograma))
+                .build();
+    }
+
+    private EstatisticasMetrica estatisticas(int metrica, long quantidade, double[] minimo, double[] maximo,
+                                             double[] soma, long[] histograma) {
+        return EstatisticasMetrica.builder()
+                .minimo(minimo[metrica])
+                .maximo(maximo[metrica])
+                .media(soma[metrica] / quantidade)
+                .valorPercentil(quantil(metrica, histograma, minimo[metrica], maximo[metrica]))
+                .build();
+    }
+
+    /**
+     * Quantil por interpolação linear dentro do bucket, limitado ao mínimo e máximo exatos.
+     */
+    private double quantil(int metrica, long[] histograma, double minimo, double maximo) {
+        long total = 0;
+        for (int b = 0; b < buckets; b++) {
+            total += histograma[metrica * buckets + b];
+        }
+        double alvo = Math.ceil(percentil * total);
+        long acumulado = 0;
+        for (int b = 0; b < buckets; b++) {
+            long contagem = histograma[metrica * buckets + b];
+            if (contagem > 0 && acumulado + contagem >= alvo) {
+                double inicioBucket = faixaMinimo[metrica] + b * larguraBucket[metrica];
+                double valor = inicioBucket + (alvo - acumulado) / contagem * larguraBucket[metrica];
+                return Math.max(minimo, Math.min(maximo, valor));
+            }
+            acumulado += contagem;
+        }
+        return maximo;
+    }
+
+    private void publicar(AgregadoSistema agregado) {
+        rabbitMQProducerService.enfileirarAgregado(agregado);
+        agregadosPublicados.increment();
+    }
+
+    private void fecharJanelasVencidas() {
+        try {
+            long vencida = Math.floorDiv(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(toleranciaSegundos),
+                    janelaMillis) - 1;
+            for (int p = 0; p < paginas.length(); p++) {
+                Pagina pagina = paginas.get(p);
+                if (pagina == null) {
+                    continue;
+                }
+                for (int s = 0; s < TAMANHO_PAGINA; s++) {
+                    long aberta = pagina.janelaAberta[s];
+                    if (aberta == SEM_JANELA || aberta > vencida) {
+                        continue;
+                    }
+                    synchronized (listras[((p << BITS_PAGINA) | s) & (LISTRAS - 1)]) {
+                        aberta = pagina.janelaAberta[s];
+                        if (aberta != SEM_JANELA && aberta <= vencida) {
+                            fechar(pagina, s, aberta, pagina.sistemaId[s]);
+                            pagina.janelaAberta[s] = SEM_JANELA;
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Erro ao fechar janelas de agregação: {}", e.getMessage(), e);
+        }
+    }
+
+    private long bytesPorSistema() {
+        int porPainel = Long.BYTES + Integer.BYTES + METRICAS * (3 * Double.BYTES + buckets * Character.BYTES);
+        return (long) Math.max(1, paineisDeslizante) * porPainel + 2 * Long.BYTES + Integer.BYTES;
+    }
+
+    private LocalDateTime instante(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONA);
+    }
+
+    private Pagina pagina(int indice) {
+        if (indice < 0 || indice >= CAPACIDADE) {
+            throw new IllegalArgumentException("Índice de sistema fora da faixa: " + indice);
+        }
+        int numeroPagina = indice >>> BITS_PAGINA;
+        Pagina pagina = paginas.get(numeroPagina);
+        if (pagina == null) {
+            paginas.compareAndSet(numeroPagina, null, new Pagina(paineis, buckets));
+            pagina = paginas.get(numeroPagina);
+        }
+        return pagina;
+    }
+
+    private static final class Pagina {
+        private final long[] janelaAberta = new long[TAMANHO_PAGINA];
+        private final long[] ultimaFechada = new long[TAMANHO_PAGINA];
+        private final String[] sistemaId = new String[TAMANHO_PAGINA];
+        private final long[] janelaPainel;
+        private final int[] quantidade;
+        private final double[] minimo;
+        private final double[] maximo;
+        private final double[] soma;
+        private final char[] contagem;
+
+        private Pagina(int paineis, int buckets) {
+            int totalPaineis = TAMANHO_PAGINA * paineis;
+            Arrays.fill(janelaAberta, SEM_JANELA);
+            Arrays.fill(ultimaFechada, SEM_JANELA);
+            janelaPainel = new long[totalPaineis];
+            Arrays.fill(janelaPainel, SEM_JANELA);
+            quantidade = new int[totalPaineis];
+            minimo = new double[totalPaineis * METRICAS];
+            maximo = new double[totalPaineis * METRICAS];
+            soma = new double[totalPaineis * METRICAS];
+            contagem = new char[totalPaineis * METRICAS * buckets];
+        }
+    }
+}
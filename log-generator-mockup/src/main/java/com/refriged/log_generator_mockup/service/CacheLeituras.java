@@ -0,0 +1,369 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache da última leitura e do histórico recente de cada sistema, alimentado por toda
+ * leitura gerada. Os valores ficam em arrays primitivos, com um anel de
+ * {@code historico} posições por slot. Cada slot tem um seqlock: quem escreve deixa a
+ * versão ímpar durante a escrita e quem lê nunca bloqueia, apenas repete a cópia se a
+ * versão mudou. Com todos os slots ocupados, um sistema novo ocupa o slot menos
+ * recente de uma pequena amostra.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheLeituras {
+
+    private static final VarHandle VERSAO = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANHO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANHO_PAGINA - 1;
+    private static final int AMOSTRA_REMOCAO = 8;
+    private static final int LIVRE = -1;
+
+    private static final StatusSistema[] STATUS = StatusSistema.values();
+
+    private final ParticionamentoSistemas particionamento;
+
+    @Value("${app.refrigeracao.cache.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.refrigeracao.cache.max-sistemas:20000}")
+    private int maxSistemas;
+
+    @Value("${app.refrigeracao.cache.historico:8}")
+    private int historico;
+
+    // Slot + 1 de cada índice de sistema (0 = fora do cache), em páginas criadas sob demanda
+    private final AtomicReferenceArray<AtomicIntegerArray> slotsPorIndice = new AtomicReferenceArray<>(
+            ((EstadoSensores.MAX_SISTEMAS + EstadoSensores.MAX_SISTEMAS_AVULSOS) >> BITS_PAGINA) + 1);
+
+    // Por slot
+    private long[] versoes;
+    private int[] indices;
+    private String[] ids;
+    private int[] nomes;
+    private int[] localizacoes;
+    private long[] contadores;
+
+    // Por posição do anel: slot * historico + (contador & mascaraHistorico)
+    private long[] timestamps;
+    private double[] temperaturas;
+    private double[] pressoes;
+    private double[] umidades;
+    private double[] consumos;
+    private double[] rotacoes;
+    private byte[] status;
+    private byte[] observacoes;
+
+    private int mascaraHistorico;
+
+    private final ReentrantLock alocacao = new ReentrantLock();
+    // Escrito só sob a trava de alocação; quem lê varre os slots sem travar
+    private volatile int ocupados;
+    private int cursorRemocao;
+
+    private final LongAdder escritas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder remocoes = new LongAdder();
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+
+    @PostConstruct
+    void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        int tamanhoAnel = 1;
+        while (tamanhoAnel < historico) {
+            tamanhoAnel <<= 1;
+        }
+        historico = tamanhoAnel;
+        mascaraHistorico = tamanhoAnel - 1;
+
+        versoes = new long[maxSistemas];
+        indices = new int[maxSistemas];
+        Arrays.fill(indices, LIVRE);
+        ids = new String[maxSistemas];
+        nomes = new int[maxSistemas];
+        localizacoes = new int[maxSistemas];
+        contadores = new long[maxSistemas];
+
+        int posicoes = maxSistemas * historico;
+        timestamps = new long[posicoes];
+        temperaturas = new double[posicoes];
+        pressoes = new double[posicoes];
+        umidades = new double[posicoes];
+        consumos = new double[posicoes];
+        rotacoes = new double[posicoes];
+        status = new byte[posicoes];
+        observacoes = new byte[posicoes];
+
+        log.info("Cache de leituras habilitado: maxSistemas={}, historico={}", maxSistemas, historico);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Guarda a leitura como a mais recente do sistema. Com o cache cheio e outra thread
+     * trocando um slot, a leitura não entra no cache em vez de esperar.
+     */
+    public void registrar(LeituraRefrigeracao leitura) {
+        if (!habilitado) {
+            return;
+        }
+        int indice = leitura.getIndice();
+        while (true) {
+            int slot = slotDe(indice);
+            if (slot < 0 && (slot = alocar(indice, leitura.getSistemaId())) < 0) {
+                descartadas.increment();
+                return;
+            }
+
+            long versao = travar(slot);
+            if (indices[slot] != indice) {
+                // O slot foi entregue a outro sistema entre a busca e a trava
+                VERSAO.setRelease(versoes, slot, versao + 2);
+                continue;
+            }
+            long contador = contadores[slot];
+            int posicao = slot * historico + (int) (contador & mascaraHistorico);
+            timestamps[posicao] = leitura.getTimestampMillis();
+            temperaturas[posicao] = leitura.getTemperatura();
+            pressoes[posicao] = leitura.getPressao();
+            umidades[posicao] = leitura.getUmidade();
+            consumos[posicao] = leitura.getConsumoEnergia();
+            rotacoes[posicao] = leitura.getVelocidadeCompressor();
+            status[posicao] = (byte) leitura.getStatus().ordinal();
+            observacoes[posicao] = (byte) leitura.getIndiceObservacao();
+            nomes[slot] = leitura.getIndiceNome();
+            localizacoes[slot] = leitura.getIndiceLocalizacao();
+            contadores[slot] = contador + 1;
+            VERSAO.setRelease(versoes, slot, versao + 2);
+            escritas.increment();
+            return;
+        }
+    }
+
+    public boolean ultima(int indice, LeituraRefrigeracao destino) {
+        int slot = habilitado && indice >= 0 ? slotDe(indice) : -1;
+        if (slot < 0 || copiar(slot, indice, new LeituraRefrigeracao[]{destino}, 1) < 1) {
+            faltas.increment();
+            return false;
+        }
+        acertos.increment();
+        return true;
+    }
+
+    /**
+     * Leituras em cache do sistema, da mais recente para a mais antiga.
+     */
+    public List<SistemaRefrigeracao> historico(int indice, int limite) {
+        int slot = habilitado && indice >= 0 ? slotDe(indice) : -1;
+        if (slot < 0) {
+            faltas.increment();
+            return List.of();
+        }
+        LeituraRefrigeracao[] leituras = novasLeituras(Math.min(limite, historico));
+        int copiadas = copiar(slot, indice, leituras, leituras.length);
+        if (copiadas < 1) {
+            faltas.increment();
+            return List.of();
+        }
+        acertos.increment();
+        List<SistemaRefrigeracao> resultado = new ArrayList<>(copiadas);
+        for (int i = 0; i < copiadas; i++) {
+            resultado.add(leituras[i].paraSistemaRefrigeracao());
+        }
+        return resultado;
+    }
+
+    /**
+     * Última leitura dos sistemas deste nó com o status e a localização informados
+     * (nulos não filtram), varrendo os slots ocupados.
+     */
+    public List<SistemaRefrigeracao> filtrar(StatusSistema statusFiltro, String localizacao, int limite) {
+        if (!habilitado) {
+            return List.of();
+        }
+        LeituraRefrigeracao[] leitura = novasLeituras(1);
+        List<SistemaRefrigeracao> resultado = new ArrayList<>();
+        int ocupadosAgora = ocupados;
+        for (int slot = 0; slot < ocupadosAgora && resultado.size() < limite; slot++) {
+            if (copiar(slot, LIVRE, leitura, 1) < 1) {
+                continue;
+            }
+            LeituraRefrigeracao ultima = leitura[0];
+            if ((statusFiltro == null || ultima.getStatus() == statusFiltro)
+                    && (localizacao == null || localizacao.equals(ultima.getLocalizacao()))
+                    && particionamento.pertence(ultima.getIndice())) {
+                resultado.add(ultima.paraSistemaRefrigeracao());
+            }
+        }
+        return resultado;
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("habilitado", habilitado);
+        estatisticas.put("maxSistemas", maxSistemas);
+        estatisticas.put("historico", historico);
+        estatisticas.put("ocupados", ocupados);
+        estatisticas.put("escritas", escritas.sum());
+        estatisticas.put("descartadas", descartadas.sum());
+        estatisticas.put("remocoes", remocoes.sum());
+        estatisticas.put("acertos", acertos.sum());
+        estatisticas.put("faltas", faltas.sum());
+        return estatisticas;
+    }
+
+    // Copia as últimas leituras do slot, da mais recente para a mais antiga. Devolve quantas
+    // copiou, ou -1 se o slot pertence a outro sistema (indice LIVRE aceita qualquer um).
+    private int copiar(int slot, int indice, LeituraRefrigeracao[] destino, int quantidade) {
+        while (true) {
+            long versao = (long) VERSAO.getAcquire(versoes, slot);
+            if ((versao & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            int indiceSlot = indices[slot];
+            String id = ids[slot];
+            int nome = nomes[slot];
+            int localizacao = localizacoes[slot];
+            long contador = contadores[slot];
+            int copiadas = (int) Math.min(Math.min(contador, historico), quantidade);
+            for (int k = 0; k < copiadas; k++) {
+                int posicao = slot * historico + (int) ((contador - 1 - k) & mascaraHistorico);
+                LeituraRefrigeracao leitura = destino[k];
+                leitura.setIndice(indiceSlot);
+                leitura.setSistemaId(id);
+                leitura.setIndiceNome(nome);
+                leitura.setIndiceLocalizacao(localizacao);
+                leitura.setTimestampMillis(timestamps[posicao]);
+                leitura.setTemperatura(temperaturas[posicao]);
+                leitura.setPressao(pressoes[posicao]);
+                leitura.setUmidade(umidades[posicao]);
+                leitura.setConsumoEnergia(consumos[posicao]);
+                leitura.setVelocidadeCompressor(rotacoes[posicao]);
+                leitura.setStatus(STATUS[status[posicao]]);
+                leitura.setIndiceObservacao(observacoes[posicao]);
+            }
+
+            VarHandle.loadLoadFence();
+            if ((long) VERSAO.get(versoes, slot) == versao) {
+                return indice == LIVRE || indiceSlot == indice ? copiadas : -1;
+            }
+        }
+    }
+
+    private long travar(int slot) {
+        while (true) {
+            long versao = (long) VERSAO.getVolatile(versoes, slot);
+            if ((versao & 1) == 0 && VERSAO.compareAndSet(versoes, slot, versao, versao + 1)) {
+                return versao;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private int slotDe(int indice) {
+        AtomicIntegerArray pagina = slotsPorIndice.get(indice >> BITS_PAGINA);
+        return pagina == null ? -1 : pagina.get(indice & MASCARA_PAGINA) - 1;
+    }
+
+    private int alocar(int indice, String sistemaId) {
+        // Cache cheio: quem encontra outra thread removendo não espera e descarta a leitura
+        if (ocupados < maxSistemas) {
+            alocacao.lock();
+        } else if (!alocacao.tryLock()) {
+            return -1;
+        }
+        try {
+            int slot = slotDe(indice);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (ocupados < maxSistemas) {
+                slot = ocupados;
+            } else {
+                slot = menosRecente();
+                mapear(indices[slot], 0);
+                remocoes.increment();
+            }
+
+            long versao = travar(slot);
+            indices[slot] = indice;
+            ids[slot] = sistemaId;
+            contadores[slot] = 0;
+            VERSAO.setRelease(versoes, slot, versao + 2);
+
+            mapear(indice, slot + 1);
+            if (slot == ocupados) {
+                ocupados++;
+            }
+            return slot;
+        } finally {
+            alocacao.unlock();
+        }
+    }
+
+    // Leituras fora de ordem só afetam a escolha da vítima, não o que é lido do cache
+    private int menosRecente() {
+        int escolhido = cursorRemocao;
+        long maisAntigo = Long.MAX_VALUE;
+        for (int i = 0; i < AMOSTRA_REMOCAO; i++) {
+            int slot = (cursorRemocao + i) % maxSistemas;
+            long contador = contadores[slot];
+            long timestamp = contador == 0 ? 0 : timestamps[slot * historico + (int) ((contador - 1) & mascaraHistorico)];
+            if (timestamp < maisAntigo) {
+                maisAntigo = timestamp;
+                escolhido = slot;
+            }
+        }
+        cursorRemocao = (cursorRemocao + AMOSTRA_REMOCAO) % maxSistemas;
+        return escolhido;
+    }
+
+    private void mapear(int indice, int valor) {
+        int numeroPagina = indice >> BITS_PAGINA;
+        AtomicIntegerArray pagina = slotsPorIndice.get(numeroPagina);
+        if (pagina == null) {
+            pagina = new AtomicIntegerArray(TAMANHO_PAGINA);
+            slotsPorIndice.set(numeroPagina, pagina);
+        }
+        pagina.set(indice & MASCARA_PAGINA, valor);
+    }
+
+    private static LeituraRefrigeracao[] novasLeituras(int quantidade) {
+        LeituraRefrigeracao[] leituras = new LeituraRefrigeracao[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            leituras[i] = new LeituraRefrigeracao();
+        }
+        return leituras;
+    }
+}
@@ -0,0 +1,399 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.PublicacaoProperties;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controle de vazão AIMD entre a geração e o broker. A cada intervalo a taxa liberada
+ * cresce um incremento fixo se foi usada e cai por um fator se houve sinal de
+ * congestionamento: falhas de envio, nacks, mensagens devolvidas, buffer ou janela de
+ * confirmações do publicador cheios, fila acima da profundidade máxima ou latência média
+ * de confirmação acima do alvo. Há no máximo uma redução por janela de observação: depois
+ * de um corte, os sinais só reduzem de novo quando chega a confirmação de uma mensagem
+ * enviada após o corte, uma falha de envio ou uma nova amostra das filas. Enquanto alguma
+ * conexão estiver bloqueada pelo broker (alarme de memória ou disco) nada é liberado. A
+ * taxa vale para a simulação e para as requisições que publicam, por um balde de fichas;
+ * o estado fica em {@code /actuator/vazao}.
+ */
+@Slf4j
+@Service
+@Endpoint(id = "vazao")
+@RequiredArgsConstructor
+public class ControleVazaoPublicacao {
+
+    // Só cresce se ao menos essa fração da taxa do intervalo foi pedida
+    private static final double UTILIZACAO_PARA_CRESCER = 0.9;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final PublicacaoProperties publicacaoProperties;
+    private final MeterRegistry registry;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.taxa-inicial:5000}")
+    private double taxaInicial;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.taxa-minima:100}")
+    private double taxaMinima;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.taxa-maxima:200000}")
+    private double taxaMaxima;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.incremento:1000}")
+    private double incremento;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.fator-reducao:0.5}")
+    private double fatorReducao;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.latencia-alvo-ms:200}")
+    private double latenciaAlvoMs;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.intervalo-ajuste-ms:200}")
+    private long intervaloAjusteMs;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.profundidade-maxima-fila:100000}")
+    private long profundidadeMaximaFila;
+
+    @Value("${app.refrigeracao.publicacao.controle-vazao.intervalo-verificacao-filas-ms:1000}")
+    private long intervaloVerificacaoFilasMs;
+
+    private final LongAdder confirmacoes = new LongAdder();
+    private final LongAdder latenciaConfirmacaoNanos = new LongAdder();
+    private final LongAdder nacks = new LongAdder();
+    private final LongAdder falhasEnvio = new LongAdder();
+    private final LongAdder devolvidas = new LongAdder();
+    private final LongAdder saturacoes = new LongAdder();
+    private final LongAdder liberadas = new LongAdder();
+    private final LongAdder recusas = new LongAdder();
+    private final LongAdder reducoes = new LongAdder();
+    private final LongAdder reducoesAdiadas = new LongAdder();
+
+    private final Object balde = new Object();
+    private double fichas;
+    private long ultimaReposicao;
+
+    private volatile double taxa;
+    // Com conexões em listras, cada uma é bloqueada e desbloqueada separadamente
+    private final Set<Connection> conexoesBloqueadas = ConcurrentHashMap.newKeySet();
+    private volatile String motivoReducao;
+    private volatile double latenciaConfirmacaoMs;
+    private volatile long profundidadeFila = -1;
+    private volatile String filaMaisCheia;
+    private volatile String ultimaDevolucao;
+
+    // Escrito antes de abrir a janela, para quem vê a janela aberta ver também o instante do corte
+    private volatile long ultimoCorteNanos;
+    private volatile boolean janelaObservada = true;
+
+    // Totais no último ajuste; só a thread de ajuste lê e escreve
+    private long confirmacoesAnteriores;
+    private long latenciaAnterior;
+    private long nacksAnteriores;
+    private long falhasAnteriores;
+    private long devolvidasAnteriores;
+    private long saturacoesAnteriores;
+    private long liberadasAnteriores;
+
+    private ScheduledExecutorService ajuste;
+
+    @PostConstruct
+    void iniciar() {
+        if (taxaMinima <= 0 || taxaMaxima < taxaMinima || fatorReducao <= 0 || fatorReducao >= 1 || intervaloAjusteMs < 1) {
+            throw new IllegalArgumentException("Configuração do controle de vazão inválida");
+        }
+        taxa = Math.max(taxaMinima, Math.min(taxaMaxima, taxaInicial));
+        ultimaReposicao = System.nanoTime();
+        rabbitTemplate.setReturnsCallback(this::registrarDevolucao);
+
+        Gauge.builder("refrigeracao.publicacao.vazao.taxa", this, controle -> controle.taxa)
+                .description("Taxa liberada pelo controle de vazão (mensagens/s)")
+                .register(registry);
+        Gauge.builder("refrigeracao.publicacao.vazao.bloqueada", conexoesBloqueadas, Set::size)
+                .description("Conexões de publicação bloqueadas pelo broker")
+                .register(registry);
+
+        if (!habilitado) {
+            return;
+        }
+        ajuste = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "controle-vazao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ajuste.scheduleWithFixedDelay(this::ajustar, intervaloAjusteMs, intervaloAjusteMs, TimeUnit.MILLISECONDS);
+        if (profundidadeMaximaFila > 0) {
+            // Em thread própria do pool: sem broker a consulta pode demorar até o timeout de conexão
+            RabbitAdmin admin = new RabbitAdmin(rabbitTemplate.getConnectionFactory());
+            List<String> filas = RabbitMQConfig.nomesFilas(publicacaoProperties);
+            ajuste.scheduleWithFixedDelay(() -> verificarFilas(admin, filas),
+                    intervaloVerificacaoFilasMs, intervaloVerificacaoFilasMs, TimeUnit.MILLISECONDS);
+        }
+
+        log.info("Controle de vazão iniciado: taxa inicial {} msg/s, faixa [{}, {}], +{} / x{} a cada {} ms, latência alvo {} ms",
+                taxa, taxaMinima, taxaMaxima, incremento, fatorReducao, intervaloAjusteMs, latenciaAlvoMs);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (ajuste != null) {
+            ajuste.shutdownNow();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /** Indica se há fichas para publicar agora; o consumo é informado depois por {@link #consumir}. */
+    public boolean permitir() {
+        if (!habilitado) {
+            return true;
+        }
+        boolean permitido = conexoesBloqueadas.isEmpty();
+        if (permitido) {
+            synchronized (balde) {
+                repor();
+                permitido = fichas > 0;
+            }
+        }
+        if (!permitido) {
+            recusas.increment();
+        }
+        return permitido;
+    }
+
+    /** O saldo pode ficar negativo: um lote grande é liberado e paga a dívida nos intervalos seguintes. */
+    public void consumir(int mensagens) {
+        if (!habilitado || mensagens <= 0) {
+            return;
+        }
+        synchronized (balde) {
+            repor();
+            fichas -= mensagens;
+        }
+        liberadas.add(mensagens);
+    }
+
+    public boolean tentarAdquirir(int mensagens) {
+        if (!permitir()) {
+            return false;
+        }
+        consumir(mensagens);
+        return true;
+    }
+
+    public void registrarConfirmacao(boolean ack, long latenciaNanos) {
+        if (!habilitado) {
+            return;
+        }
+        if (!janelaObservada && System.nanoTime() - latenciaNanos - ultimoCorteNanos >= 0) {
+            janelaObservada = true;
+        }
+        if (ack) {
+            confirmacoes.increment();
+            latenciaConfirmacaoNanos.add(latenciaNanos);
+        } else {
+            nacks.increment();
+        }
+    }
+
+    /** Lote que o broker não aceitou, por exemplo com a conexão caída. */
+    public void registrarFalhaEnvio(int mensagens) {
+        falhasEnvio.add(mensagens);
+        janelaObservada = true;
+    }
+
+    /** Buffer do publicador cheio ou janela de confirmações esgotada. */
+    public void registrarSaturacao() {
+        saturacoes.increment();
+    }
+
+    @EventListener
+    public void conexaoBloqueada(ConnectionBlockedEvent evento) {
+        conexoesBloqueadas.add(evento.getConnection());
+        log.warn("Broker bloqueou a conexão ({}); publicação suspensa", evento.getReason());
+    }
+
+    @EventListener
+    public void conexaoDesbloqueada(ConnectionUnblockedEvent evento) {
+        conexoesBloqueadas.remove(evento.getConnection());
+        if (conexoesBloqueadas.isEmpty()) {
+            log.warn("Broker desbloqueou a conexão; publicação retomada a {} msg/s", Math.round(taxa));
+        } else {
+            log.warn("Broker desbloqueou a conexão; {} ainda bloqueadas", conexoesBloqueadas.size());
+        }
+    }
+
+    @ReadOperation
+    public Map<String, Object> estado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("habilitado", habilitado);
+        estado.put("taxa", Math.round(taxa));
+        estado.put("taxaMinima", taxaMinima);
+        estado.put("taxaMaxima", taxaMaxima);
+        estado.put("bloqueado", !conexoesBloqueadas.isEmpty());
+        estado.put("conexoesBloqueadas", conexoesBloqueadas.size());
+        estado.put("motivoReducao", motivoReducao);
+        estado.put("latenciaConfirmacaoMs", latenciaConfirmacaoMs);
+        estado.put("latenciaAlvoMs", latenciaAlvoMs);
+        estado.put("profundidadeFila", profundidadeFila);
+        estado.put("filaMaisCheia", filaMaisCheia);
+        estado.put("liberadas", liberadas.sum());
+        estado.put("recusas", recusas.sum());
+        estado.put("reducoes", reducoes.sum());
+        estado.put("reducoesAdiadas", reducoesAdiadas.sum());
+        estado.put("confirmacoes", confirmacoes.sum());
+        estado.put("nacks", nacks.sum());
+        estado.put("falhasEnvio", falhasEnvio.sum());
+        estado.put("devolvidas", devolvidas.sum());
+        estado.put("ultimaDevolucao", ultimaDevolucao);
+        estado.put("saturacoes", saturacoes.sum());
+        return estado;
+    }
+
+    private void repor() {
+        long agora = System.nanoTime();
+        double taxaAtual = taxa;
+        // Acumula no máximo um intervalo de ajuste, para não liberar rajadas depois de ociosidade
+        fichas = Math.min(taxaAtual * intervaloAjusteMs / 1000.0, fichas + (agora - ultimaReposicao) * taxaAtual / 1e9);
+        ultimaReposicao = agora;
+    }
+
+    private void registrarDevolucao(ReturnedMessage devolvida) {
+        devolvidas.increment();
+        ultimaDevolucao = devolvida.getRoutingKey() + ": " + devolvida.getReplyText();
+        log.debug("Mensagem devolvida pelo broker: routingKey={}, motivo={}",
+                devolvida.getRoutingKey(), devolvida.getReplyText());
+    }
+
+    private void ajustar() {
+        try {
+            // Conexão fechada enquanto bloqueada não recebe o desbloqueio
+            conexoesBloqueadas.removeIf(conexao -> !conexao.isOpen());
+            long confirmacoesAgora = confirmacoes.sum();
+            long latenciaAgora = latenciaConfirmacaoNanos.sum();
+            long nacksAgora = nacks.sum();
+            long falhasAgora = falhasEnvio.sum();
+            long devolvidasAgora = devolvidas.sum();
+            long saturacoesAgora = saturacoes.sum();
+            long liberadasAgora = liberadas.sum();
+
+            long confirmacoesIntervalo = confirmacoesAgora - confirmacoesAnteriores;
+            if (confirmacoesIntervalo > 0) {
+                latenciaConfirmacaoMs = (latenciaAgora - latenciaAnterior) / (double) confirmacoesIntervalo / 1e6;
+            }
+            String motivo = motivoCongestionamento(falhasAgora - falhasAnteriores, nacksAgora - nacksAnteriores,
+                    devolvidasAgora - devolvidasAnteriores, saturacoesAgora - saturacoesAnteriores,
+                    confirmacoesIntervalo > 0);
+
+            double atual = taxa;
+            if (motivo != null && !janelaObservada) {
+                // Os sinais ainda podem ser do tráfego anterior ao último corte
+                reducoesAdiadas.increment();
+            } else if (motivo != null) {
+                taxa = Math.max(taxaMinima, atual * fatorReducao);
+                reducoes.increment();
+                ultimoCorteNanos = System.nanoTime();
+                janelaObservada = false;
+                if (motivoReducao == null) {
+                    log.warn("Congestionamento na publicação ({}): taxa reduzida de {} para {} msg/s",
+                            motivo, Math.round(atual), Math.round(taxa));
+                }
+            } else if (liberadasAgora - liberadasAnteriores >= atual * intervaloAjusteMs / 1000.0 * UTILIZACAO_PARA_CRESCER) {
+                taxa = Math.min(taxaMaxima, atual + incremento);
+                if (motivoReducao != null) {
+                    log.info("Congestionamento na publicação encerrado; taxa em {} msg/s", Math.round(taxa));
+                }
+            }
+            motivoReducao = motivo;
+
+            confirmacoesAnteriores = confirmacoesAgora;
+            latenciaAnterior = latenciaAgora;
+            nacksAnteriores = nacksAgora;
+            falhasAnteriores = falhasAgora;
+            devolvidasAnteriores = devolvidasAgora;
+            saturacoesAnteriores = saturacoesAgora;
+            liberadasAnteriores = liberadasAgora;
+        } catch (RuntimeException e) {
+            log.error("Erro ao ajustar o controle de vazão: {}", e.getMessage(), e);
+        }
+    }
+
+    private String motivoCongestionamento(long falhasIntervalo, long nacksIntervalo, long devolvidasIntervalo,
+                                          long saturacoesIntervalo, boolean houveConfirmacoes) {
+        if (!conexoesBloqueadas.isEmpty()) {
+            return "conexao-bloqueada";
+        }
+        if (falhasIntervalo > 0) {
+            return "falha-envio";
+        }
+        if (nacksIntervalo > 0) {
+            return "nacks";
+        }
+        if (devolvidasIntervalo > 0) {
+            return "mensagens-devolvidas";
+        }
+        if (saturacoesIntervalo > 0) {
+            return "publicador-saturado";
+        }
+        if (profundidadeMaximaFila > 0 && profundidadeFila > profundidadeMaximaFila) {
+            return "fila-cheia";
+        }
+        if (houveConfirmacoes && latenciaConfirmacaoMs > latenciaAlvoMs) {
+            return "latencia-confirmacao";
+        }
+        return null;
+    }
+
+    private void verificarFilas(RabbitAdmin admin, List<String> filas) {
+        long maior = 0;
+        String maisCheia = null;
+        try {
+            for (String fila : filas) {
+                QueueInformation informacao = admin.getQueueInfo(fila);
+                if (informacao != null && informacao.getMessageCount() >= maior) {
+                    maior = informacao.getMessageCount();
+                    maisCheia = fila;
+                }
+            }
+            profundidadeFila = maior;
+            filaMaisCheia = maisCheia;
+            janelaObservada = true;
+        } catch (AmqpException e) {
+            profundidadeFila = -1;
+            filaMaisCheia = null;
+            log.debug("Não foi possível consultar a profundidade das filas: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.AlertasProperties;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estado de alertas por (sistema, tipo de alerta), em páginas de arrays primitivos
+ * indexadas como em {@link EstadoSensores}: dois bitmasks (abertos e em resolução) e
+ * três instantes por sistema, cerca de 32 bytes. Apenas transições e lembretes são
+ * publicados; sistemas ociosos têm o estado descartado por uma varredura periódica.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeduplicadorAlertas {
+
+    /** Bytes escritos por {@link #exportar} para cada sistema. */
+    public static final int TAMANHO_TRANSFERENCIA = 2 * Long.BYTES + 3 * Integer.BYTES;
+
+    private static final int CAPACIDADE = EstadoSensores.MAX_SISTEMAS + EstadoSensores.MAX_SISTEMAS_AVULSOS;
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANHO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANHO_PAGINA - 1;
+
+    private static final int LISTRAS = 1024;
+
+    // Instantes guardados em segundos relativos a esta base para caber em int
+    private static final long BASE_SEGUNDOS = 1_600_000_000L;
+
+    private final AlertasProperties alertasProperties;
+
+    private final AtomicReferenceArray<Pagina> paginas = new AtomicReferenceArray<>((CAPACIDADE >> BITS_PAGINA) + 1);
+    private final Object[] listras = new Object[LISTRAS];
+
+    private final LongAdder abertos = new LongAdder();
+    private final LongAdder lembretes = new LongAdder();
+    private final LongAdder resolvidos = new LongAdder();
+    private final LongAdder suprimidos = new LongAdder();
+    private final LongAdder despejados = new LongAdder();
+
+    private volatile int versaoRegras;
+    private ScheduledExecutorService varredura;
+
+    @PostConstruct
+    void iniciar() {
+        for (int i = 0; i < LISTRAS; i++) {
+            listras[i] = new Object();
+        }
+
+        long intervalo = Math.max(1, alertasProperties.getDeduplicacao().getOciosidadeSegundos() / 4);
+        varredura = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "alertas-varredura");
+            thread.setDaemon(true);
+            return thread;
+        });
+        varredura.scheduleWithFixedDelay(this::despejarOciosos, intervalo, intervalo, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        varredura.shutdownNow();
+    }
+
+    public boolean isHabilitada() {
+        return alertasProperties.getDeduplicacao().isHabilitada();
+    }
+
+    /**
+     * Aplica as regras disparadas ao estado do sistema e preenche {@code destino} com o que
+     * deve ser publicado. Retorna {@code false}, sem bloquear, quando não há nada a fazer.
+     */
+    public boolean processar(MotorRegrasAlerta.TabelaRegras regras, LeituraRefrigeracao leitura,
+                             long disparos, Transicoes destino) {
+        int indice = leitura.getIndice();
+        if (indice < 0 || indice >= CAPACIDADE) {
+            throw new IllegalArgumentException("Índice de sistema fora da faixa: " + indice);
+        }
+        if (regras.versao() != versaoRegras) {
+            reiniciar(regras.versao());
+        }
+
+        Pagina pagina = paginas.get(indice >>> BITS_PAGINA);
+        int i = indice & MASCARA_PAGINA;
+        if (disparos == 0 && (pagina == null || (pagina.abertos[i] | pagina.resolvendo[i]) == 0)) {
+            return false;
+        }
+        if (pagina == null) {
+            pagina = pagina(indice);
+        }
+
+        AlertasProperties.Deduplicacao config = alertasProperties.getDeduplicacao();
+        int agora = segundos(leitura.getTimestampMillis());
+
+        synchronized (listras[indice & (LISTRAS - 1)]) {
+            long abertosAntes = pagina.abertos[i];
+            long resolvendoAntes = pagina.resolvendo[i];
+            long limpas = ((abertosAntes | resolvendoAntes) & ~disparos) != 0 ? regras.avaliarResolvidas(leitura) : 0;
+
+            // Disparos em regras ainda em resolução reabrem em silêncio (oscilação), assim como
+            // as que saíram da faixa de resolução sem voltar a disparar (histerese)
+            long novos = disparos & ~(abertosAntes | resolvendoAntes);
+            long entrandoEmResolucao = abertosAntes & ~disparos & limpas;
+            long saindoDeResolucao = resolvendoAntes & (disparos | ~limpas);
+
+            long abertosDepois = (abertosAntes & ~entrandoEmResolucao) | disparos | saindoDeResolucao;
+            long resolvendoDepois = (resolvendoAntes & ~saindoDeResolucao) | entrandoEmResolucao;
+            // Um único instante por sistema: qualquer entrada ou saída recomeça a contagem de
+            // todas as regras em resolução, que só fecham depois de um cooldown inteiro limpas
+            if ((entrandoEmResolucao | saindoDeResolucao) != 0) {
+                pagina.resolvendoDesde[i] = agora;
+            }
+
+            long fechados = 0;
+            if (resolvendoDepois != 0 && agora - pagina.resolvendoDesde[i] >= config.getCooldownSegundos()) {
+                fechados = resolvendoDepois;
+                resolvendoDepois = 0;
+            }
+
+            long lembretesDevidos = 0;
+            if (novos != 0 && (abertosAntes & ~entrandoEmResolucao) == 0) {
+                pagina.ultimaPublicacao[i] = agora;
+            } else if (abertosDepois != novos && agora - pagina.ultimaPublicacao[i] >= config.getLembreteSegundos()) {
+                lembretesDevidos = abertosDepois & ~novos;
+                pagina.ultimaPublicacao[i] = agora;
+            }
+
+            pagina.abertos[i] = abertosDepois;
+            pagina.resolvendo[i] = resolvendoDepois;
+            pagina.ultimaAtividade[i] = segundos(System.currentTimeMillis());
+
+            destino.abertos = novos;
+            destino.lembretes = lembretesDevidos;
+            destino.resolvidos = fechados;
+
+            abertos.add(Long.bitCount(novos));
+            lembretes.add(Long.bitCount(lembretesDevidos));
+            resolvidos.add(Long.bitCount(fechados));
+            suprimidos.add(Long.bitCount(disparos & ~novos & ~lembretesDevidos));
+        }
+        return (destino.abertos | destino.lembretes | destino.resolvidos) != 0;
+    }
+
+    public int versaoRegras() {
+        return versaoRegras;
+    }
+
+    /** Escreve o estado de alertas do sistema para transferência a outro nó. */
+    public void exportar(int indice, DataOutput saida) throws IOException {
+        Pagina pagina = paginas.get(indice >>> BITS_PAGINA);
+        int i = indice & MASCARA_PAGINA;
+        if (pagina == null) {
+            saida.writeLong(0);
+            saida.writeLong(0);
+            saida.writeInt(0);
+            saida.writeInt(0);
+            saida.writeInt(0);
+            return;
+        }
+        synchronized (listras[indice & (LISTRAS - 1)]) {
+            saida.writeLong(pagina.abertos[i]);
+            saida.writeLong(pagina.resolvendo[i]);
+            saida.writeInt(pagina.resolvendoDesde[i]);
+            saida.writeInt(pagina.ultimaPublicacao[i]);
+            saida.writeInt(pagina.ultimaAtividade[i]);
+        }
+    }
+
+    /**
+     * Lê um estado escrito por {@link #exportar}. Só é aplicado se foi gerado com a versão
+     * atual das regras, já que as posições dos bits dependem da versão.
+     */
+    public void importar(int indice, int versaoOrigem, int versaoAtual, DataInput entrada) throws IOException {
+        long abertosImportados = entrada.readLong();
+        long resolvendoImportados = entrada.readLong();
+        int resolvendoDesde = entrada.readInt();
+        int ultimaPublicacao = entrada.readInt();
+        int ultimaAtividade = entrada.readInt();
+        if (versaoOrigem != versaoAtual || (abertosImportados | resolvendoImportados) == 0) {
+            return;
+        }
+        if (versaoAtual != versaoRegras) {
+            reiniciar(versaoAtual);
+        }
+
+        Pagina pagina = pagina(indice);
+        int i = indice & MASCARA_PAGINA;
+        synchronized (listras[indice & (LISTRAS - 1)]) {
+            pagina.abertos[i] = abertosImportados;
+            pagina.resolvendo[i] = resolvendoImportados;
+            pagina.resolvendoDesde[i] = resolvendoDesde;
+            pagina.ultimaPublicacao[i] = ultimaPublicacao;
+            pagina.ultimaAtividade[i] = ultimaAtividade;
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("habilitada", isHabilitada());
+        estatisticas.put("abertos", abertos.sum());
+        estatisticas.put("lembretes", lembretes.sum());
+        estatisticas.put("resolvidos", resolvidos.sum());
+        estatisticas.put("suprimidos", suprimidos.sum());
+        estatisticas.put("despejados", despejados.sum());
+        return estatisticas;
+    }
+
+    private synchronized void reiniciar(int versao) {
+        if (versao == versaoRegras) {
+            return;
+        }
+        // As posições dos bitmasks mudam entre versões das regras
+        for (int p = 0; p < paginas.length(); p++) {
+            paginas.set(p, null);
+        }
+        versaoRegras = versao;
+        log.info("Estado de deduplicação de alertas reiniciado para a versão {} das regras", versao);
+    }
+
+    private void despejarOciosos() {
+        try {
+            int limite = segundos(System.currentTimeMillis())
+                    - (int) alertasProperties.getDeduplicacao().getOciosidadeSegundos();
+            long total = 0;
+            for (int p = 0; p < paginas.length(); p++) {
+                Pagina pagina = paginas.get(p);
+                if (pagina == null) {
+                    continue;
+                }
+                for (int i = 0; i < TAMANHO_PAGINA; i++) {
+                    if ((pagina.abertos[i] | pagina.resolvendo[i]) == 0 || pagina.ultimaAtividade[i] > limite) {
+                        continue;
+                    }
+                    synchronized (listras[((p << BITS_PAGINA) | i) & (LISTRAS - 1)]) {
+                        if (pagina.ultimaAtividade[i] <= limite) {
+                            pagina.abertos[i] = 0;
+                            pagina.resolvendo[i] = 0;
+                            total++;
+                        }
+                    }
+                }
+            }
+            if (total > 0) {
+                despejados.add(total);
+                log.debug("{} sistemas ociosos removidos do estado de alertas", total);
+            }
+        } catch (RuntimeException e) {
+            log.error("Erro na varredura de alertas ociosos: {}", e.getMessage(), e);
+        }
+    }
+
+    private Pagina pagina(int indice) {
+        int numeroPagina = indice >>> BITS_PAGINA;
+        Pagina pagina = paginas.get(numeroPagina);
+        if (pagina == null) {
+            paginas.compareAndSet(numeroPagina, null, new Pagina());
+            pagina = paginas.get(numeroPagina);
+        }
+        return pagina;
+    }
+
+    private static int segundos(long millis) {
+        return (int) (millis / 1000 - BASE_SEGUNDOS);
+    }
+
+    /**
+     * Bitmasks, nas posições de {@link MotorRegrasAlerta.TabelaRegras}, das regras a publicar.
+     * Reutilizável por thread.
+     */
+    public static final class Transicoes {
+        long abertos;
+        long lembretes;
+        long resolvidos;
+
+        public long abertos() {
+            return abertos;
+        }
+
+        public long lembretes() {
+            return lembretes;
+        }
+
+        public long resolvidos() {
+            return resolvidos;
+        }
+    }
+
+    private static final class Pagina {
+        private final long[] abertos = new long[TAMANHO_PAGINA];
+        private final long[] resolvendo = new long[TAMANHO_PAGINA];
+        private final int[] resolvendoDesde = new int[TAMANHO_PAGINA];
+        private final int[] ultimaPublicacao = new int[TAMANHO_PAGINA];
+        private final int[] ultimaAtividade = new int[TAMANHO_PAGINA];
+    }
+}
@@ -0,0 +1,216 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.EnvelopeLeiturasMessageConverter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Empacota leituras já codificadas em envelopes para {@code refrigeracao.dados},
+ * fechando cada envelope ao atingir o limite de bytes ou o tempo máximo de espera.
+ * Com a routing key particionada, cada partição tem seu envelope, e a ordem das
+ * leituras de um sistema se mantém na fila da sua partição.
+ * <p>
+ * O envelope fechado sai do lock de empacotamento para uma fila de prontos, e quem
+ * fechou o entrega ao publicador depois de liberar o lock; a entrega de cada partição
+ * é feita por uma thread por vez, na ordem de fechamento.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmpacotadorEnvelope {
+
+    private static final int BYTES_CABECALHO_ITEM = Integer.BYTES;
+
+    private final RabbitMQBatchPublisher batchPublisher;
+    private final RoteamentoParticoes roteamentoParticoes;
+
+    @Value("${app.refrigeracao.publicacao.envelope.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.refrigeracao.publicacao.envelope.max-bytes:65536}")
+    private int maxBytes;
+
+    @Value("${app.refrigeracao.publicacao.envelope.linger-ms:100}")
+    private long lingerMs;
+
+    private final LongAdder envelopesEnviados = new LongAdder();
+    private final LongAdder leiturasEmpacotadas = new LongAdder();
+
+    // Um envelope aberto por partição de refrigeracao.dados, cada um com seu próprio lock
+    private Envelope[] envelopes;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        envelopes = new Envelope[roteamentoParticoes.quantidade(RabbitMQConfig.ROUTING_KEY_DADOS)];
+        for (int particao = 0; particao < envelopes.length; particao++) {
+            envelopes[particao] = new Envelope(particao);
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "empacotador-envelope");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalo = Math.max(1, lingerMs / 2);
+        executor.scheduleWithFixedDelay(this::fecharExpirados, intervalo, intervalo, TimeUnit.MILLISECONDS);
+
+        log.info("Envelopes habilitados em {}: maxBytes={}, lingerMs={}, particoes={}",
+                RabbitMQConfig.ROUTING_KEY_DADOS, maxBytes, lingerMs, envelopes.length);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (executor != null) {
+            executor.shutdown();
+            fechar();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public long envelopesEnviados() {
+        return envelopesEnviados.sum();
+    }
+
+    public long leiturasEmpacotadas() {
+        return leiturasEmpacotadas.sum();
+    }
+
+    public void adicionar(Message leitura, long timestampMillis) {
+        byte[] bytes = leitura.getBody();
+        String contentType = leitura.getMessageProperties().getContentType();
+        String sistemaId = leitura.getMessageProperties().getHeader(RabbitMQConfig.HEADER_SISTEMA);
+        Envelope envelope = envelopes[roteamentoParticoes.particao(RabbitMQConfig.ROUTING_KEY_DADOS, sistemaId)];
+
+        boolean fechou = false;
+        synchronized (envelope) {
+            boolean estoura = envelope.corpo.size() + BYTES_CABECALHO_ITEM + bytes.length > maxBytes;
+            if (envelope.quantidade > 0 && (estoura || !Objects.equals(contentType, envelope.contentTypeItens))) {
+                fecharEnvelope(envelope);
+                fechou = true;
+            }
+            if (envelope.quantidade == 0) {
+                envelope.contentTypeItens = contentType;
+                envelope.sistemaId = sistemaId;
+                envelope.timestampInicio = timestampMillis;
+                envelope.timestampFim = timestampMillis;
+                envelope.abertoEmNanos = System.nanoTime();
+            }
+
+            EnvelopeLeiturasMessageConverter.escreverItem(envelope.corpo, bytes);
+            envelope.quantidade++;
+            envelope.timestampInicio = Math.min(envelope.timestampInicio, timestampMillis);
+            envelope.timestampFim = Math.max(envelope.timestampFim, timestampMillis);
+        }
+        if (fechou) {
+            entregar(envelope);
+        }
+    }
+
+    public void fechar() {
+        if (envelopes == null) {
+            return;
+        }
+        for (Envelope envelope : envelopes) {
+            synchronized (envelope) {
+                if (envelope.quantidade > 0) {
+                    fecharEnvelope(envelope);
+                }
+            }
+            entregar(envelope);
+        }
+    }
+
+    private void fecharExpirados() {
+        long limite = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        for (Envelope envelope : envelopes) {
+            try {
+                synchronized (envelope) {
+                    if (envelope.quantidade > 0 && System.nanoTime() - envelope.abertoEmNanos >= limite) {
+                        fecharEnvelope(envelope);
+                    }
+                }
+                entregar(envelope);
+            } catch (RuntimeException e) {
+                log.error("Erro ao fechar envelope de leituras: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Monta a mensagem do envelope e a coloca na fila de prontos; chamado com o lock do envelope. */
+    private void fecharEnvelope(Envelope envelope) {
+        MessageProperties properties = new MessageProperties();
+        EnvelopeLeiturasMessageConverter.preencherHeaders(properties, envelope.contentTypeItens, envelope.quantidade,
+                envelope.timestampInicio, envelope.timestampFim);
+        if (envelope.sistemaId != null) {
+            properties.setHeader(RabbitMQConfig.HEADER_SISTEMA, roteamentoParticoes.chaveEnvelope(
+                    RabbitMQConfig.ROUTING_KEY_DADOS, envelope.particao, envelope.sistemaId));
+        }
+        Message mensagem = new Message(envelope.corpo.toByteArray(), properties);
+
+        envelopesEnviados.increment();
+        leiturasEmpacotadas.add(envelope.quantidade);
+        envelope.corpo.reset();
+        envelope.quantidade = 0;
+        envelope.prontos.add(mensagem);
+    }
+
+    /**
+     * Entrega os envelopes prontos da partição. Se outra thread já está entregando, ela
+     * leva também os que chegarem; a nova verificação após liberar o lock cobre o que
+     * entrou entre o fim da drenagem e a liberação.
+     */
+    private void entregar(Envelope envelope) {
+        while (!envelope.prontos.isEmpty() && envelope.entrega.tryLock()) {
+            try {
+                Message mensagem;
+                while ((mensagem = envelope.prontos.poll()) != null) {
+                    batchPublisher.enfileirarMensagem(RabbitMQConfig.ROUTING_KEY_DADOS, mensagem);
+                }
+            } finally {
+                envelope.entrega.unlock();
+            }
+        }
+    }
+
+    private final class Envelope {
+        private final int particao;
+        private final ByteArrayOutputStream corpo = new ByteArrayOutputStream(maxBytes);
+        private final Queue<Message> prontos = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock entrega = new ReentrantLock();
+        private String contentTypeItens;
+        private String sistemaId;
+        private int quantidade;
+        private long timestampInicio;
+        private long timestampFim;
+        private long abertoEmNanos;
+
+        private Envelope(int particao) {
+            this.particao = particao;
+        }
+    }
+}
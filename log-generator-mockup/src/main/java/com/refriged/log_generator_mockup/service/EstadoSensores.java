@@ -0,0 +1,490 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.model.CatalogoSistemas;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Estado dos sensores por sistema, em struct-of-arrays paginado e indexado pelo
+ * índice do sistema. Cada grandeza segue um processo de Ornstein-Uhlenbeck
+ * (reversão à média) discretizado de forma exata pelo tempo decorrido desde a
+ * última leitura, e a rotação do compressor puxa pressão e consumo de energia.
+ * <p>
+ * No modo determinístico cada sistema tem um gerador próprio derivado da semente e um
+ * relógio lógico que avança um passo fixo por leitura: a sequência de leituras de um
+ * sistema não depende da thread, da ordem entre sistemas nem do relógio da máquina.
+ * <p>
+ * Atualizações de um mesmo sistema são serializadas por locks em listras: workers da
+ * simulação, endpoints HTTP e a exportação podem gerar leituras do mesmo sistema.
+ */
+@Component
+public class EstadoSensores {
+
+    public static final int MAX_SISTEMAS = 1_000_000;
+    public static final int MAX_SISTEMAS_AVULSOS = 65_536;
+
+    /** Bytes escritos por {@link #exportar} para cada sistema. */
+    public static final int TAMANHO_TRANSFERENCIA = Long.BYTES + 6 * Double.BYTES + 3;
+
+    private static final String PREFIXO_SIMULADO = "SYS-";
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANHO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANHO_PAGINA - 1;
+    private static final int LISTRAS = 1024;
+
+    // Constantes de tempo (1/s) e desvios estacionários de cada processo
+    private static final double THETA_TEMPERATURA = 1.0 / 300;
+    private static final double DESVIO_TEMPERATURA = 2.5;
+    private static final double THETA_RPM = 1.0 / 30;
+    private static final double DESVIO_RPM = 120.0;
+    private static final double GANHO_RPM_POR_GRAU = 180.0;
+    private static final double THETA_PRESSAO = 1.0 / 20;
+    private static final double DESVIO_PRESSAO = 0.8;
+    private static final double THETA_CONSUMO = 1.0 / 10;
+    private static final double DESVIO_CONSUMO = 1.5;
+    private static final double THETA_UMIDADE = 1.0 / 600;
+    private static final double DESVIO_UMIDADE = 8.0;
+    private static final double TAU_STATUS_SEGUNDOS = 120.0;
+    private static final double MAX_DELTA_SEGUNDOS = 3600.0;
+
+    private static final StatusSistema[] STATUS = StatusSistema.values();
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final SplittableRandom RAIZ = new SplittableRandom();
+    private static final ThreadLocal<SplittableRandom> RANDOM_POR_THREAD = ThreadLocal.withInitial(() -> {
+        synchronized (RAIZ) {
+            return RAIZ.split();
+        }
+    });
+
+    @Value("${app.refrigeracao.data-generation.temperatura-min:-30.0}")
+    private double temperaturaMin;
+
+    @Value("${app.refrigeracao.data-generation.temperatura-max:5.0}")
+    private double temperaturaMax;
+
+    @Value("${app.refrigeracao.data-generation.pressao-min:1.0}")
+    private double pressaoMin;
+
+    @Value("${app.refrigeracao.data-generation.pressao-max:15.0}")
+    private double pressaoMax;
+
+    @Value("${app.refrigeracao.data-generation.umidade-min:40.0}")
+    private double umidadeMin;
+
+    @Value("${app.refrigeracao.data-generation.umidade-max:90.0}")
+    private double umidadeMax;
+
+    @Value("${app.refrigeracao.data-generation.consumo-min:5.0}")
+    private double consumoMin;
+
+    @Value("${app.refrigeracao.data-generation.consumo-max:50.0}")
+    private double consumoMax;
+
+    @Value("${app.refrigeracao.data-generation.rpm-min:1000.0}")
+    private double rpmMin;
+
+    @Value("${app.refrigeracao.data-generation.rpm-max:3500.0}")
+    private double rpmMax;
+
+    @Value("${app.refrigeracao.deterministico.habilitado:false}")
+    private boolean deterministico;
+
+    @Value("${app.refrigeracao.deterministico.semente:42}")
+    private long semente;
+
+    @Value("${app.refrigeracao.deterministico.inicio-epoch-ms:1704067200000}")
+    private long inicioLogicoMillis;
+
+    @Value("${app.refrigeracao.deterministico.passo-ms:1000}")
+    private long passoLogicoMs;
+
+    private final AtomicReferenceArray<Pagina> paginas =
+            new AtomicReferenceArray<>(((MAX_SISTEMAS + MAX_SISTEMAS_AVULSOS) >> BITS_PAGINA) + 1);
+
+    private final Object[] listras = new Object[LISTRAS];
+
+    private final Map<String, Integer> indicesAvulsos = new ConcurrentHashMap<>();
+    private final AtomicInteger proximoIndiceAvulso = new AtomicInteger();
+
+    @PostConstruct
+    void iniciar() {
+        for (int i = 0; i < LISTRAS; i++) {
+            listras[i] = new Object();
+        }
+    }
+
+    /**
+     * Lock do sistema. Quem combina várias operações numa mesma leitura (instante,
+     * atualização e cópia) sincroniza nele para que a leitura saia inteira.
+     */
+    public Object listra(int indice) {
+        return listras[indice & (LISTRAS - 1)];
+    }
+
+    /**
+     * IDs {@code SYS-n} (1 &lt;= n &lt;= MAX_SISTEMAS) mapeiam direto para {@code n - 1};
+     * demais IDs recebem um índice próprio após essa faixa.
+     */
+    public int indiceDe(String sistemaId) {
+        int numero = numeroSimulado(sistemaId);
+        if (numero > 0) {
+            return numero - 1;
+        }
+
+        Integer indice = indicesAvulsos.get(sistemaId);
+        if (indice != null) {
+            return indice;
+        }
+        if (proximoIndiceAvulso.get() >= MAX_SISTEMAS_AVULSOS) {
+            // Tabela cheia: IDs excedentes compartilham estado por hash
+            return MAX_SISTEMAS + Math.floorMod(sistemaId.hashCode(), MAX_SISTEMAS_AVULSOS);
+        }
+        return indicesAvulsos.computeIfAbsent(sistemaId, id -> {
+            int proximo = proximoIndiceAvulso.getAndIncrement();
+            return MAX_SISTEMAS + (proximo < MAX_SISTEMAS_AVULSOS
+                    ? proximo : Math.floorMod(id.hashCode(), MAX_SISTEMAS_AVULSOS));
+        });
+    }
+
+    /**
+     * Índice já atribuído ao ID, sem reservar um novo: -1 para IDs avulsos ainda não vistos.
+     */
+    public int indiceExistente(String sistemaId) {
+        int numero = numeroSimulado(sistemaId);
+        if (numero > 0) {
+            return numero - 1;
+        }
+        Integer indice = indicesAvulsos.get(sistemaId);
+        return indice != null ? indice : -1;
+    }
+
+    public boolean isDeterministico() {
+        return deterministico;
+    }
+
+    /** Instante da primeira leitura de cada sistema no relógio lógico. */
+    public long inicioRelogioLogico() {
+        return inicioLogicoMillis;
+    }
+
+    /**
+     * Instante da próxima leitura do sistema: o relógio da máquina ou, no modo
+     * determinístico, o relógio lógico do sistema.
+     */
+    public long instanteLeitura(int indice) {
+        if (!deterministico) {
+            return System.currentTimeMillis();
+        }
+        long ultima = pagina(indice).ultimaAtualizacao[indice & MASCARA_PAGINA];
+        return ultima == 0 ? inicioLogicoMillis : ultima + passoLogicoMs;
+    }
+
+    /**
+     * Sorteia um valor em [0, limite) do gerador do sistema no modo determinístico,
+     * ou do gerador da thread.
+     */
+    public int sortear(int indice, int limite) {
+        if (!deterministico) {
+            return random().nextInt(limite);
+        }
+        Pagina pagina = pagina(indice);
+        int i = indice & MASCARA_PAGINA;
+        synchronized (listra(indice)) {
+            SplittableRandom random = randomSistema(pagina, i, indice);
+            int valor = random.nextInt(limite);
+            pagina.sequenciaAleatoria[i] = random.nextLong();
+            return valor;
+        }
+    }
+
+    /** Avança os modelos do sistema até {@code agoraMillis}. */
+    public void atualizar(int indice, long agoraMillis) {
+        Pagina pagina = pagina(indice);
+        int i = indice & MASCARA_PAGINA;
+        synchronized (listra(indice)) {
+            SplittableRandom random = deterministico ? randomSistema(pagina, i, indice) : random();
+            avancar(pagina, i, agoraMillis, random);
+            if (deterministico) {
+                pagina.sequenciaAleatoria[i] = random.nextLong();
+            }
+        }
+    }
+
+    private void avancar(Pagina pagina, int i, long agoraMillis, SplittableRandom random) {
+        long ultima = pagina.ultimaAtualizacao[i];
+        if (ultima == 0) {
+            inicializar(pagina, i, random);
+            pagina.ultimaAtualizacao[i] = agoraMillis;
+            return;
+        }
+
+        double dt = Math.min(MAX_DELTA_SEGUNDOS, Math.max(0, agoraMillis - ultima) / 1000.0);
+        pagina.ultimaAtualizacao[i] = agoraMillis;
+
+        double temperatura = ornsteinUhlenbeck(pagina.temperatura[i], pagina.temperaturaAlvo[i],
+                THETA_TEMPERATURA, DESVIO_TEMPERATURA, dt, random);
+
+        // O compressor acelera quando a câmara está acima do setpoint
+        double rpmAlvo = rpmMedio() + GANHO_RPM_POR_GRAU * (temperatura - pagina.temperaturaAlvo[i]);
+        double rpm = ornsteinUhlenbeck(pagina.velocidadeCompressor[i], rpmAlvo, THETA_RPM, DESVIO_RPM, dt, random);
+        rpm = limitar(rpm, rpmMin, rpmMax);
+        double carga = (rpm - rpmMin) / (rpmMax - rpmMin);
+
+        pagina.temperatura[i] = limitar(temperatura, temperaturaMin, temperaturaMax);
+        pagina.velocidadeCompressor[i] = rpm;
+        pagina.pressao[i] = limitar(ornsteinUhlenbeck(pagina.pressao[i], pressaoPorCarga(carga),
+                THETA_PRESSAO, DESVIO_PRESSAO, dt, random), pressaoMin, pressaoMax);
+        pagina.consumoEnergia[i] = limitar(ornsteinUhlenbeck(pagina.consumoEnergia[i], consumoPorCarga(carga),
+                THETA_CONSUMO, DESVIO_CONSUMO, dt, random), consumoMin, consumoMax);
+        pagina.umidade[i] = limitar(ornsteinUhlenbeck(pagina.umidade[i], umidadeMedia(),
+                THETA_UMIDADE, DESVIO_UMIDADE, dt, random), umidadeMin, umidadeMax);
+
+        if (random.nextDouble() < -Math.expm1(-dt / TAU_STATUS_SEGUNDOS)) {
+            pagina.status[i] = (byte) sortearStatus(random).ordinal();
+        }
+    }
+
+    public void copiarPara(int indice, LeituraRefrigeracao destino) {
+        Pagina pagina = pagina(indice);
+        int i = indice & MASCARA_PAGINA;
+        destino.setIndice(indice);
+        synchronized (listra(indice)) {
+            destino.setTemperatura(pagina.temperatura[i]);
+            destino.setPressao(pagina.pressao[i]);
+            destino.setUmidade(pagina.umidade[i]);
+            destino.setStatus(STATUS[pagina.status[i]]);
+            destino.setConsumoEnergia(pagina.consumoEnergia[i]);
+            destino.setVelocidadeCompressor(pagina.velocidadeCompressor[i]);
+            destino.setIndiceNome(pagina.nome[i]);
+            destino.setIndiceLocalizacao(pagina.localizacao[i]);
+        }
+    }
+
+    public double temperatura(int indice) {
+        return pagina(indice).temperatura[indice & MASCARA_PAGINA];
+    }
+
+    public double pressao(int indice) {
+        return pagina(indice).pressao[indice & MASCARA_PAGINA];
+    }
+
+    public double umidade(int indice) {
+        return pagina(indice).umidade[indice & MASCARA_PAGINA];
+    }
+
+    public double consumoEnergia(int indice) {
+        return pagina(indice).consumoEnergia[indice & MASCARA_PAGINA];
+    }
+
+    public double velocidadeCompressor(int indice) {
+        return pagina(indice).velocidadeCompressor[indice & MASCARA_PAGINA];
+    }
+
+    public StatusSistema status(int indice) {
+        return STATUS[pagina(indice).status[indice & MASCARA_PAGINA]];
+    }
+
+    public int nome(int indice) {
+        return pagina(indice).nome[indice & MASCARA_PAGINA];
+    }
+
+    public int localizacao(int indice) {
+        return pagina(indice).localizacao[indice & MASCARA_PAGINA];
+    }
+
+    /** Indica se o sistema já tem estado, sem alocar a página. */
+    public boolean inicializado(int indice) {
+        Pagina pagina = paginas.get(indice >>> BITS_PAGINA);
+        return pagina != null && pagina.ultimaAtualizacao[indice & MASCARA_PAGINA] != 0;
+    }
+
+    /** Escreve o estado do sistema para transferência a outro nó. */
+    public void exportar(int indice, DataOutput saida) throws IOException {
+        Pagina pagina = pagina(indice);
+        int i = indice & MASCARA_PAGINA;
+        synchronized (listra(indice)) {
+            saida.writeLong(pagina.ultimaAtualizacao[i]);
+            saida.writeDouble(pagina.temperaturaAlvo[i]);
+            saida.writeDouble(pagina.temperatura[i]);
+            saida.writeDouble(pagina.pressao[i]);
+            saida.writeDouble(pagina.umidade[i]);
+            saida.writeDouble(pagina.consumoEnergia[i]);
+            saida.writeDouble(pagina.velocidadeCompressor[i]);
+            saida.writeByte(pagina.status[i]);
+            saida.writeByte(pagina.nome[i]);
+            saida.writeByte(pagina.localizacao[i]);
+        }
+    }
+
+    /**
+     * Lê um estado escrito por {@link #exportar} e o aplica se for mais recente que o local,
+     * de modo que a trajetória continua de onde o nó anterior parou.
+     */
+    public boolean importar(int indice, DataInput entrada) throws IOException {
+        long ultimaAtualizacao = entrada.readLong();
+        double temperaturaAlvo = entrada.readDouble();
+        double temperatura = entrada.readDouble();
+        double pressao = entrada.readDouble();
+        double umidade = entrada.readDouble();
+        double consumoEnergia = entrada.readDouble();
+        double velocidadeCompressor = entrada.readDouble();
+        byte status = entrada.readByte();
+        byte nome = entrada.readByte();
+        byte localizacao = entrada.readByte();
+
+        Pagina pagina = pagina(indice);
+        int i = indice & MASCARA_PAGINA;
+        synchronized (listra(indice)) {
+            if (pagina.ultimaAtualizacao[i] >= ultimaAtualizacao) {
+                return false;
+            }
+            pagina.temperaturaAlvo[i] = temperaturaAlvo;
+            pagina.temperatura[i] = temperatura;
+            pagina.pressao[i] = pressao;
+            pagina.umidade[i] = umidade;
+            pagina.consumoEnergia[i] = consumoEnergia;
+            pagina.velocidadeCompressor[i] = velocidadeCompressor;
+            pagina.status[i] = status;
+            pagina.nome[i] = nome;
+            pagina.localizacao[i] = localizacao;
+            pagina.ultimaAtualizacao[i] = ultimaAtualizacao;
+            return true;
+        }
+    }
+
+    SplittableRandom random() {
+        return RANDOM_POR_THREAD.get();
+    }
+
+    // Estado do gerador do sistema; o primeiro vem da semente misturada com o índice
+    private SplittableRandom randomSistema(Pagina pagina, int i, int indice) {
+        long estado = pagina.sequenciaAleatoria[i];
+        if (estado == 0) {
+            estado = misturar(semente + misturar((indice + 1L) * GOLDEN_GAMMA));
+        }
+        return new SplittableRandom(estado);
+    }
+
+    // Finalizador do SplitMix64
+    private static long misturar(long valor) {
+        valor = (valor ^ (valor >>> 30)) * 0xBF58476D1CE4E5B9L;
+        valor = (valor ^ (valor >>> 27)) * 0x94D049BB133111EBL;
+        return valor ^ (valor >>> 31);
+    }
+
+    private void inicializar(Pagina pagina, int i, SplittableRandom random) {
+        pagina.nome[i] = (byte) random.nextInt(CatalogoSistemas.NOMES_SISTEMAS.length);
+        pagina.localizacao[i] = (byte) random.nextInt(CatalogoSistemas.LOCALIZACOES.length);
+        pagina.status[i] = (byte) sortearStatus(random).ordinal();
+
+        // Setpoint próprio de cada câmara, longe o bastante dos limites para oscilar
+        double faixa = temperaturaMax - temperaturaMin;
+        double alvo = temperaturaMin + faixa * (0.15 + 0.6 * random.nextDouble());
+        pagina.temperaturaAlvo[i] = alvo;
+        pagina.temperatura[i] = limitar(alvo + DESVIO_TEMPERATURA * random.nextGaussian(), temperaturaMin, temperaturaMax);
+        pagina.velocidadeCompressor[i] = limitar(rpmMedio() + DESVIO_RPM * random.nextGaussian(), rpmMin, rpmMax);
+
+        double carga = (pagina.velocidadeCompressor[i] - rpmMin) / (rpmMax - rpmMin);
+        pagina.pressao[i] = limitar(pressaoPorCarga(carga) + DESVIO_PRESSAO * random.nextGaussian(), pressaoMin, pressaoMax);
+        pagina.consumoEnergia[i] = limitar(consumoPorCarga(carga) + DESVIO_CONSUMO * random.nextGaussian(), consumoMin, consumoMax);
+        pagina.umidade[i] = limitar(umidadeMedia() + DESVIO_UMIDADE * random.nextGaussian(), umidadeMin, umidadeMax);
+    }
+
+    private static double ornsteinUhlenbeck(double atual, double media, double theta, double desvioEstacionario,
+                                            double dt, SplittableRandom random) {
+        double decaimento = Math.exp(-theta * dt);
+        double desvio = desvioEstacionario * Math.sqrt(1 - decaimento * decaimento);
+        return media + (atual - media) * decaimento + desvio * random.nextGaussian();
+    }
+
+    private static StatusSistema sortearStatus(SplittableRandom random) {
+        double probabilidade = random.nextDouble();
+        if (probabilidade < 0.7) {
+            return StatusSistema.OPERACIONAL;
+        } else if (probabilidade < 0.85) {
+            return StatusSistema.ALERTA;
+        } else if (probabilidade < 0.95) {
+            return StatusSistema.MANUTENCAO;
+        } else if (probabilidade < 0.99) {
+            return StatusSistema.CRITICO;
+        } else {
+            return StatusSistema.PARADO;
+        }
+    }
+
+    private double rpmMedio() {
+        return (rpmMin + rpmMax) / 2;
+    }
+
+    private double pressaoPorCarga(double carga) {
+        return pressaoMin + (pressaoMax - pressaoMin) * (0.15 + 0.6 * carga);
+    }
+
+    private double consumoPorCarga(double carga) {
+        return consumoMin + (consumoMax - consumoMin) * (0.1 + 0.75 * carga);
+    }
+
+    private double umidadeMedia() {
+        return (umidadeMin + umidadeMax) / 2;
+    }
+
+    private static double limitar(double valor, double min, double max) {
+        return Math.max(min, Math.min(max, valor));
+    }
+
+    static int numeroSimulado(String sistemaId) {
+        if (!sistemaId.startsWith(PREFIXO_SIMULADO) || sistemaId.length() == PREFIXO_SIMULADO.length()
+                || sistemaId.length() > PREFIXO_SIMULADO.length() + 7) {
+            return -1;
+        }
+        int numero = 0;
+        for (int i = PREFIXO_SIMULADO.length(); i < sistemaId.length(); i++) {
+            char c = sistemaId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero >= 1 && numero <= MAX_SISTEMAS ? numero : -1;
+    }
+
+    private Pagina pagina(int indice) {
+        int numeroPagina = indice >>> BITS_PAGINA;
+        Pagina pagina = paginas.get(numeroPagina);
+        if (pagina == null) {
+            paginas.compareAndSet(numeroPagina, null, new Pagina());
+            pagina = paginas.get(numeroPagina);
+        }
+        return pagina;
+    }
+
+    private static final class Pagina {
+        private final long[] ultimaAtualizacao = new long[TAMANHO_PAGINA];
+        private final long[] sequenciaAleatoria = new long[TAMANHO_PAGINA];
+        private final double[] temperaturaAlvo = new double[TAMANHO_PAGINA];
+        private final double[] temperatura = new double[TAMANHO_PAGINA];
+        private final double[] pressao = new double[TAMANHO_PAGINA];
+        private final double[] umidade = new double[TAMANHO_PAGINA];
+        private final double[] consumoEnergia = new double[TAMANHO_PAGINA];
+        private final double[] velocidadeCompressor = new double[TAMANHO_PAGINA];
+        private final byte[] status = new byte[TAMANHO_PAGINA];
+        private final byte[] nome = new byte[TAMANHO_PAGINA];
+        private final byte[] localizacao = new byte[TAMANHO_PAGINA];
+    }
+}
@@ -0,0 +1,172 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.refriged.log_generator_mockup.converter.TelemetriaBinariaMessageConverter;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Exporta leituras de uma faixa contígua de sistemas diretamente para o stream de saída,
+ * uma leitura por vez: NDJSON (um objeto por linha) ou binário, em quadros
+ * {@code [u32 tamanho][leitura]} no formato de {@link TelemetriaBinariaMessageConverter}.
+ * A memória usada não depende da quantidade exportada. Com o particionamento habilitado,
+ * só entram os sistemas atribuídos a este nó, como na geração em lote. As leituras
+ * exportadas não passam pelo cache de últimas leituras.
+ * <p>
+ * Com paralelismo maior que 1 a faixa é dividida em blocos gerados num ForkJoinPool e
+ * escritos na ordem dos sistemas. Cada sistema é gerado por um único bloco, então no modo
+ * determinístico a saída é a mesma byte a byte para qualquer número de threads.
+ */
+@Slf4j
+@Service
+public class ExportacaoLeiturasService {
+
+    public static final String CONTENT_TYPE_NDJSON = "application/x-ndjson";
+
+    private static final int TAMANHO_BUFFER_SAIDA = 64 * 1024;
+    private static final int TAMANHO_MAXIMO_LEITURA = 1024;
+
+    public static final int MAX_PARALELISMO = 64;
+    private static final int SISTEMAS_POR_BLOCO = 4096;
+    private static final int BLOCOS_EM_VOO_POR_THREAD = 2;
+
+    private final RefrigeracaoDataService refrigeracaoDataService;
+    private final ParticionamentoSistemas particionamento;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writerLeitura;
+
+    public ExportacaoLeiturasService(RefrigeracaoDataService refrigeracaoDataService,
+                                     ParticionamentoSistemas particionamento, ObjectMapper objectMapper) {
+        this.refrigeracaoDataService = refrigeracaoDataService;
+        this.particionamento = particionamento;
+        this.objectMapper = objectMapper;
+        this.writerLeitura = objectMapper.writerFor(LeituraRefrigeracao.class)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public static String contentType(FormatoMensagem formato) {
+        return formato == FormatoMensagem.BINARIO ? formato.getContentType() : CONTENT_TYPE_NDJSON;
+    }
+
+    public static void validarFaixa(int inicio, int quantidade) {
+        if (inicio < 0 || quantidade < 1 || (long) inicio + quantidade > EstadoSensores.MAX_SISTEMAS) {
+            throw new IllegalArgumentException(
+                    "Faixa deve estar contida em [0, " + EstadoSensores.MAX_SISTEMAS + ") e ter ao menos 1 sistema");
+        }
+    }
+
+    public static void validarParalelismo(int paralelismo) {
+        if (paralelismo < 1 || paralelismo > MAX_PARALELISMO) {
+            throw new IllegalArgumentException("Paralelismo deve estar entre 1 e " + MAX_PARALELISMO);
+        }
+    }
+
+    /**
+     * Escreve as leituras dos sistemas {@code SYS-(inicio+1)} a {@code SYS-(inicio+quantidade)}
+     * que pertencem a este nó.
+     */
+    public void exportar(int inicio, int quantidade, FormatoMensagem formato, int paralelismo,
+                         OutputStream saida) throws IOException {
+        validarFaixa(inicio, quantidade);
+        validarParalelismo(paralelismo);
+        long comeco = System.nanoTime();
+
+        if (paralelismo == 1 || quantidade <= SISTEMAS_POR_BLOCO) {
+            escrever(inicio, inicio + quantidade, formato, saida);
+        } else {
+            exportarEmBlocos(inicio, inicio + quantidade, formato, paralelismo, saida);
+        }
+
+        log.info("Exportação de {} sistemas a partir de {} em {} com {} threads concluída em {} ms",
+                quantidade, inicio, formato, paralelismo, (System.nanoTime() - comeco) / 1_000_000);
+    }
+
+    // Mantém até BLOCOS_EM_VOO_POR_THREAD blocos por thread gerados ou em geração
+    private void exportarEmBlocos(int de, int ate, FormatoMensagem formato, int paralelismo,
+                                  OutputStream saida) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        ArrayDeque<ForkJoinTask<ByteArrayOutputStream>> pendentes = new ArrayDeque<>();
+        try (OutputStream destino = new BufferedOutputStream(saida, TAMANHO_BUFFER_SAIDA)) {
+            int proximo = de;
+            while (proximo < ate || !pendentes.isEmpty()) {
+                while (proximo < ate && pendentes.size() < paralelismo * BLOCOS_EM_VOO_POR_THREAD) {
+                    int inicioBloco = proximo;
+                    int fimBloco = Math.min(ate, proximo + SISTEMAS_POR_BLOCO);
+                    pendentes.add(pool.submit(() -> gerarBloco(inicioBloco, fimBloco, formato)));
+                    proximo = fimBloco;
+                }
+                pendentes.poll().join().writeTo(destino);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ByteArrayOutputStream gerarBloco(int de, int ate, FormatoMensagem formato) {
+        ByteArrayOutputStream bloco = new ByteArrayOutputStream(TAMANHO_BUFFER_SAIDA);
+        try {
+            escrever(de, ate, formato, bloco);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bloco;
+    }
+
+    private void escrever(int de, int ate, FormatoMensagem formato, OutputStream saida) throws IOException {
+        if (formato == FormatoMensagem.BINARIO) {
+            exportarBinario(de, ate, saida);
+        } else {
+            exportarNdjson(de, ate, saida);
+        }
+    }
+
+    private void exportarNdjson(int de, int ate, OutputStream saida) throws IOException {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+            // Sem o espaço padrão entre valores raiz: cada linha começa no próprio objeto
+            gerador.setRootValueSeparator(null);
+            for (int indice = de; indice < ate; indice++) {
+                if (!particionamento.pertence(indice)) {
+                    continue;
+                }
+                refrigeracaoDataService.gerarLeituraSemCache(indice, RefrigeracaoDataService.idSistema(indice + 1), leitura);
+                writerLeitura.writeValue(gerador, leitura);
+                gerador.writeRaw('\n');
+            }
+        }
+    }
+
+    private void exportarBinario(int de, int ate, OutputStream saida) throws IOException {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        ByteBuffer quadro = ByteBuffer.allocate(Integer.BYTES + TAMANHO_MAXIMO_LEITURA);
+        try (OutputStream destino = new BufferedOutputStream(saida, TAMANHO_BUFFER_SAIDA)) {
+            for (int indice = de; indice < ate; indice++) {
+                if (!particionamento.pertence(indice)) {
+                    continue;
+                }
+                refrigeracaoDataService.gerarLeituraSemCache(indice, RefrigeracaoDataService.idSistema(indice + 1), leitura);
+                quadro.clear();
+                quadro.putInt(TelemetriaBinariaMessageConverter.tamanhoCodificado(leitura));
+                TelemetriaBinariaMessageConverter.codificar(leitura, quadro);
+                destino.write(quadro.array(), 0, quadro.position());
+            }
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.converter.PropriedadesMensagemCodec;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Grava localmente o que é publicado nas routing keys configuradas. Quem publica só
+ * deposita a mensagem em um anel lock-free de capacidade fixa (descartando quando cheio,
+ * sem bloquear); uma thread dedicada agrupa os registros em blocos, comprime cada bloco
+ * como um membro gzip independente e os anexa ao arquivo corrente, rotacionado por
+ * tamanho e por tempo.
+ *
+ * <p>Cada {@code .rec.gz} tem um {@code .idx} com entradas
+ * {@code [u64 primeiro timestamp][u64 último timestamp][u64 offset do bloco]}, o que permite
+ * descomprimir só os blocos de um intervalo de tempo. Registro descomprimido:
+ * {@code [u64 timestamp][routing key][propriedades][u32 tamanho][corpo]}.
+ */
+@Slf4j
+@Service
+public class GravadorPublicacoes {
+
+    public static final String EXTENSAO_GRAVACAO = ".rec.gz";
+    public static final String EXTENSAO_INDICE = ".idx";
+
+    private static final int TAMANHO_ENTRADA_INDICE = 3 * Long.BYTES;
+    private static final DateTimeFormatter FORMATO_NOME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final long ESPERA_VAZIO_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** Mensagem lida de uma gravação. */
+    public record RegistroGravado(long timestampMillis, String routingKey, Message mensagem) {
+    }
+
+    @Value("${app.refrigeracao.gravacao.habilitada:false}")
+    private boolean habilitada;
+
+    @Value("${app.refrigeracao.gravacao.diretorio:gravacoes}")
+    private String diretorio;
+
+    @Value("${app.refrigeracao.gravacao.routing-keys:refrigeracao.dados,refrigeracao.logs,refrigeracao.alertas}")
+    private String[] routingKeys;
+
+    @Value("${app.refrigeracao.gravacao.capacidade-anel:65536}")
+    private int capacidadeAnel;
+
+    @Value("${app.refrigeracao.gravacao.tamanho-bloco-kb:256}")
+    private int tamanhoBlocoKb;
+
+    @Value("${app.refrigeracao.gravacao.intervalo-bloco-ms:1000}")
+    private long intervaloBlocoMs;
+
+    @Value("${app.refrigeracao.gravacao.tamanho-arquivo-mb:256}")
+    private long tamanhoArquivoMb;
+
+    @Value("${app.refrigeracao.gravacao.rotacao-minutos:60}")
+    private long rotacaoMinutos;
+
+    @Value("${app.refrigeracao.gravacao.max-arquivos:48}")
+    private int maxArquivos;
+
+    private final LongAdder registradas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private volatile long gravadas;
+    private volatile long blocos;
+    private volatile long bytesComprimidos;
+    private volatile Path arquivoAtual;
+
+    private Set<String> routingKeysGravadas = Set.of();
+    private Path raiz;
+    private Anel anel;
+    private Thread escritor;
+    private volatile boolean encerrando;
+
+    // Estado do bloco e do arquivo corrente, usado só pela thread de escrita
+    private final ByteArrayOutputStream bloco = new ByteArrayOutputStream();
+    private final DataOutputStream saidaBloco = new DataOutputStream(bloco);
+    private long primeiroTimestampBloco;
+    private long ultimoTimestampBloco = Long.MIN_VALUE;
+    private long inicioBlocoNanos;
+    private FileChannel canalGravacao;
+    private FileChannel canalIndice;
+    private long inicioArquivoNanos;
+    private final ByteBuffer entradaIndice = ByteBuffer.allocate(TAMANHO_ENTRADA_INDICE);
+
+    @PostConstruct
+    void iniciar() {
+        if (!habilitada) {
+            return;
+        }
+        raiz = Paths.get(diretorio).toAbsolutePath();
+        routingKeysGravadas = Set.of(routingKeys);
+        anel = new Anel(Integer.highestOneBit(Math.max(2, capacidadeAnel - 1)) << 1);
+        try {
+            Files.createDirectories(raiz);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao criar diretório de gravação " + raiz, e);
+        }
+
+        escritor = new Thread(this::escrever, "gravador-publicacoes");
+        escritor.setDaemon(true);
+        escritor.start();
+
+        log.info("Gravação de publicações iniciada em {}: routingKeys={}, anel={}, blocos de {} KB",
+                raiz, routingKeysGravadas, anel.capacidade, tamanhoBlocoKb);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (escritor == null) {
+            return;
+        }
+        encerrando = true;
+        LockSupport.unpark(escritor);
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Registra uma mensagem já entregue ao broker. Não bloqueia nem copia o corpo: se o
+     * anel estiver cheio, a mensagem não é gravada e entra na contagem de descartadas.
+     */
+    public void registrar(String routingKey, Message mensagem) {
+        if (!habilitada || !routingKeysGravadas.contains(routingKey)) {
+            return;
+        }
+        if (anel.oferecer(System.currentTimeMillis(), routingKey, mensagem)) {
+            registradas.increment();
+        } else {
+            descartadas.increment();
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("habilitada", habilitada);
+        if (!habilitada) {
+            return estatisticas;
+        }
+        estatisticas.put("diretorio", raiz.toString());
+        estatisticas.put("routingKeys", routingKeysGravadas);
+        estatisticas.put("registradas", registradas.sum());
+        estatisticas.put("descartadas", descartadas.sum());
+        estatisticas.put("gravadas", gravadas);
+        estatisticas.put("pendentesAnel", registradas.sum() - gravadas);
+        estatisticas.put("blocos", blocos);
+        estatisticas.put("bytesComprimidos", bytesComprimidos);
+        Path atual = arquivoAtual;
+        estatisticas.put("arquivoAtual", atual != null ? atual.getFileName().toString() : null);
+        return estatisticas;
+    }
+
+    /**
+     * Percorre, em ordem de gravação, os registros com timestamp em {@code [inicio, fim]},
+     * descomprimindo apenas os blocos cujo intervalo no índice cruza o pedido. Um bloco
+     * gravado sem a entrada no índice (queda entre as duas escritas) é lido junto com o
+     * último bloco indexado; um bloco final truncado encerra a leitura do arquivo.
+     */
+    public void percorrer(long inicioMillis, long fimMillis, Consumer<RegistroGravado> consumidor) throws IOException {
+        if (raiz == null) {
+            throw new IllegalStateException("Gravação de publicações desabilitada");
+        }
+        List<Path> indices;
+        try (Stream<Path> listagem = Files.list(raiz)) {
+            indices = listagem.filter(arquivo -> arquivo.getFileName().toString().endsWith(EXTENSAO_INDICE))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path indice : indices) {
+            String nome = indice.getFileName().toString();
+            Path gravacao = indice.resolveSibling(nome.substring(0, nome.length() - EXTENSAO_INDICE.length())
+                    + EXTENSAO_GRAVACAO);
+            if (!Files.exists(gravacao)) {
+                continue;
+            }
+            ByteBuffer entradas = ByteBuffer.wrap(Files.readAllBytes(indice));
+            int quantidade = entradas.capacity() / TAMANHO_ENTRADA_INDICE;
+            try (FileChannel canal = FileChannel.open(gravacao, StandardOpenOption.READ)) {
+                if (quantidade == 0 && canal.size() > 0) {
+                    lerBloco(canal, 0, canal.size(), inicioMillis, fimMillis, consumidor);
+                    continue;
+                }
+                for (int i = 0; i < quantidade; i++) {
+                    int base = i * TAMANHO_ENTRADA_INDICE;
+                    long primeiro = entradas.getLong(base);
+                    long ultimo = entradas.getLong(base + Long.BYTES);
+                    // O último segue até o fim do arquivo e pode ter registros além do índice
+                    boolean ultimoBloco = i + 1 == quantidade;
+                    if ((ultimo < inicioMillis && !ultimoBloco) || primeiro > fimMillis) {
+                        continue;
+                    }
+                    long offset = entradas.getLong(base + 2 * Long.BYTES);
+                    long proximo = i + 1 < quantidade
+                            ? entradas.getLong(base + TAMANHO_ENTRADA_INDICE + 2 * Long.BYTES) : canal.size();
+                    lerBloco(canal, offset, proximo, inicioMillis, fimMillis, consumidor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Exporta os corpos gravados de uma routing key no intervalo, no formato lido pelo
+     * {@link ReproducaoService}: NDJSON para mensagens JSON, quadros {@code [u32 tamanho][corpo]}
+     * para binário. Mensagens de outro content type (como envelopes) são ignoradas.
+     */
+    public void exportar(long inicioMillis, long fimMillis, String routingKey, FormatoMensagem formato,
+                         OutputStream saida) throws IOException {
+        try (DataOutputStream destino = new DataOutputStream(new BufferedOutputStream(saida, 64 * 1024))) {
+            percorrer(inicioMillis, fimMillis, registro -> {
+                Message mensagem = registro.mensagem();
+                if (!registro.routingKey().equals(routingKey)
+                        || !formato.getContentType().equals(mensagem.getMessageProperties().getContentType())) {
+                    return;
+                }
+                try {
+                    if (formato == FormatoMensagem.BINARIO) {
+                        destino.writeInt(mensagem.getBody().length);
+                        destino.write(mensagem.getBody());
+                    } else {
+                        destino.write(mensagem.getBody());
+                        destino.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void lerBloco(FileChannel canal, long offset, long fim, long inicioMillis, long fimMillis,
+                                 Consumer<RegistroGravado> consumidor) throws IOException {
+        ByteBuffer comprimido = ByteBuffer.allocate((int) (fim - offset));
+        while (comprimido.hasRemaining()) {
+            if (canal.read(comprimido, offset + comprimido.position()) < 0) {
+                break;
+            }
+        }
+        try (DataInputStream entrada = new DataInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(comprimido.array(), 0, comprimido.position())))) {
+            while (true) {
+                long timestamp = entrada.readLong();
+                String routingKey = entrada.readUTF();
+                MessageProperties propriedades = PropriedadesMensagemCodec.ler(entrada);
+                byte[] corpo = new byte[entrada.readInt()];
+                entrada.readFully(corpo);
+                if (timestamp >= inicioMillis && timestamp <= fimMillis) {
+                    consumidor.accept(new RegistroGravado(timestamp, routingKey, new Message(corpo, propriedades)));
+                }
+            }
+        } catch (EOFException e) {
+            // Fim do bloco, ou do que foi escrito de um bloco final truncado
+        }
+    }
+
+    private void escrever() {
+        int tamanhoBloco = tamanhoBlocoKb * 1024;
+        long intervaloBlocoNanos = TimeUnit.MILLISECONDS.toNanos(intervaloBlocoMs);
+        while (true) {
+            boolean encerrar = encerrando;
+            int lidas = 0;
+            try {
+                lidas = drenarAnel(tamanhoBloco);
+                if (bloco.size() >= tamanhoBloco
+                        || (bloco.size() > 0 && (encerrar || System.nanoTime() - inicioBlocoNanos >= intervaloBlocoNanos))) {
+                    fecharBloco();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Erro ao gravar publicações: {}", e.getMessage(), e);
+                bloco.reset();
+                fecharArquivo();
+            }
+            if (encerrar && lidas == 0) {
+                break;
+            }
+            if (lidas == 0) {
+                LockSupport.parkNanos(ESPERA_VAZIO_NANOS);
+            }
+        }
+        fecharArquivo();
+    }
+
+    private int drenarAnel(int tamanhoBloco) throws IOException {
+        int lidas = 0;
+        long sequencia;
+        while (bloco.size() < tamanhoBloco && (sequencia = anel.proxima()) >= 0) {
+            int indice = anel.indice(sequencia);
+            long timestamp = anel.timestamps[indice];
+            String routingKey = anel.routingKeys[indice];
+            Message mensagem = anel.mensagens[indice];
+            anel.liberar(sequencia);
+
+            if (bloco.size() == 0) {
+                primeiroTimestampBloco = timestamp;
+                inicioBlocoNanos = System.nanoTime();
+            }
+            ultimoTimestampBloco = Math.max(ultimoTimestampBloco, timestamp);
+            saidaBloco.writeLong(timestamp);
+            saidaBloco.writeUTF(routingKey);
+            PropriedadesMensagemCodec.escrever(mensagem.getMessageProperties(), saidaBloco);
+            saidaBloco.writeInt(mensagem.getBody().length);
+            saidaBloco.write(mensagem.getBody());
+            lidas++;
+        }
+        gravadas += lidas;
+        return lidas;
+    }
+
+    private void fecharBloco() throws IOException {
+        long agora = System.nanoTime();
+        if (canalGravacao != null && (canalGravacao.size() >= tamanhoArquivoMb * 1024 * 1024
+                || agora - inicioArquivoNanos >= TimeUnit.MINUTES.toNanos(rotacaoMinutos))) {
+            fecharArquivo();
+        }
+        if (canalGravacao == null) {
+            abrirArquivo();
+        }
+
+        long offset = canalGravacao.size();
+        try (GZIPOutputStream gzip = new GzipRapido(new SaidaNaoFechavel(Channels.newOutputStream(canalGravacao)))) {
+            bloco.writeTo(gzip);
+        }
+        entradaIndice.clear();
+        entradaIndice.putLong(primeiroTimestampBloco).putLong(ultimoTimestampBloco).putLong(offset).flip();
+        while (entradaIndice.hasRemaining()) {
+            canalIndice.write(entradaIndice);
+        }
+
+        bytesComprimidos += canalGravacao.size() - offset;
+        blocos++;
+        bloco.reset();
+        ultimoTimestampBloco = Long.MIN_VALUE;
+    }
+
+    private void abrirArquivo() throws IOException {
+        String nome = "publicacoes-" + LocalDateTime.now().format(FORMATO_NOME);
+        Path gravacao = raiz.resolve(nome + EXTENSAO_GRAVACAO);
+        canalGravacao = FileChannel.open(gravacao, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        canalIndice = FileChannel.open(raiz.resolve(nome + EXTENSAO_INDICE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        inicioArquivoNanos = System.nanoTime();
+        arquivoAtual = gravacao;
+        aplicarRetencao();
+    }
+
+    private void fecharArquivo() {
+        try {
+            if (canalGravacao != null) {
+                canalGravacao.close();
+            }
+            if (canalIndice != null) {
+                canalIndice.close();
+            }
+        } catch (IOException e) {
+            log.warn("Falha ao fechar arquivo de gravação {}: {}", arquivoAtual, e.getMessage());
+        }
+        canalGravacao = null;
+        canalIndice = null;
+    }
+
+    private void aplicarRetencao() throws IOException {
+        List<Path> gravacoes;
+        try (Stream<Path> listagem = Files.list(raiz)) {
+            gravacoes = listagem.filter(arquivo -> arquivo.getFileName().toString().endsWith(EXTENSAO_GRAVACAO))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < gravacoes.size() - maxArquivos; i++) {
+            Path gravacao = gravacoes.get(i);
+            String nome = gravacao.getFileName().toString();
+            Files.deleteIfExists(gravacao);
+            Files.deleteIfExists(gravacao.resolveSibling(
+                    nome.substring(0, nome.length() - EXTENSAO_GRAVACAO.length()) + EXTENSAO_INDICE));
+            log.info("Gravação {} removida pela retenção de {} arquivos", nome, maxArquivos);
+        }
+    }
+
+    private static final class SaidaNaoFechavel extends FilterOutputStream {
+        private SaidaNaoFechavel(OutputStream saida) {
+            super(saida);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /** Compressão no nível mais rápido: o escritor precisa acompanhar o ritmo de publicação. */
+    private static final class GzipRapido extends GZIPOutputStream {
+        private GzipRapido(OutputStream saida) throws IOException {
+            super(saida, 64 * 1024);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    /**
+     * Fila circular limitada, múltiplos produtores e um consumidor, no esquema de
+     * sequência por slot: o produtor reserva a posição com CAS na cauda, preenche os
+     * campos do slot e publica a sequência; o consumidor só lê slots já publicados.
+     */
+    private static final class Anel {
+        private final int capacidade;
+        private final int mascara;
+        private final long[] timestamps;
+        private final String[] routingKeys;
+        private final Message[] mensagens;
+        private final AtomicLongArray sequencias;
+        private final AtomicLong cauda = new AtomicLong();
+        private long cabeca;
+
+        private Anel(int capacidade) {
+            this.capacidade = capacidade;
+            this.mascara = capacidade - 1;
+            this.timestamps = new long[capacidade];
+            this.routingKeys = new String[capacidade];
+            this.mensagens = new Message[capacidade];
+            this.sequencias = new AtomicLongArray(capacidade);
+            for (int i = 0; i < capacidade; i++) {
+                sequencias.set(i, i);
+            }
+        }
+
+        private boolean oferecer(long timestamp, String routingKey, Message mensagem) {
+            long posicao = cauda.get();
+            while (true) {
+                int indice = (int) (posicao & mascara);
+                long diferenca = sequencias.get(indice) - posicao;
+                if (diferenca == 0) {
+                    if (cauda.compareAndSet(posicao, posicao + 1)) {
+                        timestamps[indice] = timestamp;
+                        routingKeys[indice] = routingKey;
+                        mensagens[indice] = mensagem;
+                        sequencias.lazySet(indice, posicao + 1);
+                        return true;
+                    }
+                    posicao = cauda.get();
+                } else if (diferenca < 0) {
+                    return false;
+                } else {
+                    posicao = cauda.get();
+                }
+            }
+        }
+
+        private long proxima() {
+            return sequencias.get(indice(cabeca)) == cabeca + 1 ? cabeca : -1;
+        }
+
+        private int indice(long sequencia) {
+            return (int) (sequencia & mascara);
+        }
+
+        private void liberar(long sequencia) {
+            int indice = indice(sequencia);
+            routingKeys[indice] = null;
+            mensagens[indice] = null;
+            sequencias.lazySet(indice, sequencia + capacidade);
+            cabeca = sequencia + 1;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.CenariosProperties;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+import com.refriged.log_generator_mockup.utils.enums.TipoFalha;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cenários de falha aplicados às leituras geradas. Os sistemas de um cenário vêm da
+ * lista de IDs ou de um hash de (semente, índice) comparado à fração da frota, e o
+ * efeito depende só do tempo desde o início do cenário: a mesma configuração atinge
+ * sempre os mesmos sistemas, da mesma forma. As falhas alteram a leitura publicada,
+ * não o estado dos sensores, que volta a aparecer quando o cenário termina.
+ * No modo determinístico a janela do cenário fica no relógio lógico, a partir de
+ * {@code inicio-logico-segundos}, e só termina pela duração ou quando é parado.
+ * Sem cenários ativos, o custo por leitura é uma leitura volátil.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InjetorFalhas {
+
+    private static final CenarioAtivo[] NENHUM = new CenarioAtivo[0];
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long SAL_ATRASO = 0x632BE59BD9B4E019L;
+    private static final double ESCALA_53_BITS = 0x1.0p-53;
+
+    // Porta aberta: a câmara esquenta com essa constante de tempo
+    private static final double CONSTANTE_PORTA_SEGUNDOS = 30.0;
+    private static final double AQUECIMENTO_PARADO_POR_SEGUNDO = 0.05;
+    private static final double AQUECIMENTO_PARADO_MAXIMO = 15.0;
+
+    private final CenariosProperties cenariosProperties;
+    private final EstadoSensores estadoSensores;
+
+    private volatile CenarioAtivo[] ativos = NENHUM;
+
+    public void aplicar(int indice, long agoraMillis, LeituraRefrigeracao leitura) {
+        CenarioAtivo[] cenarios = ativos;
+        for (CenarioAtivo cenario : cenarios) {
+            if (agoraMillis >= cenario.inicioMillis && agoraMillis < cenario.fimMillis && cenario.afeta(indice)) {
+                cenario.aplicar(indice, (agoraMillis - cenario.inicioMillis) / 1000.0, leitura);
+            }
+        }
+    }
+
+    /**
+     * Inicia o cenário configurado com esse nome; fração, semente e sistemas informados
+     * substituem os da configuração.
+     */
+    public synchronized Map<String, Object> iniciar(String nome, Double fracao, Long semente, List<String> sistemas) {
+        CenariosProperties.Cenario definicao = cenariosProperties.getDefinicoes().stream()
+                .filter(cenario -> cenario.getNome().equals(nome))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Cenário não configurado: " + nome));
+        if (definicao.getTipo() == null) {
+            throw new IllegalArgumentException("Cenário sem tipo de falha: " + nome);
+        }
+
+        long agora = System.currentTimeMillis();
+        removerEncerrados(agora);
+        if (Arrays.stream(ativos).anyMatch(cenario -> cenario.nome.equals(nome))) {
+            throw new IllegalStateException("Cenário já está ativo: " + nome);
+        }
+
+        double fracaoEfetiva = fracao != null ? fracao : definicao.getFracao();
+        if (fracaoEfetiva < 0 || fracaoEfetiva > 1) {
+            throw new IllegalArgumentException("Fração deve estar entre 0 e 1");
+        }
+        List<String> alvos = sistemas != null && !sistemas.isEmpty() ? sistemas : definicao.getSistemas();
+        BitSet indices = null;
+        if (!alvos.isEmpty()) {
+            indices = new BitSet();
+            for (String sistemaId : alvos) {
+                indices.set(estadoSensores.indiceDe(sistemaId));
+            }
+        }
+
+        long inicio = estadoSensores.isDeterministico()
+                ? estadoSensores.inicioRelogioLogico() + definicao.getInicioLogicoSegundos() * 1000
+                : agora;
+        CenarioAtivo cenario = new CenarioAtivo(nome, definicao.getTipo(), indices, fracaoEfetiva,
+                definicao.getIntensidade(), Math.max(1, definicao.getRampaSegundos()),
+                semente != null ? semente : definicao.getSemente(), inicio,
+                definicao.getDuracaoSegundos() > 0 ? inicio + definicao.getDuracaoSegundos() * 1000 : Long.MAX_VALUE);
+
+        CenarioAtivo[] novos = Arrays.copyOf(ativos, ativos.length + 1);
+        novos[novos.length - 1] = cenario;
+        ativos = novos;
+
+        log.info("Cenário de falha {} iniciado: tipo={}, sistemas={}, fracao={}, semente={}",
+                nome, cenario.tipo, indices != null ? indices.cardinality() : "-", fracaoEfetiva, cenario.semente);
+        return cenario.descrever(segundosDecorridos(cenario, agora));
+    }
+
+    public synchronized Map<String, Object> parar(String nome) {
+        long agora = System.currentTimeMillis();
+        CenarioAtivo[] restantes = Arrays.stream(ativos)
+                .filter(cenario -> !cenario.nome.equals(nome))
+                .toArray(CenarioAtivo[]::new);
+        if (restantes.length == ativos.length) {
+            throw new IllegalArgumentException("Cenário não está ativo: " + nome);
+        }
+        ativos = restantes;
+        removerEncerrados(agora);
+
+        log.info("Cenário de falha {} parado", nome);
+        return status();
+    }
+
+    public synchronized Map<String, Object> status() {
+        long agora = System.currentTimeMillis();
+        removerEncerrados(agora);
+
+        List<Map<String, Object>> emExecucao = new ArrayList<>();
+        for (CenarioAtivo cenario : ativos) {
+            emExecucao.add(cenario.descrever(segundosDecorridos(cenario, agora)));
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("configurados", cenariosProperties.getDefinicoes().stream().map(CenariosProperties.Cenario::getNome).toList());
+        status.put("ativos", emExecucao);
+        return status;
+    }
+
+    private void removerEncerrados(long agora) {
+        // Cada sistema tem o próprio relógio lógico: não há um "agora" para encerrar o cenário
+        if (estadoSensores.isDeterministico()) {
+            return;
+        }
+        if (Arrays.stream(ativos).anyMatch(cenario -> agora >= cenario.fimMillis)) {
+            ativos = Arrays.stream(ativos)
+                    .filter(cenario -> agora < cenario.fimMillis)
+                    .toArray(CenarioAtivo[]::new);
+        }
+    }
+
+    private Long segundosDecorridos(CenarioAtivo cenario, long agora) {
+        return estadoSensores.isDeterministico() ? null : (agora - cenario.inicioMillis) / 1000;
+    }
+
+    // Finalizador do SplitMix64: bits uniformes a partir de (semente, índice)
+    private static long misturar(long valor) {
+        valor = (valor ^ (valor >>> 30)) * 0xBF58476D1CE4E5B9L;
+        valor = (valor ^ (valor >>> 27)) * 0x94D049BB133111EBL;
+        return valor ^ (valor >>> 31);
+    }
+
+    private static void piorar(LeituraRefrigeracao leitura, StatusSistema status) {
+        if (leitura.getStatus().ordinal() < status.ordinal()) {
+            leitura.setStatus(status);
+        }
+    }
+
+    private static final class CenarioAtivo {
+        private final String nome;
+        private final TipoFalha tipo;
+        private final BitSet indices;
+        private final double fracao;
+        private final double intensidade;
+        private final double rampaSegundos;
+        private final long semente;
+        private final long inicioMillis;
+        private final long fimMillis;
+
+        private CenarioAtivo(String nome, TipoFalha tipo, BitSet indices, double fracao, double intensidade,
+                             double rampaSegundos, long semente, long inicioMillis, long fimMillis) {
+            this.nome = nome;
+            this.tipo = tipo;
+            this.indices = indices;
+            this.fracao = fracao;
+            this.intensidade = intensidade;
+            this.rampaSegundos = rampaSegundos;
+            this.semente = semente;
+            this.inicioMillis = inicioMillis;
+            this.fimMillis = fimMillis;
+        }
+
+        private boolean afeta(int indice) {
+            return indices != null ? indices.get(indice) : uniforme(indice, 0) < fracao;
+        }
+
+        private double uniforme(int indice, long sal) {
+            return (misturar(semente + sal + (indice + 1) * GOLDEN_GAMMA) >>> 11) * ESCALA_53_BITS;
+        }
+
+        private void aplicar(int indice, double segundos, LeituraRefrigeracao leitura) {
+            double progresso = intensidade * Math.min(1.0, segundos / rampaSegundos);
+            switch (tipo) {
+                case DEGRADACAO_COMPRESSOR -> {
+                    leitura.setVelocidadeCompressor(leitura.getVelocidadeCompressor() * (1 + 0.3 * progresso));
+                    leitura.setConsumoEnergia(leitura.getConsumoEnergia() * (1 + 0.6 * progresso));
+                    leitura.setTemperatura(leitura.getTemperatura() + 4 * progresso);
+                    if (progresso >= 0.5) {
+                        piorar(leitura, StatusSistema.ALERTA);
+                    }
+                }
+                case VAZAMENTO_REFRIGERANTE -> {
+                    leitura.setPressao(leitura.getPressao() * (1 - 0.9 * Math.min(1.0, progresso)));
+                    leitura.setTemperatura(leitura.getTemperatura() + 8 * progresso);
+                    if (progresso >= 0.8) {
+                        piorar(leitura, StatusSistema.CRITICO);
+                    } else if (progresso >= 0.3) {
+                        piorar(leitura, StatusSistema.ALERTA);
+                    }
+                }
+                case PORTA_ABERTA -> {
+                    double pico = intensidade * -Math.expm1(-segundos / CONSTANTE_PORTA_SEGUNDOS);
+                    leitura.setTemperatura(leitura.getTemperatura() + 12 * pico);
+                    leitura.setUmidade(Math.min(100.0, leitura.getUmidade() + 25 * pico));
+                    if (pico >= 0.5) {
+                        piorar(leitura, StatusSistema.ALERTA);
+                    }
+                }
+                case PARADA_CASCATA -> {
+                    // Cada sistema para num instante próprio dentro da rampa, em ondas pela frota
+                    double parado = segundos - uniforme(indice, SAL_ATRASO) * rampaSegundos;
+                    if (parado >= 0) {
+                        leitura.setStatus(StatusSistema.PARADO);
+                        leitura.setVelocidadeCompressor(0.0);
+                        leitura.setConsumoEnergia(leitura.getConsumoEnergia() * 0.05);
+                        leitura.setTemperatura(leitura.getTemperatura() + intensidade
+                                * Math.min(AQUECIMENTO_PARADO_MAXIMO, AQUECIMENTO_PARADO_POR_SEGUNDO * parado));
+                    }
+                }
+            }
+        }
+
+        private Map<String, Object> descrever(Long segundosDecorridos) {
+            Map<String, Object> descricao = new LinkedHashMap<>();
+            descricao.put("nome", nome);
+            descricao.put("tipo", tipo);
+            if (indices != null) {
+                descricao.put("sistemas", indices.cardinality());
+            } else {
+                descricao.put("fracao", fracao);
+            }
+            descricao.put("intensidade", intensidade);
+            descricao.put("semente", semente);
+            descricao.put("inicio", Instant.ofEpochMilli(inicioMillis).toString());
+            descricao.put("fim", fimMillis == Long.MAX_VALUE ? null : Instant.ofEpochMilli(fimMillis).toString());
+            descricao.put("segundosDecorridos", segundosDecorridos);
+            return descricao;
+        }
+    }
+}
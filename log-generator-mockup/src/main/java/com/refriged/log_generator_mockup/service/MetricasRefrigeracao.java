@@ -0,0 +1,226 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.utils.enums.EstadoAlerta;
+import com.refriged.log_generator_mockup.utils.enums.ModoMetricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas Micrometer dos caminhos quentes: geração de leituras, publicação por routing key
+ * e avaliação de alertas. Contadores são sempre incrementados; os timers, que pagam duas
+ * leituras de relógio e o histograma, podem ser amostrados (1 em N chamadas) para manter o
+ * custo abaixo de 1% da vazão da simulação. Em modo amostrado, a contagem dos timers é a
+ * das amostras; as taxas vêm dos contadores.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MetricasRefrigeracao {
+
+    /** Valor devolvido por {@link #iniciar()} quando a chamada não foi amostrada. */
+    public static final long NAO_AMOSTRADO = Long.MIN_VALUE;
+
+    private static final String TAG_ROUTING_KEY = "routingKey";
+    private static final String TAG_RESULTADO = "resultado";
+
+    private final MeterRegistry registry;
+
+    @Value("${app.refrigeracao.metricas.modo:AMOSTRADO}")
+    private ModoMetricas modo;
+
+    @Value("${app.refrigeracao.metricas.taxa-amostragem:64}")
+    private int taxaAmostragem;
+
+    @Value("${app.refrigeracao.metricas.histogramas:true}")
+    private boolean histogramas;
+
+    private final Map<String, MetricasRota> rotas = new ConcurrentHashMap<>();
+    private final Map<String, Counter> alertas = new ConcurrentHashMap<>();
+
+    private Counter leiturasGeradas;
+    private Timer geracaoLeitura;
+    private Timer avaliacaoAlertas;
+
+    @PostConstruct
+    void registrar() {
+        if (taxaAmostragem < 1) {
+            taxaAmostragem = 1;
+        }
+        leiturasGeradas = Counter.builder("refrigeracao.leituras.geradas")
+                .description("Leituras geradas pelo RefrigeracaoDataService")
+                .register(registry);
+        geracaoLeitura = timer("refrigeracao.geracao.leitura", "Latência de geração de uma leitura")
+                .register(registry);
+        avaliacaoAlertas = timer("refrigeracao.alertas.avaliacao", "Latência da avaliação de regras e deduplicação")
+                .register(registry);
+
+        log.info("Métricas Micrometer: modo={}, taxaAmostragem={}, histogramas={}", modo, taxaAmostragem, histogramas);
+    }
+
+    /**
+     * Marca o início de uma medição: devolve {@code System.nanoTime()} para as chamadas
+     * amostradas e {@link #NAO_AMOSTRADO} para as demais, sem ler o relógio.
+     */
+    public long iniciar() {
+        return switch (modo) {
+            case COMPLETO -> System.nanoTime();
+            case AMOSTRADO -> taxaAmostragem == 1 || ThreadLocalRandom.current().nextInt(taxaAmostragem) == 0
+                    ? System.nanoTime() : NAO_AMOSTRADO;
+            case DESLIGADO -> NAO_AMOSTRADO;
+        };
+    }
+
+    public void registrarGeracao(long inicio) {
+        if (modo == ModoMetricas.DESLIGADO) {
+            return;
+        }
+        leiturasGeradas.increment();
+        registrar(geracaoLeitura, inicio);
+    }
+
+    public void registrarAvaliacaoAlertas(long inicio) {
+        registrar(avaliacaoAlertas, inicio);
+    }
+
+    public void registrarAlerta(String tipoAlerta, EstadoAlerta estado) {
+        if (modo == ModoMetricas.DESLIGADO) {
+            return;
+        }
+        alertas.computeIfAbsent(tipoAlerta + '|' + estado, chave -> Counter.builder("refrigeracao.alertas.publicados")
+                .description("Alertas publicados por tipo e estado")
+                .tag("tipo", tipoAlerta)
+                .tag("estado", estado.name())
+                .register(registry)).increment();
+    }
+
+    /** Envio ao broker (ou ao spool) concluído ou falho; {@code inicio} vem de {@link #iniciar()}. */
+    public void registrarEnvio(String routingKey, boolean sucesso, long inicio) {
+        if (modo == ModoMetricas.DESLIGADO) {
+            return;
+        }
+        MetricasRota rota = rota(routingKey);
+        (sucesso ? rota.sucessos : rota.falhas).increment();
+        registrar(rota.envio, inicio);
+    }
+
+    public void registrarEnvios(String routingKey, int quantidade, long inicio) {
+        if (modo == ModoMetricas.DESLIGADO || quantidade == 0) {
+            return;
+        }
+        MetricasRota rota = rota(routingKey);
+        rota.sucessos.increment(quantidade);
+        registrar(rota.lote, inicio);
+    }
+
+    public void registrarFalhas(String routingKey, int quantidade) {
+        if (modo == ModoMetricas.DESLIGADO || quantidade == 0) {
+            return;
+        }
+        rota(routingKey).falhas.increment(quantidade);
+    }
+
+    /** Uma confirmação passa a ser aguardada; sempre contada, para o gauge de em voo ficar exato. */
+    public void confirmacaoPendente(String routingKey) {
+        rota(routingKey).emVoo.incrementAndGet();
+    }
+
+    /** Confirmação reservada para uma mensagem que não chegou a ser enviada. */
+    public void confirmacaoDescartada(String routingKey) {
+        rota(routingKey).emVoo.decrementAndGet();
+    }
+
+    /**
+     * Confirmação recebida (ack ou nack). {@code enviadoEm} vem de {@link #iniciar()} no
+     * momento do envio e mede o atraso até o broker confirmar.
+     */
+    public void registrarConfirmacao(String routingKey, boolean ack, long enviadoEm) {
+        MetricasRota rota = rota(routingKey);
+        rota.emVoo.decrementAndGet();
+        if (modo == ModoMetricas.DESLIGADO) {
+            return;
+        }
+        (ack ? rota.acks : rota.nacks).increment();
+        registrar(rota.confirmacao, enviadoEm);
+    }
+
+    private void registrar(Timer timer, long inicio) {
+        if (inicio != NAO_AMOSTRADO) {
+            timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private MetricasRota rota(String routingKey) {
+        MetricasRota rota = rotas.get(routingKey);
+        return rota != null ? rota : rotas.computeIfAbsent(routingKey, MetricasRota::new);
+    }
+
+    private Timer.Builder timer(String nome, String descricao) {
+        Timer.Builder builder = Timer.builder(nome)
+                .description(descricao)
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+        return histogramas ? builder.publishPercentileHistogram() : builder;
+    }
+
+    private final class MetricasRota {
+        private final Counter sucessos;
+        private final Counter falhas;
+        private final Counter acks;
+        private final Counter nacks;
+        private final Timer envio;
+        private final Timer lote;
+        private final Timer confirmacao;
+        private final AtomicLong emVoo = new AtomicLong();
+
+        private MetricasRota(String routingKey) {
+            sucessos = contadorEnvio(routingKey, "sucesso");
+            falhas = contadorEnvio(routingKey, "falha");
+            acks = contadorConfirmacao(routingKey, "ack");
+            nacks = contadorConfirmacao(routingKey, "nack");
+            envio = timer("refrigeracao.publicacao.envio", "Latência de envio síncrono de uma mensagem")
+                    .tag(TAG_ROUTING_KEY, routingKey)
+                    .register(registry);
+            lote = timer("refrigeracao.publicacao.lote", "Latência de envio de um lote no mesmo canal")
+                    .tag(TAG_ROUTING_KEY, routingKey)
+                    .register(registry);
+            confirmacao = timer("refrigeracao.publicacao.confirmacao", "Atraso entre envio e confirmação do broker")
+                    .tag(TAG_ROUTING_KEY, routingKey)
+                    .register(registry);
+            Gauge.builder("refrigeracao.publicacao.confirmacoes.em.voo", emVoo, AtomicLong::get)
+                    .description("Confirmações do broker aguardadas")
+                    .tag(TAG_ROUTING_KEY, routingKey)
+                    .register(registry);
+        }
+
+        private Counter contadorEnvio(String routingKey, String resultado) {
+            return Counter.builder("refrigeracao.publicacao.mensagens")
+                    .description("Mensagens publicadas por routing key e resultado do envio")
+                    .tag(TAG_ROUTING_KEY, routingKey)
+                    .tag(TAG_RESULTADO, resultado)
+                    .register(registry);
+        }
+
+        private Counter contadorConfirmacao(String routingKey, String resultado) {
+            return Counter.builder("refrigeracao.publicacao.confirmacoes")
+                    .description("Confirmações do broker por routing key")
+                    .tag(TAG_ROUTING_KEY, routingKey)
+                    .tag(TAG_RESULTADO, resultado)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.AlertasProperties;
+import com.refriged.log_generator_mockup.config.AlertasProperties.Regra;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.CampoLeitura;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IllegalFormatException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de regras de alerta. As regras configuradas em {@code app.refrigeracao.alertas}
+ * são compiladas em arrays primitivos e trocadas atomicamente a cada recarga; a
+ * avaliação não usa reflexão e não aloca quando nenhuma regra dispara.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MotorRegrasAlerta {
+
+    public static final int MAX_REGRAS = Long.SIZE;
+
+    private final AlertasProperties alertasProperties;
+    private final ConfigurableEnvironment environment;
+
+    private volatile RegrasCompiladas regras;
+    private int versao;
+
+    private ScheduledExecutorService vigia;
+    private long ultimaModificacao;
+
+    @PostConstruct
+    void iniciar() {
+        recarregar(alertasProperties);
+
+        String arquivo = alertasProperties.getArquivoRegras();
+        if (arquivo != null && !arquivo.isBlank()) {
+            vigia = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "regras-alerta-recarga");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalo = alertasProperties.getIntervaloRecargaMs();
+            vigia.scheduleWithFixedDelay(() -> verificarArquivo(Path.of(arquivo)), 0, intervalo, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (vigia != null) {
+            vigia.shutdownNow();
+        }
+    }
+
+    public synchronized void recarregar(AlertasProperties properties) {
+        regras = compilar(properties, ++versao);
+        log.info("Regras de alerta carregadas: {} regras padrão, {} sistemas com sobrescritas",
+                regras.padrao.quantidade(), regras.porSistema.size());
+    }
+
+    public TabelaRegras tabelaPara(String sistemaId) {
+        RegrasCompiladas atuais = regras;
+        if (atuais.porSistema.isEmpty() || sistemaId == null) {
+            return atuais.padrao;
+        }
+        return atuais.porSistema.getOrDefault(sistemaId, atuais.padrao);
+    }
+
+    public Map<String, Object> descrever() {
+        RegrasCompiladas atuais = regras;
+        Map<String, Object> descricao = new LinkedHashMap<>();
+        descricao.put("regras", atuais.padrao.descrever());
+        Map<String, Object> sobrescritas = new LinkedHashMap<>();
+        atuais.porSistema.forEach((sistemaId, tabela) -> sobrescritas.put(sistemaId, tabela.descrever()));
+        descricao.put("sobrescritas", sobrescritas);
+        return descricao;
+    }
+
+    private void verificarArquivo(Path arquivo) {
+        try {
+            if (!Files.exists(arquivo)) {
+                return;
+            }
+            long modificacao = Files.getLastModifiedTime(arquivo).toMillis();
+            if (modificacao == ultimaModificacao) {
+                return;
+            }
+            ultimaModificacao = modificacao;
+
+            List<PropertySource<?>> fontes = new ArrayList<>(
+                    new YamlPropertySourceLoader().load(arquivo.toString(), new FileSystemResource(arquivo)));
+            environment.getPropertySources().forEach(fontes::add);
+            AlertasProperties properties = new Binder(ConfigurationPropertySources.from(fontes))
+                    .bind("app.refrigeracao.alertas", AlertasProperties.class)
+                    .orElseGet(AlertasProperties::new);
+            recarregar(properties);
+        } catch (IOException | RuntimeException e) {
+            log.error("Erro ao recarregar regras de alerta de {}: {}", arquivo, e.getMessage(), e);
+        }
+    }
+
+    static RegrasCompiladas compilar(AlertasProperties properties, int versao) {
+        List<Regra> padrao = properties.regrasEfetivas();
+        Map<String, TabelaRegras> porSistema = new HashMap<>();
+        properties.getSobrescritas().forEach((sistemaId, sobrescritas) ->
+                porSistema.put(sistemaId, new TabelaRegras(aplicarSobrescritas(padrao, sobrescritas), versao)));
+        return new RegrasCompiladas(new TabelaRegras(padrao, versao), Map.copyOf(porSistema));
+    }
+
+    private static List<Regra> aplicarSobrescritas(List<Regra> padrao, List<Regra> sobrescritas) {
+        Map<String, Regra> porTipo = new LinkedHashMap<>();
+        for (Regra regra : padrao) {
+            porTipo.put(regra.getTipo(), copiar(regra));
+        }
+        for (Regra sobrescrita : sobrescritas) {
+            Regra regra = porTipo.computeIfAbsent(sobrescrita.getTipo(), tipo -> new Regra());
+            regra.setTipo(sobrescrita.getTipo());
+            if (sobrescrita.getCampo() != null) regra.setCampo(sobrescrita.getCampo());
+            if (sobrescrita.getMinimo() != null) regra.setMinimo(sobrescrita.getMinimo());
+            if (sobrescrita.getMaximo() != null) regra.setMaximo(sobrescrita.getMaximo());
+            if (sobrescrita.getHisterese() != null) regra.setHisterese(sobrescrita.getHisterese());
+            if (sobrescrita.getStatus() != null) regra.setStatus(sobrescrita.getStatus());
+            if (sobrescrita.getSeveridade() != null) regra.setSeveridade(sobrescrita.getSeveridade());
+            if (sobrescrita.getDescricao() != null) regra.setDescricao(sobrescrita.getDescricao());
+            if (sobrescrita.getHabilitada() != null) regra.setHabilitada(sobrescrita.getHabilitada());
+        }
+        return new ArrayList<>(porTipo.values());
+    }
+
+    private static Regra copiar(Regra origem) {
+        Regra regra = new Regra();
+        regra.setTipo(origem.getTipo());
+        regra.setCampo(origem.getCampo());
+        regra.setMinimo(origem.getMinimo());
+        regra.setMaximo(origem.getMaximo());
+        regra.setHisterese(origem.getHisterese());
+        regra.setStatus(origem.getStatus());
+        regra.setSeveridade(origem.getSeveridade());
+        regra.setDescricao(origem.getDescricao());
+        regra.setHabilitada(origem.getHabilitada());
+        return regra;
+    }
+
+    private record RegrasCompiladas(TabelaRegras padrao, Map<String, TabelaRegras> porSistema) {
+    }
+
+    /**
+     * Conjunto imutável de regras compiladas. {@link #avaliar(LeituraRefrigeracao)} devolve
+     * um bitmask com uma posição por regra disparada; as posições só valem dentro da
+     * mesma {@link #versao()}.
+     */
+    public static final class TabelaRegras {
+        private final CampoLeitura[] campo;
+        private final double[] minimo;
+        private final double[] maximo;
+        private final double[] minimoResolucao;
+        private final double[] maximoResolucao;
+        private final int[] mascaraStatus;
+        private final String[] tipo;
+        private final String[] severidade;
+        private final String[] descricao;
+        private final int versao;
+
+        TabelaRegras(List<Regra> regras, int versao) {
+            this.versao = versao;
+            List<Regra> ativas = regras.stream()
+                    .filter(regra -> !Boolean.FALSE.equals(regra.getHabilitada()))
+                    .toList();
+            if (ativas.size() > MAX_REGRAS) {
+                throw new IllegalArgumentException("Máximo de " + MAX_REGRAS + " regras de alerta");
+            }
+
+            int n = ativas.size();
+            campo = new CampoLeitura[n];
+            minimo = new double[n];
+            maximo = new double[n];
+            minimoResolucao = new double[n];
+            maximoResolucao = new double[n];
+            mascaraStatus = new int[n];
+            tipo = new String[n];
+            severidade = new String[n];
+            descricao = new String[n];
+
+            for (int i = 0; i < n; i++) {
+                Regra regra = ativas.get(i);
+                if (regra.getTipo() == null || regra.getTipo().isBlank() || regra.getCampo() == null) {
+                    throw new IllegalArgumentException("Regra de alerta sem tipo ou campo: " + regra);
+                }
+                campo[i] = regra.getCampo();
+                tipo[i] = regra.getTipo();
+                severidade[i] = regra.getSeveridade() != null ? regra.getSeveridade() : "MEDIUM";
+                descricao[i] = regra.getDescricao() != null ? regra.getDescricao() : regra.getTipo() + ": %s";
+                validarDescricao(regra);
+
+                if (regra.getCampo() == CampoLeitura.STATUS) {
+                    if (regra.getStatus() == null || regra.getStatus().isEmpty()) {
+                        throw new IllegalArgumentException("Regra de status sem status: " + regra.getTipo());
+                    }
+                    for (StatusSistema status : regra.getStatus()) {
+                        mascaraStatus[i] |= 1 << status.ordinal();
+                    }
+                } else {
+                    if (regra.getMinimo() == null && regra.getMaximo() == null) {
+                        throw new IllegalArgumentException("Regra de faixa sem mínimo nem máximo: " + regra.getTipo());
+                    }
+                    minimo[i] = regra.getMinimo() != null ? regra.getMinimo() : Double.NEGATIVE_INFINITY;
+                    maximo[i] = regra.getMaximo() != null ? regra.getMaximo() : Double.POSITIVE_INFINITY;
+                    double histerese = regra.getHisterese() != null ? regra.getHisterese() : 0;
+                    if (histerese < 0 || minimo[i] + histerese > maximo[i] - histerese) {
+                        throw new IllegalArgumentException("Histerese inválida na regra " + regra.getTipo());
+                    }
+                    minimoResolucao[i] = minimo[i] + histerese;
+                    maximoResolucao[i] = maximo[i] - histerese;
+                }
+            }
+        }
+
+        // Um padrão inválido recusa a recarga em vez de falhar a cada leitura que dispare a regra
+        private void validarDescricao(Regra regra) {
+            Object exemplo = regra.getCampo() == CampoLeitura.STATUS ? StatusSistema.CRITICO.getDescricao() : 0.0;
+            try {
+                String.format(regra.getDescricao() != null ? regra.getDescricao() : "%s", exemplo);
+            } catch (IllegalFormatException e) {
+                throw new IllegalArgumentException("Descrição inválida na regra " + regra.getTipo() + ": " + e.getMessage());
+            }
+        }
+
+        public int quantidade() {
+            return campo.length;
+        }
+
+        public long avaliar(LeituraRefrigeracao leitura) {
+            long disparos = 0;
+            int bitStatus = leitura.getStatus() != null ? 1 << leitura.getStatus().ordinal() : 0;
+            for (int i = 0; i < campo.length; i++) {
+                if (campo[i] == CampoLeitura.STATUS) {
+                    if ((mascaraStatus[i] & bitStatus) != 0) {
+                        disparos |= 1L << i;
+                    }
+                } else {
+                    double valor = valor(campo[i], leitura);
+                    if (valor < minimo[i] || valor > maximo[i]) {
+                        disparos |= 1L << i;
+                    }
+                }
+            }
+            return disparos;
+        }
+
+        /**
+         * Regras cuja condição está limpa, já descontada a histerese: um alerta aberto
+         * só pode ser resolvido quando a sua posição aparece aqui.
+         */
+        public long avaliarResolvidas(LeituraRefrigeracao leitura) {
+            long resolvidas = 0;
+            int bitStatus = leitura.getStatus() != null ? 1 << leitura.getStatus().ordinal() : 0;
+            for (int i = 0; i < campo.length; i++) {
+                if (campo[i] == CampoLeitura.STATUS) {
+                    if ((mascaraStatus[i] & bitStatus) == 0) {
+                        resolvidas |= 1L << i;
+                    }
+                } else {
+                    double valor = valor(campo[i], leitura);
+                    if (valor >= minimoResolucao[i] && valor <= maximoResolucao[i]) {
+                        resolvidas |= 1L << i;
+                    }
+                }
+            }
+            return resolvidas;
+        }
+
+        public int versao() {
+            return versao;
+        }
+
+        public String tipo(int regra) {
+            return tipo[regra];
+        }
+
+        public String severidade(int regra) {
+            return severidade[regra];
+        }
+
+        public String descrever(int regra, LeituraRefrigeracao leitura) {
+            Object valor = campo[regra] == CampoLeitura.STATUS
+                    ? leitura.getStatus().getDescricao()
+                    : valor(campo[regra], leitura);
+            return String.format(descricao[regra], valor);
+        }
+
+        private List<Map<String, Object>> descrever() {
+            List<Map<String, Object>> lista = new ArrayList<>(campo.length);
+            for (int i = 0; i < campo.length; i++) {
+                Map<String, Object> regra = new LinkedHashMap<>();
+                regra.put("tipo", tipo[i]);
+                regra.put("campo", campo[i]);
+                if (campo[i] == CampoLeitura.STATUS) {
+                    List<StatusSistema> status = new ArrayList<>();
+                    for (StatusSistema s : StatusSistema.values()) {
+                        if ((mascaraStatus[i] & (1 << s.ordinal())) != 0) {
+                            status.add(s);
+                        }
+                    }
+                    regra.put("status", status);
+                } else {
+                    regra.put("minimo", Double.isInfinite(minimo[i]) ? null : minimo[i]);
+                    regra.put("maximo", Double.isInfinite(maximo[i]) ? null : maximo[i]);
+                    regra.put("histerese", Double.isInfinite(minimo[i])
+                            ? maximo[i] - maximoResolucao[i] : minimoResolucao[i] - minimo[i]);
+                }
+                regra.put("severidade", severidade[i]);
+                regra.put("descricao", descricao[i]);
+                lista.add(regra);
+            }
+            return lista;
+        }
+
+        private static double valor(CampoLeitura campo, LeituraRefrigeracao leitura) {
+            return switch (campo) {
+                case TEMPERATURA -> leitura.getTemperatura();
+                case PRESSAO -> leitura.getPressao();
+                case UMIDADE -> leitura.getUmidade();
+                case CONSUMO_ENERGIA -> leitura.getConsumoEnergia();
+                case VELOCIDADE_COMPRESSOR -> leitura.getVelocidadeCompressor();
+                case STATUS -> Double.NaN;
+            };
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package com.refriged.log_generator_mockup.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Divide os sistemas {@code SYS-n} entre várias instâncias por hashing consistente, em um
+ * anel com nós virtuais. A lista de membros vem da configuração ou de um arquivo relido
+ * periodicamente, sem coordenação externa.
+ *
+ * <p>Quando a lista muda, o nó deixa na hora os sistemas que perdeu e só assume os que
+ * ganhou depois de uma carência maior que o atraso de detecção dos demais, de modo que
+ * nenhum sistema é publicado por dois nós ao mesmo tempo. O estado dos sensores e dos
+ * alertas dos sistemas perdidos é gravado no diretório de transferência do novo dono, que
+ * o carrega antes de assumir e continua a trajetória de onde o anterior parou.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ParticionamentoSistemas {
+
+    private static final Pattern ID_NO = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final String EXTENSAO_TRANSFERENCIA = ".estado";
+    private static final String EXTENSAO_TEMPORARIA = ".tmp";
+    private static final int FIM_TRANSFERENCIA = -1;
+    private static final int PALAVRAS = (EstadoSensores.MAX_SISTEMAS + Long.SIZE - 1) / Long.SIZE;
+
+    private final EstadoSensores estadoSensores;
+    private final DeduplicadorAlertas deduplicadorAlertas;
+    private final MotorRegrasAlerta motorRegrasAlerta;
+
+    @Value("${app.refrigeracao.particionamento.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.refrigeracao.particionamento.no-id:no-1}")
+    private String noId;
+
+    @Value("${app.refrigeracao.particionamento.nos:}")
+    private String[] nos;
+
+    @Value("${app.refrigeracao.particionamento.arquivo-membros:}")
+    private String arquivoMembros;
+
+    @Value("${app.refrigeracao.particionamento.diretorio-transferencia:particionamento}")
+    private String diretorioTransferencia;
+
+    @Value("${app.refrigeracao.particionamento.nos-virtuais:128}")
+    private int nosVirtuais;
+
+    @Value("${app.refrigeracao.particionamento.intervalo-verificacao-ms:1000}")
+    private long intervaloVerificacaoMs;
+
+    @Value("${app.refrigeracao.particionamento.carencia-ms:3000}")
+    private long carenciaMs;
+
+    private volatile Distribuicao distribuicao;
+    private volatile long rebalanceamentos;
+    private volatile long sistemasExportados;
+    private volatile long sistemasImportados;
+
+    // Sistemas perdidos na última mudança, exportados no ciclo seguinte do verificador
+    private long[] perdidosPendentes;
+
+    private Path raizTransferencia;
+    private ScheduledExecutorService verificador;
+
+    @PostConstruct
+    void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        if (!ID_NO.matcher(noId).matches()) {
+            throw new IllegalStateException("ID de nó inválido para o particionamento: " + noId);
+        }
+        raizTransferencia = Paths.get(diretorioTransferencia).toAbsolutePath();
+        try {
+            Files.createDirectories(raizTransferencia.resolve(noId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao criar diretório de transferência " + raizTransferencia, e);
+        }
+
+        List<String> membros = lerMembros();
+        Anel anel = new Anel(membros != null ? membros : List.of(), nosVirtuais, noId);
+        // Na partida o nó também espera a carência: os demais ainda podem estar publicando o que ele ganha
+        distribuicao = new Distribuicao(anel, null, new long[PALAVRAS], calcularProprios(anel),
+                System.currentTimeMillis() + carenciaMs);
+
+        verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "particionamento");
+            thread.setDaemon(true);
+            return thread;
+        });
+        verificador.scheduleWithFixedDelay(this::verificar, intervaloVerificacaoMs, intervaloVerificacaoMs,
+                TimeUnit.MILLISECONDS);
+
+        log.info("Particionamento habilitado: nó {}, membros {}, {} nós virtuais, carência de {} ms",
+                noId, anel.membros, nosVirtuais, carenciaMs);
+        if (anel.local < 0) {
+            log.warn("Nó {} não está na lista de membros e não vai gerar sistemas", noId);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (verificador != null) {
+            verificador.shutdownNow();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /** Indica se o sistema simulado de índice {@code indice} ({@code SYS-(indice + 1)}) é deste nó. */
+    public boolean pertence(int indice) {
+        if (!habilitado) {
+            return true;
+        }
+        return contem(distribuicao.proprios, indice);
+    }
+
+    public boolean pertence(String sistemaId) {
+        if (!habilitado) {
+            return true;
+        }
+        int numero = EstadoSensores.numeroSimulado(sistemaId);
+        if (numero > 0) {
+            return pertence(numero - 1);
+        }
+        Distribuicao atual = distribuicao;
+        long hash = hash(sistemaId);
+        return atual.anel.pertenceAoLocal(hash)
+                && (atual.alvo == null || (atual.anterior != null && atual.anterior.pertenceAoLocal(hash)));
+    }
+
+    /** Nó dono do sistema na lista de membros atual, ou {@code null} se não houver membros. */
+    public String dono(String sistemaId) {
+        if (!habilitado) {
+            return noId;
+        }
+        Anel anel = distribuicao.anel;
+        int dono = anel.dono(hash(sistemaId));
+        return dono >= 0 ? anel.membros.get(dono) : null;
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("habilitado", habilitado);
+        if (!habilitado) {
+            return estatisticas;
+        }
+        Distribuicao atual = distribuicao;
+        estatisticas.put("noId", noId);
+        estatisticas.put("membros", atual.anel.membros);
+        estatisticas.put("arquivoMembros", arquivoMembros.isBlank() ? null : arquivoMembros);
+        estatisticas.put("sistemasProprios", contar(atual.proprios));
+        if (atual.alvo != null) {
+            estatisticas.put("sistemasAposCarencia", contar(atual.alvo));
+            estatisticas.put("assumeEmMs", Math.max(0, atual.assumirEmMillis - System.currentTimeMillis()));
+        }
+        estatisticas.put("rebalanceamentos", rebalanceamentos);
+        estatisticas.put("sistemasExportados", sistemasExportados);
+        estatisticas.put("sistemasImportados", sistemasImportados);
+        return estatisticas;
+    }
+
+    private void verificar() {
+        try {
+            exportarPendentes();
+
+            List<String> membros = lerMembros();
+            if (membros != null && !membros.equals(distribuicao.anel.membros)) {
+                rebalancear(new Anel(membros, nosVirtuais, noId));
+            }
+
+            importarTransferencias();
+
+            Distribuicao atual = distribuicao;
+            if (atual.alvo != null && System.currentTimeMillis() >= atual.assumirEmMillis) {
+                distribuicao = new Distribuicao(atual.anel, null, atual.alvo, null, 0);
+                log.info("Nó {} assumiu sua partição: {} sistemas", noId, contar(atual.alvo));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Erro ao verificar membros do particionamento: {}", e.getMessage(), e);
+        }
+    }
+
+    private void rebalancear(Anel novoAnel) {
+        Distribuicao atual = distribuicao;
+        long[] novosProprios = calcularProprios(novoAnel);
+        long[] efetivos = new long[PALAVRAS];
+        long[] perdidos = new long[PALAVRAS];
+        for (int p = 0; p < PALAVRAS; p++) {
+            efetivos[p] = atual.proprios[p] & novosProprios[p];
+            perdidos[p] = atual.proprios[p] & ~novosProprios[p];
+        }
+
+        // Mudanças seguidas dentro da carência continuam comparando com o último anel assentado
+        Anel anterior = atual.alvo == null ? atual.anel : atual.anterior;
+        distribuicao = new Distribuicao(novoAnel, anterior, efetivos, novosProprios,
+                System.currentTimeMillis() + carenciaMs);
+        perdidosPendentes = perdidos;
+        rebalanceamentos++;
+
+        log.info("Membros do particionamento alterados de {} para {}: {} sistemas saem deste nó, {} entram após {} ms",
+                atual.anel.membros, novoAnel.membros, contar(perdidos), contar(novosProprios) - contar(efetivos),
+                carenciaMs);
+    }
+
+    /**
+     * Grava o estado dos sistemas perdidos, agrupado pelo novo dono. Roda um ciclo depois da
+     * mudança para que ticks já iniciados terminem antes da cópia.
+     */
+    private void exportarPendentes() throws IOException {
+        long[] perdidos = perdidosPendentes;
+        if (perdidos == null) {
+            return;
+        }
+        perdidosPendentes = null;
+
+        Anel anel = distribuicao.anel;
+        DataOutputStream[] saidas = new DataOutputStream[anel.membros.size()];
+        Path[] temporarios = new Path[saidas.length];
+        int versaoRegras = deduplicadorAlertas.versaoRegras();
+        long exportados = 0;
+        try {
+            for (int indice = proximo(perdidos, 0); indice >= 0; indice = proximo(perdidos, indice + 1)) {
+                int dono = anel.dono(hash(indice + 1));
+                if (dono < 0 || dono == anel.local || !estadoSensores.inicializado(indice)) {
+                    continue;
+                }
+                if (saidas[dono] == null) {
+                    Path pasta = raizTransferencia.resolve(anel.membros.get(dono));
+                    Files.createDirectories(pasta);
+                    temporarios[dono] = pasta.resolve(noId + "-" + System.currentTimeMillis()
+                            + EXTENSAO_TRANSFERENCIA + EXTENSAO_TEMPORARIA);
+                    saidas[dono] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporarios[dono])));
+                    saidas[dono].writeInt(versaoRegras);
+                }
+                saidas[dono].writeInt(indice);
+                estadoSensores.exportar(indice, saidas[dono]);
+                deduplicadorAlertas.exportar(indice, saidas[dono]);
+                exportados++;
+            }
+        } finally {
+            for (int dono = 0; dono < saidas.length; dono++) {
+                if (saidas[dono] == null) {
+                    continue;
+                }
+                saidas[dono].writeInt(FIM_TRANSFERENCIA);
+                saidas[dono].close();
+                String nome = temporarios[dono].getFileName().toString();
+                Files.move(temporarios[dono], temporarios[dono].resolveSibling(
+                        nome.substring(0, nome.length() - EXTENSAO_TEMPORARIA.length())), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        sistemasExportados += exportados;
+        if (exportados > 0) {
+            log.info("Estado de {} sistemas transferido para os novos donos", exportados);
+        }
+    }
+
+    /**
+     * Carrega transferências destinadas a este nó. Só aplica o estado de sistemas que o nó
+     * vai assumir e ainda não gera; os demais registros são pulados.
+     */
+    private void importarTransferencias() throws IOException {
+        List<Path> arquivos;
+        try (Stream<Path> listagem = Files.list(raizTransferencia.resolve(noId))) {
+            arquivos = listagem.filter(arquivo -> arquivo.getFileName().toString().endsWith(EXTENSAO_TRANSFERENCIA))
+                    .sorted()
+                    .toList();
+        }
+
+        for (Path arquivo : arquivos) {
+            Distribuicao atual = distribuicao;
+            long[] destino = atual.alvo != null ? atual.alvo : atual.proprios;
+            int versaoAtual = motorRegrasAlerta.tabelaPara(null).versao();
+            long importados = 0;
+            try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+                int versaoOrigem = entrada.readInt();
+                int indice;
+                while ((indice = entrada.readInt()) != FIM_TRANSFERENCIA) {
+                    if (contem(destino, indice) && !contem(atual.proprios, indice)) {
+                        if (estadoSensores.importar(indice, entrada)) {
+                            importados++;
+                        }
+                        deduplicadorAlertas.importar(indice, versaoOrigem, versaoAtual, entrada);
+                    } else {
+                        entrada.skipNBytes(EstadoSensores.TAMANHO_TRANSFERENCIA + DeduplicadorAlertas.TAMANHO_TRANSFERENCIA);
+                    }
+                }
+            }
+            Files.delete(arquivo);
+            sistemasImportados += importados;
+            log.info("Transferência {} carregada: estado de {} sistemas", arquivo.getFileName(), importados);
+        }
+    }
+
+    /** Membros ordenados e sem repetição, ou {@code null} se o arquivo não puder ser lido. */
+    private List<String> lerMembros() {
+        Stream<String> linhas;
+        if (arquivoMembros == null || arquivoMembros.isBlank()) {
+            linhas = Arrays.stream(nos);
+        } else {
+            try {
+                linhas = Files.readAllLines(Path.of(arquivoMembros)).stream()
+                        .filter(linha -> !linha.startsWith("#"));
+            } catch (NoSuchFileException e) {
+                log.warn("Arquivo de membros {} não encontrado", arquivoMembros);
+                return null;
+            } catch (IOException e) {
+                log.warn("Falha ao ler arquivo de membros {}: {}", arquivoMembros, e.getMessage());
+                return null;
+            }
+        }
+        return linhas.map(String::trim)
+                .filter(membro -> !membro.isEmpty())
+                .filter(membro -> {
+                    boolean valido = ID_NO.matcher(membro).matches();
+                    if (!valido) {
+                        log.warn("Membro inválido ignorado: {}", membro);
+                    }
+                    return valido;
+                })
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private static long[] calcularProprios(Anel anel) {
+        long[] proprios = new long[PALAVRAS];
+        if (anel.local < 0) {
+            return proprios;
+        }
+        for (int indice = 0; indice < EstadoSensores.MAX_SISTEMAS; indice++) {
+            if (anel.dono(hash(indice + 1)) == anel.local) {
+                proprios[indice >>> 6] |= 1L << indice;
+            }
+        }
+        return proprios;
+    }
+
+    private static long hash(String sistemaId) {
+        int numero = EstadoSensores.numeroSimulado(sistemaId);
+        return numero > 0 ? hash(numero) : misturar(0x9E3779B97F4A7C15L ^ sistemaId.hashCode());
+    }
+
+    private static long hash(int numeroSistema) {
+        return misturar(numeroSistema);
+    }
+
+    // Finalizador do MurmurHash3: espalha chaves sequenciais pelo anel
+    private static long misturar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    private static boolean contem(long[] bits, int indice) {
+        return indice >= 0 && indice < EstadoSensores.MAX_SISTEMAS && (bits[indice >>> 6] & (1L << indice)) != 0;
+    }
+
+    private static int proximo(long[] bits, int de) {
+        int palavra = de >>> 6;
+        if (palavra >= PALAVRAS) {
+            return -1;
+        }
+        long restante = bits[palavra] & (-1L << de);
+        while (restante == 0) {
+            if (++palavra == PALAVRAS) {
+                return -1;
+            }
+            restante = bits[palavra];
+        }
+        return (palavra << 6) + Long.numberOfTrailingZeros(restante);
+    }
+
+    private static long contar(long[] bits) {
+        long total = 0;
+        for (long palavra : bits) {
+            total += Long.bitCount(palavra);
+        }
+        return total;
+    }
+
+    /**
+     * Estado publicado para as threads de simulação: {@code proprios} é o que o nó gera agora;
+     * durante a carência, {@code alvo} é o que ele vai gerar ao fim dela.
+     */
+    private record Distribuicao(Anel anel, Anel anterior, long[] proprios, long[] alvo, long assumirEmMillis) {
+    }
+
+    private static final class Anel {
+        private final List<String> membros;
+        private final int local;
+        private final long[] pontos;
+        private final int[] donos;
+
+        private Anel(List<String> membros, int nosVirtuais, String noId) {
+            this.membros = membros;
+            this.local = membros.indexOf(noId);
+
+            TreeMap<Long, Integer> posicoes = new TreeMap<>();
+            for (int m = 0; m < membros.size(); m++) {
+                long base = (long) membros.get(m).hashCode() << 32;
+                for (int v = 0; v < nosVirtuais; v++) {
+                    posicoes.putIfAbsent(misturar(base | v), m);
+                }
+            }
+            this.pontos = new long[posicoes.size()];
+            this.donos = new int[posicoes.size()];
+            int i = 0;
+            for (Map.Entry<Long, Integer> posicao : posicoes.entrySet()) {
+                pontos[i] = posicao.getKey();
+                donos[i++] = posicao.getValue();
+            }
+        }
+
+        private int dono(long hash) {
+            if (pontos.length == 0) {
+                return -1;
+            }
+            int i = Arrays.binarySearch(pontos, hash);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            return donos[i == pontos.length ? 0 : i];
+        }
+
+        private boolean pertenceAoLocal(long hash) {
+            return local >= 0 && dono(hash) == local;
+        }
+    }
+}
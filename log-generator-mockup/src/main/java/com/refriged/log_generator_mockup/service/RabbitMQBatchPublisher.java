@@ -0,0 +1,381 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.ConversorMensagens;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publicador em lote: acumula mensagens por routing key e as envia em sequência
+ * no mesmo canal, por tamanho de lote ou por intervalo de tempo. As confirmações
+ * do broker são acompanhadas de forma assíncrona, limitadas por uma janela de
+ * mensagens em voo. Com {@code threads-envio} maior que 1, cada routing key tem uma
+ * faixa de buffer por thread de envio: mensagens com sistema de origem (routing keys
+ * particionadas) ficam sempre na mesma faixa, preservando a ordem por sistema; as
+ * demais seguem a faixa da thread produtora.
+ *
+ * <p>Com o spool habilitado as mensagens não passam pelos buffers: são gravadas no
+ * spool antes de qualquer envio e a drenagem do spool é a única a enviar ao broker,
+ * o que mantém a ordem de gravação e não perde o que estava em memória num restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RabbitMQBatchPublisher {
+
+    // Header apenas local: removido antes do envio
+    private static final String HEADER_CONFIRMACAO = "x-confirmacao-local";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ConversorMensagens conversorMensagens;
+    private final SpoolPublicacao spoolPublicacao;
+    private final MetricasRefrigeracao metricas;
+    private final GravadorPublicacoes gravadorPublicacoes;
+    private final RoteamentoParticoes roteamentoParticoes;
+    private final ControleVazaoPublicacao controleVazao;
+
+    @Value("${app.refrigeracao.publicacao.lote.tamanho:500}")
+    private int tamanhoLote;
+
+    @Value("${app.refrigeracao.publicacao.lote.intervalo-flush-ms:20}")
+    private long intervaloFlushMs;
+
+    @Value("${app.refrigeracao.publicacao.lote.capacidade-buffer:50000}")
+    private int capacidadeBuffer;
+
+    @Value("${app.refrigeracao.publicacao.lote.threads-envio:1}")
+    private int threadsEnvio;
+
+    @Value("${app.refrigeracao.publicacao.confirmacoes.max-em-voo:10000}")
+    private int maxEmVoo;
+
+    @Value("${app.refrigeracao.publicacao.confirmacoes.timeout-ms:5000}")
+    private long timeoutConfirmacaoMs;
+
+    private final Map<String, BufferRota[]> buffers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger proximaFaixa = new AtomicInteger();
+    private final ThreadLocal<Integer> faixaProdutor =
+            ThreadLocal.withInitial(() -> Math.floorMod(proximaFaixa.getAndIncrement(), threadsEnvio));
+
+    private final LongAdder enfileiradas = new LongAdder();
+    private final LongAdder enviadas = new LongAdder();
+    private final LongAdder confirmadas = new LongAdder();
+    private final LongAdder nacks = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder gravadasSpool = new LongAdder();
+
+    private ScheduledExecutorService executor;
+    private Semaphore janelaConfirmacoes;
+    private boolean confirmacoesHabilitadas;
+
+    @PostConstruct
+    void iniciar() {
+        if (threadsEnvio < 1) {
+            throw new IllegalArgumentException("threads-envio deve ser ao menos 1");
+        }
+        confirmacoesHabilitadas = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        janelaConfirmacoes = new Semaphore(maxEmVoo);
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(threadsEnvio, r -> {
+            Thread thread = new Thread(r, "rabbitmq-batch-publisher-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int faixa = 0; faixa < threadsEnvio; faixa++) {
+            int atual = faixa;
+            executor.scheduleWithFixedDelay(() -> flushFaixa(atual), intervaloFlushMs, intervaloFlushMs, TimeUnit.MILLISECONDS);
+        }
+
+        log.info("Publicador em lote iniciado: tamanhoLote={}, intervaloFlushMs={}, threadsEnvio={}, maxEmVoo={}, confirmacoes={}",
+                tamanhoLote, intervaloFlushMs, threadsEnvio, maxEmVoo, confirmacoesHabilitadas);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeoutConfirmacaoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushTodos();
+    }
+
+    public void enfileirar(String routingKey, Object payload) {
+        enfileirarMensagem(routingKey, conversorMensagens.converter(routingKey, payload));
+    }
+
+    /**
+     * Enfileira e devolve um futuro completado com a confirmação do broker. Sem publisher
+     * confirms, completa com ack assim que a mensagem é escrita no canal; com o spool
+     * habilitado, assim que está no disco. Falhas de envio e timeout completam o futuro
+     * excepcionalmente.
+     */
+    public CompletableFuture<CorrelationData.Confirm> enfileirarComConfirmacao(String routingKey, Object payload) {
+        return enfileirarMensagemComConfirmacao(routingKey, conversorMensagens.converter(routingKey, payload));
+    }
+
+    public CompletableFuture<CorrelationData.Confirm> enfileirarMensagemComConfirmacao(String routingKey,
+                                                                                      Message mensagem) {
+        CompletableFuture<CorrelationData.Confirm> confirmacao = new CompletableFuture<>();
+        mensagem.getMessageProperties().setHeader(HEADER_CONFIRMACAO, confirmacao);
+        enfileirarMensagem(routingKey, mensagem);
+        return confirmacao.orTimeout(intervaloFlushMs + timeoutConfirmacaoMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void enfileirarMensagem(String routingKey, Message mensagem) {
+        if (spoolPublicacao.isHabilitado()) {
+            gravarNoSpool(routingKey, mensagem);
+            return;
+        }
+
+        BufferRota buffer = buffers.computeIfAbsent(routingKey, this::criarFaixas)[faixa(mensagem)];
+
+        // Buffer cheio: quem produz faz o flush, o que limita a memória retida
+        while (!buffer.fila.offer(mensagem)) {
+            controleVazao.registrarSaturacao();
+            flush(buffer);
+        }
+        enfileiradas.increment();
+
+        if (buffer.fila.size() >= tamanhoLote && buffer.flushAgendado.compareAndSet(false, true)) {
+            executor.execute(() -> flush(buffer));
+        }
+    }
+
+    public void flushTodos() {
+        for (BufferRota[] faixas : buffers.values()) {
+            for (BufferRota buffer : faixas) {
+                flush(buffer);
+            }
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("enfileiradas", enfileiradas.sum());
+        estatisticas.put("enviadas", enviadas.sum());
+        estatisticas.put("confirmadas", confirmadas.sum());
+        estatisticas.put("nacks", nacks.sum());
+        estatisticas.put("falhas", falhas.sum());
+        estatisticas.put("gravadasSpool", gravadasSpool.sum());
+        estatisticas.put("emVoo", maxEmVoo - janelaConfirmacoes.availablePermits());
+        Map<String, Integer> pendentes = new LinkedHashMap<>();
+        buffers.forEach((routingKey, faixas) -> {
+            int pendentesRota = 0;
+            for (BufferRota buffer : faixas) {
+                pendentesRota += buffer.fila.size();
+            }
+            pendentes.put(routingKey, pendentesRota);
+        });
+        estatisticas.put("pendentesPorRoutingKey", pendentes);
+        return estatisticas;
+    }
+
+    private BufferRota[] criarFaixas(String routingKey) {
+        BufferRota[] faixas = new BufferRota[threadsEnvio];
+        for (int faixa = 0; faixa < threadsEnvio; faixa++) {
+            faixas[faixa] = new BufferRota(routingKey);
+        }
+        return faixas;
+    }
+
+    private int faixa(Message mensagem) {
+        if (threadsEnvio == 1) {
+            return 0;
+        }
+        Object sistemaId = mensagem.getMessageProperties().getHeaders().get(RabbitMQConfig.HEADER_SISTEMA);
+        return sistemaId != null ? Math.floorMod(sistemaId.hashCode(), threadsEnvio) : faixaProdutor.get();
+    }
+
+    private void flushFaixa(int faixa) {
+        for (BufferRota[] faixas : buffers.values()) {
+            flush(faixas[faixa]);
+        }
+    }
+
+    private void flush(BufferRota buffer) {
+        buffer.lock.lock();
+        try {
+            buffer.flushAgendado.set(false);
+            List<Message> lote = new ArrayList<>(Math.min(tamanhoLote, buffer.fila.size()));
+            while (buffer.fila.drainTo(lote, tamanhoLote) > 0) {
+                publicar(buffer.routingKey, lote);
+                lote.clear();
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    private void publicar(String routingKey, List<Message> lote) {
+        int[] enviadasNoLote = {0};
+        long inicio = metricas.iniciar();
+        try {
+            // invoke() mantém o mesmo canal durante todo o lote, sem aguardar confirmações
+            rabbitTemplate.invoke(operacoes -> {
+                for (Message mensagem : lote) {
+                    CorrelationData correlacao = reservarConfirmacao(routingKey);
+                    CompletableFuture<CorrelationData.Confirm> aguardando = removerConfirmacao(mensagem);
+                    try {
+                        operacoes.send(RabbitMQConfig.EXCHANGE_REFRIGERACAO,
+                                roteamentoParticoes.routingKeyEnvio(routingKey, mensagem), mensagem, correlacao);
+                        enviadas.increment();
+                    } catch (AmqpException e) {
+                        if (correlacao != null) {
+                            // Não enviada: só devolve a vaga, a falha é contada uma vez no lote
+                            descartarConfirmacao(routingKey);
+                        }
+                        if (aguardando != null) {
+                            // Devolve o futuro à mensagem para ser resolvido junto com o restante do lote
+                            mensagem.getMessageProperties().setHeader(HEADER_CONFIRMACAO, aguardando);
+                        }
+                        throw e;
+                    }
+                    enviadasNoLote[0]++;
+                    gravadorPublicacoes.registrar(routingKey, mensagem);
+                    if (aguardando != null) {
+                        if (correlacao != null) {
+                            correlacao.getFuture().whenComplete((confirmacao, erro) -> {
+                                if (erro != null) {
+                                    aguardando.completeExceptionally(erro);
+                                } else {
+                                    aguardando.complete(confirmacao);
+                                }
+                            });
+                        } else {
+                            aguardando.complete(new CorrelationData.Confirm(true, null));
+                        }
+                    }
+                }
+                return null;
+            });
+            metricas.registrarEnvios(routingKey, lote.size(), inicio);
+        } catch (AmqpException e) {
+            List<Message> naoEnviadas = lote.subList(enviadasNoLote[0], lote.size());
+            metricas.registrarEnvios(routingKey, enviadasNoLote[0], inicio);
+            metricas.registrarFalhas(routingKey, naoEnviadas.size());
+            controleVazao.registrarFalhaEnvio(naoEnviadas.size());
+            falhas.add(naoEnviadas.size());
+            for (Message mensagem : naoEnviadas) {
+                CompletableFuture<CorrelationData.Confirm> aguardando = removerConfirmacao(mensagem);
+                if (aguardando != null) {
+                    aguardando.completeExceptionally(e);
+                }
+            }
+            log.error("Erro ao publicar lote de {} mensagens para routing key {}: {}",
+                    naoEnviadas.size(), routingKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Grava a mensagem no spool local; o futuro de quem aguarda confirmação completa com
+     * ack assim que a mensagem está no disco.
+     */
+    private void gravarNoSpool(String routingKey, Message mensagem) {
+        CompletableFuture<CorrelationData.Confirm> aguardando = removerConfirmacao(mensagem);
+        try {
+            spoolPublicacao.gravar(routingKey, mensagem);
+            enfileiradas.increment();
+            gravadasSpool.increment();
+            if (aguardando != null) {
+                aguardando.complete(new CorrelationData.Confirm(true, "spool"));
+            }
+        } catch (RuntimeException e) {
+            falhas.increment();
+            metricas.registrarFalhas(routingKey, 1);
+            if (aguardando != null) {
+                aguardando.completeExceptionally(e);
+            }
+            log.error("Erro ao gravar mensagem da routing key {} no spool: {}", routingKey, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<CorrelationData.Confirm> removerConfirmacao(Message mensagem) {
+        return (CompletableFuture<CorrelationData.Confirm>) mensagem.getMessageProperties().getHeaders()
+                .remove(HEADER_CONFIRMACAO);
+    }
+
+    private CorrelationData reservarConfirmacao(String routingKey) {
+        if (!confirmacoesHabilitadas) {
+            return null;
+        }
+
+        try {
+            if (!janelaConfirmacoes.tryAcquire()) {
+                controleVazao.registrarSaturacao();
+                // Sem vaga no prazo o lote segue pelo caminho de falha em vez de segurar o buffer
+                if (!janelaConfirmacoes.tryAcquire(timeoutConfirmacaoMs, TimeUnit.MILLISECONDS)) {
+                    throw new AmqpException("Janela de confirmações cheia (" + maxEmVoo + " em voo) há mais de "
+                            + timeoutConfirmacaoMs + " ms");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Publicação interrompida aguardando janela de confirmações", e);
+        }
+
+        CorrelationData correlacao = new CorrelationData();
+        long enviadoEm = metricas.iniciar();
+        long enviadoNanos = System.nanoTime();
+        metricas.confirmacaoPendente(routingKey);
+        correlacao.getFuture().whenComplete((confirmacao, erro) -> {
+            janelaConfirmacoes.release();
+            boolean ack = erro == null && confirmacao.isAck();
+            metricas.registrarConfirmacao(routingKey, ack, enviadoEm);
+            controleVazao.registrarConfirmacao(ack, System.nanoTime() - enviadoNanos);
+            if (ack) {
+                confirmadas.increment();
+            } else {
+                nacks.increment();
+                log.debug("Mensagem não confirmada pelo broker: {}",
+                        erro != null ? erro.getMessage() : confirmacao.getReason());
+            }
+        });
+        return correlacao;
+    }
+
+    private void descartarConfirmacao(String routingKey) {
+        janelaConfirmacoes.release();
+        metricas.confirmacaoDescartada(routingKey);
+    }
+
+    private final class BufferRota {
+        private final String routingKey;
+        private final BlockingQueue<Message> fila = new LinkedBlockingQueue<>(capacidadeBuffer);
+        private final AtomicBoolean flushAgendado = new AtomicBoolean();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private BufferRota(String routingKey) {
+            this.routingKey = routingKey;
+        }
+    }
+}
@@ -1,34 +1,65 @@
 package com.refriged.log_generator_mockup.service;
 
 import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.ConversorMensagens;
+import com.refriged.log_generator_mockup.converter.EncoderEventoLog;
+import com.refriged.log_generator_mockup.converter.LeituraSerializada;
+import com.refriged.log_generator_mockup.model.AgregadoSistema;
+import com.refriged.log_generator_mockup.model.DetalhesLog;
+import com.refriged.log_generator_mockup.model.EventoLog;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
 import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.EstadoAlerta;
+import com.refriged.log_generator_mockup.utils.enums.NivelLog;
 import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RabbitMQProducerService {
 
+    private static final Logger LOG_EVENTOS = LoggerFactory.getLogger(EncoderEventoLog.LOGGER_EVENTOS);
+
+    private static final ThreadLocal<DeduplicadorAlertas.Transicoes> TRANSICOES_POR_THREAD =
+            ThreadLocal.withInitial(DeduplicadorAlertas.Transicoes::new);
+
+    // Só vale durante a verificação: os alertas copiam os valores, nada guarda a leitura
+    private static final ThreadLocal<LeituraRefrigeracao> LEITURA_POR_THREAD =
+            ThreadLocal.withInitial(LeituraRefrigeracao::new);
+
     private final RabbitTemplate rabbitTemplate;
+    private final RabbitMQBatchPublisher batchPublisher;
+    private final ConversorMensagens conversorMensagens;
+    private final EmpacotadorEnvelope empacotadorEnvelope;
+    private final MotorRegrasAlerta motorRegrasAlerta;
+    private final DeduplicadorAlertas deduplicadorAlertas;
+    private final EstadoSensores estadoSensores;
+    private final SpoolPublicacao spoolPublicacao;
+    private final MetricasRefrigeracao metricas;
+    private final GravadorPublicacoes gravadorPublicacoes;
+    private final RoteamentoParticoes roteamentoParticoes;
 
     public void enviarDadosSistema(SistemaRefrigeracao sistema) {
         try {
             log.info("Enviando dados do sistema {} para fila RabbitMQ", sistema.getSistemaId());
             
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.EXCHANGE_REFRIGERACAO,
-                    RabbitMQConfig.ROUTING_KEY_DADOS,
-                    sistema
-            );
+            enviar(RabbitMQConfig.ROUTING_KEY_DADOS, sistema);
             
             log.info("Dados do sistema {} enviados com sucesso para fila: {}", 
                     sistema.getSistemaId(), RabbitMQConfig.FILA_DADOS_REFRIGERACAO);
@@ -40,23 +71,42 @@ public class RabbitMQProducerService {
         }
     }
 
-    public void enviarLog(String sistemaId, String nivel, String mensagem, Map<String, Object> detalhes) {
+    public CompletableFuture<CorrelationData.Confirm> publicarDadosSistema(LeituraSerializada leitura) {
+        log.debug("Publicando dados do sistema {} de forma assíncrona", leitura.getSistema().getSistemaId());
+        return batchPublisher.enfileirarComConfirmacao(RabbitMQConfig.ROUTING_KEY_DADOS, leitura);
+    }
+
+    public void enfileirarDadosSistema(SistemaRefrigeracao sistema) {
+        log.debug("Enfileirando dados do sistema {} para envio em lote", sistema.getSistemaId());
+        if (empacotadorEnvelope.isHabilitado()) {
+            LeituraRefrigeracao leitura = LeituraRefrigeracao.de(sistema);
+            empacotadorEnvelope.adicionar(
+                    conversorMensagens.converter(RabbitMQConfig.ROUTING_KEY_DADOS, leitura), leitura.getTimestampMillis());
+        } else {
+            batchPublisher.enfileirar(RabbitMQConfig.ROUTING_KEY_DADOS, sistema);
+        }
+    }
+
+    public void enfileirarLeitura(LeituraRefrigeracao leitura) {
+        if (empacotadorEnvelope.isHabilitado()) {
+            empacotadorEnvelope.adicionar(
+                    conversorMensagens.converter(RabbitMQConfig.ROUTING_KEY_DADOS, leitura), leitura.getTimestampMillis());
+        } else {
+            batchPublisher.enfileirar(RabbitMQConfig.ROUTING_KEY_DADOS, leitura);
+        }
+    }
+
+    public void enfileirarAgregado(AgregadoSistema agregado) {
+        log.debug("Enfileirando agregado {} do sistema {} para envio em lote",
+                agregado.getTipoJanela(), agregado.getSistemaId());
+        batchPublisher.enfileirar(RabbitMQConfig.ROUTING_KEY_AGREGADOS, agregado);
+    }
+
+    public void enviarLog(String sistemaId, NivelLog nivel, String mensagem, DetalhesLog detalhes) {
         try {
-            Map<String, Object> logData = new HashMap<>();
-            logData.put("sistemaId", sistemaId);
-            logData.put("timestamp", LocalDateTime.now());
-            logData.put("nivel", nivel);
-            logData.put("mensagem", mensagem);
-            logData.put("detalhes", detalhes);
-            logData.put("origem", "refrigeracao-microservice");
-            
             log.debug("Enviando log do sistema {} para fila RabbitMQ", sistemaId);
             
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.EXCHANGE_REFRIGERACAO,
-                    RabbitMQConfig.ROUTING_KEY_LOGS,
-                    logData
-            );
+            enviarMensagem(RabbitMQConfig.ROUTING_KEY_LOGS, codificarEvento(EventoLog.de(sistemaId, nivel, mensagem, detalhes)));
             
             log.debug("Log do sistema {} enviado com sucesso para fila: {}", 
                     sistemaId, RabbitMQConfig.FILA_LOGS_SISTEMA);
@@ -67,75 +117,183 @@ public class RabbitMQProducerService {
         }
     }
 
+    public CompletableFuture<CorrelationData.Confirm> publicarLog(String sistemaId, NivelLog nivel, String mensagem,
+                                                                  DetalhesLog detalhes) {
+        CompletableFuture<CorrelationData.Confirm> confirmacao = batchPublisher.enfileirarMensagemComConfirmacao(
+                RabbitMQConfig.ROUTING_KEY_LOGS, codificarEvento(EventoLog.de(sistemaId, nivel, mensagem, detalhes)));
+        confirmacao.whenComplete((resultado, erro) -> {
+            if (erro != null || !resultado.isAck()) {
+                log.error("Erro ao publicar log do sistema {} para RabbitMQ: {}",
+                        sistemaId, erro != null ? erro.getMessage() : resultado.getReason());
+            }
+        });
+        return confirmacao;
+    }
+
+    public void enfileirarLog(String sistemaId, NivelLog nivel, String mensagem, DetalhesLog detalhes) {
+        log.debug("Enfileirando log do sistema {} para envio em lote", sistemaId);
+        batchPublisher.enfileirarMensagem(RabbitMQConfig.ROUTING_KEY_LOGS,
+                codificarEvento(EventoLog.de(sistemaId, nivel, mensagem, detalhes)));
+    }
+
     public void enviarAlerta(SistemaRefrigeracao sistema, String tipoAlerta, String descricao, String severidade) {
+        enviarAlertaMontado(montarAlerta(sistema.getSistemaId(), sistema.getNomeSistema(), sistema.getLocalizacao(),
+                sistema.getTemperatura(), sistema.getPressao(), sistema.getStatus(), tipoAlerta, descricao, severidade));
+    }
+
+    public void enviarLogSimples(String sistemaId, NivelLog nivel, String mensagem) {
+        enviarLog(sistemaId, nivel, mensagem, null);
+    }
+
+    public List<Map<String, Object>> verificarEEnviarAlertas(SistemaRefrigeracao sistema) {
+        return verificarAlertas(leituraDe(sistema), false);
+    }
+
+    public List<Map<String, Object>> verificarEEnfileirarAlertas(SistemaRefrigeracao sistema) {
+        return verificarAlertas(leituraDe(sistema), true);
+    }
+
+    public void verificarEEnfileirarAlertas(LeituraRefrigeracao leitura) {
+        verificarAlertas(leitura, true);
+    }
+
+    private LeituraRefrigeracao leituraDe(SistemaRefrigeracao sistema) {
+        LeituraRefrigeracao leitura = LEITURA_POR_THREAD.get();
+        leitura.copiarDe(sistema);
+        leitura.setIndice(estadoSensores.indiceDe(sistema.getSistemaId()));
+        return leitura;
+    }
+
+    private List<Map<String, Object>> verificarAlertas(LeituraRefrigeracao leitura, boolean emLote) {
+        long inicio = metricas.iniciar();
+        MotorRegrasAlerta.TabelaRegras regras = motorRegrasAlerta.tabelaPara(leitura.getSistemaId());
+        long disparos = regras.avaliar(leitura);
+
+        if (!deduplicadorAlertas.isHabilitada()) {
+            metricas.registrarAvaliacaoAlertas(inicio);
+            if (disparos == 0) {
+                return List.of();
+            }
+            List<Map<String, Object>> alertas = new ArrayList<>(Long.bitCount(disparos));
+            publicarAlertas(emLote, leitura, regras, disparos, EstadoAlerta.ABERTO, alertas);
+            return alertas;
+        }
+
+        DeduplicadorAlertas.Transicoes transicoes = TRANSICOES_POR_THREAD.get();
+        boolean publicar = deduplicadorAlertas.processar(regras, leitura, disparos, transicoes);
+        metricas.registrarAvaliacaoAlertas(inicio);
+        if (!publicar) {
+            return List.of();
+        }
+        List<Map<String, Object>> alertas = new ArrayList<>();
+        publicarAlertas(emLote, leitura, regras, transicoes.abertos(), EstadoAlerta.ABERTO, alertas);
+        publicarAlertas(emLote, leitura, regras, transicoes.lembretes(), EstadoAlerta.LEMBRETE, alertas);
+        publicarAlertas(emLote, leitura, regras, transicoes.resolvidos(), EstadoAlerta.RESOLVIDO, alertas);
+        return alertas;
+    }
+
+    private void publicarAlertas(boolean emLote, LeituraRefrigeracao leitura, MotorRegrasAlerta.TabelaRegras regras,
+                                 long mascara, EstadoAlerta estado, List<Map<String, Object>> destino) {
+        for (long restantes = mascara; restantes != 0; restantes &= restantes - 1) {
+            int regra = Long.numberOfTrailingZeros(restantes);
+            String descricao = regras.descrever(regra, leitura);
+            if (estado == EstadoAlerta.RESOLVIDO) {
+                descricao = "Alerta resolvido: " + descricao;
+            }
+            destino.add(publicarAlerta(emLote, leitura, regras.tipo(regra), descricao, regras.severidade(regra), estado));
+            metricas.registrarAlerta(regras.tipo(regra), estado);
+        }
+    }
+
+    private Map<String, Object> publicarAlerta(boolean emLote, LeituraRefrigeracao leitura, String tipoAlerta,
+                                               String descricao, String severidade, EstadoAlerta estado) {
+        Map<String, Object> alertaData = montarAlerta(leitura.getSistemaId(), leitura.getNomeSistema(),
+                leitura.getLocalizacao(), leitura.getTemperatura(), leitura.getPressao(), leitura.getStatus(),
+                tipoAlerta, descricao, severidade);
+        alertaData.put("estadoAlerta", estado);
+
+        if (emLote) {
+            log.debug("Enfileirando alerta {} ({}) do sistema {} para envio em lote",
+                    tipoAlerta, estado, leitura.getSistemaId());
+            batchPublisher.enfileirar(RabbitMQConfig.ROUTING_KEY_ALERTAS, alertaData);
+        } else {
+            enviarAlertaMontado(alertaData);
+        }
+        return alertaData;
+    }
+
+    private void enviarAlertaMontado(Map<String, Object> alertaData) {
+        Object sistemaId = alertaData.get("sistemaId");
+        Object tipoAlerta = alertaData.get("tipoAlerta");
         try {
-            Map<String, Object> alertaData = new HashMap<>();
-            alertaData.put("sistemaId", sistema.getSistemaId());
-            alertaData.put("nomeSistema", sistema.getNomeSistema());
-            alertaData.put("localizacao", sistema.getLocalizacao());
-            alertaData.put("timestamp", LocalDateTime.now());
-            alertaData.put("tipoAlerta", tipoAlerta);
-            alertaData.put("descricao", descricao);
-            alertaData.put("severidade", severidade);
-            alertaData.put("temperatura", sistema.getTemperatura());
-            alertaData.put("pressao", sistema.getPressao());
-            alertaData.put("status", sistema.getStatus());
-            alertaData.put("origem", "refrigeracao-microservice");
-            
-            log.warn("Enviando alerta {} do sistema {} para fila RabbitMQ", tipoAlerta, sistema.getSistemaId());
+            log.warn("Enviando alerta {} do sistema {} para fila RabbitMQ", tipoAlerta, sistemaId);
             
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.EXCHANGE_REFRIGERACAO,
-                    RabbitMQConfig.ROUTING_KEY_ALERTAS,
-                    alertaData
-            );
+            enviar(RabbitMQConfig.ROUTING_KEY_ALERTAS, alertaData);
             
             log.warn("Alerta {} do sistema {} enviado com sucesso para fila: {}", 
-                    tipoAlerta, sistema.getSistemaId(), RabbitMQConfig.FILA_ALERTAS);
+                    tipoAlerta, sistemaId, RabbitMQConfig.FILA_ALERTAS);
             
         } catch (Exception e) {
             log.error("Erro ao enviar alerta do sistema {} para RabbitMQ: {}", 
-                    sistema.getSistemaId(), e.getMessage(), e);
+                    sistemaId, e.getMessage(), e);
             throw new RuntimeException("Falha ao enviar alerta para RabbitMQ", e);
         }
     }
 
-    public void enviarLogSimples(String sistemaId, String nivel, String mensagem) {
-        enviarLog(sistemaId, nivel, mensagem, new HashMap<>());
+    private void enviar(String routingKey, Object payload) {
+        enviarMensagem(routingKey, conversorMensagens.converter(routingKey, payload));
     }
 
-    public void verificarEEnviarAlertas(SistemaRefrigeracao sistema) {
-        if (sistema.getTemperatura() > 0 || sistema.getTemperatura() < -30) {
-            enviarAlerta(sistema, "TEMPERATURA_CRITICA", 
-                    String.format("Temperatura fora do range seguro: %.2f°C", sistema.getTemperatura()),
-                    "HIGH");
-        }
-
-        if (sistema.getPressao() > 20 || sistema.getPressao() < 0.5) {
-            enviarAlerta(sistema, "PRESSAO_CRITICA",
-                    String.format("Pressão fora do range seguro: %.2f Bar", sistema.getPressao()),
-                    "HIGH");
+    // Com o spool habilitado, o envio síncrono termina na gravação local e não depende do broker
+    private void enviarMensagem(String routingKey, Message mensagem) {
+        long inicio = metricas.iniciar();
+        boolean sucesso = false;
+        try {
+            if (spoolPublicacao.isHabilitado()) {
+                spoolPublicacao.gravar(routingKey, mensagem);
+            } else {
+                rabbitTemplate.send(RabbitMQConfig.EXCHANGE_REFRIGERACAO,
+                        roteamentoParticoes.routingKeyEnvio(routingKey, mensagem), mensagem);
+                gravadorPublicacoes.registrar(routingKey, mensagem);
+            }
+            sucesso = true;
+        } finally {
+            metricas.registrarEnvio(routingKey, sucesso, inicio);
         }
+    }
 
-        if (sistema.getStatus() == StatusSistema.CRITICO) {
-            enviarAlerta(sistema, "STATUS_CRITICO",
-                    "Sistema em estado crítico: " + sistema.getStatus().getDescricao(),
-                    "CRITICAL");
-        } else if (sistema.getStatus() == StatusSistema.PARADO) {
-            enviarAlerta(sistema, "SISTEMA_PARADO",
-                    "Sistema parado: " + sistema.getStatus().getDescricao(),
-                    "HIGH");
-        } else if (sistema.getStatus() == StatusSistema.ALERTA) {
-            enviarAlerta(sistema, "SISTEMA_ALERTA",
-                    "Sistema em alerta: " + sistema.getStatus().getDescricao(),
-                    "MEDIUM");
+    /**
+     * Serializa o evento uma única vez: o mesmo corpo vai para a fila de logs e para o
+     * arquivo de eventos. A mensagem de log não tem placeholders, então nada é formatado
+     * na thread que publica; o {@link EncoderEventoLog} escreve o corpo como uma linha.
+     */
+    private Message codificarEvento(EventoLog evento) {
+        Message mensagem = conversorMensagens.converter(RabbitMQConfig.ROUTING_KEY_LOGS, evento);
+        byte[] corpo = mensagem.getBody();
+        switch (evento.getNivel()) {
+            case DEBUG -> LOG_EVENTOS.debug(EncoderEventoLog.MENSAGEM_EVENTO, corpo);
+            case INFO -> LOG_EVENTOS.info(EncoderEventoLog.MENSAGEM_EVENTO, corpo);
+            case WARN -> LOG_EVENTOS.warn(EncoderEventoLog.MENSAGEM_EVENTO, corpo);
+            case ERROR -> LOG_EVENTOS.error(EncoderEventoLog.MENSAGEM_EVENTO, corpo);
         }
+        return mensagem;
+    }
 
-        if (sistema.getConsumoEnergia() > 40) {
-            enviarAlerta(sistema, "CONSUMO_ELEVADO",
-                    String.format("Consumo de energia elevado: %.2f kWh", sistema.getConsumoEnergia()),
-                    "MEDIUM");
-        }
+    private Map<String, Object> montarAlerta(String sistemaId, String nomeSistema, String localizacao,
+                                             double temperatura, double pressao, StatusSistema status,
+                                             String tipoAlerta, String descricao, String severidade) {
+        Map<String, Object> alertaData = new HashMap<>();
+        alertaData.put("sistemaId", sistemaId);
+        alertaData.put("nomeSistema", nomeSistema);
+        alertaData.put("localizacao", localizacao);
+        alertaData.put("timestamp", LocalDateTime.now());
+        alertaData.put("tipoAlerta", tipoAlerta);
+        alertaData.put("descricao", descricao);
+        alertaData.put("severidade", severidade);
+        alertaData.put("temperatura", temperatura);
+        alertaData.put("pressao", pressao);
+        alertaData.put("status", status);
+        alertaData.put("origem", "refrigeracao-microservice");
+        return alertaData;
     }
 }
-
@@ -1,120 +1,133 @@
 package com.refriged.log_generator_mockup.service;
 
+import com.refriged.log_generator_mockup.model.CatalogoSistemas;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
 import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
-import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.IntStream;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class RefrigeracaoDataService {
 
-    private final Random random = new Random();
-    
-    private static final String[] NOMES_SISTEMAS = {
-        "Motor Chiller de Imersão 1", "Motor Chiller de Imersão 2",
-        "Motor Pré-Resfriador A", "Motor Túnel de Congelamento Rápido B",
-        "Motor Câmara de Estocagem Congelados C1", "Motor Câmara de Estocagem Resfriados C2"
-    };
+    private static final int BITS_PAGINA_IDS = 12;
+    private static final int TAMANHO_PAGINA_IDS = 1 << BITS_PAGINA_IDS;
 
-    private static final String[] LOCALIZACOES = {
-        "Casa de Máquinas - Painel 1", "Casa de Máquinas - Painel 2",
-        "Casa de Máquinas - Painel 3", "Casa de Máquinas - Painel 4",
-        "Casa de Máquinas - Painel 5", "Casa de Máquinas - Painel 6"
-    };
+    // IDs SYS-### canônicos, montados uma vez por página e reaproveitados
+    private static final AtomicReferenceArray<String[]> IDS_SISTEMAS =
+            new AtomicReferenceArray<>((EstadoSensores.MAX_SISTEMAS >> BITS_PAGINA_IDS) + 1);
+
+    private final EstadoSensores estadoSensores;
+    private final MetricasRefrigeracao metricas;
+    private final ParticionamentoSistemas particionamento;
+    private final CacheLeituras cacheLeituras;
+    private final InjetorFalhas injetorFalhas;
 
     public SistemaRefrigeracao gerarDadosSistema(String sistemaId) {
-        log.debug("Gerando dados mockados para sistema: {}", sistemaId);
-        
-        return SistemaRefrigeracao.builder()
-                .sistemaId(sistemaId)
-                .nomeSistema(obterNomeSistemaAleatorio())
-                .localizacao(obterLocalizacaoAleatoria())
-                .timestamp(LocalDateTime.now())
-                .temperatura(gerarTemperatura())
-                .pressao(gerarPressao())
-                .umidade(gerarUmidade())
-                .status(gerarStatus())
-                .consumoEnergia(gerarConsumoEnergia())
-                .velocidadeCompressor(gerarVelocidadeCompressor())
-                .observacoes(gerarObservacoes())
-                .build();
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        gerarLeitura(estadoSensores.indiceDe(sistemaId), sistemaId, leitura);
+        return leitura.paraSistemaRefrigeracao();
     }
 
-    public List<SistemaRefrigeracao> gerarDadosMultiplosSistemas(int quantidade) {
-        log.info("Gerando dados para {} sistemas", quantidade);
-        
-        return IntStream.range(1, quantidade + 1)
-                .mapToObj(i -> gerarDadosSistema("SYS-" + String.format("%03d", i)))
-                .toList();
+    public void gerarLeitura(int indice, String sistemaId, LeituraRefrigeracao destino) {
+        gerarLeituraSemCache(indice, sistemaId, destino);
+        cacheLeituras.registrar(destino);
     }
 
-    public SistemaRefrigeracao obterDadosSistema(String sistemaId) {
-        log.info("Obtendo dados para sistema: {}", sistemaId);
-        return gerarDadosSistema(sistemaId);
-    }
+    /**
+     * Gera a leitura sem registrá-la no cache de últimas leituras, para a exportação em
+     * massa não substituir o que as consultas e a simulação deixaram lá.
+     */
+    void gerarLeituraSemCache(int indice, String sistemaId, LeituraRefrigeracao destino) {
+        log.debug("Gerando dados mockados para sistema: {}", sistemaId);
 
-    private String obterNomeSistemaAleatorio() {
-        return NOMES_SISTEMAS[random.nextInt(NOMES_SISTEMAS.length)];
+        long inicio = metricas.iniciar();
+        long agora;
+        // Instante, passo do modelo e sorteio da observação formam uma leitura só
+        synchronized (estadoSensores.listra(indice)) {
+            agora = estadoSensores.instanteLeitura(indice);
+            estadoSensores.atualizar(indice, agora);
+            estadoSensores.copiarPara(indice, destino);
+            destino.setIndiceObservacao(estadoSensores.sortear(indice, CatalogoSistemas.OBSERVACOES.length));
+        }
+        destino.setSistemaId(sistemaId);
+        destino.setTimestampMillis(agora);
+        injetorFalhas.aplicar(indice, agora, destino);
+        metricas.registrarGeracao(inicio);
     }
 
-    private String obterLocalizacaoAleatoria() {
-        return LOCALIZACOES[random.nextInt(LOCALIZACOES.length)];
-    }
+    public List<SistemaRefrigeracao> gerarDadosMultiplosSistemas(int quantidade) {
+        log.info("Gerando dados para {} sistemas", quantidade);
 
-    private Double gerarTemperatura() {
-        return -25.0 + (random.nextDouble() * 30.0);
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        return IntStream.range(1, quantidade + 1)
+                .filter(i -> particionamento.pertence(i - 1))
+                .mapToObj(i -> {
+                    gerarLeitura(i - 1, idSistema(i), leitura);
+                    return leitura.paraSistemaRefrigeracao();
+                })
+                .toList();
     }
 
-    private Double gerarPressao() {
-        return 1.0 + (random.nextDouble() * 14.0);
-    }
+    public static String idSistema(int numero) {
+        if (numero < 1 || numero > EstadoSensores.MAX_SISTEMAS) {
+            return formatarIdSistema(numero);
+        }
 
-    private Double gerarUmidade() {
-        return 40.0 + (random.nextDouble() * 50.0);
+        int numeroPagina = numero >>> BITS_PAGINA_IDS;
+        String[] pagina = IDS_SISTEMAS.get(numeroPagina);
+        if (pagina == null) {
+            pagina = new String[TAMANHO_PAGINA_IDS];
+            int base = numeroPagina << BITS_PAGINA_IDS;
+            for (int i = 0; i < TAMANHO_PAGINA_IDS; i++) {
+                pagina[i] = formatarIdSistema(base + i);
+            }
+            if (!IDS_SISTEMAS.compareAndSet(numeroPagina, null, pagina)) {
+                pagina = IDS_SISTEMAS.get(numeroPagina);
+            }
+        }
+        return pagina[numero & (TAMANHO_PAGINA_IDS - 1)];
     }
 
-    private StatusSistema gerarStatus() {
-        StatusSistema[] status = StatusSistema.values();
-        
-        double probabilidade = random.nextDouble();
-        if (probabilidade < 0.7) {
-            return StatusSistema.OPERACIONAL;
-        } else if (probabilidade < 0.85) {
-            return StatusSistema.ALERTA;
-        } else if (probabilidade < 0.95) {
-            return StatusSistema.MANUTENCAO;
-        } else if (probabilidade < 0.99) {
-            return StatusSistema.CRITICO;
-        } else {
-            return StatusSistema.PARADO;
+    /**
+     * Última leitura do sistema no cache; só gera uma leitura nova para sistemas que
+     * ainda não estão nele.
+     */
+    public SistemaRefrigeracao obterDadosSistema(String sistemaId) {
+        log.info("Obtendo dados para sistema: {}", sistemaId);
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        if (cacheLeituras.ultima(estadoSensores.indiceExistente(sistemaId), leitura)) {
+            return leitura.paraSistemaRefrigeracao();
         }
+        return gerarDadosSistema(sistemaId);
     }
 
-    private Double gerarConsumoEnergia() {
-        return 5.0 + (random.nextDouble() * 45.0);
+    public List<SistemaRefrigeracao> obterUltimasLeituras(List<String> sistemaIds) {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        List<SistemaRefrigeracao> sistemas = new ArrayList<>(sistemaIds.size());
+        for (String sistemaId : sistemaIds) {
+            int indice = estadoSensores.indiceExistente(sistemaId);
+            if (indice >= 0 && particionamento.pertence(indice) && cacheLeituras.ultima(indice, leitura)) {
+                sistemas.add(leitura.paraSistemaRefrigeracao());
+            }
+        }
+        return sistemas;
     }
 
-    private Double gerarVelocidadeCompressor() {
-        return 1000.0 + (random.nextDouble() * 2500.0);
+    public List<SistemaRefrigeracao> obterHistorico(String sistemaId, int limite) {
+        return cacheLeituras.historico(estadoSensores.indiceExistente(sistemaId), limite);
     }
 
-    private String gerarObservacoes() {
-        String[] observacoes = {
-            "Sistema funcionando dentro dos parâmetros normais",
-            "Leve variação na temperatura detectada",
-            "Manutenção preventiva agendada para próxima semana",
-            "Compressor operando com eficiência ótima",
-            "Monitoramento contínuo ativo",
-            null
-        };
-        
-        return observacoes[random.nextInt(observacoes.length)];
+    private static String formatarIdSistema(int numero) {
+        String digitos = Integer.toString(numero);
+        return digitos.length() >= 3 ? "SYS-" + digitos : "SYS-" + "000".substring(digitos.length()) + digitos;
     }
-}
\ No newline at end of file
+}
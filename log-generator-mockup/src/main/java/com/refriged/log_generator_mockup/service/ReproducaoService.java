@@ -0,0 +1,353 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.TelemetriaBinariaMessageConverter;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reproduz gravações de telemetria (NDJSON ou quadros binários {@code [u32 tamanho][leitura]},
+ * os mesmos formatos da exportação) para o exchange, respeitando os intervalos originais
+ * entre leituras divididos por um fator de velocidade; velocidade 0 publica na vazão máxima.
+ * O arquivo é lido em janelas mapeadas em memória e cada registro é republicado com os bytes
+ * gravados, sem desserializar; a memória fica limitada pela janela e pelo buffer do
+ * {@link RabbitMQBatchPublisher}, que bloqueia a leitura quando cheio.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReproducaoService {
+
+    private static final byte[] CAMPO_TIMESTAMP = "\"timestamp\"".getBytes(StandardCharsets.US_ASCII);
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    private static final long SEM_TIMESTAMP = Long.MIN_VALUE;
+
+    // magic (2 bytes), versão e status antecedem o timestamp no formato binário
+    private static final int DESLOCAMENTO_TIMESTAMP_BINARIO = 4;
+    private static final long ESPERA_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final RabbitMQBatchPublisher batchPublisher;
+
+    @Value("${app.refrigeracao.reproducao.diretorio:gravacoes}")
+    private String diretorio;
+
+    @Value("${app.refrigeracao.reproducao.janela-mapeamento-mb:256}")
+    private int janelaMapeamentoMb;
+
+    private volatile Execucao execucao;
+
+    @PreDestroy
+    void encerrar() {
+        parar();
+    }
+
+    /**
+     * Inicia a reprodução de um arquivo do diretório de gravações. Sem formato explícito,
+     * arquivos {@code .bin} são lidos como binário e os demais como NDJSON. A routing key
+     * deve ser uma das declaradas no {@link RabbitMQConfig}.
+     */
+    public synchronized Map<String, Object> iniciar(String arquivo, FormatoMensagem formato, double velocidade,
+                                                    String routingKey, boolean repetir) {
+        Execucao atual = execucao;
+        if (atual != null && atual.ativa) {
+            throw new IllegalStateException("Já existe uma reprodução em andamento: " + atual.arquivo.getFileName());
+        }
+        if (velocidade < 0 || Double.isNaN(velocidade)) {
+            throw new IllegalArgumentException("Velocidade deve ser maior ou igual a 0");
+        }
+        if (!RabbitMQConfig.ROUTING_KEYS.contains(routingKey)) {
+            throw new IllegalArgumentException("Routing key deve ser uma de " + RabbitMQConfig.ROUTING_KEYS);
+        }
+
+        Path base = Paths.get(diretorio).toAbsolutePath().normalize();
+        Path caminho = base.resolve(arquivo).normalize();
+        if (!caminho.startsWith(base)) {
+            throw new IllegalArgumentException("Arquivo deve estar dentro do diretório de gravações");
+        }
+        if (!Files.isRegularFile(caminho)) {
+            throw new IllegalArgumentException("Arquivo de gravação não encontrado: " + arquivo);
+        }
+        if (formato == null) {
+            formato = caminho.getFileName().toString().endsWith(".bin") ? FormatoMensagem.BINARIO : FormatoMensagem.JSON;
+        }
+
+        Execucao nova = new Execucao(caminho, formato, velocidade, routingKey, repetir);
+        execucao = nova;
+        nova.thread = new Thread(nova, "reproducao");
+        nova.thread.setDaemon(true);
+        nova.thread.start();
+
+        log.info("Reprodução iniciada: arquivo={}, formato={}, velocidade={}, routingKey={}, repetir={}",
+                caminho, formato, velocidade == 0 ? "maxima" : velocidade, routingKey, repetir);
+        return status();
+    }
+
+    public synchronized Map<String, Object> parar() {
+        Execucao atual = execucao;
+        if (atual != null && atual.ativa) {
+            atual.parar = true;
+            LockSupport.unpark(atual.thread);
+            log.info("Reprodução de {} interrompida após {} mensagens", atual.arquivo.getFileName(), atual.publicadas);
+        }
+        return status();
+    }
+
+    public Map<String, Object> status() {
+        Execucao atual = execucao;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ativa", atual != null && atual.ativa);
+        if (atual == null) {
+            return status;
+        }
+        status.put("arquivo", atual.arquivo.getFileName().toString());
+        status.put("formato", atual.formato);
+        status.put("velocidade", atual.velocidade == 0 ? "maxima" : atual.velocidade);
+        status.put("routingKey", atual.routingKey);
+        status.put("repetir", atual.repetir);
+        status.put("tamanhoBytes", atual.tamanhoBytes);
+        status.put("posicaoBytes", atual.posicaoBytes);
+        status.put("voltas", atual.voltas);
+        status.put("publicadas", atual.publicadas);
+        status.put("atrasoMs", TimeUnit.NANOSECONDS.toMillis(atual.atrasoNanos));
+        long duracao = (atual.ativa ? System.nanoTime() : atual.fimNanos) - atual.inicioNanos;
+        status.put("taxaMedida", atual.publicadas * 1e9 / Math.max(1, duracao));
+        if (atual.erro != null) {
+            status.put("erro", atual.erro);
+        }
+        return status;
+    }
+
+    /**
+     * Extrai {@code "timestamp": "yyyy-MM-dd HH:mm:ss[.SSS]"} de uma linha NDJSON sem montar
+     * a árvore JSON. Aceita também o separador ISO {@code T}.
+     */
+    private static long timestampNdjson(MappedByteBuffer mapa, int inicio, int fim) {
+        int campo = indiceDe(mapa, inicio, fim, CAMPO_TIMESTAMP);
+        if (campo < 0) {
+            return SEM_TIMESTAMP;
+        }
+        // Pula espaços, ':' e a aspa de abertura do valor
+        while (campo < fim && mapa.get(campo) != '"') {
+            byte b = mapa.get(campo);
+            if (b != ' ' && b != ':' && b != '\t') {
+                return SEM_TIMESTAMP;
+            }
+            campo++;
+        }
+        campo++;
+        if (campo + 19 > fim) {
+            return SEM_TIMESTAMP;
+        }
+        try {
+            LocalDateTime dataHora = LocalDateTime.of(
+                    digitos(mapa, campo, 4), digitos(mapa, campo + 5, 2), digitos(mapa, campo + 8, 2),
+                    digitos(mapa, campo + 11, 2), digitos(mapa, campo + 14, 2), digitos(mapa, campo + 17, 2));
+            long millis = 0;
+            if (campo + 23 <= fim && mapa.get(campo + 19) == '.') {
+                millis = digitos(mapa, campo + 20, 3);
+            }
+            return dataHora.atZone(ZONA).toInstant().toEpochMilli() + millis;
+        } catch (DateTimeException | NumberFormatException e) {
+            return SEM_TIMESTAMP;
+        }
+    }
+
+    private static int indiceDe(MappedByteBuffer mapa, int inicio, int fim, byte[] padrao) {
+        procura:
+        for (int i = inicio; i <= fim - padrao.length; i++) {
+            for (int j = 0; j < padrao.length; j++) {
+                if (mapa.get(i + j) != padrao[j]) {
+                    continue procura;
+                }
+            }
+            return i + padrao.length;
+        }
+        return -1;
+    }
+
+    private static int digitos(MappedByteBuffer mapa, int posicao, int quantidade) {
+        int valor = 0;
+        for (int i = posicao; i < posicao + quantidade; i++) {
+            int digito = mapa.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new NumberFormatException("Dígito inválido no timestamp");
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private final class Execucao implements Runnable {
+        private final Path arquivo;
+        private final FormatoMensagem formato;
+        private final double velocidade;
+        private final String routingKey;
+        private final boolean repetir;
+        private final long inicioNanos = System.nanoTime();
+
+        private Thread thread;
+        private volatile boolean ativa = true;
+        private volatile boolean parar;
+        private volatile long tamanhoBytes;
+        private volatile long posicaoBytes;
+        private volatile long voltas;
+        private volatile long publicadas;
+        private volatile long atrasoNanos;
+        private volatile long fimNanos;
+        private volatile String erro;
+
+        // Origem do relógio da gravação e do relógio de parede para o agendamento
+        private long origemGravacao = SEM_TIMESTAMP;
+        private long origemNanos;
+
+        private Execucao(Path arquivo, FormatoMensagem formato, double velocidade, String routingKey, boolean repetir) {
+            this.arquivo = arquivo;
+            this.formato = formato;
+            this.velocidade = velocidade;
+            this.routingKey = routingKey;
+            this.repetir = repetir;
+        }
+
+        @Override
+        public void run() {
+            long janela = Math.max(1, janelaMapeamentoMb) * 1024L * 1024L;
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                tamanhoBytes = canal.size();
+                do {
+                    origemGravacao = SEM_TIMESTAMP;
+                    long posicao = 0;
+                    while (posicao < tamanhoBytes && !parar) {
+                        long tamanhoJanela = Math.min(janela, tamanhoBytes - posicao);
+                        boolean ultima = posicao + tamanhoJanela == tamanhoBytes;
+                        MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, posicao, tamanhoJanela);
+                        int consumidos = formato == FormatoMensagem.BINARIO
+                                ? reproduzirBinario(mapa, ultima) : reproduzirNdjson(mapa, ultima);
+                        if (consumidos == 0 && !parar) {
+                            throw new IllegalStateException("Registro maior que a janela de mapeamento na posição " + posicao);
+                        }
+                        posicao += consumidos;
+                        posicaoBytes = posicao;
+                    }
+                    voltas++;
+                } while (repetir && !parar);
+                log.info("Reprodução de {} concluída: {} mensagens em {} voltas", arquivo.getFileName(), publicadas, voltas);
+            } catch (IOException | RuntimeException e) {
+                erro = e.getMessage();
+                log.error("Erro na reprodução de {}: {}", arquivo.getFileName(), e.getMessage(), e);
+            } finally {
+                fimNanos = System.nanoTime();
+                ativa = false;
+            }
+        }
+
+        private int reproduzirBinario(MappedByteBuffer mapa, boolean ultima) {
+            int posicao = 0;
+            int limite = mapa.limit();
+            while (!parar && posicao + Integer.BYTES <= limite) {
+                int tamanho = mapa.getInt(posicao);
+                if (tamanho <= DESLOCAMENTO_TIMESTAMP_BINARIO + Long.BYTES) {
+                    throw new IllegalStateException("Quadro binário inválido na posição " + posicao);
+                }
+                if (posicao + Integer.BYTES + tamanho > limite) {
+                    break;
+                }
+                int corpoInicio = posicao + Integer.BYTES;
+                aguardar(mapa.getLong(corpoInicio + DESLOCAMENTO_TIMESTAMP_BINARIO));
+
+                byte[] corpo = new byte[tamanho];
+                mapa.get(corpoInicio, corpo);
+                MessageProperties propriedades = new MessageProperties();
+                propriedades.setContentType(TelemetriaBinariaMessageConverter.CONTENT_TYPE);
+                propriedades.setHeader(TelemetriaBinariaMessageConverter.HEADER_VERSAO, TelemetriaBinariaMessageConverter.VERSAO);
+                publicar(new Message(corpo, propriedades));
+                posicao = corpoInicio + tamanho;
+            }
+            if (ultima && !parar && posicao < limite) {
+                log.warn("Quadro binário truncado no fim de {}; {} bytes ignorados", arquivo.getFileName(), limite - posicao);
+                return limite;
+            }
+            return posicao;
+        }
+
+        private int reproduzirNdjson(MappedByteBuffer mapa, boolean ultima) {
+            int inicioLinha = 0;
+            int limite = mapa.limit();
+            for (int i = 0; i < limite && !parar; i++) {
+                if (mapa.get(i) == '\n') {
+                    reproduzirLinha(mapa, inicioLinha, i);
+                    inicioLinha = i + 1;
+                }
+            }
+            if (ultima && !parar && inicioLinha < limite) {
+                reproduzirLinha(mapa, inicioLinha, limite);
+                inicioLinha = limite;
+            }
+            return inicioLinha;
+        }
+
+        private void reproduzirLinha(MappedByteBuffer mapa, int inicio, int fim) {
+            if (fim > inicio && mapa.get(fim - 1) == '\r') {
+                fim--;
+            }
+            if (fim == inicio) {
+                return;
+            }
+            aguardar(timestampNdjson(mapa, inicio, fim));
+
+            byte[] corpo = new byte[fim - inicio];
+            mapa.get(inicio, corpo);
+            MessageProperties propriedades = new MessageProperties();
+            propriedades.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+            propriedades.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, SistemaRefrigeracao.class.getName());
+            publicar(new Message(corpo, propriedades));
+        }
+
+        private void publicar(Message mensagem) {
+            batchPublisher.enfileirarMensagem(routingKey, mensagem);
+            publicadas++;
+        }
+
+        private void aguardar(long timestamp) {
+            if (velocidade == 0 || timestamp == SEM_TIMESTAMP) {
+                return;
+            }
+            if (origemGravacao == SEM_TIMESTAMP) {
+                origemGravacao = timestamp;
+                origemNanos = System.nanoTime();
+                return;
+            }
+            long alvo = origemNanos + (long) ((timestamp - origemGravacao) * 1_000_000.0 / velocidade);
+            long espera = alvo - System.nanoTime();
+            atrasoNanos = Math.max(0, -espera);
+            while (espera > 0 && !parar) {
+                LockSupport.parkNanos(Math.min(espera, ESPERA_MAXIMA_NANOS));
+                espera = alvo - System.nanoTime();
+            }
+        }
+    }
+}
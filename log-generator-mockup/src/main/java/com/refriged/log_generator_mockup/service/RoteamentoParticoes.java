@@ -0,0 +1,87 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.PublicacaoProperties;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.utils.enums.ModoParticionamento;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Roteamento das routing keys particionadas. A partição de um sistema é
+ * {@code floorMod(sistemaId.hashCode(), quantidade)} e vem do header
+ * {@link RabbitMQConfig#HEADER_SISTEMA}, gravado na conversão: spool, gravação e
+ * reprodução binária reenviam a mensagem para a mesma fila do envio original.
+ * Mensagens sem o header (NDJSON reproduzido) vão para a partição 0.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RoteamentoParticoes {
+
+    private static final String PREFIXO_CHAVE_ENVELOPE = "particao-";
+
+    private final PublicacaoProperties publicacaoProperties;
+
+    // Routing key de envio de cada partição, só para o modo ROUTING_KEY
+    private final Map<String, String[]> destinos = new HashMap<>();
+
+    @PostConstruct
+    void iniciar() {
+        publicacaoProperties.getParticoes().forEach((routingKey, particoes) -> {
+            if (!particoes.isParticionada()) {
+                return;
+            }
+            if (particoes.getModo() == ModoParticionamento.ROUTING_KEY) {
+                String[] routingKeys = new String[particoes.getQuantidade()];
+                for (int particao = 0; particao < routingKeys.length; particao++) {
+                    routingKeys[particao] = RabbitMQConfig.nomeParticao(routingKey, particao);
+                }
+                destinos.put(routingKey, routingKeys);
+            }
+            log.info("Routing key {} particionada em {} filas ({}, {})", routingKey, particoes.getQuantidade(),
+                    particoes.getModo(), particoes.getTipoFila());
+        });
+    }
+
+    public boolean isParticionada(String routingKey) {
+        return publicacaoProperties.particoesPara(routingKey).isParticionada();
+    }
+
+    public int quantidade(String routingKey) {
+        return publicacaoProperties.particoesPara(routingKey).getQuantidade();
+    }
+
+    public int particao(String routingKey, String sistemaId) {
+        int quantidade = quantidade(routingKey);
+        return sistemaId == null || quantidade <= 1 ? 0 : Math.floorMod(sistemaId.hashCode(), quantidade);
+    }
+
+    public String routingKeyEnvio(String routingKey, Message mensagem) {
+        String[] routingKeys = destinos.get(routingKey);
+        if (routingKeys == null) {
+            return routingKey;
+        }
+        Object sistemaId = mensagem.getMessageProperties().getHeaders().get(RabbitMQConfig.HEADER_SISTEMA);
+        return sistemaId == null ? routingKeys[0] : routingKeys[Math.floorMod(sistemaId.hashCode(), routingKeys.length)];
+    }
+
+    /**
+     * Chave de roteamento de um envelope com leituras de vários sistemas da mesma partição.
+     * No modo ROUTING_KEY qualquer sistema do envelope leva à partição certa; no hash
+     * consistente o broker não conhece a partição, então todos os envelopes dela usam a
+     * mesma chave e caem sempre na mesma fila.
+     */
+    public String chaveEnvelope(String routingKey, int particao, String sistemaId) {
+        if (publicacaoProperties.particoesPara(routingKey).getModo() == ModoParticionamento.HASH_CONSISTENTE) {
+            return PREFIXO_CHAVE_ENVELOPE + particao;
+        }
+        return sistemaId;
+    }
+}
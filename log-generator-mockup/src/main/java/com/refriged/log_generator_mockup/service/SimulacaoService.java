@@ -0,0 +1,309 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.model.DetalhesLog;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.NivelLog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Motor de simulação contínua: cada sistema virtual gera uma leitura por intervalo
+ * de coleta. Os sistemas são distribuídos em slots de uma roda de ticks em partes
+ * iguais (a diferença entre slots é de no máximo um sistema), com a ordem da frota
+ * embaralhada, de modo que cada tick processa a mesma fração da frota e a taxa de
+ * mensagens fica constante.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SimulacaoService {
+
+    public static final int MAX_SISTEMAS = EstadoSensores.MAX_SISTEMAS;
+
+    private static final int MIN_SISTEMAS_POR_TAREFA = 512;
+    private static final int MAX_SLOTS = 1 << 20;
+
+    private static final ThreadLocal<LeituraRefrigeracao> LEITURA_POR_THREAD =
+            ThreadLocal.withInitial(LeituraRefrigeracao::new);
+
+    private final RefrigeracaoDataService refrigeracaoDataService;
+    private final RabbitMQProducerService rabbitMQProducerService;
+    private final AgregacaoService agregacaoService;
+    private final ParticionamentoSistemas particionamento;
+    private final ControleVazaoPublicacao controleVazao;
+
+    @Value("${app.refrigeracao.monitoramento.intervalo-coleta-segundos:30}")
+    private double intervaloColetaSegundos;
+
+    @Value("${app.refrigeracao.monitoramento.intervalo-envio-rabbitmq-segundos:60}")
+    private long intervaloResumoSegundos;
+
+    @Value("${app.refrigeracao.simulacao.sistemas:10000}")
+    private int sistemasPadrao;
+
+    @Value("${app.refrigeracao.simulacao.tick-ms:10}")
+    private long tickMs;
+
+    @Value("${app.refrigeracao.simulacao.threads:0}")
+    private int threads;
+
+    @Value("${app.refrigeracao.simulacao.iniciar-automaticamente:false}")
+    private boolean iniciarAutomaticamente;
+
+    private final LongAdder leiturasGeradas = new LongAdder();
+    private final LongAdder ticksExecutados = new LongAdder();
+    private final LongAdder ticksAtrasados = new LongAdder();
+    private final LongAdder errosTick = new LongAdder();
+    private final LongAdder ticksContidos = new LongAdder();
+
+    private volatile RodaTicks roda;
+    private volatile long inicioMillis;
+    private long leiturasNoInicio;
+    private long proximoTick;
+
+    private ExecutorService workers;
+    private ScheduledExecutorService agendador;
+
+    @PostConstruct
+    void configurar() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        workers = Executors.newFixedThreadPool(threads, threadFactory("simulacao-worker"));
+        roda = new RodaTicks(sistemasPadrao, Math.round(intervaloColetaSegundos * 1000), tickMs);
+
+        if (iniciarAutomaticamente) {
+            iniciar(null, null);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        parar();
+        workers.shutdownNow();
+    }
+
+    public synchronized Map<String, Object> iniciar(Integer quantidadeSistemas, Long intervaloColetaMs) {
+        if (quantidadeSistemas != null || intervaloColetaMs != null) {
+            roda = new RodaTicks(
+                    quantidadeSistemas != null ? quantidadeSistemas : roda.quantidadeSistemas,
+                    intervaloColetaMs != null ? intervaloColetaMs : roda.periodoMs,
+                    tickMs);
+        }
+
+        if (agendador == null) {
+            leiturasNoInicio = leiturasGeradas.sum();
+            inicioMillis = System.currentTimeMillis();
+            proximoTick = 0;
+
+            agendador = Executors.newSingleThreadScheduledExecutor(threadFactory("simulacao-agendador"));
+            agendador.scheduleAtFixedRate(this::executarTick, 0, tickMs, TimeUnit.MILLISECONDS);
+            agendador.scheduleAtFixedRate(this::enviarResumo,
+                    intervaloResumoSegundos, intervaloResumoSegundos, TimeUnit.SECONDS);
+
+            log.info("Simulação iniciada: {} sistemas, intervalo de coleta {} ms, taxa alvo {} leituras/s",
+                    roda.quantidadeSistemas, roda.periodoMs, String.format("%.1f", roda.taxaAlvo()));
+        }
+        return status();
+    }
+
+    public synchronized Map<String, Object> parar() {
+        if (agendador != null) {
+            agendador.shutdown();
+            try {
+                agendador.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            agendador = null;
+            inicioMillis = 0;
+            log.info("Simulação parada após {} leituras", leiturasGeradas.sum());
+        }
+        return status();
+    }
+
+    public synchronized Map<String, Object> redimensionar(int quantidadeSistemas) {
+        roda = new RodaTicks(quantidadeSistemas, roda.periodoMs, tickMs);
+        log.info("Simulação redimensionada para {} sistemas, taxa alvo {} leituras/s",
+                quantidadeSistemas, String.format("%.1f", roda.taxaAlvo()));
+        return status();
+    }
+
+    public boolean isAtiva() {
+        return inicioMillis != 0;
+    }
+
+    public Map<String, Object> status() {
+        RodaTicks rodaAtual = roda;
+        long inicio = inicioMillis;
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ativa", inicio != 0);
+        status.put("quantidadeSistemas", rodaAtual.quantidadeSistemas);
+        status.put("intervaloColetaMs", rodaAtual.periodoMs);
+        status.put("tickMs", tickMs);
+        status.put("slots", rodaAtual.slots);
+        status.put("threads", threads);
+        status.put("taxaAlvo", rodaAtual.taxaAlvo());
+        status.put("leiturasGeradas", leiturasGeradas.sum());
+        status.put("ticksExecutados", ticksExecutados.sum());
+        status.put("ticksAtrasados", ticksAtrasados.sum());
+        status.put("errosTick", errosTick.sum());
+        status.put("ticksContidos", ticksContidos.sum());
+        if (inicio != 0) {
+            double segundos = Math.max(1, System.currentTimeMillis() - inicio) / 1000.0;
+            status.put("taxaMedida", (leiturasGeradas.sum() - leiturasNoInicio) / segundos);
+        }
+        return status;
+    }
+
+    private void executarTick() {
+        long inicioTick = System.nanoTime();
+        // Sem vazão liberada o slot fica para o próximo tick: a roda gira mais devagar e
+        // cada sistema mantém sua fase, só com intervalo de coleta maior
+        if (!controleVazao.permitir()) {
+            ticksContidos.increment();
+            return;
+        }
+        try {
+            RodaTicks rodaAtual = roda;
+            int slot = (int) (proximoTick++ % rodaAtual.slots);
+            int inicio = rodaAtual.inicioSlot[slot];
+            int fim = rodaAtual.inicioSlot[slot + 1];
+            int total = fim - inicio;
+
+            int geradas = 0;
+            if (total < MIN_SISTEMAS_POR_TAREFA * 2 || threads == 1) {
+                geradas = processar(rodaAtual, inicio, fim);
+            } else {
+                int tarefas = Math.min(threads, total / MIN_SISTEMAS_POR_TAREFA);
+                int tamanho = (total + tarefas - 1) / tarefas;
+                List<Callable<Integer>> lote = new ArrayList<>(tarefas);
+                for (int de = inicio; de < fim; de += tamanho) {
+                    int ate = Math.min(fim, de + tamanho);
+                    int deTarefa = de;
+                    lote.add(() -> processar(rodaAtual, deTarefa, ate));
+                }
+                for (Future<Integer> futuro : workers.invokeAll(lote)) {
+                    geradas += futuro.get();
+                }
+            }
+            controleVazao.consumir(geradas);
+            ticksExecutados.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            errosTick.increment();
+            log.error("Erro ao executar tick da simulação: {}", e.getMessage(), e);
+        }
+
+        if (System.nanoTime() - inicioTick > TimeUnit.MILLISECONDS.toNanos(tickMs)) {
+            ticksAtrasados.increment();
+        }
+    }
+
+    private int processar(RodaTicks rodaAtual, int inicio, int fim) {
+        LeituraRefrigeracao leitura = LEITURA_POR_THREAD.get();
+        int geradas = 0;
+        for (int i = inicio; i < fim; i++) {
+            int indice = rodaAtual.sistemasPorSlot[i];
+            // A roda cobre a frota inteira para que a fase de cada sistema seja a mesma em todos os nós
+            if (!particionamento.pertence(indice)) {
+                continue;
+            }
+            refrigeracaoDataService.gerarLeitura(indice, RefrigeracaoDataService.idSistema(indice + 1), leitura);
+            agregacaoService.processar(leitura);
+            rabbitMQProducerService.verificarEEnfileirarAlertas(leitura);
+            geradas++;
+        }
+        leiturasGeradas.add(geradas);
+        return geradas;
+    }
+
+    private void enviarResumo() {
+        try {
+            rabbitMQProducerService.enfileirarLog("SIMULACAO", NivelLog.INFO, "Resumo da simulação",
+                    DetalhesLog.builder().adicionais(status()).build());
+        } catch (RuntimeException e) {
+            log.error("Erro ao enviar resumo da simulação: {}", e.getMessage(), e);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefixo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefixo + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Distribuição imutável dos sistemas pelos slots da roda, em formato CSR:
+     * os sistemas do slot {@code s} ficam em {@code sistemasPorSlot[inicioSlot[s]..inicioSlot[s+1])}.
+     * A posição {@code p} da frota embaralhada vai para o slot {@code p * slots / n}; o
+     * embaralhamento só decide quais sistemas dividem um slot e a ordem dentro dele.
+     */
+    private static final class RodaTicks {
+        private final int quantidadeSistemas;
+        private final long periodoMs;
+        private final int slots;
+        private final int[] inicioSlot;
+        private final int[] sistemasPorSlot;
+
+        private RodaTicks(int quantidadeSistemas, long periodoMs, long tickMs) {
+            if (quantidadeSistemas < 1 || quantidadeSistemas > MAX_SISTEMAS) {
+                throw new IllegalArgumentException("Quantidade de sistemas deve estar entre 1 e " + MAX_SISTEMAS);
+            }
+            if (periodoMs < tickMs) {
+                throw new IllegalArgumentException("Intervalo de coleta deve ser de pelo menos " + tickMs + " ms");
+            }
+            if (periodoMs / tickMs > MAX_SLOTS) {
+                throw new IllegalArgumentException("Intervalo de coleta deve ser de no máximo " + tickMs * MAX_SLOTS + " ms");
+            }
+            this.quantidadeSistemas = quantidadeSistemas;
+            this.periodoMs = periodoMs;
+            this.slots = (int) (periodoMs / tickMs);
+
+            // Embaralhamento de Fisher-Yates com semente fixa: a mesma roda em todos os nós
+            SplittableRandom random = new SplittableRandom(quantidadeSistemas * 31L + periodoMs);
+            this.sistemasPorSlot = new int[quantidadeSistemas];
+            for (int i = 0; i < quantidadeSistemas; i++) {
+                int j = random.nextInt(i + 1);
+                sistemasPorSlot[i] = sistemasPorSlot[j];
+                sistemasPorSlot[j] = i;
+            }
+
+            // Slot s começa na primeira posição p com p * slots / n >= s
+            this.inicioSlot = new int[slots + 1];
+            for (int s = 0; s <= slots; s++) {
+                inicioSlot[s] = (int) ((s * (long) quantidadeSistemas + slots - 1) / slots);
+            }
+        }
+
+        private double taxaAlvo() {
+            return quantidadeSistemas * 1000.0 / periodoMs;
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.PropriedadesMensagemCodec;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Spool local de publicação: um log append-only por routing key, em segmentos de
+ * tamanho fixo mapeados em memória. Quem publica grava na velocidade do disco; uma
+ * thread drena os registros para o broker na ordem de gravação e só avança o
+ * checkpoint sobre confirmações contíguas, apagando segmentos já confirmados.
+ * Entrega pelo menos uma vez: após nack, timeout ou falha, a drenagem recomeça do checkpoint.
+ *
+ * <p>Registro: {@code [u32 tamanho][u32 crc32][content type][headers][corpo]}. O tamanho
+ * é escrito por último, então um registro incompleto termina a varredura na recuperação.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpoolPublicacao {
+
+    private static final String EXTENSAO_SEGMENTO = ".seg";
+    private static final String ARQUIVO_CHECKPOINT = "checkpoint";
+    private static final int CABECALHO_REGISTRO = 8;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final GravadorPublicacoes gravadorPublicacoes;
+    private final RoteamentoParticoes roteamentoParticoes;
+
+    @Value("${app.refrigeracao.publicacao.spool.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${app.refrigeracao.publicacao.spool.diretorio:spool}")
+    private String diretorio;
+
+    @Value("${app.refrigeracao.publicacao.spool.tamanho-segmento-mb:64}")
+    private int tamanhoSegmentoMb;
+
+    @Value("${app.refrigeracao.publicacao.spool.max-em-voo:1000}")
+    private int maxEmVoo;
+
+    @Value("${app.refrigeracao.publicacao.spool.intervalo-drenagem-ms:20}")
+    private long intervaloDrenagemMs;
+
+    @Value("${app.refrigeracao.publicacao.spool.espera-maxima-ms:30000}")
+    private long esperaMaximaMs;
+
+    @Value("${app.refrigeracao.publicacao.spool.intervalo-sincronizacao-ms:1000}")
+    private long intervaloSincronizacaoMs;
+
+    @Value("${app.refrigeracao.publicacao.confirmacoes.timeout-ms:5000}")
+    private long timeoutConfirmacaoMs;
+
+    private final Map<String, RotaSpool> rotas = new ConcurrentHashMap<>();
+
+    private final LongAdder gravadas = new LongAdder();
+    private final LongAdder enviadas = new LongAdder();
+    private final LongAdder confirmadas = new LongAdder();
+    private final LongAdder nacks = new LongAdder();
+    private final LongAdder reenvios = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    private Path raiz;
+    private int tamanhoSegmento;
+    private boolean confirmacoesHabilitadas;
+    private long ultimaSincronizacao;
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        raiz = Paths.get(diretorio).toAbsolutePath();
+        tamanhoSegmento = (int) Math.min(Integer.MAX_VALUE, tamanhoSegmentoMb * 1024L * 1024L);
+        confirmacoesHabilitadas = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+
+        try {
+            Files.createDirectories(raiz);
+            try (Stream<Path> pastas = Files.list(raiz)) {
+                for (Path pasta : pastas.filter(Files::isDirectory).toList()) {
+                    String routingKey = pasta.getFileName().toString();
+                    rotas.put(routingKey, new RotaSpool(routingKey, pasta));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir spool em " + raiz, e);
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "spool-drenagem");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::drenarTodos, intervaloDrenagemMs, intervaloDrenagemMs, TimeUnit.MILLISECONDS);
+
+        log.info("Spool de publicação iniciado em {}: segmentos de {} MB, maxEmVoo={}, {} routing keys recuperadas",
+                raiz, tamanhoSegmentoMb, maxEmVoo, rotas.size());
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeoutConfirmacaoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (RotaSpool rota : rotas.values()) {
+            rota.sincronizar();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Grava a mensagem no fim do spool da routing key. Retorna assim que o registro está
+     * no arquivo mapeado; o envio ao broker acontece na drenagem.
+     */
+    public void gravar(String routingKey, Message mensagem) {
+        if (!habilitado) {
+            throw new IllegalStateException("Spool de publicação desabilitado");
+        }
+        byte[] registro = codificar(mensagem);
+        if (registro.length + CABECALHO_REGISTRO > tamanhoSegmento) {
+            throw new IllegalArgumentException("Mensagem de " + registro.length
+                    + " bytes não cabe em um segmento do spool");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(registro);
+
+        rotas.computeIfAbsent(routingKey, chave -> new RotaSpool(chave, raiz.resolve(chave)))
+                .anexar(registro, (int) crc.getValue());
+        gravadas.increment();
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("habilitado", habilitado);
+        if (!habilitado) {
+            return estatisticas;
+        }
+        estatisticas.put("diretorio", raiz.toString());
+        estatisticas.put("gravadas", gravadas.sum());
+        estatisticas.put("enviadas", enviadas.sum());
+        estatisticas.put("confirmadas", confirmadas.sum());
+        estatisticas.put("nacks", nacks.sum());
+        estatisticas.put("reenvios", reenvios.sum());
+        estatisticas.put("falhas", falhas.sum());
+        Map<String, Object> porRoutingKey = new LinkedHashMap<>();
+        rotas.forEach((routingKey, rota) -> porRoutingKey.put(routingKey, rota.estatisticas()));
+        estatisticas.put("rotas", porRoutingKey);
+        return estatisticas;
+    }
+
+    private void drenarTodos() {
+        long agora = System.nanoTime();
+        boolean sincronizar = agora - ultimaSincronizacao >= TimeUnit.MILLISECONDS.toNanos(intervaloSincronizacaoMs);
+        for (RotaSpool rota : rotas.values()) {
+            try {
+                rota.drenar();
+                if (sincronizar) {
+                    rota.sincronizar();
+                }
+            } catch (RuntimeException e) {
+                log.error("Erro ao drenar spool da routing key {}: {}", rota.routingKey, e.getMessage(), e);
+            }
+        }
+        if (sincronizar) {
+            ultimaSincronizacao = agora;
+        }
+    }
+
+    private static byte[] codificar(Message mensagem) {
+        byte[] corpo = mensagem.getBody();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(corpo.length + 128);
+        try (DataOutputStream saida = new DataOutputStream(bytes)) {
+            PropriedadesMensagemCodec.escrever(mensagem.getMessageProperties(), saida);
+            saida.write(corpo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Message decodificar(byte[] registro) {
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(registro))) {
+            MessageProperties propriedades = PropriedadesMensagemCodec.ler(entrada);
+            return new Message(entrada.readAllBytes(), propriedades);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path caminhoSegmento(Path pasta, long sequencia) {
+        return pasta.resolve(String.format("%020d%s", sequencia, EXTENSAO_SEGMENTO));
+    }
+
+    private static final class Segmento {
+        private final long sequencia;
+        private final Path arquivo;
+        private final MappedByteBuffer mapa;
+        // Escrito só por anexar(); selado antes de o próximo segmento ser criado
+        private volatile int fim;
+        private volatile boolean selado;
+
+        private Segmento(long sequencia, Path arquivo, MappedByteBuffer mapa, int fim) {
+            this.sequencia = sequencia;
+            this.arquivo = arquivo;
+            this.mapa = mapa;
+            this.fim = fim;
+        }
+    }
+
+    private record EmVoo(Segmento segmento, int fim, CorrelationData correlacao, long enviadoEm) {
+    }
+
+    private final class RotaSpool {
+        private final String routingKey;
+        private final Path pasta;
+        private final FileChannel checkpoint;
+        private final ByteBuffer bufferCheckpoint = ByteBuffer.allocate(12);
+
+        // Guardados por this
+        private final ArrayDeque<Segmento> segmentos = new ArrayDeque<>();
+        private Segmento escrita;
+
+        // Usados apenas pela thread de drenagem
+        private final ArrayDeque<EmVoo> emVoo = new ArrayDeque<>();
+        private Segmento leitura;
+        private int posicaoLeitura;
+        private volatile Segmento confirmado;
+        private volatile int posicaoConfirmada;
+        private boolean checkpointAlterado;
+        private long proximaTentativa;
+        private long esperaMs;
+        private volatile int quantidadeEmVoo;
+
+        private RotaSpool(String routingKey, Path pasta) {
+            this.routingKey = routingKey;
+            this.pasta = pasta;
+            try {
+                Files.createDirectories(pasta);
+                checkpoint = FileChannel.open(pasta.resolve(ARQUIVO_CHECKPOINT),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                recuperar();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao abrir spool da routing key " + routingKey, e);
+            }
+        }
+
+        /**
+         * Remove segmentos anteriores ao checkpoint, varre os demais até o último registro
+         * íntegro e abre um segmento novo para escrita: segmentos recuperados ficam só para leitura.
+         */
+        private void recuperar() throws IOException {
+            long sequenciaCheckpoint = -1;
+            int posicaoCheckpoint = 0;
+            if (checkpoint.size() >= bufferCheckpoint.capacity()) {
+                bufferCheckpoint.clear();
+                checkpoint.read(bufferCheckpoint, 0);
+                sequenciaCheckpoint = bufferCheckpoint.getLong(0);
+                posicaoCheckpoint = bufferCheckpoint.getInt(8);
+            }
+
+            List<Path> arquivos;
+            try (Stream<Path> listagem = Files.list(pasta)) {
+                arquivos = listagem
+                        .filter(arquivo -> arquivo.getFileName().toString().endsWith(EXTENSAO_SEGMENTO))
+                        .sorted()
+                        .toList();
+            }
+
+            long pendentes = 0;
+            long maiorSequencia = sequenciaCheckpoint;
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                long sequencia = Long.parseLong(nome.substring(0, nome.length() - EXTENSAO_SEGMENTO.length()));
+                maiorSequencia = Math.max(maiorSequencia, sequencia);
+                if (sequencia < sequenciaCheckpoint) {
+                    Files.deleteIfExists(arquivo);
+                    continue;
+                }
+                MappedByteBuffer mapa = mapear(arquivo, Files.size(arquivo));
+                int fim = varrer(mapa);
+                if (fim == 0) {
+                    Files.deleteIfExists(arquivo);
+                    continue;
+                }
+                Segmento segmento = new Segmento(sequencia, arquivo, mapa, fim);
+                segmento.selado = true;
+                segmentos.addLast(segmento);
+                pendentes += segmento.fim;
+                if (sequencia == sequenciaCheckpoint) {
+                    confirmado = segmento;
+                    posicaoConfirmada = Math.min(posicaoCheckpoint, segmento.fim);
+                    pendentes -= posicaoConfirmada;
+                }
+            }
+
+            escrita = novoSegmento(maiorSequencia + 1);
+            segmentos.addLast(escrita);
+            if (confirmado == null) {
+                confirmado = segmentos.getFirst();
+                posicaoConfirmada = 0;
+            }
+            leitura = confirmado;
+            posicaoLeitura = posicaoConfirmada;
+
+            if (pendentes > 0) {
+                log.info("Spool da routing key {}: {} bytes pendentes recuperados em {} segmentos",
+                        routingKey, pendentes, segmentos.size() - 1);
+            }
+        }
+
+        private int varrer(MappedByteBuffer mapa) {
+            int posicao = 0;
+            CRC32 crc = new CRC32();
+            while (posicao + CABECALHO_REGISTRO <= mapa.capacity()) {
+                int tamanho = mapa.getInt(posicao);
+                if (tamanho <= 0 || tamanho > mapa.capacity() - posicao - CABECALHO_REGISTRO) {
+                    break;
+                }
+                byte[] registro = new byte[tamanho];
+                mapa.get(posicao + CABECALHO_REGISTRO, registro);
+                crc.reset();
+                crc.update(registro);
+                if ((int) crc.getValue() != mapa.getInt(posicao + 4)) {
+                    log.warn("Registro corrompido no spool da routing key {} na posição {}; descartando o restante do segmento",
+                            routingKey, posicao);
+                    break;
+                }
+                posicao += CABECALHO_REGISTRO + tamanho;
+            }
+            return posicao;
+        }
+
+        private Segmento novoSegmento(long sequencia) throws IOException {
+            Path arquivo = caminhoSegmento(pasta, sequencia);
+            return new Segmento(sequencia, arquivo, mapear(arquivo, tamanhoSegmento), 0);
+        }
+
+        private MappedByteBuffer mapear(Path arquivo, long tamanho) throws IOException {
+            try (RandomAccessFile acesso = new RandomAccessFile(arquivo.toFile(), "rw")) {
+                if (acesso.length() < tamanho) {
+                    acesso.setLength(tamanho);
+                }
+                return acesso.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+            }
+        }
+
+        private synchronized void anexar(byte[] registro, int crc) {
+            int total = CABECALHO_REGISTRO + registro.length;
+            if (escrita.fim + total > escrita.mapa.capacity()) {
+                try {
+                    Segmento novo = novoSegmento(escrita.sequencia + 1);
+                    segmentos.addLast(novo);
+                    escrita.selado = true;
+                    escrita = novo;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Falha ao criar segmento do spool da routing key " + routingKey, e);
+                }
+            }
+            int posicao = escrita.fim;
+            escrita.mapa.putInt(posicao + 4, crc);
+            escrita.mapa.put(posicao + CABECALHO_REGISTRO, registro);
+            escrita.mapa.putInt(posicao, registro.length);
+            escrita.fim = posicao + total;
+        }
+
+        private synchronized Segmento proximo(Segmento segmento) {
+            Iterator<Segmento> iterador = segmentos.iterator();
+            while (iterador.hasNext()) {
+                if (iterador.next() == segmento) {
+                    return iterador.hasNext() ? iterador.next() : null;
+                }
+            }
+            return null;
+        }
+
+        private Message lerProximo() {
+            while (true) {
+                if (posicaoLeitura < leitura.fim) {
+                    int tamanho = leitura.mapa.getInt(posicaoLeitura);
+                    byte[] registro = new byte[tamanho];
+                    leitura.mapa.get(posicaoLeitura + CABECALHO_REGISTRO, registro);
+                    posicaoLeitura += CABECALHO_REGISTRO + tamanho;
+                    return decodificar(registro);
+                }
+                if (!leitura.selado) {
+                    return null;
+                }
+                // fim é final depois de selado; relê para não perder o último registro
+                if (posicaoLeitura < leitura.fim) {
+                    continue;
+                }
+                Segmento seguinte = proximo(leitura);
+                if (seguinte == null) {
+                    return null;
+                }
+                leitura = seguinte;
+                posicaoLeitura = 0;
+            }
+        }
+
+        private void drenar() {
+            processarConfirmacoes();
+            if (System.nanoTime() >= proximaTentativa && emVoo.size() < maxEmVoo) {
+                try {
+                    // invoke() mantém o mesmo canal, preservando a ordem de gravação no broker
+                    rabbitTemplate.invoke(operacoes -> {
+                        Message mensagem;
+                        while (emVoo.size() < maxEmVoo && (mensagem = lerProximo()) != null) {
+                            CorrelationData correlacao = confirmacoesHabilitadas ? new CorrelationData() : null;
+                            operacoes.send(RabbitMQConfig.EXCHANGE_REFRIGERACAO,
+                                    roteamentoParticoes.routingKeyEnvio(routingKey, mensagem), mensagem, correlacao);
+                            gravadorPublicacoes.registrar(routingKey, mensagem);
+                            emVoo.addLast(new EmVoo(leitura, posicaoLeitura, correlacao, System.nanoTime()));
+                            enviadas.increment();
+                        }
+                        return null;
+                    });
+                    esperaMs = 0;
+                } catch (AmqpException e) {
+                    falhas.increment();
+                    boolean primeiraFalha = esperaMs == 0;
+                    rebobinar();
+                    if (primeiraFalha) {
+                        log.warn("Broker indisponível para drenar spool da routing key {}; tentando novamente com espera de até {} ms: {}",
+                                routingKey, esperaMaximaMs, e.getMessage());
+                    } else {
+                        log.debug("Nova tentativa de drenar spool da routing key {} em {} ms", routingKey, esperaMs);
+                    }
+                }
+                processarConfirmacoes();
+            }
+            quantidadeEmVoo = emVoo.size();
+            gravarCheckpoint();
+        }
+
+        private void processarConfirmacoes() {
+            long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(timeoutConfirmacaoMs);
+            while (!emVoo.isEmpty()) {
+                EmVoo primeiro = emVoo.peekFirst();
+                if (primeiro.correlacao() != null) {
+                    CorrelationData.Confirm confirmacao = primeiro.correlacao().getFuture().getNow(null);
+                    if (confirmacao == null && primeiro.enviadoEm() - limite > 0) {
+                        return;
+                    }
+                    if (confirmacao == null || !confirmacao.isAck()) {
+                        nacks.increment();
+                        rebobinar();
+                        log.warn("Mensagem do spool da routing key {} não confirmada ({}); reenviando a partir do checkpoint",
+                                routingKey, confirmacao == null ? "timeout" : confirmacao.getReason());
+                        return;
+                    }
+                }
+                emVoo.pollFirst();
+                confirmadas.increment();
+                confirmado = primeiro.segmento();
+                posicaoConfirmada = primeiro.fim();
+                checkpointAlterado = true;
+            }
+        }
+
+        private void rebobinar() {
+            reenvios.add(emVoo.size());
+            emVoo.clear();
+            leitura = confirmado;
+            posicaoLeitura = posicaoConfirmada;
+            esperaMs = Math.min(esperaMaximaMs, Math.max(intervaloDrenagemMs, esperaMs * 2));
+            proximaTentativa = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMs);
+        }
+
+        private void gravarCheckpoint() {
+            if (!checkpointAlterado) {
+                return;
+            }
+            checkpointAlterado = false;
+
+            // Checkpoint no fim de um segmento selado passa para o início do seguinte
+            Segmento segmento = confirmado;
+            while (segmento.selado && posicaoConfirmada == segmento.fim) {
+                Segmento seguinte = proximo(segmento);
+                if (seguinte == null) {
+                    break;
+                }
+                segmento = seguinte;
+                confirmado = segmento;
+                posicaoConfirmada = 0;
+            }
+
+            bufferCheckpoint.clear();
+            bufferCheckpoint.putLong(0, segmento.sequencia).putInt(8, posicaoConfirmada);
+            try {
+                checkpoint.write(bufferCheckpoint, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao gravar checkpoint do spool da routing key " + routingKey, e);
+            }
+
+            synchronized (this) {
+                while (segmentos.getFirst() != segmento) {
+                    Segmento removido = segmentos.removeFirst();
+                    try {
+                        Files.deleteIfExists(removido.arquivo);
+                    } catch (IOException e) {
+                        log.warn("Falha ao remover segmento {} do spool: {}", removido.arquivo, e.getMessage());
+                    }
+                }
+            }
+        }
+
+        private void sincronizar() {
+            Segmento atual;
+            synchronized (this) {
+                atual = escrita;
+            }
+            try {
+                atual.mapa.force();
+                checkpoint.force(false);
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Falha ao sincronizar spool da routing key {}: {}", routingKey, e.getMessage());
+            }
+        }
+
+        private synchronized Map<String, Object> estatisticas() {
+            Segmento segmentoConfirmado = confirmado;
+            long pendentes = -posicaoConfirmada;
+            boolean contar = false;
+            for (Segmento segmento : segmentos) {
+                contar |= segmento == segmentoConfirmado;
+                if (contar) {
+                    pendentes += segmento.fim;
+                }
+            }
+            Map<String, Object> estatisticas = new LinkedHashMap<>();
+            estatisticas.put("segmentos", segmentos.size());
+            estatisticas.put("bytesPendentes", Math.max(0, pendentes));
+            estatisticas.put("emVoo", quantidadeEmVoo);
+            return estatisticas;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum CampoLeitura {
+        TEMPERATURA,
+        PRESSAO,
+        UMIDADE,
+        CONSUMO_ENERGIA,
+        VELOCIDADE_COMPRESSOR,
+        STATUS
+    }
@@ -0,0 +1,7 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum EstadoAlerta {
+        ABERTO,
+        LEMBRETE,
+        RESOLVIDO
+    }
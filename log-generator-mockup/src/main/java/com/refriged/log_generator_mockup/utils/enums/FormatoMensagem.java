@@ -0,0 +1,16 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum FormatoMensagem {
+        JSON("application/json"),
+        BINARIO("application/x-refrigeracao-telemetria");
+
+        private final String contentType;
+
+        FormatoMensagem(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
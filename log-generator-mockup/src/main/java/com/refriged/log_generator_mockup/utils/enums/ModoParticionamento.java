@@ -0,0 +1,6 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum ModoParticionamento {
+        ROUTING_KEY,
+        HASH_CONSISTENTE
+    }
@@ -0,0 +1,8 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum NivelLog {
+        DEBUG,
+        INFO,
+        WARN,
+        ERROR
+    }
@@ -0,0 +1,8 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum TipoFalha {
+        DEGRADACAO_COMPRESSOR,
+        VAZAMENTO_REFRIGERANTE,
+        PORTA_ABERTA,
+        PARADA_CASCATA
+    }
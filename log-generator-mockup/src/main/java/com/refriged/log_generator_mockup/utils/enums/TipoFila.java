@@ -0,0 +1,17 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum TipoFila {
+        CLASSICA("classic"),
+        QUORUM("quorum"),
+        STREAM("stream");
+
+        private final String argumento;
+
+        TipoFila(String argumento) {
+            this.argumento = argumento;
+        }
+
+        public String getArgumento() {
+            return argumento;
+        }
+    }
@@ -0,0 +1,6 @@
+package com.refriged.log_generator_mockup.utils.enums;
+
+public enum TipoJanela {
+        FIXA,
+        DESLIZANTE
+    }
@@ -0,0 +1,110 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.model.CatalogoSistemas;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ida e volta de envelopes com itens JSON e binários, lidos pelo conversor montado no
+ * {@link RabbitMQConfig}, e separação dos itens como mensagens para o consumidor.
+ * Valores exatos em f32 para a comparação valer também no formato binário.
+ */
+class EnvelopeLeiturasMessageConverterTest {
+
+    private static final List<SistemaRefrigeracao> LEITURAS = List.of(
+            sistema("SYS-1", 0, StatusSistema.OPERACIONAL),
+            sistema("SYS-2", 1, StatusSistema.ALERTA),
+            sistema("CÂMARA-7", 2, StatusSistema.CRITICO));
+
+    private final MessageConverter conversor = new RabbitMQConfig().messageConverter();
+
+    @Test
+    void idaEVoltaComItensJson() {
+        Message envelope = new EnvelopeLeiturasMessageConverter(new Jackson2JsonMessageConverter())
+                .toMessage(LEITURAS, new MessageProperties());
+
+        assertEquals(EnvelopeLeiturasMessageConverter.CONTENT_TYPE, envelope.getMessageProperties().getContentType());
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON,
+                envelope.getMessageProperties().getHeader(EnvelopeLeiturasMessageConverter.HEADER_CONTENT_TYPE_ITENS));
+        assertEquals(LEITURAS, conversor.fromMessage(envelope));
+    }
+
+    @Test
+    void idaEVoltaComItensBinarios() {
+        Message envelope = new EnvelopeLeiturasMessageConverter(new TelemetriaBinariaMessageConverter())
+                .toMessage(LEITURAS, new MessageProperties());
+
+        assertEquals(TelemetriaBinariaMessageConverter.CONTENT_TYPE,
+                envelope.getMessageProperties().getHeader(EnvelopeLeiturasMessageConverter.HEADER_CONTENT_TYPE_ITENS));
+        assertEquals(3, (int) envelope.getMessageProperties().getHeader(EnvelopeLeiturasMessageConverter.HEADER_QUANTIDADE));
+        assertEquals(LEITURAS, conversor.fromMessage(envelope));
+    }
+
+    @Test
+    void desempacotarDevolveOsItensNaOrdem() {
+        TelemetriaBinariaMessageConverter binario = new TelemetriaBinariaMessageConverter();
+        Message envelope = new EnvelopeLeiturasMessageConverter(binario).toMessage(LEITURAS, new MessageProperties());
+
+        List<Message> itens = EnvelopeLeiturasMessageConverter.desempacotar(envelope);
+
+        assertEquals(LEITURAS.size(), itens.size());
+        for (int i = 0; i < itens.size(); i++) {
+            assertArrayEquals(binario.toMessage(LEITURAS.get(i), new MessageProperties()).getBody(), itens.get(i).getBody());
+            assertEquals(TelemetriaBinariaMessageConverter.CONTENT_TYPE, itens.get(i).getMessageProperties().getContentType());
+            assertEquals(LEITURAS.get(i), binario.fromMessage(itens.get(i)));
+        }
+    }
+
+    @Test
+    void envelopeTruncadoOuIncompletoERecusado() {
+        Message envelope = new EnvelopeLeiturasMessageConverter(new TelemetriaBinariaMessageConverter())
+                .toMessage(LEITURAS, new MessageProperties());
+        byte[] corpo = envelope.getBody();
+
+        for (int tamanho : new int[]{2, 30, corpo.length - 1}) {
+            Message truncado = new Message(Arrays.copyOf(corpo, tamanho), envelope.getMessageProperties());
+            assertThrows(MessageConversionException.class, () -> EnvelopeLeiturasMessageConverter.desempacotar(truncado),
+                    "Aceitou envelope com " + tamanho + " bytes");
+        }
+
+        // Itens inteiros, mas menos do que o header anuncia
+        envelope.getMessageProperties().setHeader(EnvelopeLeiturasMessageConverter.HEADER_QUANTIDADE, LEITURAS.size() + 1);
+        assertThrows(MessageConversionException.class, () -> EnvelopeLeiturasMessageConverter.desempacotar(envelope));
+
+        MessageProperties semHeader = new MessageProperties();
+        semHeader.setContentType(EnvelopeLeiturasMessageConverter.CONTENT_TYPE);
+        assertThrows(MessageConversionException.class, () -> conversor.fromMessage(new Message(corpo, semHeader)));
+    }
+
+    private static SistemaRefrigeracao sistema(String sistemaId, int indice, StatusSistema status) {
+        return SistemaRefrigeracao.builder()
+                .sistemaId(sistemaId)
+                .nomeSistema(CatalogoSistemas.NOMES_SISTEMAS[indice])
+                .localizacao(CatalogoSistemas.LOCALIZACOES[indice])
+                .timestamp(LocalDateTime.of(2024, 1, 15, 10, 30, 45 + indice))
+                .temperatura(-18.5 + indice)
+                .pressao(7.25)
+                .umidade(61.5)
+                .status(status)
+                .consumoEnergia(32.75)
+                .velocidadeCompressor(2875.5)
+                .observacoes(CatalogoSistemas.OBSERVACOES[indice])
+                .build();
+    }
+}
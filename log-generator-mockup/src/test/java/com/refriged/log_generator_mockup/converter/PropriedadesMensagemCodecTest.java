@@ -0,0 +1,81 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ida e volta das propriedades gravadas no spool e nas gravações, com content encoding e
+ * textos acima do limite de 64 KB do {@code writeUTF}.
+ */
+class PropriedadesMensagemCodecTest {
+
+    @Test
+    void idaEVoltaComContentEncodingETiposDeHeader() throws IOException {
+        MessageProperties propriedades = new MessageProperties();
+        propriedades.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        propriedades.setContentEncoding("UTF-8");
+        propriedades.setHeader(RabbitMQConfig.HEADER_SISTEMA, "CÂMARA-7");
+        propriedades.setHeader("inteiro", 42);
+        propriedades.setHeader("longo", 1_700_000_000_000L);
+        propriedades.setHeader("booleano", true);
+        // Só local: não é gravado
+        propriedades.setHeader("local", new Object());
+
+        MessageProperties lidas = idaEVolta(propriedades);
+
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, lidas.getContentType());
+        assertEquals("UTF-8", lidas.getContentEncoding());
+        assertEquals(Map.of(RabbitMQConfig.HEADER_SISTEMA, "CÂMARA-7", "inteiro", 42,
+                "longo", 1_700_000_000_000L, "booleano", true), lidas.getHeaders());
+    }
+
+    @Test
+    void textosAcimaDe64KbPassamInteiros() throws IOException {
+        String valor = "ç".repeat(50_000);
+        String contentType = "application/x-teste;" + "p".repeat(70_000);
+        MessageProperties propriedades = new MessageProperties();
+        propriedades.setContentType(contentType);
+        propriedades.setHeader("grande", valor);
+
+        MessageProperties lidas = idaEVolta(propriedades);
+
+        assertEquals(contentType, lidas.getContentType());
+        assertEquals(valor, lidas.getHeader("grande"));
+    }
+
+    @Test
+    void contentTypeEEncodingAusentesContinuamAusentes() throws IOException {
+        MessageProperties propriedades = new MessageProperties();
+        propriedades.setContentType(null);
+
+        MessageProperties lidas = idaEVolta(propriedades);
+
+        assertEquals(new MessageProperties().getContentType(), lidas.getContentType());
+        assertNull(lidas.getContentEncoding());
+        assertTrue(lidas.getHeaders().isEmpty());
+    }
+
+    private static MessageProperties idaEVolta(MessageProperties propriedades) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream saida = new DataOutputStream(bytes)) {
+            PropriedadesMensagemCodec.escrever(propriedades, saida);
+        }
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        MessageProperties lidas = PropriedadesMensagemCodec.ler(entrada);
+        assertEquals(-1, entrada.read(), "Sobraram bytes depois das propriedades");
+        return lidas;
+    }
+}
@@ -0,0 +1,185 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.refriged.log_generator_mockup.config.PublicacaoProperties;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.model.CatalogoSistemas;
+import com.refriged.log_generator_mockup.model.DetalhesLog;
+import com.refriged.log_generator_mockup.model.EventoLog;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.NivelLog;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Os writers pré-resolvidos, a leitura serializada uma vez e os detalhes reaproveitados
+ * entre eventos devem produzir os mesmos bytes e headers do
+ * {@link Jackson2JsonMessageConverter} configurado no {@link RabbitMQConfig}. Eventos de
+ * log são comparados com o mapa que era publicado antes do modelo tipado.
+ */
+class SerializadorJsonTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 1, 15, 10, 30, 45, 6_000_000);
+
+    private final Jackson2JsonMessageConverter jackson = new Jackson2JsonMessageConverter();
+    private final SerializadorJson serializador = new SerializadorJson();
+    private final ConversorMensagens conversor = new ConversorMensagens(
+            new ContentTypeDelegatingMessageConverter(jackson), new PublicacaoProperties(), serializador);
+
+    @Test
+    void leituraSerializadaIgualAoConversorJackson() {
+        for (SistemaRefrigeracao sistema : new SistemaRefrigeracao[]{sistema(), sistemaIncompleto()}) {
+            Message esperada = jackson.toMessage(sistema, new MessageProperties());
+            LeituraSerializada serializada = serializador.serializar(sistema);
+
+            assertArrayEquals(esperada.getBody(), serializada.json());
+            assertSame(serializada.json(), serializada.json(), "Leitura serializada mais de uma vez");
+            assertMensagemIgual(esperada, conversor.converter(RabbitMQConfig.ROUTING_KEY_DADOS, serializada));
+            assertMensagemIgual(esperada, conversor.converter(RabbitMQConfig.ROUTING_KEY_DADOS, sistema));
+        }
+    }
+
+    @Test
+    void leituraInternaComOFormatoDoSistema() {
+        for (SistemaRefrigeracao sistema : new SistemaRefrigeracao[]{sistema(), sistemaForaDoCatalogo()}) {
+            LeituraRefrigeracao leitura = LeituraRefrigeracao.de(sistema);
+
+            assertArrayEquals(jackson.toMessage(sistema, new MessageProperties()).getBody(), serializador.leitura(leitura));
+            assertMensagemIgual(jackson.toMessage(sistema, new MessageProperties()),
+                    conversor.converter(RabbitMQConfig.ROUTING_KEY_DADOS, leitura));
+        }
+    }
+
+    @Test
+    void eventoComDetalhesSerializadosIgualAoMapaPublicadoAntes() {
+        for (SistemaRefrigeracao sistema : new SistemaRefrigeracao[]{sistema(), sistemaIncompleto()}) {
+            // Endpoint com acentos: o JSON dos detalhes entra cru no evento e precisa continuar UTF-8
+            String endpoint = "/api/refrigeração/" + sistema.getSistemaId();
+            DetalhesLog compartilhados = serializador.serializar(sistema).detalhes(endpoint);
+
+            // Primeiro evento gera o JSON dos detalhes, o segundo reaproveita
+            for (NivelLog nivel : new NivelLog[]{NivelLog.INFO, NivelLog.WARN}) {
+                EventoLog evento = evento(sistema.getSistemaId(), nivel, compartilhados);
+                Message esperada = jackson.toMessage(mapaEvento(sistema, nivel, endpoint), new MessageProperties());
+
+                assertArrayEquals(esperada.getBody(), serializador.evento(evento));
+                assertArrayEquals(esperada.getBody(), jackson.toMessage(evento, new MessageProperties()).getBody());
+                assertMensagemIgual(esperada, conversor.converter(RabbitMQConfig.ROUTING_KEY_LOGS, evento));
+            }
+        }
+    }
+
+    @Test
+    void eventoMantemTimestampEmArrayETipoDoMapa() {
+        Message mensagem = conversor.converter(RabbitMQConfig.ROUTING_KEY_LOGS,
+                evento("SYS-001", NivelLog.INFO, DetalhesLog.erro("/api/refrigeracao/sistema", "falha")));
+
+        String json = new String(mensagem.getBody(), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"timestamp\":[2024,1,15,10,30,45,6000000]"), json);
+        assertEquals(HashMap.class.getName(),
+                mensagem.getMessageProperties().getHeaders().get(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME));
+    }
+
+    @Test
+    void eventoComAdicionaisAchatados() {
+        DetalhesLog detalhes = DetalhesLog.builder()
+                .endpoint("/api/refrigeracao/simulacao")
+                .quantidadeSistemas(3)
+                .adicionais(Map.of("ativa", true))
+                .build();
+        EventoLog evento = evento("SYS-001", NivelLog.INFO, detalhes);
+
+        assertArrayEquals(jackson.toMessage(evento, new MessageProperties()).getBody(), serializador.evento(evento));
+    }
+
+    private static void assertMensagemIgual(Message esperada, Message obtida) {
+        MessageProperties propriedades = esperada.getMessageProperties();
+        assertArrayEquals(esperada.getBody(), obtida.getBody());
+        assertEquals(propriedades.getContentType(), obtida.getMessageProperties().getContentType());
+        assertEquals(propriedades.getContentEncoding(), obtida.getMessageProperties().getContentEncoding());
+        assertEquals(propriedades.getContentLength(), obtida.getMessageProperties().getContentLength());
+        assertEquals(propriedades.getHeaders(), obtida.getMessageProperties().getHeaders());
+    }
+
+    // Payload de refrigeracao.logs antes do EventoLog: mapas com os campos presentes
+    private static Map<String, Object> mapaEvento(SistemaRefrigeracao sistema, NivelLog nivel, String endpoint) {
+        Map<String, Object> detalhes = new HashMap<>();
+        detalhes.put("endpoint", endpoint);
+        colocarSePresente(detalhes, "temperatura", sistema.getTemperatura());
+        colocarSePresente(detalhes, "pressao", sistema.getPressao());
+        colocarSePresente(detalhes, "umidade", sistema.getUmidade());
+        colocarSePresente(detalhes, "status", sistema.getStatus());
+        colocarSePresente(detalhes, "consumoEnergia", sistema.getConsumoEnergia());
+        colocarSePresente(detalhes, "velocidadeCompressor", sistema.getVelocidadeCompressor());
+
+        Map<String, Object> evento = new HashMap<>();
+        evento.put("sistemaId", sistema.getSistemaId());
+        evento.put("timestamp", TIMESTAMP);
+        evento.put("nivel", nivel.name());
+        evento.put("mensagem", "Dados gerados");
+        evento.put("detalhes", detalhes);
+        evento.put("origem", EventoLog.ORIGEM);
+        return evento;
+    }
+
+    private static void colocarSePresente(Map<String, Object> mapa, String chave, Object valor) {
+        if (valor != null) {
+            mapa.put(chave, valor);
+        }
+    }
+
+    private static EventoLog evento(String sistemaId, NivelLog nivel, DetalhesLog detalhes) {
+        return new EventoLog(sistemaId, TIMESTAMP, nivel, "Dados gerados", detalhes, EventoLog.ORIGEM);
+    }
+
+    private static SistemaRefrigeracao sistema() {
+        return SistemaRefrigeracao.builder()
+                .sistemaId("SYS-001")
+                .nomeSistema(CatalogoSistemas.NOMES_SISTEMAS[0])
+                .localizacao(CatalogoSistemas.LOCALIZACOES[0])
+                .timestamp(TIMESTAMP)
+                .temperatura(-18.37)
+                .pressao(7.25)
+                .umidade(61.4)
+                .status(StatusSistema.MANUTENCAO)
+                .consumoEnergia(32.8)
+                .velocidadeCompressor(2875.5)
+                .observacoes(CatalogoSistemas.OBSERVACOES[1])
+                .build();
+    }
+
+    // Textos fora do catálogo e nulos passam como vieram
+    private static SistemaRefrigeracao sistemaForaDoCatalogo() {
+        SistemaRefrigeracao sistema = sistema();
+        sistema.setNomeSistema("Túnel Experimental");
+        sistema.setLocalizacao(null);
+        sistema.setObservacoes("Sensor recalibrado");
+        return sistema;
+    }
+
+    // Campos nulos ficam fora dos detalhes e aparecem como null na leitura
+    private static SistemaRefrigeracao sistemaIncompleto() {
+        return SistemaRefrigeracao.builder()
+                .sistemaId("CÂMARA-7")
+                .timestamp(TIMESTAMP)
+                .temperatura(-4.0)
+                .pressao(3.5)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.refriged.log_generator_mockup.converter;
+
+import com.refriged.log_generator_mockup.model.CatalogoSistemas;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ida e volta do formato binário de telemetria e rejeição de mensagens truncadas ou
+ * com cabeçalho inválido. Textos ausentes voltam nulos; os fora do catálogo não cabem no
+ * formato e são recusados.
+ */
+class TelemetriaBinariaMessageConverterTest {
+
+    private final TelemetriaBinariaMessageConverter conversor = new TelemetriaBinariaMessageConverter();
+
+    @Test
+    void idaEVoltaPreservaALeitura() {
+        SistemaRefrigeracao original = sistema("SYS-001");
+
+        Message mensagem = conversor.toMessage(original, new MessageProperties());
+        SistemaRefrigeracao lido = (SistemaRefrigeracao) conversor.fromMessage(mensagem);
+
+        assertEquals(44, mensagem.getBody().length);
+        assertEquals(TelemetriaBinariaMessageConverter.CONTENT_TYPE, mensagem.getMessageProperties().getContentType());
+        assertEquals(TelemetriaBinariaMessageConverter.VERSAO,
+                (byte) mensagem.getMessageProperties().getHeaders().get(TelemetriaBinariaMessageConverter.HEADER_VERSAO));
+
+        assertEquals(original.getSistemaId(), lido.getSistemaId());
+        assertEquals(original.getNomeSistema(), lido.getNomeSistema());
+        assertEquals(original.getLocalizacao(), lido.getLocalizacao());
+        assertEquals(original.getObservacoes(), lido.getObservacoes());
+        assertEquals(original.getTimestamp(), lido.getTimestamp());
+        assertEquals(original.getStatus(), lido.getStatus());
+        // Valores medidos viajam em f32
+        assertEquals((float) original.getTemperatura().doubleValue(), lido.getTemperatura().floatValue());
+        assertEquals((float) original.getPressao().doubleValue(), lido.getPressao().floatValue());
+        assertEquals((float) original.getUmidade().doubleValue(), lido.getUmidade().floatValue());
+        assertEquals((float) original.getConsumoEnergia().doubleValue(), lido.getConsumoEnergia().floatValue());
+        assertEquals((float) original.getVelocidadeCompressor().doubleValue(),
+                lido.getVelocidadeCompressor().floatValue());
+    }
+
+    @Test
+    void sistemaIdEmUtf8() {
+        SistemaRefrigeracao original = sistema("CÂMARA-Ω-7");
+
+        SistemaRefrigeracao lido = (SistemaRefrigeracao) conversor.fromMessage(
+                conversor.toMessage(original, new MessageProperties()));
+
+        assertEquals("CÂMARA-Ω-7", lido.getSistemaId());
+    }
+
+    @Test
+    void mensagemTruncadaERecusada() {
+        byte[] completo = conversor.toMessage(sistema("SYS-001"), new MessageProperties()).getBody();
+
+        for (int tamanho = 0; tamanho < completo.length; tamanho++) {
+            Message truncada = new Message(Arrays.copyOf(completo, tamanho), new MessageProperties());
+            assertThrows(MessageConversionException.class, () -> conversor.fromMessage(truncada),
+                    "Aceitou mensagem com " + tamanho + " bytes");
+        }
+    }
+
+    @Test
+    void cabecalhoInvalidoERecusado() {
+        byte[] completo = conversor.toMessage(sistema("SYS-001"), new MessageProperties()).getBody();
+
+        byte[] magic = completo.clone();
+        magic[0] = '{';
+        byte[] versao = completo.clone();
+        versao[2] = 2;
+        byte[] status = completo.clone();
+        status[3] = (byte) StatusSistema.values().length;
+        byte[] catalogo = completo.clone();
+        catalogo[32] = (byte) CatalogoSistemas.NOMES_SISTEMAS.length;
+
+        for (byte[] corpo : new byte[][]{magic, versao, status, catalogo}) {
+            assertThrows(MessageConversionException.class,
+                    () -> conversor.fromMessage(new Message(corpo, new MessageProperties())));
+        }
+    }
+
+    @Test
+    void textosAusentesVoltamNulos() {
+        SistemaRefrigeracao original = sistema("SYS-001");
+        original.setNomeSistema(null);
+        original.setObservacoes(null);
+
+        SistemaRefrigeracao lido = (SistemaRefrigeracao) conversor.fromMessage(
+                conversor.toMessage(original, new MessageProperties()));
+
+        assertNull(lido.getNomeSistema());
+        assertEquals(original.getLocalizacao(), lido.getLocalizacao());
+        assertNull(lido.getObservacoes());
+    }
+
+    @Test
+    void textoForaDoCatalogoERecusado() {
+        SistemaRefrigeracao original = sistema("SYS-001");
+        original.setLocalizacao("Doca 9");
+
+        assertThrows(MessageConversionException.class, () -> conversor.toMessage(original, new MessageProperties()));
+    }
+
+    @Test
+    void somenteLeiturasSaoConvertidas() {
+        assertThrows(MessageConversionException.class, () -> conversor.toMessage("texto", new MessageProperties()));
+    }
+
+    private static SistemaRefrigeracao sistema(String sistemaId) {
+        return SistemaRefrigeracao.builder()
+                .sistemaId(sistemaId)
+                .nomeSistema(CatalogoSistemas.NOMES_SISTEMAS[2])
+                .localizacao(CatalogoSistemas.LOCALIZACOES[1])
+                .timestamp(LocalDateTime.of(2024, 1, 15, 10, 30, 45, 123_000_000))
+                .temperatura(-18.37)
+                .pressao(7.25)
+                .umidade(61.4)
+                .status(StatusSistema.ALERTA)
+                .consumoEnergia(32.8)
+                .velocidadeCompressor(2875.5)
+                .observacoes(CatalogoSistemas.OBSERVACOES[0])
+                .build();
+    }
+}
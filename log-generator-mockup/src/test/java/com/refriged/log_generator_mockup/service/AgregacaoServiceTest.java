@@ -0,0 +1,185 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.model.AgregadoSistema;
+import com.refriged.log_generator_mockup.model.AgregadoSistema.EstatisticasMetrica;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+import com.refriged.log_generator_mockup.utils.enums.TipoJanela;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Percentil por histograma e fusão dos painéis da janela deslizante. Temperatura em
+ * [0, 100] com 10 buckets de largura 10, janela de 60 s e deslizante de 3 painéis; as
+ * janelas fecham pelo tempo das leituras, como no modo determinístico.
+ */
+class AgregacaoServiceTest {
+
+    private static final long JANELA_MILLIS = 60_000;
+    private static final long JANELA_BASE = 28_333_334L;
+
+    private final RabbitMQProducerService producer = mock(RabbitMQProducerService.class);
+    private AgregacaoService agregacao;
+
+    @BeforeEach
+    void preparar() {
+        EstadoSensores estadoSensores = mock(EstadoSensores.class);
+        when(estadoSensores.isDeterministico()).thenReturn(true);
+
+        agregacao = new AgregacaoService(producer, estadoSensores);
+        ReflectionTestUtils.setField(agregacao, "habilitada", true);
+        ReflectionTestUtils.setField(agregacao, "janelaSegundos", 60L);
+        ReflectionTestUtils.setField(agregacao, "paineisDeslizante", 3);
+        ReflectionTestUtils.setField(agregacao, "percentil", 0.9);
+        ReflectionTestUtils.setField(agregacao, "buckets", 10);
+        ReflectionTestUtils.setField(agregacao, "temperaturaMin", 0.0);
+        ReflectionTestUtils.setField(agregacao, "temperaturaMax", 100.0);
+        ReflectionTestUtils.setField(agregacao, "pressaoMin", 0.0);
+        ReflectionTestUtils.setField(agregacao, "pressaoMax", 10.0);
+        ReflectionTestUtils.setField(agregacao, "consumoMin", 0.0);
+        ReflectionTestUtils.setField(agregacao, "consumoMax", 50.0);
+        agregacao.iniciar();
+    }
+
+    @AfterEach
+    void encerrar() {
+        agregacao.encerrar();
+    }
+
+    @Test
+    void percentilInterpolaDentroDoBucket() {
+        // Uma leitura por bucket: 5, 15, ..., 95
+        for (int i = 0; i < 10; i++) {
+            agregacao.processar(leitura(0, i, 5.0 + 10 * i));
+        }
+        agregacao.processar(leitura(1, 0, 50.0));
+
+        EstatisticasMetrica temperatura = agregado(TipoJanela.FIXA, 0).getTemperatura();
+        assertEquals(5.0, temperatura.getMinimo());
+        assertEquals(95.0, temperatura.getMaximo());
+        assertEquals(50.0, temperatura.getMedia(), 1e-9);
+        // Nona leitura de dez cai no bucket [80, 90) e ocupa o bucket inteiro
+        assertEquals(90.0, temperatura.getValorPercentil(), 1e-9);
+        // O exato (85) fica a no máximo uma largura de bucket
+        assertEquals(85.0, temperatura.getValorPercentil(), 10.0);
+    }
+
+    @Test
+    void percentilLimitadoAoMinimoEMaximoExatos() {
+        for (int i = 0; i < 5; i++) {
+            agregacao.processar(leitura(0, i, 42.0));
+        }
+        // Fora da faixa vai para o bucket da borda, mas mínimo e máximo continuam exatos
+        agregacao.processar(leitura(0, 5, -7.0));
+        agregacao.processar(leitura(0, 6, 130.0));
+        agregacao.processar(leitura(1, 0, 50.0));
+
+        EstatisticasMetrica temperatura = agregado(TipoJanela.FIXA, 0).getTemperatura();
+        assertEquals(-7.0, temperatura.getMinimo());
+        assertEquals(130.0, temperatura.getMaximo());
+        // A última leitura está no bucket [90, 100), que termina no limite da faixa
+        assertEquals(100.0, temperatura.getValorPercentil(), 1e-9);
+
+        agregacao.processar(leitura(2, 0, 42.0));
+        agregacao.processar(leitura(2, 1, 42.0));
+        agregacao.processar(leitura(3, 0, 50.0));
+
+        // Bucket [40, 50) interpolaria para 50, acima do máximo observado
+        assertEquals(42.0, agregado(TipoJanela.FIXA, 2).getTemperatura().getValorPercentil(), 1e-9);
+    }
+
+    @Test
+    void deslizanteFundeOsUltimosPaineis() {
+        agregacao.processar(leitura(0, 0, 10.0));
+        agregacao.processar(leitura(0, 1, 20.0));
+        agregacao.processar(leitura(1, 0, 30.0));
+        agregacao.processar(leitura(2, 0, 60.0));
+        agregacao.processar(leitura(2, 1, 80.0));
+        agregacao.processar(leitura(3, 0, 50.0));
+
+        AgregadoSistema fixa = agregado(TipoJanela.FIXA, 2);
+        assertEquals(2, fixa.getQuantidadeLeituras());
+        assertEquals(70.0, fixa.getTemperatura().getMedia(), 1e-9);
+
+        AgregadoSistema deslizante = agregado(TipoJanela.DESLIZANTE, 2);
+        assertEquals(inicio(0), deslizante.getInicio());
+        assertEquals(inicio(3), deslizante.getFim());
+        assertEquals(5, deslizante.getQuantidadeLeituras());
+        assertEquals(10.0, deslizante.getTemperatura().getMinimo());
+        assertEquals(80.0, deslizante.getTemperatura().getMaximo());
+        assertEquals(40.0, deslizante.getTemperatura().getMedia(), 1e-9);
+        // Quinta de cinco leituras: bucket [80, 90) com uma leitura, limitado ao máximo
+        assertEquals(80.0, deslizante.getTemperatura().getValorPercentil(), 1e-9);
+    }
+
+    @Test
+    void deslizanteIgnoraPaineisDeJanelasAntigas() {
+        agregacao.processar(leitura(0, 0, 10.0));
+        agregacao.processar(leitura(1, 0, 20.0));
+        // Salto de três janelas: os painéis de 0 e 1 continuam no anel, mas ficam fora de [3, 5]
+        agregacao.processar(leitura(5, 0, 90.0));
+        agregacao.processar(leitura(6, 0, 50.0));
+
+        AgregadoSistema deslizante = agregado(TipoJanela.DESLIZANTE, 5);
+        assertEquals(1, deslizante.getQuantidadeLeituras());
+        assertEquals(90.0, deslizante.getTemperatura().getMinimo());
+        assertEquals(90.0, deslizante.getTemperatura().getMedia(), 1e-9);
+    }
+
+    @Test
+    void leituraDeJanelaJaFechadaEDescartada() {
+        agregacao.processar(leitura(0, 0, 10.0));
+        agregacao.processar(leitura(1, 0, 20.0));
+        agregacao.processar(leitura(0, 1, 99.0));
+        agregacao.processar(leitura(2, 0, 50.0));
+
+        assertEquals(1L, agregacao.estatisticas().get("leiturasAtrasadas"));
+        AgregadoSistema fixa = agregado(TipoJanela.FIXA, 1);
+        assertEquals(1, fixa.getQuantidadeLeituras());
+        assertEquals(20.0, fixa.getTemperatura().getMaximo());
+    }
+
+    private AgregadoSistema agregado(TipoJanela tipo, int janela) {
+        ArgumentCaptor<AgregadoSistema> publicados = ArgumentCaptor.forClass(AgregadoSistema.class);
+        verify(producer, atLeast(1)).enfileirarAgregado(publicados.capture());
+        List<AgregadoSistema> encontrados = publicados.getAllValues().stream()
+                .filter(agregado -> agregado.getTipoJanela() == tipo)
+                .filter(agregado -> agregado.getFim().equals(inicio(janela + 1)))
+                .toList();
+        assertEquals(1, encontrados.size(), tipo + " da janela " + janela);
+        return encontrados.get(0);
+    }
+
+    private static LocalDateTime inicio(int janela) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli((JANELA_BASE + janela) * JANELA_MILLIS), ZoneId.systemDefault());
+    }
+
+    private static LeituraRefrigeracao leitura(int janela, int segundo, double temperatura) {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        leitura.setIndice(7);
+        leitura.setSistemaId("SYS-7");
+        leitura.setTimestampMillis((JANELA_BASE + janela) * JANELA_MILLIS + segundo * 1_000L);
+        leitura.setTemperatura(temperatura);
+        leitura.setPressao(5.0);
+        leitura.setUmidade(50.0);
+        leitura.setConsumoEnergia(20.0);
+        leitura.setVelocidadeCompressor(1500.0);
+        leitura.setStatus(StatusSistema.OPERACIONAL);
+        return leitura;
+    }
+}
@@ -0,0 +1,181 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Histórico em anel, remoção do slot menos recente com o cache cheio e consistência do
+ * seqlock: com escritas e remoções concorrentes, quem lê nunca vê uma leitura misturada
+ * nem uma leitura de outro sistema.
+ */
+class CacheLeiturasTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+
+    @Test
+    void historicoDaMaisRecenteParaAMaisAntiga() {
+        CacheLeituras cache = cache(4, 3);
+        for (int k = 0; k < 10; k++) {
+            cache.registrar(leitura(5, k));
+        }
+
+        LeituraRefrigeracao ultima = new LeituraRefrigeracao();
+        assertTrue(cache.ultima(5, ultima));
+        assertEquals(9.0, ultima.getPressao());
+        assertEquals("SYS-6", ultima.getSistemaId());
+
+        // Histórico arredondado para 4 posições
+        List<SistemaRefrigeracao> historico = cache.historico(5, 10);
+        assertEquals(List.of(9.0, 8.0, 7.0, 6.0), historico.stream().map(SistemaRefrigeracao::getPressao).toList());
+        assertEquals(2, cache.historico(5, 2).size());
+
+        assertFalse(cache.ultima(6, new LeituraRefrigeracao()));
+        assertTrue(cache.historico(6, 4).isEmpty());
+    }
+
+    @Test
+    void cacheCheioRemoveOMenosRecente() {
+        // Oito slots: a amostra de remoção cobre o cache inteiro
+        CacheLeituras cache = cache(8, 2);
+        int[] ordem = {3, 0, 7, 1, 6, 2, 5, 4};
+        for (int indice = 0; indice < 8; indice++) {
+            cache.registrar(leitura(indice, 100 + ordem[indice]));
+        }
+
+        cache.registrar(leitura(8, 200));
+        assertFalse(cache.ultima(1, new LeituraRefrigeracao()), "Sistema com a leitura mais antiga continuou no cache");
+        assertTrue(cache.ultima(8, new LeituraRefrigeracao()));
+
+        cache.registrar(leitura(9, 201));
+        assertFalse(cache.ultima(3, new LeituraRefrigeracao()));
+        for (int indice : new int[]{0, 2, 4, 5, 6, 7, 8, 9}) {
+            assertTrue(cache.ultima(indice, new LeituraRefrigeracao()), "SYS-" + (indice + 1) + " saiu do cache");
+        }
+        assertEquals(2L, cache.estatisticas().get("remocoes"));
+        assertEquals(8, cache.estatisticas().get("ocupados"));
+
+        // O slot reaproveitado não carrega histórico do sistema anterior
+        assertEquals(1, cache.historico(8, 2).size());
+    }
+
+    @Test
+    void leiturasConcorrentesNuncaVeemEstadoMisturado() throws Exception {
+        // Mais sistemas que slots: os slots trocam de dono enquanto são lidos
+        int slots = 4;
+        int sistemasPorEscritor = 4;
+        int escritores = 2;
+        CacheLeituras cache = cache(slots, 4);
+        AtomicBoolean parar = new AtomicBoolean();
+        ExecutorService threads = Executors.newFixedThreadPool(escritores + 2);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int w = 0; w < escritores; w++) {
+                int escritor = w;
+                tarefas.add(threads.submit(() -> {
+                    LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+                    for (long k = 1; !parar.get(); k++) {
+                        int indice = escritor + escritores * (int) (k % sistemasPorEscritor);
+                        preencher(leitura, indice, k);
+                        cache.registrar(leitura);
+                    }
+                }));
+            }
+            int sistemas = escritores * sistemasPorEscritor;
+            tarefas.add(threads.submit(() -> {
+                LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+                while (!parar.get()) {
+                    for (int indice = 0; indice < sistemas; indice++) {
+                        if (cache.ultima(indice, leitura)) {
+                            assertConsistente(indice, leitura.getSistemaId(), leitura.getTemperatura(),
+                                    leitura.getPressao(), leitura.getUmidade(), leitura.getConsumoEnergia(),
+                                    leitura.getVelocidadeCompressor(), leitura.getTimestampMillis());
+                        }
+                    }
+                }
+            }));
+            tarefas.add(threads.submit(() -> {
+                while (!parar.get()) {
+                    for (int indice = 0; indice < sistemas; indice++) {
+                        double anterior = Double.MAX_VALUE;
+                        for (SistemaRefrigeracao sistema : cache.historico(indice, 4)) {
+                            assertConsistente(indice, sistema.getSistemaId(), sistema.getTemperatura(),
+                                    sistema.getPressao(), sistema.getUmidade(), sistema.getConsumoEnergia(),
+                                    sistema.getVelocidadeCompressor(),
+                                    sistema.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                            assertTrue(sistema.getPressao() < anterior, "Histórico fora de ordem");
+                            anterior = sistema.getPressao();
+                        }
+                    }
+                }
+            }));
+
+            Thread.sleep(1_000);
+            parar.set(true);
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            parar.set(true);
+            threads.shutdownNow();
+        }
+
+        assertTrue((long) cache.estatisticas().get("remocoes") > 0, "Nenhum slot trocou de dono");
+        assertTrue((long) cache.estatisticas().get("acertos") > 0);
+    }
+
+    // Cada campo é derivado do mesmo contador; uma cópia rasgada mistura contadores
+    private static void assertConsistente(int indice, String sistemaId, double temperatura, double pressao,
+                                          double umidade, double consumo, double rotacao, long timestampMillis) {
+        assertEquals("SYS-" + (indice + 1), sistemaId);
+        assertEquals(-indice, temperatura);
+        assertEquals(pressao, umidade);
+        assertEquals(pressao, consumo);
+        assertEquals(pressao, rotacao);
+        assertEquals(INICIO + (long) pressao, timestampMillis);
+    }
+
+    private static CacheLeituras cache(int maxSistemas, int historico) {
+        CacheLeituras cache = new CacheLeituras(mock(ParticionamentoSistemas.class));
+        ReflectionTestUtils.setField(cache, "habilitado", true);
+        ReflectionTestUtils.setField(cache, "maxSistemas", maxSistemas);
+        ReflectionTestUtils.setField(cache, "historico", historico);
+        cache.iniciar();
+        return cache;
+    }
+
+    private static LeituraRefrigeracao leitura(int indice, long contador) {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        preencher(leitura, indice, contador);
+        return leitura;
+    }
+
+    private static void preencher(LeituraRefrigeracao leitura, int indice, long contador) {
+        leitura.setIndice(indice);
+        leitura.setSistemaId("SYS-" + (indice + 1));
+        leitura.setTimestampMillis(INICIO + contador);
+        leitura.setTemperatura(-indice);
+        leitura.setPressao(contador);
+        leitura.setUmidade(contador);
+        leitura.setConsumoEnergia(contador);
+        leitura.setVelocidadeCompressor(contador);
+        leitura.setStatus(StatusSistema.OPERACIONAL);
+    }
+}
@@ -0,0 +1,74 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.PublicacaoProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Com conexões em listras o broker bloqueia e desbloqueia cada uma separadamente: a
+ * publicação só volta quando nenhuma segue bloqueada.
+ */
+class ControleVazaoPublicacaoTest {
+
+    private ControleVazaoPublicacao controle;
+
+    @BeforeEach
+    void preparar() {
+        controle = new ControleVazaoPublicacao(mock(RabbitTemplate.class), new PublicacaoProperties(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(controle, "habilitado", true);
+        ReflectionTestUtils.setField(controle, "taxaInicial", 5000.0);
+        ReflectionTestUtils.setField(controle, "taxaMinima", 100.0);
+        ReflectionTestUtils.setField(controle, "taxaMaxima", 200_000.0);
+        ReflectionTestUtils.setField(controle, "incremento", 1000.0);
+        ReflectionTestUtils.setField(controle, "fatorReducao", 0.5);
+        ReflectionTestUtils.setField(controle, "latenciaAlvoMs", 200.0);
+        // Sem ajustes nem consulta às filas durante o teste
+        ReflectionTestUtils.setField(controle, "intervaloAjusteMs", 600_000L);
+        ReflectionTestUtils.setField(controle, "profundidadeMaximaFila", 0L);
+        controle.iniciar();
+    }
+
+    @AfterEach
+    void encerrar() {
+        controle.encerrar();
+    }
+
+    @Test
+    void desbloqueioDeUmaConexaoNaoLiberaAsOutras() {
+        Connection primeira = conexao();
+        Connection segunda = conexao();
+
+        controle.conexaoBloqueada(new ConnectionBlockedEvent(primeira, "memória"));
+        controle.conexaoBloqueada(new ConnectionBlockedEvent(segunda, "memória"));
+        controle.conexaoDesbloqueada(new ConnectionUnblockedEvent(primeira));
+
+        assertFalse(controle.permitir());
+        assertEquals(true, controle.estado().get("bloqueado"));
+        assertEquals(1, controle.estado().get("conexoesBloqueadas"));
+
+        controle.conexaoDesbloqueada(new ConnectionUnblockedEvent(segunda));
+
+        assertEquals(false, controle.estado().get("bloqueado"));
+        assertEquals(0, controle.estado().get("conexoesBloqueadas"));
+    }
+
+    private static Connection conexao() {
+        Connection conexao = mock(Connection.class);
+        when(conexao.isOpen()).thenReturn(true);
+        return conexao;
+    }
+}
@@ -0,0 +1,139 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.AlertasProperties;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.CampoLeitura;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Abertura, lembrete e resolução de alertas com histerese e cooldown. A regra de
+ * temperatura dispara fora de [-30, 0] e só resolve dentro de [-29, -1].
+ */
+class DeduplicadorAlertasTest {
+
+    private static final long INICIO = 1_700_000_000_000L;
+    private static final long TEMPERATURA = 1L;
+    private static final long PRESSAO = 1L << 1;
+
+    private DeduplicadorAlertas deduplicador;
+    private MotorRegrasAlerta.TabelaRegras regras;
+    private final DeduplicadorAlertas.Transicoes transicoes = new DeduplicadorAlertas.Transicoes();
+
+    @BeforeEach
+    void preparar() {
+        AlertasProperties properties = new AlertasProperties();
+        properties.getDeduplicacao().setCooldownSegundos(60);
+        properties.getDeduplicacao().setLembreteSegundos(300);
+        deduplicador = new DeduplicadorAlertas(properties);
+        deduplicador.iniciar();
+        regras = new MotorRegrasAlerta.TabelaRegras(List.of(
+                regra("TEMPERATURA_CRITICA", CampoLeitura.TEMPERATURA, -30.0, 0.0, 1.0),
+                regra("PRESSAO_CRITICA", CampoLeitura.PRESSAO, 0.5, 20.0, 0.25)), 1);
+    }
+
+    @AfterEach
+    void encerrar() {
+        deduplicador.encerrar();
+    }
+
+    @Test
+    void abreUmaVezELembraDepoisDoIntervalo() {
+        assertTrue(processar(0, 2.0, 5.0));
+        assertEquals(TEMPERATURA, transicoes.abertos());
+
+        assertFalse(processar(10, 3.0, 5.0), "Disparo repetido deveria ser suprimido");
+        assertFalse(processar(299, 3.0, 5.0));
+
+        assertTrue(processar(300, 3.0, 5.0));
+        assertEquals(0, transicoes.abertos());
+        assertEquals(TEMPERATURA, transicoes.lembretes());
+    }
+
+    @Test
+    void resolveSoDepoisDeUmCooldownInteiroNaFaixaDeResolucao() {
+        processar(0, 2.0, 5.0);
+
+        // Dentro da faixa de disparo, mas ainda na histerese: continua aberto
+        assertFalse(processar(10, -0.5, 5.0));
+        assertFalse(processar(80, -0.5, 5.0));
+
+        assertFalse(processar(90, -5.0, 5.0));
+        assertFalse(processar(149, -5.0, 5.0));
+        assertTrue(processar(150, -5.0, 5.0));
+        assertEquals(TEMPERATURA, transicoes.resolvidos());
+
+        assertFalse(processar(400, -5.0, 5.0), "Alerta resolvido não deveria gerar lembrete");
+    }
+
+    @Test
+    void saidaDaFaixaDeResolucaoCancelaAResolucao() {
+        processar(0, 2.0, 5.0);
+        processar(10, -5.0, 5.0);
+
+        // Volta para a histerese sem disparar: a resolução em curso é cancelada
+        assertFalse(processar(40, -0.5, 5.0));
+        assertFalse(processar(70, -5.0, 5.0));
+        assertFalse(processar(129, -5.0, 5.0), "Cooldown deveria recomeçar ao voltar à faixa de resolução");
+        assertTrue(processar(130, -5.0, 5.0));
+        assertEquals(TEMPERATURA, transicoes.resolvidos());
+    }
+
+    @Test
+    void disparoDuranteAResolucaoReabreEmSilencio() {
+        processar(0, 2.0, 5.0);
+        processar(10, -5.0, 5.0);
+
+        assertFalse(processar(20, 2.0, 5.0), "Oscilação não deveria publicar nova abertura");
+        assertFalse(processar(30, -5.0, 5.0));
+        assertTrue(processar(90, -5.0, 5.0));
+        assertEquals(TEMPERATURA, transicoes.resolvidos());
+        assertEquals(0, transicoes.abertos());
+    }
+
+    @Test
+    void regraQueEntraEmResolucaoNaoEncurtaOCooldownDasOutras() {
+        processar(0, 2.0, 30.0);
+        assertEquals(TEMPERATURA | PRESSAO, transicoes.abertos());
+
+        processar(10, -5.0, 30.0);
+        processar(50, -5.0, 5.0);
+
+        // A temperatura só fecha junto com a pressão, um cooldown depois da última entrada
+        assertFalse(processar(70, -5.0, 5.0));
+        assertTrue(processar(110, -5.0, 5.0));
+        assertEquals(TEMPERATURA | PRESSAO, transicoes.resolvidos());
+    }
+
+    private boolean processar(int segundos, double temperatura, double pressao) {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        leitura.setIndice(7);
+        leitura.setSistemaId("REF-007");
+        leitura.setTimestampMillis(INICIO + segundos * 1000L);
+        leitura.setTemperatura(temperatura);
+        leitura.setPressao(pressao);
+        leitura.setStatus(StatusSistema.OPERACIONAL);
+        return deduplicador.processar(regras, leitura, regras.avaliar(leitura), transicoes);
+    }
+
+    private static AlertasProperties.Regra regra(String tipo, CampoLeitura campo, double minimo, double maximo,
+                                                 double histerese) {
+        AlertasProperties.Regra regra = new AlertasProperties.Regra();
+        regra.setTipo(tipo);
+        regra.setCampo(campo);
+        regra.setMinimo(minimo);
+        regra.setMaximo(maximo);
+        regra.setHisterese(histerese);
+        regra.setSeveridade("HIGH");
+        return regra;
+    }
+}
@@ -0,0 +1,156 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.EnvelopeLeiturasMessageConverter;
+import com.refriged.log_generator_mockup.converter.TelemetriaBinariaMessageConverter;
+import com.refriged.log_generator_mockup.model.CatalogoSistemas;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Envelopes fechados pelo limite de bytes voltam inteiros pelo conversor do consumidor,
+ * e a entrega fora do lock de empacotamento mantém a ordem de fechamento com várias
+ * threads produtoras.
+ */
+class EmpacotadorEnvelopeTest {
+
+    private final RabbitMQBatchPublisher batchPublisher = mock(RabbitMQBatchPublisher.class);
+    private final List<Message> entregues = Collections.synchronizedList(new ArrayList<>());
+    private EmpacotadorEnvelope empacotador;
+
+    @BeforeEach
+    void preparar() {
+        doAnswer(invocacao -> entregues.add(invocacao.getArgument(1)))
+                .when(batchPublisher).enfileirarMensagem(eq(RabbitMQConfig.ROUTING_KEY_DADOS), any(Message.class));
+        RoteamentoParticoes roteamentoParticoes = mock(RoteamentoParticoes.class);
+        when(roteamentoParticoes.quantidade(RabbitMQConfig.ROUTING_KEY_DADOS)).thenReturn(1);
+        when(roteamentoParticoes.chaveEnvelope(anyString(), any(Integer.class), any())).thenAnswer(i -> i.getArgument(2));
+
+        empacotador = new EmpacotadorEnvelope(batchPublisher, roteamentoParticoes);
+        ReflectionTestUtils.setField(empacotador, "habilitado", true);
+        // Quatro quadros binários de 44 bytes por envelope; o linger não fecha nada durante o teste
+        ReflectionTestUtils.setField(empacotador, "maxBytes", 200);
+        ReflectionTestUtils.setField(empacotador, "lingerMs", 600_000L);
+        empacotador.iniciar();
+    }
+
+    @AfterEach
+    void encerrar() {
+        empacotador.encerrar();
+    }
+
+    @Test
+    void envelopesFechadosVoltamPeloConversor() {
+        TelemetriaBinariaMessageConverter binario = new TelemetriaBinariaMessageConverter();
+        List<SistemaRefrigeracao> leituras = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SistemaRefrigeracao leitura = sistema(i);
+            leituras.add(leitura);
+            Message mensagem = binario.toMessage(leitura, new MessageProperties());
+            mensagem.getMessageProperties().setHeader(RabbitMQConfig.HEADER_SISTEMA, leitura.getSistemaId());
+            empacotador.adicionar(mensagem, 1_700_000_000_000L + i);
+        }
+        empacotador.fechar();
+
+        assertEquals(List.of(4, 4, 2), entregues.stream()
+                .map(envelope -> (int) envelope.getMessageProperties().getHeader(EnvelopeLeiturasMessageConverter.HEADER_QUANTIDADE))
+                .toList());
+        assertEquals(1_700_000_000_004L, (long) entregues.get(1).getMessageProperties()
+                .getHeader(EnvelopeLeiturasMessageConverter.HEADER_TIMESTAMP_INICIO));
+
+        MessageConverter conversor = new RabbitMQConfig().messageConverter();
+        List<Object> lidas = new ArrayList<>();
+        for (Message envelope : entregues) {
+            assertEquals(EnvelopeLeiturasMessageConverter.CONTENT_TYPE, envelope.getMessageProperties().getContentType());
+            lidas.addAll((List<?>) conversor.fromMessage(envelope));
+        }
+        assertEquals(leituras, lidas);
+        assertEquals(3, empacotador.envelopesEnviados());
+        assertEquals(10, empacotador.leiturasEmpacotadas());
+    }
+
+    @Test
+    void entregaNaOrdemDeFechamentoComProdutoresConcorrentes() throws Exception {
+        int produtores = 4;
+        int porProdutor = 5_000;
+        ExecutorService threads = Executors.newFixedThreadPool(produtores);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int p = 0; p < produtores; p++) {
+                int produtor = p;
+                tarefas.add(threads.submit(() -> {
+                    for (int sequencia = 0; sequencia < porProdutor; sequencia++) {
+                        byte[] corpo = ByteBuffer.allocate(2 * Integer.BYTES).putInt(produtor).putInt(sequencia).array();
+                        MessageProperties propriedades = new MessageProperties();
+                        propriedades.setContentType(MessageProperties.CONTENT_TYPE_BYTES);
+                        empacotador.adicionar(new Message(corpo, propriedades), sequencia);
+                    }
+                }));
+            }
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        empacotador.fechar();
+
+        int[] proxima = new int[produtores];
+        for (Message envelope : entregues) {
+            for (Message item : EnvelopeLeiturasMessageConverter.desempacotar(envelope)) {
+                ByteBuffer corpo = ByteBuffer.wrap(item.getBody());
+                int produtor = corpo.getInt();
+                int sequencia = corpo.getInt();
+                assertEquals(proxima[produtor], sequencia, "Item do produtor " + produtor + " fora de ordem");
+                proxima[produtor]++;
+            }
+        }
+        for (int p = 0; p < produtores; p++) {
+            assertEquals(porProdutor, proxima[p]);
+        }
+        assertTrue(entregues.size() > 1);
+    }
+
+    private static SistemaRefrigeracao sistema(int i) {
+        return SistemaRefrigeracao.builder()
+                .sistemaId("SYS-" + (i + 1))
+                .nomeSistema(CatalogoSistemas.NOMES_SISTEMAS[i % CatalogoSistemas.NOMES_SISTEMAS.length])
+                .localizacao(CatalogoSistemas.LOCALIZACOES[i % CatalogoSistemas.LOCALIZACOES.length])
+                .timestamp(LocalDateTime.of(2024, 1, 15, 10, 30, i))
+                .temperatura(-18.5 + i)
+                .pressao(7.25)
+                .umidade(61.5)
+                .status(StatusSistema.OPERACIONAL)
+                .consumoEnergia(32.75)
+                .velocidadeCompressor(2875.5)
+                .observacoes(CatalogoSistemas.OBSERVACOES[i % CatalogoSistemas.OBSERVACOES.length])
+                .build();
+    }
+}
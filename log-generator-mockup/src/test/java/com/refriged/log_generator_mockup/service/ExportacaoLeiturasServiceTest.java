@@ -0,0 +1,113 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.refriged.log_generator_mockup.LogGeneratorMockupApplication;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * No modo determinístico a exportação deve produzir os mesmos bytes para qualquer número
+ * de threads, inclusive com um cenário de falha ativo. Cada contagem de threads roda num
+ * contexto novo, partindo do mesmo estado. Com o particionamento, só os sistemas do nó
+ * são exportados, sem registro no cache.
+ */
+class ExportacaoLeiturasServiceTest {
+
+    private static final int SISTEMAS = 10_000;
+    private static final int PASSADAS = 3;
+    private static final String CENARIO = "degradacao-compressores";
+
+    @Test
+    void saidaDeterministicaIndependeDoNumeroDeThreads() throws Exception {
+        String referencia = hashExportacao(1, false);
+
+        for (int paralelismo : new int[]{2, 4, 8}) {
+            assertEquals(referencia, hashExportacao(paralelismo, false), "Saída diferente com " + paralelismo + " threads");
+        }
+    }
+
+    @Test
+    void cenarioDeFalhaSegueORelogioLogico() throws Exception {
+        String referencia = hashExportacao(1, true);
+
+        // O cenário começa no relógio lógico e altera as leituras
+        assertNotEquals(hashExportacao(1, false), referencia, "Cenário não alterou a saída");
+        for (int paralelismo : new int[]{2, 4, 8}) {
+            assertEquals(referencia, hashExportacao(paralelismo, true), "Saída diferente com " + paralelismo + " threads");
+        }
+    }
+
+    @Test
+    void exportaSoOsSistemasDoNo() throws Exception {
+        RefrigeracaoDataService dataService = mock(RefrigeracaoDataService.class);
+        doAnswer(invocacao -> {
+            invocacao.<LeituraRefrigeracao>getArgument(2).setSistemaId(invocacao.getArgument(1));
+            return null;
+        }).when(dataService).gerarLeituraSemCache(anyInt(), anyString(), any(LeituraRefrigeracao.class));
+        ParticionamentoSistemas particionamento = mock(ParticionamentoSistemas.class);
+        when(particionamento.pertence(anyInt())).thenAnswer(invocacao -> invocacao.<Integer>getArgument(0) % 3 == 0);
+        ExportacaoLeiturasService exportacao = new ExportacaoLeiturasService(dataService, particionamento,
+                new ObjectMapper().findAndRegisterModules());
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacao.exportar(10, 9, FormatoMensagem.JSON, 1, saida);
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, linhas.length);
+        for (int i = 0; i < linhas.length; i++) {
+            assertTrue(linhas[i].contains("\"sistemaId\":\"" + RefrigeracaoDataService.idSistema(12 + 3 * i + 1) + "\""), linhas[i]);
+        }
+        // A exportação não passa pelo cache de últimas leituras
+        verify(dataService, never()).gerarLeitura(anyInt(), anyString(), any(LeituraRefrigeracao.class));
+    }
+
+    private static String hashExportacao(int paralelismo, boolean comCenario) throws Exception {
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(LogGeneratorMockupApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--app.refrigeracao.deterministico.habilitado=true",
+                        "--app.refrigeracao.deterministico.semente=20240101",
+                        "--app.refrigeracao.cenarios.definicoes[0].nome=" + CENARIO,
+                        "--app.refrigeracao.cenarios.definicoes[0].tipo=degradacao-compressor",
+                        "--app.refrigeracao.cenarios.definicoes[0].rampa-segundos=2")) {
+            ExportacaoLeiturasService exportacao = contexto.getBean(ExportacaoLeiturasService.class);
+            if (comCenario) {
+                // Rampa curta: a degradação já aparece na segunda passada
+                contexto.getBean(InjetorFalhas.class).iniciar(CENARIO, 0.5, 7L, null);
+            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            // Várias passadas: cada sistema avança o relógio lógico e o próprio gerador
+            for (int passada = 0; passada < PASSADAS; passada++) {
+                for (FormatoMensagem formato : new FormatoMensagem[]{FormatoMensagem.JSON, FormatoMensagem.BINARIO}) {
+                    exportacao.exportar(0, SISTEMAS, formato, paralelismo,
+                            new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
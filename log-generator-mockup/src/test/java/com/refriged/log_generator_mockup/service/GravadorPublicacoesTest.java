@@ -0,0 +1,271 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.PropriedadesMensagemCodec;
+import com.refriged.log_generator_mockup.service.GravadorPublicacoes.RegistroGravado;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Gravação em blocos gzip com índice de tempo: leitura de um intervalo através de
+ * arquivos rotacionados, offsets do {@code .idx}, bloco final sem entrada no índice e
+ * retenção por quantidade de arquivos. Blocos fecham a cada 10 ms.
+ */
+class GravadorPublicacoesTest {
+
+    private static final String ROUTING_KEY = RabbitMQConfig.ROUTING_KEY_DADOS;
+    private static final int TAMANHO_ENTRADA_INDICE = 3 * Long.BYTES;
+    private static final long TIMEOUT_MS = 10_000;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void intervaloDeTempoAtravesDeArquivosRotacionados() throws Exception {
+        // Rotação a cada bloco: cada fase termina em um arquivo próprio
+        GravadorPublicacoes gravador = gravador(256, 0, 10);
+        long inicio;
+        long fim;
+        try {
+            gravarFase(gravador, "a", 3, 1);
+            inicio = System.currentTimeMillis();
+            gravarFase(gravador, "b", 3, 2);
+            fim = System.currentTimeMillis();
+            gravarFase(gravador, "c", 3, 3);
+        } finally {
+            gravador.encerrar();
+        }
+
+        assertEquals(3, arquivos(GravadorPublicacoes.EXTENSAO_GRAVACAO).size());
+        assertEquals(3, arquivos(GravadorPublicacoes.EXTENSAO_INDICE).size());
+        assertEquals(List.of("a0", "a1", "a2", "b0", "b1", "b2", "c0", "c1", "c2"),
+                corpos(ler(gravador, 0, Long.MAX_VALUE)));
+
+        List<RegistroGravado> registros = ler(gravador, inicio, fim);
+        assertEquals(List.of("b0", "b1", "b2"), corpos(registros));
+        for (RegistroGravado registro : registros) {
+            assertEquals(ROUTING_KEY, registro.routingKey());
+            assertEquals(MessageProperties.CONTENT_TYPE_JSON, registro.mensagem().getMessageProperties().getContentType());
+            assertEquals("SYS-1", registro.mensagem().getMessageProperties().getHeader(RabbitMQConfig.HEADER_SISTEMA));
+            assertTrue(registro.timestampMillis() >= inicio && registro.timestampMillis() <= fim);
+        }
+    }
+
+    @Test
+    void indiceApontaParaOInicioDeCadaBloco() throws Exception {
+        // Blocos de 1 KB com corpos de 300 bytes: no máximo quatro registros por bloco
+        GravadorPublicacoes gravador = gravador(1, 60, 10);
+        int mensagens = 12;
+        try {
+            for (int i = 0; i < mensagens; i++) {
+                gravador.registrar(ROUTING_KEY, mensagem(String.format("%03d", i) + "x".repeat(297)));
+            }
+            aguardar(gravador, "gravadas", mensagens);
+        } finally {
+            gravador.encerrar();
+        }
+
+        Path gravacao = arquivos(GravadorPublicacoes.EXTENSAO_GRAVACAO).get(0);
+        byte[] conteudo = Files.readAllBytes(gravacao);
+        ByteBuffer indice = ByteBuffer.wrap(Files.readAllBytes(indiceDe(gravacao)));
+        int blocos = indice.capacity() / TAMANHO_ENTRADA_INDICE;
+        assertEquals(0, indice.capacity() % TAMANHO_ENTRADA_INDICE);
+        assertTrue(blocos >= 3, "Blocos: " + blocos);
+
+        List<String> lidos = new ArrayList<>();
+        long offsetAnterior = -1;
+        for (int i = 0; i < blocos; i++) {
+            long primeiro = indice.getLong(i * TAMANHO_ENTRADA_INDICE);
+            long ultimo = indice.getLong(i * TAMANHO_ENTRADA_INDICE + Long.BYTES);
+            long offset = indice.getLong(i * TAMANHO_ENTRADA_INDICE + 2 * Long.BYTES);
+            long proximo = i + 1 < blocos
+                    ? indice.getLong((i + 1) * TAMANHO_ENTRADA_INDICE + 2 * Long.BYTES) : conteudo.length;
+            if (i == 0) {
+                assertEquals(0, offset);
+            } else {
+                assertTrue(offset > offsetAnterior, "Offset do bloco " + i + " fora de ordem");
+            }
+            assertTrue(primeiro <= ultimo);
+            offsetAnterior = offset;
+
+            // Cada bloco é um membro gzip completo que começa exatamente no offset
+            List<RegistroGravado> registros = registrosDoBloco(Arrays.copyOfRange(conteudo, (int) offset, (int) proximo));
+            assertTrue(registros.size() >= 1 && registros.size() <= 4, "Registros no bloco " + i + ": " + registros.size());
+            for (RegistroGravado registro : registros) {
+                assertTrue(registro.timestampMillis() >= primeiro && registro.timestampMillis() <= ultimo);
+                lidos.add(new String(registro.mensagem().getBody(), StandardCharsets.UTF_8).substring(0, 3));
+            }
+        }
+        assertEquals(Stream.iterate(0, i -> i + 1).limit(mensagens).map(i -> String.format("%03d", i)).toList(), lidos);
+    }
+
+    @Test
+    void blocoFinalSemEntradaNoIndice() throws Exception {
+        GravadorPublicacoes gravador = gravador(256, 60, 10);
+        try {
+            gravarFase(gravador, "a", 2, 1);
+            gravarFase(gravador, "b", 2, 2);
+        } finally {
+            gravador.encerrar();
+        }
+
+        // Queda entre a escrita do bloco e a do índice: um bloco completo sem entrada no
+        // índice, seguido de um bloco cortado no meio
+        Path gravacao = arquivos(GravadorPublicacoes.EXTENSAO_GRAVACAO).get(0);
+        long indiceAntes = Files.size(indiceDe(gravacao));
+        long depois = System.currentTimeMillis() + 60_000;
+        byte[] semIndice = bloco(depois, "sem-indice");
+        byte[] truncado = bloco(depois + 1, "truncado");
+        Files.write(gravacao, semIndice, StandardOpenOption.APPEND);
+        Files.write(gravacao, Arrays.copyOf(truncado, truncado.length / 2), StandardOpenOption.APPEND);
+        assertEquals(indiceAntes, Files.size(indiceDe(gravacao)));
+
+        assertEquals(List.of("a0", "a1", "b0", "b1", "sem-indice"), corpos(ler(gravador, 0, Long.MAX_VALUE)));
+        // O intervalo do último bloco indexado não cobre o bloco sem índice
+        assertEquals(List.of("sem-indice"), corpos(ler(gravador, depois, depois)));
+    }
+
+    @Test
+    void retencaoApagaOsArquivosMaisAntigos() throws Exception {
+        GravadorPublicacoes gravador = gravador(256, 0, 2);
+        try {
+            for (int fase = 0; fase < 4; fase++) {
+                gravarFase(gravador, "f" + fase + "-", 1, fase + 1);
+            }
+        } finally {
+            gravador.encerrar();
+        }
+
+        assertEquals(2, arquivos(GravadorPublicacoes.EXTENSAO_GRAVACAO).size());
+        assertEquals(2, arquivos(GravadorPublicacoes.EXTENSAO_INDICE).size());
+        for (Path gravacao : arquivos(GravadorPublicacoes.EXTENSAO_GRAVACAO)) {
+            assertTrue(Files.exists(indiceDe(gravacao)), "Índice removido sem a gravação: " + gravacao);
+        }
+        assertEquals(List.of("f2-0", "f3-0"), corpos(ler(gravador, 0, Long.MAX_VALUE)));
+    }
+
+    private GravadorPublicacoes gravador(int tamanhoBlocoKb, long rotacaoMinutos, int maxArquivos) {
+        GravadorPublicacoes gravador = new GravadorPublicacoes();
+        ReflectionTestUtils.setField(gravador, "habilitada", true);
+        ReflectionTestUtils.setField(gravador, "diretorio", diretorio.toString());
+        ReflectionTestUtils.setField(gravador, "routingKeys", new String[]{ROUTING_KEY});
+        ReflectionTestUtils.setField(gravador, "capacidadeAnel", 1024);
+        ReflectionTestUtils.setField(gravador, "tamanhoBlocoKb", tamanhoBlocoKb);
+        ReflectionTestUtils.setField(gravador, "intervaloBlocoMs", 10L);
+        ReflectionTestUtils.setField(gravador, "tamanhoArquivoMb", 256L);
+        ReflectionTestUtils.setField(gravador, "rotacaoMinutos", rotacaoMinutos);
+        ReflectionTestUtils.setField(gravador, "maxArquivos", maxArquivos);
+        gravador.iniciar();
+        return gravador;
+    }
+
+    /**
+     * Registra uma fase e espera seu bloco chegar ao disco. As pausas separam os
+     * timestamps das fases e os nomes dos arquivos, que têm resolução de milissegundo.
+     */
+    private static void gravarFase(GravadorPublicacoes gravador, String prefixo, int mensagens, long blocos)
+            throws InterruptedException {
+        Thread.sleep(5);
+        for (int i = 0; i < mensagens; i++) {
+            gravador.registrar(ROUTING_KEY, mensagem(prefixo + i));
+        }
+        aguardar(gravador, "blocos", blocos);
+        Thread.sleep(5);
+    }
+
+    private static void aguardar(GravadorPublicacoes gravador, String estatistica, long esperado)
+            throws InterruptedException {
+        long limite = System.currentTimeMillis() + TIMEOUT_MS;
+        while ((long) gravador.estatisticas().get(estatistica) < esperado) {
+            if (System.currentTimeMillis() > limite) {
+                fail(estatistica + " não chegou a " + esperado + ": " + gravador.estatisticas());
+            }
+            Thread.sleep(2);
+        }
+    }
+
+    private static Message mensagem(String corpo) {
+        MessageProperties propriedades = new MessageProperties();
+        propriedades.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        propriedades.setHeader(RabbitMQConfig.HEADER_SISTEMA, "SYS-1");
+        return new Message(corpo.getBytes(StandardCharsets.UTF_8), propriedades);
+    }
+
+    private static List<RegistroGravado> ler(GravadorPublicacoes gravador, long inicio, long fim) throws IOException {
+        List<RegistroGravado> registros = new ArrayList<>();
+        gravador.percorrer(inicio, fim, registros::add);
+        return registros;
+    }
+
+    private static List<String> corpos(List<RegistroGravado> registros) {
+        return registros.stream().map(registro -> new String(registro.mensagem().getBody(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private List<Path> arquivos(String extensao) throws IOException {
+        try (Stream<Path> listagem = Files.list(diretorio)) {
+            return listagem.filter(arquivo -> arquivo.getFileName().toString().endsWith(extensao)).sorted().toList();
+        }
+    }
+
+    private static Path indiceDe(Path gravacao) {
+        String nome = gravacao.getFileName().toString();
+        return gravacao.resolveSibling(nome.substring(0, nome.length() - GravadorPublicacoes.EXTENSAO_GRAVACAO.length())
+                + GravadorPublicacoes.EXTENSAO_INDICE);
+    }
+
+    // Bloco no mesmo formato do gravador: membro gzip com um registro
+    private static byte[] bloco(long timestamp, String corpo) throws IOException {
+        ByteArrayOutputStream comprimido = new ByteArrayOutputStream();
+        try (DataOutputStream saida = new DataOutputStream(new GZIPOutputStream(comprimido))) {
+            Message mensagem = mensagem(corpo);
+            saida.writeLong(timestamp);
+            saida.writeUTF(ROUTING_KEY);
+            PropriedadesMensagemCodec.escrever(mensagem.getMessageProperties(), saida);
+            saida.writeInt(mensagem.getBody().length);
+            saida.write(mensagem.getBody());
+        }
+        return comprimido.toByteArray();
+    }
+
+    private static List<RegistroGravado> registrosDoBloco(byte[] bloco) throws IOException {
+        List<RegistroGravado> registros = new ArrayList<>();
+        try (DataInputStream entrada = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(bloco)))) {
+            while (true) {
+                long timestamp = entrada.readLong();
+                String routingKey = entrada.readUTF();
+                MessageProperties propriedades = PropriedadesMensagemCodec.ler(entrada);
+                byte[] corpo = new byte[entrada.readInt()];
+                entrada.readFully(corpo);
+                registros.add(new RegistroGravado(timestamp, routingKey, new Message(corpo, propriedades)));
+            }
+        } catch (EOFException e) {
+            return registros;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.AlertasProperties;
+import com.refriged.log_generator_mockup.model.LeituraRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.CampoLeitura;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compilação das regras de alerta (padrão, sobrescritas e validação) e avaliação dos
+ * bitmasks de disparo e de resolução.
+ */
+class MotorRegrasAlertaTest {
+
+    @Test
+    void regrasPadraoSaoDerivadasDosLimites() {
+        MotorRegrasAlerta motor = motor(new AlertasProperties());
+        MotorRegrasAlerta.TabelaRegras tabela = motor.tabelaPara("SYS-1");
+
+        assertEquals(6, tabela.quantidade());
+        assertEquals("TEMPERATURA_CRITICA", tabela.tipo(0));
+        assertEquals("HIGH", tabela.severidade(0));
+
+        LeituraRefrigeracao normal = leitura(-18.0, 5.0, 20.0, StatusSistema.OPERACIONAL);
+        assertEquals(0, tabela.avaliar(normal));
+
+        long disparos = tabela.avaliar(leitura(2.0, 5.0, 45.0, StatusSistema.CRITICO));
+        assertEquals(List.of("TEMPERATURA_CRITICA", "STATUS_CRITICO", "CONSUMO_ELEVADO"), tipos(tabela, disparos));
+    }
+
+    @Test
+    void resolucaoDescontaAHisterese() {
+        MotorRegrasAlerta.TabelaRegras tabela = motor(comRegras(
+                faixa("TEMPERATURA_CRITICA", CampoLeitura.TEMPERATURA, -30.0, 0.0, 1.0, "%.1f"))).tabelaPara(null);
+
+        // Entre 0 e -1 não dispara, mas também não conta como resolvida
+        LeituraRefrigeracao histerese = leitura(-0.5, 5.0, 20.0, StatusSistema.OPERACIONAL);
+        assertEquals(0, tabela.avaliar(histerese));
+        assertEquals(0, tabela.avaliarResolvidas(histerese));
+
+        assertEquals(1, tabela.avaliarResolvidas(leitura(-1.0, 5.0, 20.0, StatusSistema.OPERACIONAL)));
+        assertEquals(1, tabela.avaliar(leitura(-30.5, 5.0, 20.0, StatusSistema.OPERACIONAL)));
+    }
+
+    @Test
+    void sobrescritasAjustamApenasOSistemaInformado() {
+        AlertasProperties properties = new AlertasProperties();
+        AlertasProperties.Regra maximo = new AlertasProperties.Regra();
+        maximo.setTipo("TEMPERATURA_CRITICA");
+        maximo.setMaximo(-20.0);
+        AlertasProperties.Regra desligada = new AlertasProperties.Regra();
+        desligada.setTipo("CONSUMO_ELEVADO");
+        desligada.setHabilitada(false);
+        properties.setSobrescritas(Map.of("SYS-1", List.of(maximo, desligada)));
+        MotorRegrasAlerta motor = motor(properties);
+
+        LeituraRefrigeracao leitura = leitura(-18.0, 5.0, 45.0, StatusSistema.OPERACIONAL);
+        MotorRegrasAlerta.TabelaRegras sobrescrita = motor.tabelaPara("SYS-1");
+        assertEquals(5, sobrescrita.quantidade());
+        assertEquals(List.of("TEMPERATURA_CRITICA"), tipos(sobrescrita, sobrescrita.avaliar(leitura)));
+
+        MotorRegrasAlerta.TabelaRegras padrao = motor.tabelaPara("SYS-2");
+        assertSame(padrao, motor.tabelaPara(null));
+        assertEquals(List.of("CONSUMO_ELEVADO"), tipos(padrao, padrao.avaliar(leitura)));
+    }
+
+    @Test
+    void descricaoRecebeOValorDoCampo() {
+        MotorRegrasAlerta.TabelaRegras tabela = motor(new AlertasProperties()).tabelaPara(null);
+        LeituraRefrigeracao leitura = leitura(2.5, 5.0, 20.0, StatusSistema.CRITICO);
+
+        assertEquals(String.format("Temperatura fora do range seguro: %.2f°C", 2.5), tabela.descrever(0, leitura));
+        assertEquals("Sistema em estado crítico: " + StatusSistema.CRITICO.getDescricao(), tabela.descrever(2, leitura));
+    }
+
+    @Test
+    void regrasInvalidasSaoRecusadasSemTrocarAsAtuais() {
+        MotorRegrasAlerta motor = motor(new AlertasProperties());
+        MotorRegrasAlerta.TabelaRegras atual = motor.tabelaPara(null);
+
+        AlertasProperties.Regra semCampo = faixa("SEM_CAMPO", null, 0.0, 1.0, null, null);
+        AlertasProperties.Regra semLimites = faixa("SEM_LIMITES", CampoLeitura.PRESSAO, null, null, null, null);
+        AlertasProperties.Regra histerese = faixa("HISTERESE", CampoLeitura.PRESSAO, 1.0, 2.0, 0.6, null);
+        AlertasProperties.Regra formato = faixa("FORMATO", CampoLeitura.PRESSAO, 1.0, 2.0, null, "Pressão: %d Bar");
+        AlertasProperties.Regra incompleto = faixa("INCOMPLETO", CampoLeitura.PRESSAO, 1.0, 2.0, null, "Pressão: %");
+        AlertasProperties.Regra status = new AlertasProperties.Regra();
+        status.setTipo("STATUS");
+        status.setCampo(CampoLeitura.STATUS);
+        status.setStatus(List.of(StatusSistema.PARADO));
+        status.setDescricao("Parado: %.2f");
+
+        for (AlertasProperties.Regra regra : List.of(semCampo, semLimites, histerese, formato, incompleto, status)) {
+            AlertasProperties properties = comRegras(regra);
+            assertThrows(IllegalArgumentException.class, () -> motor.recarregar(properties), regra.getTipo());
+        }
+        assertSame(atual, motor.tabelaPara(null));
+    }
+
+    @Test
+    void limiteDeRegrasPorTabela() {
+        AlertasProperties properties = new AlertasProperties();
+        for (int i = 0; i <= MotorRegrasAlerta.MAX_REGRAS; i++) {
+            properties.getRegras().add(faixa("REGRA_" + i, CampoLeitura.UMIDADE, 0.0, 100.0, null, null));
+        }
+
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class, () -> motor(properties));
+        assertTrue(erro.getMessage().contains(String.valueOf(MotorRegrasAlerta.MAX_REGRAS)));
+    }
+
+    private static MotorRegrasAlerta motor(AlertasProperties properties) {
+        MotorRegrasAlerta motor = new MotorRegrasAlerta(properties, new StandardEnvironment());
+        motor.recarregar(properties);
+        return motor;
+    }
+
+    private static AlertasProperties comRegras(AlertasProperties.Regra... regras) {
+        AlertasProperties properties = new AlertasProperties();
+        properties.setRegras(List.of(regras));
+        return properties;
+    }
+
+    private static AlertasProperties.Regra faixa(String tipo, CampoLeitura campo, Double minimo, Double maximo,
+                                                 Double histerese, String descricao) {
+        AlertasProperties.Regra regra = new AlertasProperties.Regra();
+        regra.setTipo(tipo);
+        regra.setCampo(campo);
+        regra.setMinimo(minimo);
+        regra.setMaximo(maximo);
+        regra.setHisterese(histerese);
+        regra.setDescricao(descricao);
+        return regra;
+    }
+
+    private static LeituraRefrigeracao leitura(double temperatura, double pressao, double consumo, StatusSistema status) {
+        LeituraRefrigeracao leitura = new LeituraRefrigeracao();
+        leitura.setSistemaId("SYS-1");
+        leitura.setTemperatura(temperatura);
+        leitura.setPressao(pressao);
+        leitura.setUmidade(50.0);
+        leitura.setConsumoEnergia(consumo);
+        leitura.setVelocidadeCompressor(1500.0);
+        leitura.setStatus(status);
+        return leitura;
+    }
+
+    private static List<String> tipos(MotorRegrasAlerta.TabelaRegras tabela, long bits) {
+        return IntStream.range(0, tabela.quantidade())
+                .filter(regra -> (bits & (1L << regra)) != 0)
+                .mapToObj(tabela::tipo)
+                .toList();
+    }
+}
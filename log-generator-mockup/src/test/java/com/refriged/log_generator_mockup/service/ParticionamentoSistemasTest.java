@@ -0,0 +1,130 @@
+package com.refriged.log_generator_mockup.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Estabilidade do anel de hashing consistente: ao entrar ou sair um nó, só mudam de dono
+ * as chaves que vão para o nó novo ou que eram do nó que saiu. Cobre IDs simulados
+ * ({@code SYS-n}) e avulsos.
+ */
+class ParticionamentoSistemasTest {
+
+    private static final List<String> CHAVES = Stream.concat(
+                    IntStream.rangeClosed(1, 20_000).mapToObj(numero -> "SYS-" + numero),
+                    IntStream.range(0, 2_000).mapToObj(numero -> "CAMARA-" + numero))
+            .toList();
+
+    @TempDir
+    Path diretorio;
+
+    private final List<ParticionamentoSistemas> instancias = new ArrayList<>();
+
+    @AfterEach
+    void encerrar() {
+        instancias.forEach(ParticionamentoSistemas::encerrar);
+    }
+
+    @Test
+    void entradaDeNoSoMoveChavesParaONovo() {
+        Map<String, String> antes = donos(particionamento("no-1", "no-1", "no-2", "no-3"));
+        Map<String, String> depois = donos(particionamento("no-1", "no-1", "no-2", "no-3", "no-4"));
+
+        long movidas = 0;
+        for (String chave : CHAVES) {
+            if (!antes.get(chave).equals(depois.get(chave))) {
+                assertEquals("no-4", depois.get(chave), chave + " mudou para um nó que já existia");
+                movidas++;
+            }
+        }
+        // Cerca de um quarto das chaves vai para o nó novo
+        assertFracao(movidas, 0.15, 0.35);
+    }
+
+    @Test
+    void saidaDeNoSoMoveAsChavesDele() {
+        Map<String, String> antes = donos(particionamento("no-1", "no-1", "no-2", "no-3", "no-4"));
+        Map<String, String> depois = donos(particionamento("no-1", "no-1", "no-3", "no-4"));
+
+        for (String chave : CHAVES) {
+            if (antes.get(chave).equals("no-2")) {
+                assertNotEquals("no-2", depois.get(chave), chave);
+            } else {
+                assertEquals(antes.get(chave), depois.get(chave), chave + " mudou de dono sem o dono sair");
+            }
+        }
+    }
+
+    @Test
+    void donoIndependeDaOrdemDosMembrosEDoNoLocal() {
+        Map<String, String> referencia = donos(particionamento("no-1", "no-1", "no-2", "no-3"));
+
+        assertEquals(referencia, donos(particionamento("no-3", "no-3", "no-1", "no-2")));
+        assertEquals(referencia, donos(particionamento("externo", " no-2 ", "no-1", "no-3", "no-1")));
+    }
+
+    @Test
+    void chavesDistribuidasDeFormaEquilibrada() {
+        Map<String, String> donos = donos(particionamento("no-1", "no-1", "no-2", "no-3", "no-4"));
+
+        Map<String, Long> porNo = new HashMap<>();
+        donos.values().forEach(dono -> porNo.merge(dono, 1L, Long::sum));
+        assertEquals(4, porNo.size());
+        porNo.values().forEach(quantidade -> assertFracao(quantidade, 0.15, 0.35));
+    }
+
+    @Test
+    void semMembrosNaoHaDono() {
+        ParticionamentoSistemas vazio = particionamento("no-1");
+
+        assertNull(vazio.dono("SYS-1"));
+        assertFalse(vazio.pertence("SYS-1"));
+        assertTrue(particionamento(null).pertence("SYS-1"), "Desabilitado, todo sistema é local");
+    }
+
+    /** Instância com o nó local {@code noId} e os membros informados; {@code noId} nulo desabilita. */
+    private ParticionamentoSistemas particionamento(String noId, String... nos) {
+        ParticionamentoSistemas particionamento = new ParticionamentoSistemas(mock(EstadoSensores.class),
+                mock(DeduplicadorAlertas.class), mock(MotorRegrasAlerta.class));
+        ReflectionTestUtils.setField(particionamento, "habilitado", noId != null);
+        ReflectionTestUtils.setField(particionamento, "noId", noId != null ? noId : "no-1");
+        ReflectionTestUtils.setField(particionamento, "nos", nos);
+        ReflectionTestUtils.setField(particionamento, "arquivoMembros", "");
+        ReflectionTestUtils.setField(particionamento, "diretorioTransferencia", diretorio.toString());
+        ReflectionTestUtils.setField(particionamento, "nosVirtuais", 128);
+        // Sem ciclos do verificador durante o teste
+        ReflectionTestUtils.setField(particionamento, "intervaloVerificacaoMs", 600_000L);
+        ReflectionTestUtils.setField(particionamento, "carenciaMs", 0L);
+        particionamento.iniciar();
+        instancias.add(particionamento);
+        return particionamento;
+    }
+
+    private static Map<String, String> donos(ParticionamentoSistemas particionamento) {
+        Map<String, String> donos = new HashMap<>();
+        CHAVES.forEach(chave -> donos.put(chave, particionamento.dono(chave)));
+        return donos;
+    }
+
+    private static void assertFracao(long quantidade, double minimo, double maximo) {
+        double fracao = (double) quantidade / CHAVES.size();
+        assertTrue(fracao >= minimo && fracao <= maximo, "Fração fora de [" + minimo + ", " + maximo + "]: " + fracao);
+    }
+}
@@ -0,0 +1,106 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.LogGeneratorMockupApplication;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vazão de publicação com o perfil alta-vazao contra um RabbitMQ real, variando o número
+ * de threads produtoras (e, junto, as threads de envio e as conexões). Cada contagem roda
+ * num contexto novo e só termina quando todas as mensagens foram confirmadas pelo broker.
+ * Roda apenas com o perfil Maven benchmark; sem Docker o teste é ignorado.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class RabbitMQBatchPublisherVazaoTest {
+
+    private static final int MENSAGENS = 200_000;
+    private static final int SISTEMAS = 1_000;
+    private static final long TIMEOUT_MS = 120_000;
+
+    @Container
+    private static final RabbitMQContainer RABBITMQ = new RabbitMQContainer("rabbitmq:3.13-management-alpine");
+
+    @Test
+    void vazaoPorNumeroDeThreadsProdutoras() throws Exception {
+        Map<Integer, Double> vazoes = new LinkedHashMap<>();
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            vazoes.put(threads, medirVazao(threads));
+        }
+
+        // Faixas e conexões a mais devem render mais que a publicação com uma thread só
+        assertTrue(vazoes.get(8) > vazoes.get(1), "Vazão por número de threads (msg/s): " + vazoes);
+    }
+
+    private static double medirVazao(int threads) throws Exception {
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(LogGeneratorMockupApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=alta-vazao",
+                        "--spring.rabbitmq.host=" + RABBITMQ.getHost(),
+                        "--spring.rabbitmq.port=" + RABBITMQ.getAmqpPort(),
+                        "--app.refrigeracao.publicacao.lote.threads-envio=" + threads,
+                        "--app.refrigeracao.publicacao.conexao.quantidade=" + threads,
+                        "--app.refrigeracao.publicacao.controle-vazao.habilitado=false",
+                        "--app.refrigeracao.agregacao.habilitada=false")) {
+            RabbitMQBatchPublisher publicador = contexto.getBean(RabbitMQBatchPublisher.class);
+            List<SistemaRefrigeracao> leituras = contexto.getBean(RefrigeracaoDataService.class)
+                    .gerarDadosMultiplosSistemas(SISTEMAS);
+            AmqpAdmin admin = contexto.getBean(AmqpAdmin.class);
+            admin.purgeQueue(RabbitMQConfig.FILA_DADOS_REFRIGERACAO, false);
+
+            int porThread = MENSAGENS / threads;
+            List<Thread> produtores = new ArrayList<>();
+            long inicio = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int deslocamento = t;
+                Thread produtor = new Thread(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        publicador.enfileirar(RabbitMQConfig.ROUTING_KEY_DADOS,
+                                leituras.get((i * threads + deslocamento) % SISTEMAS));
+                    }
+                }, "produtor-" + t);
+                produtor.start();
+                produtores.add(produtor);
+            }
+            for (Thread produtor : produtores) {
+                produtor.join();
+            }
+            publicador.flushTodos();
+
+            long esperado = (long) porThread * threads;
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+            while (confirmadas(publicador) < esperado && System.nanoTime() < limite) {
+                Thread.sleep(5);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            assertEquals(esperado, confirmadas(publicador), "Mensagens confirmadas com " + threads + " threads");
+            assertEquals(0L, publicador.estatisticas().get("nacks"));
+            admin.purgeQueue(RabbitMQConfig.FILA_DADOS_REFRIGERACAO, false);
+            return esperado / segundos;
+        }
+    }
+
+    private static long confirmadas(RabbitMQBatchPublisher publicador) {
+        return (long) publicador.estatisticas().get("confirmadas");
+    }
+}
@@ -0,0 +1,194 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+import com.refriged.log_generator_mockup.converter.TelemetriaBinariaMessageConverter;
+import com.refriged.log_generator_mockup.model.SistemaRefrigeracao;
+import com.refriged.log_generator_mockup.utils.enums.FormatoMensagem;
+import com.refriged.log_generator_mockup.utils.enums.StatusSistema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Leitura das gravações em janelas mapeadas de 1 MB: registros que cruzam o fim da
+ * janela passam inteiros para a seguinte, no NDJSON e nos quadros binários. Cobre também
+ * a extração do timestamp das linhas NDJSON, pelo ritmo da reprodução, e a restrição
+ * da routing key às declaradas no {@link RabbitMQConfig}.
+ */
+class ReproducaoServiceTest {
+
+    private static final long TIMEOUT_MS = 30_000;
+
+    @TempDir
+    Path diretorio;
+
+    private final RabbitMQBatchPublisher batchPublisher = mock(RabbitMQBatchPublisher.class);
+    private final List<Message> publicadas = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> instantesNanos = Collections.synchronizedList(new ArrayList<>());
+    private ReproducaoService reproducao;
+
+    @BeforeEach
+    void preparar() {
+        doAnswer(invocacao -> {
+            instantesNanos.add(System.nanoTime());
+            publicadas.add(invocacao.getArgument(1));
+            return null;
+        }).when(batchPublisher).enfileirarMensagem(eq(RabbitMQConfig.ROUTING_KEY_DADOS), any(Message.class));
+
+        reproducao = new ReproducaoService(batchPublisher);
+        ReflectionTestUtils.setField(reproducao, "diretorio", diretorio.toString());
+        ReflectionTestUtils.setField(reproducao, "janelaMapeamentoMb", 1);
+    }
+
+    @AfterEach
+    void encerrar() {
+        reproducao.encerrar();
+    }
+
+    @Test
+    void linhasNdjsonQueCruzamAJanelaChegamInteiras() throws Exception {
+        List<String> linhas = new ArrayList<>();
+        StringBuilder arquivo = new StringBuilder();
+        for (int i = 0; arquivo.length() < 3 * 1024 * 1024 / 2; i++) {
+            String linha = "{\"sistemaId\":\"SYS-" + i + "\",\"observacoes\":\"" + "x".repeat(i % 97)
+                    + "\",\"timestamp\":\"2024-01-15 10:30:45\"}";
+            linhas.add(linha);
+            // Terminações CRLF e linhas vazias são aceitas; a última linha não tem quebra
+            arquivo.append(linha).append(i % 7 == 0 ? "\r\n" : "\n");
+            if (i % 1000 == 0) {
+                arquivo.append('\n');
+            }
+        }
+        arquivo.setLength(arquivo.length() - 1);
+        Files.writeString(diretorio.resolve("leituras.ndjson"), arquivo, StandardCharsets.UTF_8);
+
+        Map<String, Object> status = reproduzir("leituras.ndjson", null, 0);
+
+        assertEquals(linhas.size(), publicadas.size());
+        for (int i = 0; i < linhas.size(); i++) {
+            assertEquals(linhas.get(i), new String(publicadas.get(i).getBody(), StandardCharsets.UTF_8), "Linha " + i);
+        }
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, publicadas.get(0).getMessageProperties().getContentType());
+        assertEquals(status.get("tamanhoBytes"), status.get("posicaoBytes"));
+    }
+
+    @Test
+    void quadrosBinariosQueCruzamAJanelaChegamInteiros() throws Exception {
+        TelemetriaBinariaMessageConverter conversor = new TelemetriaBinariaMessageConverter();
+        List<byte[]> corpos = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream arquivo = new DataOutputStream(bytes);
+        // Quadros de 48 bytes: 1 MB não é múltiplo, o quadro da borda fica dividido
+        for (int i = 0; bytes.size() < 3 * 1024 * 1024 / 2; i++) {
+            byte[] corpo = conversor.toMessage(sistema(i), new MessageProperties()).getBody();
+            corpos.add(corpo);
+            arquivo.writeInt(corpo.length);
+            arquivo.write(corpo);
+        }
+        // Quadro final truncado é descartado
+        arquivo.writeInt(44);
+        arquivo.write(new byte[10]);
+        Files.write(diretorio.resolve("leituras.bin"), bytes.toByteArray());
+
+        Map<String, Object> status = reproduzir("leituras.bin", null, 0);
+
+        assertEquals(corpos.size(), publicadas.size());
+        for (int i = 0; i < corpos.size(); i++) {
+            assertArrayEquals(corpos.get(i), publicadas.get(i).getBody(), "Quadro " + i);
+        }
+        assertEquals(TelemetriaBinariaMessageConverter.CONTENT_TYPE, publicadas.get(0).getMessageProperties().getContentType());
+        assertEquals(status.get("tamanhoBytes"), status.get("posicaoBytes"));
+        assertFalse(status.containsKey("erro"));
+    }
+
+    @Test
+    void ritmoSegueOsTimestampsDasLinhas() throws Exception {
+        // Velocidade 5: 1 s de gravação vira 200 ms. Linhas sem timestamp legível não esperam
+        Files.writeString(diretorio.resolve("ritmo.ndjson"), String.join("\n",
+                "{\"sistemaId\":\"SYS-1\",\"timestamp\":\"2024-01-15 10:30:45\"}",
+                "{\"timestamp\" : \"2024-01-15T10:30:46\",\"sistemaId\":\"SYS-2\"}",
+                "{\"sistemaId\":\"SYS-3\",\"timestamp\":\"2024-01-15 10:30:46.500\"}",
+                "{\"sistemaId\":\"SYS-4\",\"timestamp\":\"ontem\"}",
+                "{\"sistemaId\":\"SYS-5\"}",
+                "{\"sistemaId\":\"SYS-6\",\"timestamp\":\"2024-01-15 10:30:47\"}"), StandardCharsets.UTF_8);
+
+        reproduzir("ritmo.ndjson", FormatoMensagem.JSON, 5);
+
+        assertEquals(6, publicadas.size());
+        assertIntervalo(0, 1, 200);
+        assertIntervalo(1, 2, 100);
+        assertIntervalo(2, 3, 0);
+        assertIntervalo(3, 4, 0);
+        assertIntervalo(4, 5, 100);
+    }
+
+    @Test
+    void routingKeyForaDasDeclaradasERecusada() throws Exception {
+        Files.writeString(diretorio.resolve("leituras.ndjson"), "{}\n");
+
+        IllegalArgumentException erro = assertThrows(IllegalArgumentException.class,
+                () -> reproducao.iniciar("leituras.ndjson", null, 0, "refrigeracao.dados.123", false));
+        assertTrue(erro.getMessage().contains(RabbitMQConfig.ROUTING_KEY_DADOS));
+        assertFalse((boolean) reproducao.status().get("ativa"));
+    }
+
+    private Map<String, Object> reproduzir(String arquivo, FormatoMensagem formato, double velocidade)
+            throws InterruptedException {
+        reproducao.iniciar(arquivo, formato, velocidade, RabbitMQConfig.ROUTING_KEY_DADOS, false);
+        long limite = System.currentTimeMillis() + TIMEOUT_MS;
+        while ((boolean) reproducao.status().get("ativa")) {
+            if (System.currentTimeMillis() > limite) {
+                fail("Reprodução não terminou: " + reproducao.status());
+            }
+            Thread.sleep(5);
+        }
+        return reproducao.status();
+    }
+
+    // O agendamento só atrasa: o intervalo medido fica entre o esperado e uma folga
+    private void assertIntervalo(int anterior, int seguinte, long esperadoMs) {
+        long medidoMs = (instantesNanos.get(seguinte) - instantesNanos.get(anterior)) / 1_000_000;
+        assertTrue(medidoMs >= esperadoMs - 5 && medidoMs <= esperadoMs + 80,
+                "Intervalo entre " + anterior + " e " + seguinte + ": " + medidoMs + " ms, esperado " + esperadoMs);
+    }
+
+    private static SistemaRefrigeracao sistema(int i) {
+        return SistemaRefrigeracao.builder()
+                .sistemaId("SYS-" + (i + 1))
+                .timestamp(LocalDateTime.of(2024, 1, 15, 10, 30).plusSeconds(i))
+                .temperatura(-18.0 + i % 10)
+                .pressao(7.0)
+                .umidade(60.0)
+                .status(StatusSistema.OPERACIONAL)
+                .consumoEnergia(30.0)
+                .velocidadeCompressor(2500.0)
+                .build();
+    }
+}
@@ -0,0 +1,244 @@
+package com.refriged.log_generator_mockup.service;
+
+import com.refriged.log_generator_mockup.LogGeneratorMockupApplication;
+import com.refriged.log_generator_mockup.config.RabbitMQConfig;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.Container.ExecResult;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Spool de publicação contra um RabbitMQ real: o que foi gravado com o broker fora do ar
+ * chega inteiro e na ordem de gravação, inclusive depois de reiniciar a aplicação sobre
+ * um registro final incompleto ou com o checkpoint no fim de um segmento. Segmentos de
+ * 1 MB com corpos de 100 KB, dez registros por segmento. Sem Docker o teste é ignorado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SpoolPublicacaoTest {
+
+    private static final String ROUTING_KEY = RabbitMQConfig.ROUTING_KEY_DADOS;
+    private static final String FILA = RabbitMQConfig.FILA_DADOS_REFRIGERACAO;
+    private static final int TAMANHO_CORPO = 100_000;
+    private static final int CABECALHO_REGISTRO = 8;
+    private static final long TIMEOUT_MS = 60_000;
+
+    @Container
+    private static final RabbitMQContainer RABBITMQ = new RabbitMQContainer("rabbitmq:3.13-management-alpine");
+
+    @TempDir
+    Path diretorio;
+
+    @BeforeEach
+    void esvaziarFila() {
+        CachingConnectionFactory conexao = new CachingConnectionFactory(RABBITMQ.getHost(), RABBITMQ.getAmqpPort());
+        try {
+            RabbitAdmin admin = new RabbitAdmin(conexao);
+            if (admin.getQueueInfo(FILA) != null) {
+                admin.purgeQueue(FILA, false);
+            }
+        } finally {
+            conexao.destroy();
+        }
+    }
+
+    @Test
+    void entregaEmOrdemOQueFoiGravadoComOBrokerParado() throws Exception {
+        int mensagens = 25;
+        try (ConfigurableApplicationContext contexto = contexto(RABBITMQ.getAmqpPort())) {
+            SpoolPublicacao spool = contexto.getBean(SpoolPublicacao.class);
+
+            rabbitmqctl("stop_app");
+            try {
+                for (int i = 0; i < mensagens; i++) {
+                    spool.gravar(ROUTING_KEY, mensagem(i));
+                }
+                // Algumas tentativas de drenagem falham antes de o broker voltar
+                aguardar(() -> ((Number) spool.estatisticas().get("falhas")).longValue() > 0);
+                assertEquals(0L, spool.estatisticas().get("confirmadas"));
+            } finally {
+                rabbitmqctl("start_app");
+            }
+
+            assertEquals(sequencia(0, mensagens), receber(contexto, mensagens));
+        }
+    }
+
+    @Test
+    void registroFinalIncompletoEDescartadoNaRecuperacao() throws Exception {
+        gravarSemBroker(0, 5);
+        Path segmento = segmentos().get(0);
+        int fim = fimDosRegistros(segmento);
+
+        // Cabeçalho já escrito, corpo pela metade: o CRC não confere
+        ByteBuffer rasgado = ByteBuffer.allocate(CABECALHO_REGISTRO + TAMANHO_CORPO / 2);
+        rasgado.putInt(TAMANHO_CORPO + 32).putInt(0x5EED5EED);
+        while (rasgado.hasRemaining()) {
+            rasgado.put((byte) 0x7F);
+        }
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.write(rasgado.flip(), fim);
+        }
+
+        try (ConfigurableApplicationContext contexto = contexto(RABBITMQ.getAmqpPort())) {
+            contexto.getBean(SpoolPublicacao.class).gravar(ROUTING_KEY, mensagem(5));
+
+            assertEquals(sequencia(0, 6), receber(contexto, 6));
+        }
+    }
+
+    @Test
+    void checkpointNoFimDeUmSegmentoNaoReenviaNemPerdeRegistros() throws Exception {
+        int mensagens = 25;
+        gravarSemBroker(0, mensagens);
+        List<Path> segmentos = segmentos();
+        assertTrue(segmentos.size() >= 2, "Esperados ao menos dois segmentos: " + segmentos);
+        Path primeiro = segmentos.get(0);
+        int noPrimeiro = contarRegistros(primeiro);
+
+        // Tudo do primeiro segmento confirmado, ainda sem avançar para o seguinte
+        ByteBuffer checkpoint = ByteBuffer.allocate(12).putLong(sequenciaDe(primeiro)).putInt(fimDosRegistros(primeiro));
+        try (FileChannel canal = FileChannel.open(pasta().resolve("checkpoint"), StandardOpenOption.WRITE)) {
+            canal.write(checkpoint.flip(), 0);
+        }
+
+        try (ConfigurableApplicationContext contexto = contexto(RABBITMQ.getAmqpPort())) {
+            assertEquals(sequencia(noPrimeiro, mensagens), receber(contexto, mensagens - noPrimeiro));
+            // O segmento confirmado é apagado quando o checkpoint passa para o seguinte
+            aguardar(() -> Files.notExists(primeiro));
+        }
+    }
+
+    private ConfigurableApplicationContext contexto(int portaBroker) {
+        return new SpringApplicationBuilder(LogGeneratorMockupApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.rabbitmq.host=" + RABBITMQ.getHost(),
+                        "--spring.rabbitmq.port=" + portaBroker,
+                        "--app.refrigeracao.publicacao.spool.habilitado=true",
+                        "--app.refrigeracao.publicacao.spool.diretorio=" + diretorio,
+                        "--app.refrigeracao.publicacao.spool.tamanho-segmento-mb=1",
+                        "--app.refrigeracao.publicacao.spool.espera-maxima-ms=500",
+                        "--app.refrigeracao.publicacao.controle-vazao.habilitado=false");
+    }
+
+    // Porta sem broker: cada tentativa de drenagem falha e os registros ficam no spool
+    private void gravarSemBroker(int de, int ate) {
+        try (ConfigurableApplicationContext contexto = contexto(1)) {
+            SpoolPublicacao spool = contexto.getBean(SpoolPublicacao.class);
+            for (int i = de; i < ate; i++) {
+                spool.gravar(ROUTING_KEY, mensagem(i));
+            }
+        }
+    }
+
+    private static Message mensagem(int numero) {
+        byte[] corpo = new byte[TAMANHO_CORPO];
+        ByteBuffer.wrap(corpo).putInt(numero);
+        MessageProperties propriedades = new MessageProperties();
+        propriedades.setContentType(MessageProperties.CONTENT_TYPE_BYTES);
+        return new Message(corpo, propriedades);
+    }
+
+    private static List<Integer> receber(ConfigurableApplicationContext contexto, int quantidade) {
+        RabbitTemplate template = contexto.getBean(RabbitTemplate.class);
+        List<Integer> recebidas = new ArrayList<>();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (recebidas.size() < quantidade && System.nanoTime() < limite) {
+            Message mensagem = template.receive(FILA, 1_000);
+            if (mensagem != null) {
+                recebidas.add(ByteBuffer.wrap(mensagem.getBody()).getInt());
+            }
+        }
+        // Nada além do esperado: sem reenvios depois da recuperação
+        Message sobra = template.receive(FILA, 1_000);
+        if (sobra != null) {
+            recebidas.add(ByteBuffer.wrap(sobra.getBody()).getInt());
+        }
+        return recebidas;
+    }
+
+    private static List<Integer> sequencia(int de, int ate) {
+        return IntStream.range(de, ate).boxed().toList();
+    }
+
+    private Path pasta() {
+        return diretorio.resolve(ROUTING_KEY);
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(pasta())) {
+            return arquivos.filter(arquivo -> arquivo.getFileName().toString().endsWith(".seg"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenciaDe(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(0, nome.length() - ".seg".length()));
+    }
+
+    private static int fimDosRegistros(Path segmento) throws IOException {
+        return percorrer(segmento)[0];
+    }
+
+    private static int contarRegistros(Path segmento) throws IOException {
+        return percorrer(segmento)[1];
+    }
+
+    // Segue os tamanhos dos registros até o primeiro zero: {fim, quantidade}
+    private static int[] percorrer(Path segmento) throws IOException {
+        ByteBuffer conteudo = ByteBuffer.wrap(Files.readAllBytes(segmento));
+        int posicao = 0;
+        int registros = 0;
+        while (posicao + CABECALHO_REGISTRO <= conteudo.capacity() && conteudo.getInt(posicao) > 0) {
+            posicao += CABECALHO_REGISTRO + conteudo.getInt(posicao);
+            registros++;
+        }
+        return new int[]{posicao, registros};
+    }
+
+    private static void rabbitmqctl(String comando) throws Exception {
+        ExecResult resultado = RABBITMQ.execInContainer("rabbitmqctl", comando);
+        assertEquals(0, resultado.getExitCode(), resultado.getStderr());
+    }
+
+    private static void aguardar(Condicao condicao) throws Exception {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (!condicao.satisfeita()) {
+            assertTrue(System.nanoTime() < limite, "Condição não atingida em " + TIMEOUT_MS + " ms");
+            Thread.sleep(50);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Condicao {
+        boolean satisfeita() throws Exception;
+    }
+}